@@ -1,8 +1,10 @@
 package phylo.alignment;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
 public class FastaAlignmentFileWriter extends AligmentFileWriter{
@@ -27,21 +29,17 @@ public class FastaAlignmentFileWriter extends AligmentFileWriter{
 	
 	@Override
 	public void write() {
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(getOutputFile(), false));
-			
-			for(String seqName:this.getMultipleAlignment().getSeqNameAlignmentSeqMap().keySet()) {
-				String seq=this.getMultipleAlignment().getSeqNameAlignmentSeqMap().get(seqName);
-				writer.append(">".concat(seqName));
-				writer.newLine();
-				writer.append(seq);
-				writer.newLine();
+		//stream the sequences as bytes so that no String is created for a byte-backed MultipleAlignment
+		byte[] newLine=System.lineSeparator().getBytes();
+		try(OutputStream out = new BufferedOutputStream(new FileOutputStream(getOutputFile(), false))) {
+			for(int i=0;i<this.getMultipleAlignment().getSeqNum();i++) {
+				out.write(">".concat(this.getMultipleAlignment().getSeqNames().get(i)).getBytes());
+				out.write(newLine);
+				this.getMultipleAlignment().writeSeq(i, out);
+				out.write(newLine);
 			}
-			
-			writer.close();
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			throw new UncheckedIOException(e);
 		}
 		
 	}
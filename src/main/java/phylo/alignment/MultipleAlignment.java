@@ -1,51 +1,156 @@
 package phylo.alignment;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * wrapper class for a set of multiple aligned sequences
+ *
+ * the sequences are either given as strings or as byte arrays (one byte per character in {@link #CHARSET}, for example built by {@link MultipleAlignmentBuilder});
+ * the other representation is only created when requested, and the sequences can be written by {@link #writeSeq(int, OutputStream)} with either representation without creating strings
+ *
  * @author tanxu
  *
  */
 public class MultipleAlignment {
-	private final Map<String, String> seqNameAlignmentSeqMap;
-	
+	/**
+	 * charset of the byte-backed sequences, which maps each character in [0, 255] to a single byte
+	 */
+	public static final Charset CHARSET=StandardCharsets.ISO_8859_1;
+
+	/**
+	 * null if byte-backed and not requested by {@link #getSeqNameAlignmentSeqMap()} yet
+	 */
+	private Map<String, String> seqNameAlignmentSeqMap;
+
+	/**
+	 * names of the sequences in the same order as the keys of {@link #seqNameAlignmentSeqMap}
+	 */
+	private final List<String> seqNames;
+	/**
+	 * null if string-backed; otherwise the sequences in the same order as {@link #seqNames}
+	 */
+	private final byte[][] seqs;
+
 	private final int seqNum;
 	private final int alignmentLen;
-	
+
 	/**
-	 * 
+	 *
 	 * @param seqNameAlignmentSeqMap
 	 */
 	public MultipleAlignment(Map<String, String> seqNameAlignmentSeqMap){
 		if(seqNameAlignmentSeqMap==null||seqNameAlignmentSeqMap.isEmpty())
 			throw new IllegalArgumentException("given seqNameAlignmentSeqMap cannot be null or empty!");
-		
+
 		Integer alignLen=null;
 		for(String seqName:seqNameAlignmentSeqMap.keySet()) {
 			int seqLen=seqNameAlignmentSeqMap.get(seqName).length();
 			if(seqNameAlignmentSeqMap.get(seqName).length()==0)
 				throw new IllegalArgumentException("sequence length cannot be 0!");
-			
+
 			if(alignLen==null)
 				alignLen=seqLen;
 			else
 				if(seqLen!=alignLen)
 					throw new IllegalArgumentException("sequence are not of the same length!"+alignLen+" "+seqLen+" "+seqName);
 		}
-		
+
 		this.seqNameAlignmentSeqMap=seqNameAlignmentSeqMap;
+		this.seqNames=new ArrayList<>(seqNameAlignmentSeqMap.keySet());
+		this.seqs=null;
 		this.seqNum=this.seqNameAlignmentSeqMap.size();
 		this.alignmentLen=alignLen;
 	}
 
 	/**
+	 * byte-backed multiple alignment; the given arrays are not copied and must not be modified afterwards
+	 *
+	 * @param seqNames names of the sequences, must be unique
+	 * @param seqs sequences in the same order as seqNames, one byte per character in {@link #CHARSET}
+	 */
+	public MultipleAlignment(List<String> seqNames, byte[][] seqs){
+		if(seqNames==null||seqNames.isEmpty())
+			throw new IllegalArgumentException("given seqNames cannot be null or empty!");
+		if(seqs==null||seqs.length!=seqNames.size())
+			throw new IllegalArgumentException("given seqs must be of the same number as seqNames!");
+
+		int alignLen=seqs[0].length;
+		for(int i=0;i<seqs.length;i++) {
+			if(seqs[i].length==0)
+				throw new IllegalArgumentException("sequence length cannot be 0!");
+			if(seqs[i].length!=alignLen)
+				throw new IllegalArgumentException("sequence are not of the same length!"+alignLen+" "+seqs[i].length+" "+seqNames.get(i));
+		}
+
+		this.seqNames=new ArrayList<>(seqNames);
+		this.seqs=seqs;
+		this.seqNum=seqs.length;
+		this.alignmentLen=alignLen;
+	}
+
+	/**
+	 * for a byte-backed alignment, the strings are created at the first invocation
 	 * @return the seqNameAlignmentSeqMap
 	 */
-	public Map<String, String> getSeqNameAlignmentSeqMap() {
+	public synchronized Map<String, String> getSeqNameAlignmentSeqMap() {
+		if(this.seqNameAlignmentSeqMap==null) {
+			Map<String, String> map=new LinkedHashMap<>();
+			for(int i=0;i<this.seqNum;i++) {
+				map.put(this.seqNames.get(i), new String(this.seqs[i], CHARSET));
+			}
+			this.seqNameAlignmentSeqMap=map;
+		}
 		return seqNameAlignmentSeqMap;
 	}
 
+	/**
+	 * @return the names of all sequences in the same order as {@link #getSeqNameAlignmentSeqMap()}
+	 */
+	public List<String> getSeqNames(){
+		return Collections.unmodifiableList(this.seqNames);
+	}
+
+	/**
+	 * @return true if the sequences are stored as byte arrays
+	 */
+	public boolean isByteBacked() {
+		return this.seqs!=null;
+	}
+
+	/**
+	 * @param seqIndex index of the sequence in {@link #getSeqNames()}
+	 * @param site 0-based index of the site
+	 * @return the character of the given sequence at the given site
+	 */
+	public char getChar(int seqIndex, int site) {
+		if(this.seqs!=null) {
+			return (char)(this.seqs[seqIndex][site]&0xFF);
+		}
+		return this.seqNameAlignmentSeqMap.get(this.seqNames.get(seqIndex)).charAt(site);
+	}
+
+	/**
+	 * write the sequence with the given index to the given stream in {@link #CHARSET} without creating a string for a byte-backed alignment
+	 * @param seqIndex index of the sequence in {@link #getSeqNames()}
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeSeq(int seqIndex, OutputStream out) throws IOException {
+		if(this.seqs!=null) {
+			out.write(this.seqs[seqIndex]);
+		}else {
+			out.write(this.seqNameAlignmentSeqMap.get(this.seqNames.get(seqIndex)).getBytes(CHARSET));
+		}
+	}
+
 	/**
 	 * @return the seqNum
 	 */
@@ -59,6 +164,6 @@ public class MultipleAlignment {
 	public int getAlignmentLen() {
 		return alignmentLen;
 	}
-	
-	
+
+
 }
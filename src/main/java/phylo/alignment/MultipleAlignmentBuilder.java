@@ -0,0 +1,109 @@
+package phylo.alignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * builder of a byte-backed {@link MultipleAlignment} by appending characters to the end of each sequence
+ *
+ * each sequence is kept in a growable byte array (one byte per character, see {@link MultipleAlignment#CHARSET}) whose capacity is doubled when full,
+ * thus appending a site costs amortized constant time rather than copying the whole sequence as {@link String#concat(String)};
+ *
+ * not thread-safe
+ *
+ * @author tanxu
+ *
+ */
+public class MultipleAlignmentBuilder {
+	private static final int INITIAL_CAPACITY=256;
+
+	/**
+	 * names of all sequences in the order of the built {@link MultipleAlignment}
+	 */
+	private final List<String> seqNames;
+
+	////////////////////////////
+	private byte[][] seqs;
+	private int[] seqLens;
+
+	/**
+	 *
+	 * @param seqNames
+	 */
+	public MultipleAlignmentBuilder(List<String> seqNames) {
+		super();
+		this.seqNames = new ArrayList<>(seqNames);
+
+		this.seqs=new byte[this.seqNames.size()][INITIAL_CAPACITY];
+		this.seqLens=new int[this.seqNames.size()];
+	}
+
+	/**
+	 * append the given character to the end of the sequence with the given index
+	 * @param seqIndex
+	 * @param c
+	 */
+	public void append(int seqIndex, byte c) {
+		this.ensureCapacity(seqIndex, 1);
+		this.seqs[seqIndex][this.seqLens[seqIndex]++]=c;
+	}
+
+	/**
+	 * append all characters of the given string to the end of the sequence with the given index
+	 * @param seqIndex
+	 * @param s
+	 * @throws IllegalArgumentException if any character cannot be stored in a single byte in {@link MultipleAlignment#CHARSET}
+	 */
+	public void append(int seqIndex, CharSequence s) {
+		int len=s.length();
+		this.ensureCapacity(seqIndex, len);
+
+		byte[] seq=this.seqs[seqIndex];
+		int seqLen=this.seqLens[seqIndex];
+		for(int i=0;i<len;i++) {
+			char c=s.charAt(i);
+			if(c>0xFF) {
+				throw new IllegalArgumentException("given character cannot be stored in a single byte:"+c);
+			}
+			seq[seqLen+i]=(byte)c;
+		}
+		this.seqLens[seqIndex]=seqLen+len;
+	}
+
+	private void ensureCapacity(int seqIndex, int appendedLen) {
+		int required=this.seqLens[seqIndex]+appendedLen;
+		if(required>this.seqs[seqIndex].length) {
+			this.seqs[seqIndex]=Arrays.copyOf(this.seqs[seqIndex], Math.max(required, this.seqs[seqIndex].length*2));
+		}
+	}
+
+	/**
+	 * @return the number of sequences
+	 */
+	public int getSeqNum() {
+		return this.seqNames.size();
+	}
+
+	/**
+	 * @param seqIndex
+	 * @return the current length of the sequence with the given index
+	 */
+	public int getSeqLen(int seqIndex) {
+		return this.seqLens[seqIndex];
+	}
+
+	/**
+	 * build the {@link MultipleAlignment} of the sequences appended so far; the builder can still be appended afterwards without changing the built alignment
+	 *
+	 * @return
+	 * @throws IllegalArgumentException if any sequence is empty or the sequences are not of the same length, see {@link MultipleAlignment#MultipleAlignment(List, byte[][])}
+	 */
+	public MultipleAlignment build() {
+		byte[][] trimmedSeqs=new byte[this.seqs.length][];
+		for(int i=0;i<this.seqs.length;i++) {
+			trimmedSeqs[i]=Arrays.copyOf(this.seqs[i], this.seqLens[i]);
+		}
+		return new MultipleAlignment(this.seqNames, trimmedSeqs);
+	}
+}
@@ -1,8 +1,10 @@
 package phylo.alignment;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
@@ -59,7 +61,7 @@ public class SequentialPhylipAlignmentFileWriter extends AligmentFileWriter{
 	public static SequentialPhylipAlignmentFileWriter makeWithOriginalSeqName(MultipleAlignment multipleAlignment, Path outputFileDir, String outFileBaseName) {
 		Map<String,String> seqNameRecodedSeqNameMap=new HashMap<>();
 		
-		for(String seqName:multipleAlignment.getSeqNameAlignmentSeqMap().keySet()) {
+		for(String seqName:multipleAlignment.getSeqNames()) {
 			if(seqName.length()>SEQ_NAME_LENGTH) {
 				seqNameRecodedSeqNameMap.put(seqName, seqName.substring(0, 10)); //trim the first ten characters
 			}else {
@@ -83,7 +85,7 @@ public class SequentialPhylipAlignmentFileWriter extends AligmentFileWriter{
 		Map<String,String> seqNameRecodedSeqNameMap=new HashMap<>();
 		
 		int index=1;
-		for(String seqName:multipleAlignment.getSeqNameAlignmentSeqMap().keySet()) {
+		for(String seqName:multipleAlignment.getSeqNames()) {
 			String recodedName="seq".concat(Integer.toString(index));
 			seqNameRecodedSeqNameMap.put(seqName, recodedName);
 			index++;
@@ -99,27 +101,21 @@ public class SequentialPhylipAlignmentFileWriter extends AligmentFileWriter{
 	
 	@Override
 	public void write() {
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(getOutputFile(), false));
-			
+		//stream the sequences as bytes so that no String is created for a byte-backed MultipleAlignment
+		byte[] newLine=System.lineSeparator().getBytes();
+		try(OutputStream out = new BufferedOutputStream(new FileOutputStream(getOutputFile(), false))) {
 			//write header line
-			//
-			writer.append("\t".concat(Integer.toString(this.getMultipleAlignment().getSeqNum())).concat("\t").concat(Integer.toString(this.getMultipleAlignment().getAlignmentLen())));
-			writer.newLine();
+			out.write("\t".concat(Integer.toString(this.getMultipleAlignment().getSeqNum())).concat("\t").concat(Integer.toString(this.getMultipleAlignment().getAlignmentLen())).getBytes());
+			out.write(newLine);
 			//write sequences  
-			for(String seqName:this.getMultipleAlignment().getSeqNameAlignmentSeqMap().keySet()) {
-				String paddedRecodedSeqName = StringUtils.rightPad(this.seqNameRecodedSeqNameMap.get(seqName), SEQ_NAME_LENGTH);
-				
-				String line = paddedRecodedSeqName.concat(this.getMultipleAlignment().getSeqNameAlignmentSeqMap().get(seqName));
-				
-				writer.append(line);
-				writer.newLine();
+			for(int i=0;i<this.getMultipleAlignment().getSeqNum();i++) {
+				String seqName=this.getMultipleAlignment().getSeqNames().get(i);
+				out.write(StringUtils.rightPad(this.seqNameRecodedSeqNameMap.get(seqName), SEQ_NAME_LENGTH).getBytes());
+				this.getMultipleAlignment().writeSeq(i, out);
+				out.write(newLine);
 			}
-			
-			writer.close();
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			throw new UncheckedIOException(e);
 		}
 		
 	}
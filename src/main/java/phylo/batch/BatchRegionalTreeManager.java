@@ -17,10 +17,14 @@ import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Log;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import phylo.concurrency.TimeUtils;
 import phylo.tree.phylo.MegaXBasedTreeBuilderFactory;
+import phylo.tree.phylo.NJTreeBuilder.DistanceModel;
+import phylo.tree.phylo.NJTreeBuilderFactory;
 import phylo.tree.phylo.MultipleAlignment2TreeFactory;
 import phylo.vcf.Vcf2AlignmentSeqBuilderFactory;
 import population.vcf.utils.GenotypeRecoderFactory;
@@ -92,6 +96,13 @@ public class BatchRegionalTreeManager {
 	 */
 	private final int threadNum;
 	
+	/**
+	 * if not null, the sweep mode is used, where this variant file (any file readable by {@link VCFFileReader} with the same records as the bcf file) is read in a single sequential pass
+	 * and each record is routed to the trees of all regions overlapping it by a {@link VariantWindowSweeper}, rather than querying the records of each tree separately;
+	 * each tree is submitted once the pass moves beyond all its regions
+	 */
+	private final Path sweepVariantFile;
+	
 	
 	/////////////////////
 	/**
@@ -108,6 +119,19 @@ public class BatchRegionalTreeManager {
 	 * @param threadNum
 	 */
 	BatchRegionalTreeManager(Bcf2SingleTreeFactory bcf2SingleTree2Factory, Path regionListFile, Path outputTreeFile, Path rootTmpDir, int threadNum){
+		this(bcf2SingleTree2Factory, regionListFile, outputTreeFile, rootTmpDir, threadNum, null);
+	}
+	
+	/**
+	 * 
+	 * @param bcf2SingleTree2Factory
+	 * @param regionListFile
+	 * @param outputTreeFile
+	 * @param rootTmpDir
+	 * @param threadNum
+	 * @param sweepVariantFile if not null, run in sweep mode, see {@link #sweepVariantFile}
+	 */
+	BatchRegionalTreeManager(Bcf2SingleTreeFactory bcf2SingleTree2Factory, Path regionListFile, Path outputTreeFile, Path rootTmpDir, int threadNum, Path sweepVariantFile){
 		//TODO validate
 		
 		
@@ -117,6 +141,7 @@ public class BatchRegionalTreeManager {
 		this.outputTreeFile = outputTreeFile;
 		this.rootTmpDir=rootTmpDir;
 		this.threadNum = threadNum;
+		this.sweepVariantFile = sweepVariantFile;
 	}
 	
 	
@@ -138,32 +163,36 @@ public class BatchRegionalTreeManager {
 //		List<Future<Integer>> futureList = new ArrayList<>();
 		Map<Future<Integer>, Bcf2SingleTree> allFutureJobMap = new LinkedHashMap<>();
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(this.regionListFile.toFile()));
-			String line;
-			while ((line = reader.readLine()) != null) {
-				String[] splits = line.split("\\s+");
-				String regionID=splits[0];
-				String regionString=splits[1];
+			if(this.sweepVariantFile!=null) {
+				this.submitAllJobsBySweep(executorService, allFutureJobMap);
+			}else {
+				BufferedReader reader = new BufferedReader(new FileReader(this.regionListFile.toFile()));
+				String line;
+				while ((line = reader.readLine()) != null) {
+					String[] splits = line.split("\\s+");
+					String regionID=splits[0];
+					String regionString=splits[1];
 				
-				//specify a temporary directory under the rootTmpDir for the tree
-				Path treeTempDir = Path.of(this.rootTmpDir.toString(), regionID);
+					//specify a temporary directory under the rootTmpDir for the tree
+					Path treeTempDir = Path.of(this.rootTmpDir.toString(), regionID);
 				
-				assert !treeTempDir.toFile().exists();
+					assert !treeTempDir.toFile().exists();
 				
-				log.info("create temp dir for region:"+regionID);
-				if(!treeTempDir.toFile().mkdir()) {
-					log.error("temp dir for region:"+regionID+" cannot be created!");
-					continue;
-				}
+					log.info("create temp dir for region:"+regionID);
+					if(!treeTempDir.toFile().mkdir()) {
+						log.error("temp dir for region:"+regionID+" cannot be created!");
+						continue;
+					}
 				
-				//
-				Bcf2SingleTree regionalTree =
-						this.bcf2SingleTree2Factory.makeNew(regionString, regionID, this.outputTreeFileWriter, treeTempDir);
+					//
+					Bcf2SingleTree regionalTree =
+							this.bcf2SingleTree2Factory.makeNew(regionString, regionID, this.outputTreeFileWriter, treeTempDir);
 				
-				allFutureJobMap.put(executorService.submit(regionalTree), regionalTree);
-			}
+					allFutureJobMap.put(executorService.submit(regionalTree), regionalTree);
+				}
 			
-			reader.close();
+				reader.close();
+			}
 			
 			////////////////////////////////////////
 			//monitor all submitted jobs until all done (due to normal termination, an exception, or cancellation)
@@ -267,6 +296,9 @@ public class BatchRegionalTreeManager {
 			
 			//shut down ExecutorService so that program can terminate
 			executorService.shutdown();
+			if(this.bcf2SingleTree2Factory.getRegionQuerier()!=null) {
+				this.bcf2SingleTree2Factory.getRegionQuerier().close();
+			}
 			/////////////////
 			log.info("all done!");
 			
@@ -297,13 +329,63 @@ public class BatchRegionalTreeManager {
 		
 	}
 	
+	/**
+	 * read the {@link #sweepVariantFile} in a single pass and submit the tree of each region to the given executorService once all its records are added
+	 * @param executorService
+	 * @param allFutureJobMap
+	 * @throws IOException
+	 */
+	private void submitAllJobsBySweep(ExecutorService executorService, Map<Future<Integer>, Bcf2SingleTree> allFutureJobMap) throws IOException {
+		Map<String, String> regionIDRegionStringMap=new LinkedHashMap<>();
+		try(BufferedReader reader = new BufferedReader(new FileReader(this.regionListFile.toFile()))){
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] splits = line.split("\\s+");
+				regionIDRegionStringMap.put(splits[0], splits[1]);
+			}
+		}
+		
+		try(VCFFileReader variantReader = new VCFFileReader(this.sweepVariantFile, false);
+				CloseableIterator<VariantContext> iterator=variantReader.iterator()){
+			List<String> genotypeSamples = variantReader.getHeader().getGenotypeSamples();
+			
+			VariantWindowSweeper<Bcf2SingleTree> sweeper = new VariantWindowSweeper<>(
+					VariantWindowSweeper.parseRegionListStringWindows(regionIDRegionStringMap),
+					regionID->{
+						Bcf2SingleTree regionalTree =
+								this.bcf2SingleTree2Factory.makeNew(regionIDRegionStringMap.get(regionID), regionID, this.outputTreeFileWriter, Path.of(this.rootTmpDir.toString(), regionID));
+						regionalTree.startSweep(genotypeSamples);
+						return regionalTree;
+					},
+					regionalTree->{
+						//specify a temporary directory under the rootTmpDir for the tree
+						Path treeTempDir = Path.of(this.rootTmpDir.toString(), regionalTree.getUniqueRegionIdentifier());
+						log.info("create temp dir for region:"+regionalTree.getUniqueRegionIdentifier());
+						if(!treeTempDir.toFile().mkdir()) {
+							log.error("temp dir for region:"+regionalTree.getUniqueRegionIdentifier()+" cannot be created!");
+							return;
+						}
+						allFutureJobMap.put(executorService.submit(regionalTree), regionalTree);
+					});
+			
+			sweeper.run(iterator.stream());
+		}
+	}
+	
 	/**
 	 * to run this in linux, need to load java 8 or above, bcftools and phylip
+	 * 
+	 * if the optional indexedVariantFile (for example bgzipped vcf file with tabix index, see {@link BcfUtils#convertBcfToIndexedVcfGzFile(Path, Path)}) is given, 
+	 * the records of each region are queried from it in JVM rather than with bcftools into a temporary vcf file; it must contain the same records as the bcfFile;
+	 * if the optional mode is further given as 'sweep', the indexedVariantFile (no index is needed) is read in a single sequential pass rather than queried for each region, see {@link #sweepVariantFile}
+	 * 
+	 * if the trees are built in JVM with nj or nj-p, the number of bootstrap replicates must be given (for example nj:1000), 
+	 * since the regional trees are filtered by the bootstrap values of their internal nodes in SV2GR (see {@link sv2gr.GREventsInfererAndTemporalOrderResolver})
 	 * @param args
 	 */
 	public static void main(String[] args) {
-		if(args.length!=10) {
-			System.out.println("java bcfFile regionFile outputTreeFile outgroupName minAlignmentLen tmpDir threadNum maxMissingGenotype minQUALForVariantSites megaxMaoFile");
+		if(args.length<10 || args.length>12) {
+			System.out.println("java bcfFile regionFile outputTreeFile outgroupName minAlignmentLen tmpDir threadNum maxMissingGenotype minQUALForVariantSites megaxMaoFile|nj:bootstrapReplicateNum|nj-p:bootstrapReplicateNum [indexedVariantFile [query|sweep]]");
 			System.exit(1);
 		}
 		
@@ -318,7 +400,20 @@ public class BatchRegionalTreeManager {
 		//additional parameters
 		int maxMissingGenotype = Integer.parseInt(args[7]); //20
 		int minQUALForVariantSites = Integer.parseInt(args[8]); //30
-		Path megaxMaoFile=Path.of(args[9]);
+		//nj or nj-p to build NJ tree in JVM with Jukes-Cantor distance or p-distance rather than with MegaX, followed by the number of bootstrap replicates such as nj:1000
+		String treeBuilderString=args[9].split(":")[0];
+		int bootstrapReplicateNum=0;
+		if(treeBuilderString.equals("nj")||treeBuilderString.equals("nj-p")) {
+			bootstrapReplicateNum=args[9].contains(":")?Integer.parseInt(args[9].substring(args[9].indexOf(":")+1)):0;
+		}else {
+			treeBuilderString=args[9];
+		}
+		Path indexedVariantFile=args.length>=11?Path.of(args[10]):null;
+		boolean sweep=args.length==12&&args[11].equals("sweep");
+		if(args.length==12&&!sweep&&!args[11].equals("query")) {
+			log.error("given mode: "+args[11]+" is neither query nor sweep!");
+			System.exit(1);
+		}
 		/////////////////////////////////////////
 		//check bcf file
 		if(!bcfFile.toString().endsWith(".bcf")) {
@@ -401,8 +496,13 @@ public class BatchRegionalTreeManager {
 		}
 		
 		//check
-		if(!megaxMaoFile.toFile().exists()) {
-			log.error("mega10 mao file is not found:"+megaxMaoFile.toString());
+		if((treeBuilderString.equals("nj") || treeBuilderString.equals("nj-p")) && bootstrapReplicateNum<1) {
+			//internal nodes of trees without bootstrap values cannot be filtered by the minimal bootstrap value in SV2GR
+			log.error("given bootstrapReplicateNum: "+bootstrapReplicateNum+" is not positive; the number of bootstrap replicates must be given such as "+treeBuilderString+":1000!");
+			System.exit(1);
+		}
+		if(!treeBuilderString.equals("nj") && !treeBuilderString.equals("nj-p") && !Path.of(treeBuilderString).toFile().exists()) {
+			log.error("mega10 mao file is not found:"+treeBuilderString);
 			System.exit(1);
 		}
 		
@@ -418,15 +518,35 @@ public class BatchRegionalTreeManager {
 				);
 		
 //		Path maoFile=Path.of("/home/tanxu/phylogeny/megaX/infer_NJ_nucleotide_pairwise_deletion.mao");
-		MultipleAlignment2TreeFactory<?> msa2treeFactory = new MegaXBasedTreeBuilderFactory(megaxMaoFile);
+		MultipleAlignment2TreeFactory<?> msa2treeFactory;
+		//the trees are built by threadNum threads, each of which runs the bootstrap replicates of its tree with the remaining processors
+		int bootstrapThreadNum=Math.max(1, Runtime.getRuntime().availableProcessors()/threadNum);
+		if(treeBuilderString.equals("nj")) {
+			msa2treeFactory = new NJTreeBuilderFactory(DistanceModel.JUKES_CANTOR, bootstrapReplicateNum, bootstrapThreadNum, 1);
+		}else if(treeBuilderString.equals("nj-p")) {
+			msa2treeFactory = new NJTreeBuilderFactory(DistanceModel.P_DISTANCE, bootstrapReplicateNum, bootstrapThreadNum, 1);
+		}else {
+			Path megaxMaoFile=Path.of(treeBuilderString);
+			msa2treeFactory = new MegaXBasedTreeBuilderFactory(megaxMaoFile);
+		}
+		
+		IndexedVariantFileRegionQuerier regionQuerier=null;
+		if(indexedVariantFile!=null) {
+			if(!indexedVariantFile.toFile().exists()) {
+				log.error("indexed variant file is not found:"+indexedVariantFile.toString());
+				System.exit(1);
+			}
+			if(!sweep)
+				regionQuerier=new IndexedVariantFileRegionQuerier(indexedVariantFile);
+		}
 		
 		Bcf2SingleTreeFactory bcf2SingleTree2Factory = 
 				new Bcf2SingleTreeFactory(
-						bcfFile, msaBuilderFactory, msa2treeFactory, outgroupName, minAlignmentLen);
+						bcfFile, msaBuilderFactory, msa2treeFactory, outgroupName, minAlignmentLen, regionQuerier);
 		
 		////////////////////////////
 		BatchRegionalTreeManager manager = 
-				new BatchRegionalTreeManager(bcf2SingleTree2Factory, regionFile, outputTreeFile, rootTmpDir, threadNum);
+				new BatchRegionalTreeManager(bcf2SingleTree2Factory, regionFile, outputTreeFile, rootTmpDir, threadNum, sweep?indexedVariantFile:null);
 		
 		///////////////////////
 		long startTime=System.nanoTime();
@@ -7,11 +7,13 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FileUtils;
 
 import htsjdk.samtools.util.Log;
 import htsjdk.tribble.TribbleException;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import phylo.alignment.MultipleAlignment;
 import phylo.exception.MultipleAlignmentLengthIsTooShortException;
@@ -19,6 +21,7 @@ import phylo.ref.Region;
 import phylo.tree.phylo.MegaXBasedTreeBuilder;
 import phylo.tree.phylo.MultipleAlignment2TreeBase;
 import phylo.tree.reader.NewickFileFormatType;
+import phylo.tree.reader.NewickTreeWriter;
 import phylo.tree.reader.Tree;
 import phylo.vcf.Vcf2AlignmentSeqBuilder;
 import population.vcf.utils.GenotypeRecoderFactory;
@@ -35,7 +38,7 @@ import population.vcf.utils.VariantContextFilterFactory;
  * @author tanxu
  * 
  */
-public class Bcf2SingleTree implements Callable<Integer>{
+public class Bcf2SingleTree implements Callable<Integer>, VariantWindowSweeper.Window{
 	public static final Log log=Log.getInstance(Bcf2SingleTree.class);
 	
 	/////////////////////////////
@@ -93,8 +96,19 @@ public class Bcf2SingleTree implements Callable<Integer>{
 	 */
 	private final Path tmpDir;
 	
+	/**
+	 * if not null, the records in the regions are queried from the indexed variant file of this querier in JVM and directly used to build the alignment;
+	 * otherwise, the regional vcf file is queried from the {@link #bcfFile} by bcftools into the {@link #tmpDir}
+	 */
+	private final IndexedVariantFileRegionQuerier regionQuerier;
+	
 	
 	///////////////////
+	/**
+	 * whether the records in the regions are added by a {@link VariantWindowSweeper} before this job is submitted, see {@link #startSweep(List)};
+	 * if true, no query is needed
+	 */
+	private boolean fedBySweep = false;
 	/**
 	 * the queried VCF file from the {@link #bcfFile} with {@link #disjointRegionList};
 	 */
@@ -129,6 +143,28 @@ public class Bcf2SingleTree implements Callable<Integer>{
 			Vcf2AlignmentSeqBuilder vcf2AlignmentSeqBuilder, MultipleAlignment2TreeBase multipleAlignment2Tree,
 			String outgroupName, int minAlignmentLen,
 			String regionListString, String uniqueRegionIdentifier, FileWriter outputTreeFileWriter, Path tmpDir){
+		this(bcfFile, vcf2AlignmentSeqBuilder, multipleAlignment2Tree, outgroupName, minAlignmentLen, regionListString, uniqueRegionIdentifier, outputTreeFileWriter, tmpDir, null);
+	}
+	
+	/**
+	 * 
+	 * @param bcfFile
+	 * @param vcf2AlignmentSeqBuilder
+	 * @param multipleAlignment2Tree
+	 * @param outgroupName
+	 * @param minAlignmentLen
+	 * @param regionListString
+	 * @param uniqueRegionIdentifier
+	 * @param outputTreeFileWriter
+	 * @param tmpDir
+	 * @param regionQuerier querier shared by all jobs in the same batch; if null, query regional vcf file with bcftools
+	 */
+	Bcf2SingleTree(
+			Path bcfFile, 
+			Vcf2AlignmentSeqBuilder vcf2AlignmentSeqBuilder, MultipleAlignment2TreeBase multipleAlignment2Tree,
+			String outgroupName, int minAlignmentLen,
+			String regionListString, String uniqueRegionIdentifier, FileWriter outputTreeFileWriter, Path tmpDir,
+			IndexedVariantFileRegionQuerier regionQuerier){
 		
 		//TODO validation
 		if(outgroupName!=null&&outgroupName.isEmpty())
@@ -146,6 +182,7 @@ public class Bcf2SingleTree implements Callable<Integer>{
 		this.uniqueRegionIdentifier= uniqueRegionIdentifier;
 		this.outputTreeFileWriter=outputTreeFileWriter;
 		this.tmpDir=tmpDir;
+		this.regionQuerier=regionQuerier;
 	}
 	
 	/**
@@ -211,16 +248,19 @@ public class Bcf2SingleTree implements Callable<Integer>{
 		this.endTime=null;
 		//kill the process that runs bash code to construct tree
 		//note that 
-		log.info("process pid=("+this.multipleAlignment2Tree.getProcess().pid()+") to build tree is alive? for tree id=="+this.uniqueRegionIdentifier+" "+this.multipleAlignment2Tree.getProcess().isAlive());
-//				+";process to build tree exit code:"+this.multipleAlignment2Tree.getProcess().exitValue());
-		
-		Runtime.getRuntime().exec("kill -9 ".concat(Long.toString(this.multipleAlignment2Tree.getProcess().pid())));
-		
-//		this.multipleAlignment2Tree.getProcess().destroyForcibly();
-		try {
-			Thread.sleep(3000);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		//no process is created if the tree is built in JVM (see NJTreeBuilder) or the job is canceled before running the bash code
+		if(this.multipleAlignment2Tree.getProcess()!=null) {
+			log.info("process pid=("+this.multipleAlignment2Tree.getProcess().pid()+") to build tree is alive? for tree id=="+this.uniqueRegionIdentifier+" "+this.multipleAlignment2Tree.getProcess().isAlive());
+//					+";process to build tree exit code:"+this.multipleAlignment2Tree.getProcess().exitValue());
+			
+			Runtime.getRuntime().exec("kill -9 ".concat(Long.toString(this.multipleAlignment2Tree.getProcess().pid())));
+			
+//			this.multipleAlignment2Tree.getProcess().destroyForcibly();
+			try {
+				Thread.sleep(3000);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
 		}
 //		this.multipleAlignment2Tree.getProcess().destroy();
 		if(this.multipleAlignment2Tree.getProcess()!=null)
@@ -231,6 +271,21 @@ public class Bcf2SingleTree implements Callable<Integer>{
 	
 	
 	
+	/**
+	 * start building the alignment from records added by a {@link VariantWindowSweeper} with {@link #add(VariantContext)} rather than queried from the {@link #bcfFile};
+	 * must be invoked before any record is added
+	 * @param genotypeSamples names of all samples in the order of the header of the variant file
+	 */
+	public void startSweep(List<String> genotypeSamples) {
+		this.fedBySweep=true;
+		this.vcf2AlignmentSeqBuilder.start(genotypeSamples);
+	}
+	
+	@Override
+	public void add(VariantContext variant) {
+		this.vcf2AlignmentSeqBuilder.add(variant);
+	}
+	
 	//////////////////////////////////
 	/**
 	 * return 1 if terminated during step 1;
@@ -278,6 +333,11 @@ public class Bcf2SingleTree implements Callable<Integer>{
 	 * return 0 if succeed; return 1 otherwise
 	 */
 	private int queryVCF() {
+		if(this.fedBySweep||this.regionQuerier!=null) {
+			//records are directly queried when building the alignment
+			return 0;
+		}
+		
 		log.info("start querying regional VCF from bcf file"+" for tree id=="+this.uniqueRegionIdentifier);
 		this.queriedVcfFile = Path.of(this.tmpDir.toString(), this.uniqueRegionIdentifier.concat(".vcf"));
 		
@@ -302,8 +362,16 @@ public class Bcf2SingleTree implements Callable<Integer>{
 		log.info("start building multiple sequence alignment"+" for tree id=="+this.uniqueRegionIdentifier);
 		////
 		try {
-			VCFFileReader reader = new VCFFileReader(this.queriedVcfFile, false);
-			this.vcf2AlignmentSeqBuilder.run(reader);
+			if(this.fedBySweep) {
+				//records are already added
+			}else if(this.regionQuerier!=null) {
+				try(Stream<VariantContext> stream=this.regionQuerier.query(this.regionListString)){
+					this.vcf2AlignmentSeqBuilder.run(this.regionQuerier.getHeader().getGenotypeSamples(), stream);
+				}
+			}else {
+				VCFFileReader reader = new VCFFileReader(this.queriedVcfFile, false);
+				this.vcf2AlignmentSeqBuilder.run(reader);
+			}
 			
 			try {
 				this.msa=this.vcf2AlignmentSeqBuilder.getMultipleAlignment();
@@ -374,7 +442,8 @@ public class Bcf2SingleTree implements Callable<Integer>{
 	private int appendToFile() {
 		log.info("start append to final output tree file"+" for tree id=="+this.uniqueRegionIdentifier);
 		StringBuilder lineSB = new StringBuilder();
-		lineSB.append(this.uniqueRegionIdentifier).append("\t").append(this.regionListString).append("\t").append(this.tree.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
+		lineSB.append(this.uniqueRegionIdentifier).append("\t").append(this.regionListString).append("\t");
+		new NewickTreeWriter(NewickFileFormatType.SIMPLE_NEWICK_2).write(this.tree, lineSB);
 		
 		synchronized(this.outputTreeFileWriter)
 		{
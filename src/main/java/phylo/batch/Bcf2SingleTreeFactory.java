@@ -36,6 +36,12 @@ public class Bcf2SingleTreeFactory {
 	 * the minimal alignment length so that the multiple alignment will be used to build tree
 	 */
 	private final int minAlignmentLen;
+	
+	/**
+	 * if not null, shared by all created {@link Bcf2SingleTree}s to query the regional records in JVM, see {@link IndexedVariantFileRegionQuerier}
+	 */
+	private final IndexedVariantFileRegionQuerier regionQuerier;
+	
 	/**
 	 * 
 	 * @param bcfFile
@@ -51,12 +57,32 @@ public class Bcf2SingleTreeFactory {
 			MultipleAlignment2TreeFactory<?> msa2treeFactory,
 			String outgroupName,
 			int minAlignmentLen){
+		this(bcfFile, vcf2AlignmentSeqBuilderFactory, msa2treeFactory, outgroupName, minAlignmentLen, null);
+	}
+	
+	/**
+	 * 
+	 * @param bcfFile
+	 * @param vcf2AlignmentSeqBuilderFactory
+	 * @param msa2treeFactory
+	 * @param outgroupName
+	 * @param minAlignmentLen
+	 * @param regionQuerier if null, the regional vcf files are queried with bcftools
+	 */
+	public Bcf2SingleTreeFactory(
+			Path bcfFile, 
+			Vcf2AlignmentSeqBuilderFactory vcf2AlignmentSeqBuilderFactory, 
+			MultipleAlignment2TreeFactory<?> msa2treeFactory,
+			String outgroupName,
+			int minAlignmentLen,
+			IndexedVariantFileRegionQuerier regionQuerier){
 		//TODO validation
 		this.bcfFile = bcfFile;
 		this.vcf2AlignmentSeqBuilderFactory=vcf2AlignmentSeqBuilderFactory;
 		this.msa2treeFactory = msa2treeFactory;
 		this.outgroupName = outgroupName;
 		this.minAlignmentLen=minAlignmentLen;
+		this.regionQuerier=regionQuerier;
 	}
 	
 
@@ -73,8 +99,16 @@ public class Bcf2SingleTreeFactory {
 		return new Bcf2SingleTree(
 				this.bcfFile, this.vcf2AlignmentSeqBuilderFactory.make(), this.msa2treeFactory.make(),
 				this.outgroupName, this.minAlignmentLen,
-				regionListString, uniqueRegionIdentifier, outputTreeFileWriter, tmpDir
+				regionListString, uniqueRegionIdentifier, outputTreeFileWriter, tmpDir,
+				this.regionQuerier
 				);
 	}
 	
+	/**
+	 * @return the regionQuerier
+	 */
+	public IndexedVariantFileRegionQuerier getRegionQuerier() {
+		return regionQuerier;
+	}
+	
 }
@@ -1,6 +1,7 @@
 package phylo.batch;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -111,4 +112,59 @@ public class BcfUtils {
 		return sb.toString();
 	}
 	
+	/**
+	 * parse the given Comma-separated list of regions built by {@link #buildBcftoolsRegionString(List)} or given to the -r option of bcftools
+	 * 		chr|chr:pos|chr:beg-end|chr:beg-
+	 * 
+	 * chr and chr:beg- regions end at {@link Integer#MAX_VALUE}
+	 * 
+	 * @param regionListString
+	 * @return
+	 */
+	public static List<Region> parseBcftoolsRegionString(String regionListString){
+		if(regionListString==null||regionListString.isEmpty())
+			throw new IllegalArgumentException("given regionListString cannot be null or empty!");
+		
+		List<Region> ret=new ArrayList<>();
+		for(String regionString:regionListString.split(",")) {
+			int colon=regionString.lastIndexOf(':');
+			if(colon<0) {
+				ret.add(new Region(regionString, 1, Integer.MAX_VALUE));
+				continue;
+			}
+			
+			String chrom=regionString.substring(0, colon);
+			String pos=regionString.substring(colon+1);
+			int dash=pos.indexOf('-');
+			if(dash<0) {
+				ret.add(new Region(chrom, Integer.parseInt(pos), Integer.parseInt(pos)));
+			}else if(dash==pos.length()-1) {
+				ret.add(new Region(chrom, Integer.parseInt(pos.substring(0, dash)), Integer.MAX_VALUE));
+			}else {
+				ret.add(new Region(chrom, Integer.parseInt(pos.substring(0, dash)), Integer.parseInt(pos.substring(dash+1))));
+			}
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * convert the given bcf file into a bgzipped vcf file with tabix index (.tbi) that can be queried in JVM by {@link IndexedVariantFileRegionQuerier}
+	 * 
+	 * bcftools view -O z -o out.vcf.gz in.bcf
+	 * bcftools index -t out.vcf.gz
+	 * 
+	 * @param bcfFile
+	 * @param outputVcfGzFile
+	 */
+	public static void convertBcfToIndexedVcfGzFile(Path bcfFile, Path outputVcfGzFile) {
+		String commandLineString="bcftools view -O z ".concat(bcfFile.toString()).concat(" -o ").concat(outputVcfGzFile.toString());
+		log.info("run command to convert bcf file to bgzipped vcf file: '".concat(commandLineString).concat("'"));
+		ProcessExecutor.execute(commandLineString);
+		
+		commandLineString="bcftools index -t ".concat(outputVcfGzFile.toString());
+		log.info("run command to index bgzipped vcf file: '".concat(commandLineString).concat("'"));
+		ProcessExecutor.execute(commandLineString);
+	}
+	
 }
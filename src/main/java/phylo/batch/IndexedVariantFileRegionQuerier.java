@@ -0,0 +1,151 @@
+package phylo.batch;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Log;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import phylo.ref.Region;
+
+/**
+ * query the records of a list of regions directly from an indexed variant file with htsjdk rather than with bcftools into a temporary vcf file (see {@link BcfUtils#queryRegionIntoVcfFileFromIndexedBcfFile(String, String, String)});
+ *
+ * the variant file must be readable and queryable by {@link VCFFileReader}, for example a bgzipped vcf file with a tabix index (.tbi);
+ * note that bcf files written by current bcftools are not supported by htsjdk, which can be converted once with {@link BcfUtils#convertBcfToIndexedVcfGzFile(Path, Path)}
+ *
+ * each thread querying regions gets its own {@link VCFFileReader} that is created at its first query and reused afterwards, thus a single querier can be shared by all jobs of a thread pool;
+ * all created readers are closed by {@link #close()} after all jobs are done
+ *
+ * @author tanxu
+ *
+ */
+public class IndexedVariantFileRegionQuerier implements AutoCloseable{
+	public static final Log log=Log.getInstance(IndexedVariantFileRegionQuerier.class);
+
+	/////////////////////////////
+	/**
+	 * indexed variant file
+	 */
+	private final Path indexedVariantFile;
+
+	///////////////////////////
+	/**
+	 * header of the {@link #indexedVariantFile}
+	 */
+	private final VCFHeader header;
+
+	/**
+	 * all readers created by any thread
+	 */
+	private final List<VCFFileReader> createdReaders;
+
+	/**
+	 * reader of the current thread
+	 */
+	private final ThreadLocal<VCFFileReader> threadReader;
+
+	/**
+	 *
+	 * @param indexedVariantFile
+	 */
+	public IndexedVariantFileRegionQuerier(Path indexedVariantFile) {
+		if(!indexedVariantFile.toFile().exists())
+			throw new IllegalArgumentException("given indexedVariantFile is not found:"+indexedVariantFile);
+
+		this.indexedVariantFile = indexedVariantFile;
+		this.createdReaders=new ArrayList<>();
+
+		VCFFileReader reader=this.createReader();
+		if(!reader.isQueryable()) {
+			this.close();
+			throw new IllegalArgumentException("given indexedVariantFile is not queryable:"+indexedVariantFile);
+		}
+		this.header=reader.getFileHeader();
+
+		this.threadReader=ThreadLocal.withInitial(this::createReader);
+		this.threadReader.set(reader);
+	}
+
+	/**
+	 * create a new reader requiring the index file
+	 * @return
+	 */
+	private VCFFileReader createReader() {
+		VCFFileReader reader=new VCFFileReader(this.indexedVariantFile, true);
+		synchronized(this.createdReaders) {
+			this.createdReaders.add(reader);
+		}
+		log.info("create reader of indexed variant file for thread:"+Thread.currentThread().getName());
+		return reader;
+	}
+
+	/**
+	 * @return the header of the indexed variant file
+	 */
+	public VCFHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return the sample names in the same order as in the header line of the indexed variant file
+	 */
+	public List<String> getSampleNamesInOrder(){
+		return Collections.unmodifiableList(this.header.getSampleNamesInOrder());
+	}
+
+	/**
+	 * return the records overlapping any of the given regions with the reader of the current thread;
+	 *
+	 * same as bcftools view -r, the regions are sorted and each record overlapping multiple regions is only returned once;
+	 *
+	 * the returned stream is lazily read from the file and must be fully consumed or closed by the current thread before the next query of the same thread
+	 *
+	 * @param regionListString comma-separated list of regions in the format of -r option of bcftools, see {@link BcfUtils#parseBcftoolsRegionString(String)}
+	 * @return
+	 */
+	public Stream<VariantContext> query(String regionListString){
+		List<Region> regionList=BcfUtils.parseBcftoolsRegionString(regionListString);
+		Collections.sort(regionList);
+
+		VCFFileReader reader=this.threadReader.get();
+
+		List<Stream<VariantContext>> regionStreams=new ArrayList<>();
+		for(int i=0;i<regionList.size();i++) {
+			Region region=regionList.get(i);
+			//records overlapping the previous regions on the same chrom are already returned
+			int previousEnd=0;
+			for(int j=0;j<i;j++) {
+				if(regionList.get(j).getReferenceName().equals(region.getReferenceName()) && regionList.get(j).getEnd()>previousEnd) {
+					previousEnd=regionList.get(j).getEnd();
+				}
+			}
+			final int coveredEnd=previousEnd;
+
+			regionStreams.add(Stream.of(region).flatMap(r->{
+				CloseableIterator<VariantContext> iterator=reader.query(r.getReferenceName(), r.getStart(), r.getEnd());
+				return iterator.stream().onClose(iterator::close).filter(v->v.getStart()>coveredEnd);
+			}));
+		}
+
+		return regionStreams.stream().flatMap(s->s);
+	}
+
+	/**
+	 * close all readers created by any thread; no query can be made afterwards
+	 */
+	@Override
+	public void close() {
+		synchronized(this.createdReaders) {
+			for(VCFFileReader reader:this.createdReaders) {
+				reader.close();
+			}
+			this.createdReaders.clear();
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package phylo.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import htsjdk.samtools.util.Log;
+import htsjdk.variant.variantcontext.VariantContext;
+import phylo.ref.Region;
+
+/**
+ * route the records of a variant file read in a single sequential pass to all windows they overlap, rather than querying the records of each window from an indexed variant file separately;
+ *
+ * each window is given as a list of regions (see -r option of bcftools), and windows can overlap with each other;
+ *
+ * 1. a window is created by the given window factory when the first of its regions is reached by the pass;
+ * 2. each record is added to every window with at least one region overlapping it, once per window, in the order of the variant file;
+ * 3. a window is finished and given to the finished window consumer (for example to submit it to an executor for tree inference or matrix writing) once the pass
+ * 		moves beyond the end of all its regions or leaves the chroms of them; windows on chroms not in the variant file are created and finished at the end of the pass;
+ *
+ * the records must be sorted by chrom and position as in an indexed variant file (records of the same chrom are consecutive), while the order of the chroms does not matter;
+ * note that all methods of the windows are invoked by the thread running the pass
+ *
+ * @author tanxu
+ *
+ * @param <W>
+ */
+public class VariantWindowSweeper<W extends VariantWindowSweeper.Window> {
+	public static final Log log=Log.getInstance(VariantWindowSweeper.class);
+
+	/**
+	 * a window to which the overlapping records are added
+	 */
+	public interface Window{
+		/**
+		 * add a record overlapping at least one region of this window
+		 * @param variant
+		 */
+		void add(VariantContext variant);
+	}
+
+	//////////////////////////
+	/**
+	 * map from window id to the regions of the window
+	 */
+	private final Map<String, List<Region>> windowIdRegionsMap;
+	/**
+	 * create the window with the given id
+	 */
+	private final Function<String, W> windowFactory;
+	/**
+	 *
+	 */
+	private final Consumer<W> finishedWindowConsumer;
+
+	///////////////////////////
+	/**
+	 * map from chrom to the regions of all windows on it sorted by start
+	 */
+	private Map<String, List<WindowRegion>> chromSortedWindowRegionsMap;
+	/**
+	 * map from window id to the number of its regions not yet passed
+	 */
+	private Map<String, Integer> windowIdRemainingRegionNumMap;
+	/**
+	 * created but not finished windows
+	 */
+	private Map<String, W> createdWindowMap;
+	/**
+	 * ids of all finished windows
+	 */
+	private Set<String> finishedWindowIds;
+
+	//////////////////////////current chrom of the pass
+	private String currentChrom;
+	/**
+	 * index of the next region of the current chrom in {@link #chromSortedWindowRegionsMap} to be reached
+	 */
+	private int nextRegionIndex;
+	/**
+	 * regions of the current chrom that are reached but not passed yet
+	 */
+	private List<WindowRegion> activeRegions;
+
+	private long recordNum;
+
+	/**
+	 *
+	 * @param windowIdRegionsMap
+	 * @param windowFactory
+	 * @param finishedWindowConsumer
+	 */
+	public VariantWindowSweeper(Map<String, List<Region>> windowIdRegionsMap, Function<String, W> windowFactory, Consumer<W> finishedWindowConsumer) {
+		super();
+		if(windowIdRegionsMap.isEmpty())
+			throw new IllegalArgumentException("given windowIdRegionsMap cannot be empty!");
+
+		this.windowIdRegionsMap = windowIdRegionsMap;
+		this.windowFactory = windowFactory;
+		this.finishedWindowConsumer = finishedWindowConsumer;
+
+		this.prepare();
+	}
+
+	/**
+	 * build windows each with a single region, whose id is the string of the region in the format of -r option of bcftools;
+	 * for example the windows of {@link phylo.ref.RefPartition#getWindowList()}
+	 * @param regions
+	 * @return
+	 */
+	public static Map<String, List<Region>> makeSingleRegionWindows(List<Region> regions){
+		Map<String, List<Region>> ret=new LinkedHashMap<>();
+		for(Region region:regions) {
+			ret.put(region.toString(), Collections.singletonList(region));
+		}
+		return ret;
+	}
+
+	/**
+	 * build windows from the given map from window id to region list string in the format of -r option of bcftools, see {@link BcfUtils#parseBcftoolsRegionString(String)};
+	 * for example the regions of {@link phylo.ref.RegionUtils#readBedFileIntoRegionString(java.nio.file.Path, int)}
+	 * @param windowIdRegionListStringMap
+	 * @return
+	 */
+	public static Map<String, List<Region>> parseRegionListStringWindows(Map<String, String> windowIdRegionListStringMap){
+		Map<String, List<Region>> ret=new LinkedHashMap<>();
+		windowIdRegionListStringMap.forEach((id, regionListString)->{
+			ret.put(id, BcfUtils.parseBcftoolsRegionString(regionListString));
+		});
+		return ret;
+	}
+
+	void prepare() {
+		this.chromSortedWindowRegionsMap=new HashMap<>();
+		this.windowIdRemainingRegionNumMap=new HashMap<>();
+		this.windowIdRegionsMap.forEach((id, regions)->{
+			if(regions.isEmpty())
+				throw new IllegalArgumentException("regions of window cannot be empty:"+id);
+			for(Region region:regions) {
+				this.chromSortedWindowRegionsMap.computeIfAbsent(region.getReferenceName(), c->new ArrayList<>()).add(new WindowRegion(id, region));
+			}
+			this.windowIdRemainingRegionNumMap.put(id, regions.size());
+		});
+
+		this.chromSortedWindowRegionsMap.values().forEach(l->{
+			Collections.sort(l, (a,b)->Integer.compare(a.region.getStart(), b.region.getStart()));
+		});
+
+		this.createdWindowMap=new HashMap<>();
+		this.finishedWindowIds=new HashSet<>();
+		this.activeRegions=new ArrayList<>();
+		this.currentChrom=null;
+		this.recordNum=0;
+	}
+
+	/**
+	 * run the pass over all the given records and finish all windows
+	 * @param variantStream records sorted by chrom and position
+	 */
+	public void run(Stream<VariantContext> variantStream) {
+		variantStream.forEachOrdered(this::add);
+		this.finishAll();
+		log.info("sweep is done with "+this.recordNum+" records and "+this.finishedWindowIds.size()+" windows");
+	}
+
+	/**
+	 * route the given record to all windows overlapping it
+	 * @param variant
+	 */
+	private void add(VariantContext variant) {
+		this.recordNum++;
+		if(!variant.getContig().equals(this.currentChrom)) {
+			this.passChrom();
+			this.currentChrom=variant.getContig();
+			this.nextRegionIndex=0;
+		}
+
+		List<WindowRegion> sortedRegions=this.chromSortedWindowRegionsMap.get(this.currentChrom);
+		if(sortedRegions==null) {
+			return;
+		}
+
+		//reach all regions starting before the end of the record
+		while(this.nextRegionIndex<sortedRegions.size() && sortedRegions.get(this.nextRegionIndex).region.getStart()<=variant.getEnd()) {
+			WindowRegion windowRegion=sortedRegions.get(this.nextRegionIndex);
+			this.createdWindowMap.computeIfAbsent(windowRegion.windowId, this.windowFactory);
+			this.activeRegions.add(windowRegion);
+			this.nextRegionIndex++;
+		}
+
+		//pass all regions ending before the start of the record; as the records are sorted by start, no later record can overlap them
+		List<WindowRegion> remainingActiveRegions=new ArrayList<>(this.activeRegions.size());
+		Map<W, Boolean> addedWindows=new IdentityHashMap<>();
+		for(WindowRegion windowRegion:this.activeRegions) {
+			if(windowRegion.region.getEnd()<variant.getStart()) {
+				this.passRegion(windowRegion);
+			}else {
+				remainingActiveRegions.add(windowRegion);
+				//the region may be reached by an earlier longer record (for example an indel crossing the start of the region) while starting after the end of this record
+				if(windowRegion.region.getStart()>variant.getEnd()) {
+					continue;
+				}
+				W window=this.createdWindowMap.get(windowRegion.windowId);
+				if(addedWindows.put(window, Boolean.TRUE)==null) { //a record overlapping multiple regions of the same window is only added once
+					window.add(variant);
+				}
+			}
+		}
+		this.activeRegions=remainingActiveRegions;
+	}
+
+	/**
+	 * pass all regions on the current chrom since records of the same chrom are consecutive
+	 */
+	private void passChrom() {
+		for(WindowRegion windowRegion:this.activeRegions) {
+			this.passRegion(windowRegion);
+		}
+		this.activeRegions.clear();
+
+		if(this.currentChrom!=null && this.chromSortedWindowRegionsMap.containsKey(this.currentChrom)) {
+			List<WindowRegion> sortedRegions=this.chromSortedWindowRegionsMap.remove(this.currentChrom);
+			for(int i=this.nextRegionIndex;i<sortedRegions.size();i++) {
+				this.passRegion(sortedRegions.get(i));
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param windowRegion
+	 */
+	private void passRegion(WindowRegion windowRegion) {
+		int remaining=this.windowIdRemainingRegionNumMap.get(windowRegion.windowId)-1;
+		this.windowIdRemainingRegionNumMap.put(windowRegion.windowId, remaining);
+		if(remaining==0) {
+			W window=this.createdWindowMap.remove(windowRegion.windowId);
+			if(window==null) { //no record is found in any region of the window
+				window=this.windowFactory.apply(windowRegion.windowId);
+			}
+			this.finishedWindowIds.add(windowRegion.windowId);
+			this.finishedWindowConsumer.accept(window);
+		}
+	}
+
+	/**
+	 * finish all windows not finished yet at the end of the pass
+	 */
+	private void finishAll() {
+		this.passChrom();
+		this.currentChrom=null;
+		for(String chrom:new ArrayList<>(this.chromSortedWindowRegionsMap.keySet())) {
+			for(WindowRegion windowRegion:this.chromSortedWindowRegionsMap.remove(chrom)) {
+				this.passRegion(windowRegion);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of records of the pass
+	 */
+	public long getRecordNum() {
+		return recordNum;
+	}
+
+	/**
+	 * a region of a window
+	 */
+	private static class WindowRegion{
+		private final String windowId;
+		private final Region region;
+
+		WindowRegion(String windowId, Region region){
+			this.windowId=windowId;
+			this.region=region;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package phylo.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import phylo.ref.Region;
+
+public class VariantWindowSweeperTest {
+
+	static VariantContext makeRecord(String chrom, int start, int end) {
+		List<Allele> alleles=new ArrayList<>();
+		byte[] ref=new byte[end-start+1];
+		Arrays.fill(ref, (byte)'A');
+		alleles.add(Allele.create(ref, true));
+		alleles.add(Allele.create("C", false));
+		return new VariantContextBuilder("test", chrom, start, end, alleles).make();
+	}
+
+	static class TestWindow implements VariantWindowSweeper.Window{
+		private final String id;
+		private final List<VariantContext> records=new ArrayList<>();
+
+		TestWindow(String id){
+			this.id=id;
+		}
+
+		@Override
+		public void add(VariantContext variant) {
+			this.records.add(variant);
+		}
+
+		String recordsString() {
+			List<String> ret=new ArrayList<>();
+			for(VariantContext v:this.records) {
+				ret.add(v.getContig()+":"+v.getStart()+"-"+v.getEnd());
+			}
+			return ret.toString();
+		}
+	}
+
+	static Map<String, String> sweep(Map<String, List<Region>> windows, List<VariantContext> records){
+		Map<String, String> ret=new LinkedHashMap<>();
+		VariantWindowSweeper<TestWindow> sweeper=new VariantWindowSweeper<>(windows, TestWindow::new, w->{
+			if(ret.put(w.id, w.recordsString())!=null)
+				throw new IllegalStateException("window is finished more than once:"+w.id);
+		});
+		sweeper.run(records.stream());
+		return ret;
+	}
+
+	/**
+	 * records of each window found by checking every record against every region
+	 */
+	static Map<String, String> bruteForce(Map<String, List<Region>> windows, List<VariantContext> records){
+		Map<String, String> ret=new LinkedHashMap<>();
+		windows.forEach((id, regions)->{
+			TestWindow w=new TestWindow(id);
+			for(VariantContext v:records) {
+				for(Region r:regions) {
+					if(r.getReferenceName().equals(v.getContig()) && r.getStart()<=v.getEnd() && r.getEnd()>=v.getStart()) {
+						w.add(v);
+						break;
+					}
+				}
+			}
+			ret.put(id, w.recordsString());
+		});
+		return ret;
+	}
+
+	static void check(Map<String, String> expected, Map<String, String> actual) {
+		for(String id:expected.keySet()) {
+			if(!expected.get(id).equals(actual.get(id))) {
+				throw new IllegalStateException("records of window "+id+" are "+actual.get(id)+" but expected "+expected.get(id));
+			}
+		}
+		if(expected.size()!=actual.size())
+			throw new IllegalStateException("number of finished windows is "+actual.size()+" but expected "+expected.size());
+	}
+
+	public static void main(String[] args) {
+		//a record crossing the boundary of two windows followed by short records
+		Map<String, List<Region>> windows=VariantWindowSweeper.makeSingleRegionWindows(
+				Arrays.asList(new Region("chr1", 1, 100), new Region("chr1", 101, 200)));
+		List<VariantContext> records=Arrays.asList(
+				makeRecord("chr1", 90, 109), makeRecord("chr1", 95, 95), makeRecord("chr1", 150, 150));
+		Map<String, String> result=sweep(windows, records);
+		System.out.println(result);
+		check(bruteForce(windows, records), result);
+		if(!result.get("chr1:101-200").equals("[chr1:90-109, chr1:150-150]"))
+			throw new IllegalStateException("unexpected records of chr1:101-200:"+result.get("chr1:101-200"));
+
+		//random overlapping windows with multiple regions and records of various length on multiple chroms
+		Random random=new Random(1);
+		for(int t=0;t<200;t++) {
+			Map<String, List<Region>> randomWindows=new LinkedHashMap<>();
+			int windowNum=1+random.nextInt(10);
+			for(int i=0;i<windowNum;i++) {
+				List<Region> regions=new ArrayList<>();
+				int regionNum=1+random.nextInt(3);
+				for(int j=0;j<regionNum;j++) {
+					int start=1+random.nextInt(500);
+					regions.add(new Region("chr"+(1+random.nextInt(3)), start, start+random.nextInt(100)));
+				}
+				randomWindows.put("w"+i, regions);
+			}
+
+			List<VariantContext> randomRecords=new ArrayList<>();
+			for(int c=1;c<=3;c++) {
+				int pos=1;
+				while(true) {
+					pos+=random.nextInt(20);
+					if(pos>600)
+						break;
+					randomRecords.add(makeRecord("chr"+c, pos, pos+(random.nextInt(5)==0?random.nextInt(60):0)));
+				}
+			}
+
+			check(bruteForce(randomWindows, randomRecords), sweep(randomWindows, randomRecords));
+		}
+
+		System.out.println("all checks passed");
+	}
+}
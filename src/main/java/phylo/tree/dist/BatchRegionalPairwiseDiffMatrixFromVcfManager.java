@@ -16,9 +16,13 @@ import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
 
+import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Log;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import phylo.batch.BcfUtils;
+import phylo.batch.IndexedVariantFileRegionQuerier;
+import phylo.batch.VariantWindowSweeper;
 import phylo.concurrency.TimeUtils;
 import phylo.ref.Region;
 import phylo.ref.RegionUtils;
@@ -73,6 +77,18 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 	 */
 	private final int threadNum;
 	
+	/**
+	 * if not null, the records of each region are queried from this indexed variant file in JVM rather than with bcftools into a temporary vcf file;
+	 * must contain the same records as the {@link #bcfFile}
+	 */
+	private final Path indexedVariantFile;
+	
+	/**
+	 * if true, the {@link #indexedVariantFile} (no index is needed) is read in a single sequential pass and each record is routed to all regions overlapping it by a {@link VariantWindowSweeper},
+	 * rather than querying the records of each region separately; each region is submitted once the pass moves beyond it
+	 */
+	private final boolean sweep;
+	
 	
 	/////////////////////////////////////////
 	/**
@@ -102,6 +118,11 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 	 */
 	private Path outputRegionIndexFile;
 	
+	/**
+	 * querier of the {@link #indexedVariantFile} shared by all regions if it is given
+	 */
+	private IndexedVariantFileRegionQuerier regionQuerier;
+	
 	
 	/**
 	 * 
@@ -116,6 +137,45 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 			Path bcfFile, Path regionBedFile, int regionLen, 
 			int minQUALForVariantSites, int maxMissingGenotype,
 			Path outputPath, int threadNum) throws IOException{
+		this(bcfFile, regionBedFile, regionLen, minQUALForVariantSites, maxMissingGenotype, outputPath, threadNum, null);
+	}
+	
+	/**
+	 * 
+	 * @param bcfFile
+	 * @param regionBedFile
+	 * @param regionLen
+	 * @param minQUALForVariantSites
+	 * @param maxMissingGenotype
+	 * @param outputPath
+	 * @param threadNum
+	 * @param indexedVariantFile if null, the regional vcf files are queried from the bcfFile with bcftools
+	 * @throws IOException
+	 */
+	public BatchRegionalPairwiseDiffMatrixFromVcfManager(
+			Path bcfFile, Path regionBedFile, int regionLen, 
+			int minQUALForVariantSites, int maxMissingGenotype,
+			Path outputPath, int threadNum, Path indexedVariantFile) throws IOException{
+		this(bcfFile, regionBedFile, regionLen, minQUALForVariantSites, maxMissingGenotype, outputPath, threadNum, indexedVariantFile, false);
+	}
+	
+	/**
+	 * 
+	 * @param bcfFile
+	 * @param regionBedFile
+	 * @param regionLen
+	 * @param minQUALForVariantSites
+	 * @param maxMissingGenotype
+	 * @param outputPath
+	 * @param threadNum
+	 * @param indexedVariantFile if null, the regional vcf files are queried from the bcfFile with bcftools
+	 * @param sweep whether to read the indexedVariantFile in a single pass, see {@link #sweep}
+	 * @throws IOException
+	 */
+	public BatchRegionalPairwiseDiffMatrixFromVcfManager(
+			Path bcfFile, Path regionBedFile, int regionLen, 
+			int minQUALForVariantSites, int maxMissingGenotype,
+			Path outputPath, int threadNum, Path indexedVariantFile, boolean sweep) throws IOException{
 		
 		/////////////////////////////////////////validations
 		//check bcf file
@@ -137,6 +197,17 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 			log.info("csi index file of bcf file is found!");
 		}
 		
+		//check indexed variant file
+		if(indexedVariantFile!=null && !indexedVariantFile.toFile().exists()) {
+			log.error("indexed variant file is not found:"+indexedVariantFile.toString());
+			System.exit(1);
+		}
+		
+		if(sweep && indexedVariantFile==null) {
+			log.error("variant file must be given for sweep mode!");
+			System.exit(1);
+		}
+		
 		//check region file
 		if(!regionBedFile.toFile().exists()) {
 			log.error("region bed file is not found:"+regionBedFile.toString());
@@ -189,6 +260,8 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 		this.maxMissingGenotype=maxMissingGenotype;
 		this.rootOutDir=outputPath;
 		this.threadNum=threadNum;
+		this.indexedVariantFile=indexedVariantFile;
+		this.sweep=sweep;
 		
 //		try {
 			this.preprocess();
@@ -251,14 +324,23 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 		
 		////create VcfFileReader and create the ordered list of sample names
 		this.orderedSampleNameList=new ArrayList<>();
-		Path headerSectionVcfFile = Path.of(rootTmpDir.toString(), "header.vcf");
-		BcfUtils.queryHeaderRegionFromBcfFile(bcfFile.toString(), headerSectionVcfFile.toString());
-		VCFFileReader reader = new VCFFileReader(headerSectionVcfFile, false);
-		reader.getFileHeader().getSampleNamesInOrder().forEach(n->{
-			orderedSampleNameList.add(n);
-		});
-		headerSectionVcfFile.toFile().delete();
-		reader.close();
+		if(this.sweep) {
+			try(VCFFileReader reader = new VCFFileReader(this.indexedVariantFile, false)){
+				this.orderedSampleNameList.addAll(reader.getFileHeader().getSampleNamesInOrder());
+			}
+		}else if(this.indexedVariantFile!=null) {
+			this.regionQuerier=new IndexedVariantFileRegionQuerier(this.indexedVariantFile);
+			this.orderedSampleNameList.addAll(this.regionQuerier.getSampleNamesInOrder());
+		}else {
+			Path headerSectionVcfFile = Path.of(rootTmpDir.toString(), "header.vcf");
+			BcfUtils.queryHeaderRegionFromBcfFile(bcfFile.toString(), headerSectionVcfFile.toString());
+			VCFFileReader reader = new VCFFileReader(headerSectionVcfFile, false);
+			reader.getFileHeader().getSampleNamesInOrder().forEach(n->{
+				orderedSampleNameList.add(n);
+			});
+			headerSectionVcfFile.toFile().delete();
+			reader.close();
+		}
 		
 		//check and read the regionBedFile and divide into regions
 		this.regionIndexStringMap = RegionUtils.readBedFileIntoRegionString(this.regionBedFile, regionLen);
@@ -294,22 +376,14 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 		
 		Map<Future<Integer>, PairwiseDiffMatrixFromVcf> allFutureJobMap = new LinkedHashMap<>();
 		
-		for(int index:this.regionIndexStringMap.keySet()) {
-			String regionString = this.regionIndexStringMap.get(index);
-			
-			PairwiseDiffMatrixFromVcf collector = 
-					new PairwiseDiffMatrixFromVcf(
-							this.orderedSampleNameList,//<String> orderedSampleNameList, 
-							this.bcfFile,// bcfFile, 
-							regionString,//String regionListString, 
-							Integer.toString(index),// String uniqueRegionIdentifier, 
-							VariantContextFilterFactory.nonIndelSite().and(VariantContextFilterFactory.nonMixedTypeSite()).and(VariantContextFilterFactory.filterVariantSitesByQual(minQUALForVariantSites)).and(VariantContextFilterFactory.allIndividualsAreGenericHomozygous()).and(VariantContextFilterFactory.maxMissingCount(maxMissingGenotype)),//VariantContextFilter variantFilter, 
-							GenotypeRecoderFactory.singleBaseSeqRecoder(),//GenotypeRecoder genotypeRecoder,
-							this.regionDiffMatrixOutDir,
-							this.rootTmpDir//Path tmpDir, 
-							);
+		if(this.sweep) {
+			this.submitAllJobsBySweep(executorService, allFutureJobMap);
+		}else {
+			for(int index:this.regionIndexStringMap.keySet()) {
+				PairwiseDiffMatrixFromVcf collector = this.makeCollector(index);
 			
-			allFutureJobMap.put(executorService.submit(collector), collector);
+				allFutureJobMap.put(executorService.submit(collector), collector);
+			}
 		}
 		
 		
@@ -339,6 +413,9 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 
 		//shut down ExecutorService so that program can terminate
 		executorService.shutdown();
+		if(this.regionQuerier!=null) {
+			this.regionQuerier.close();
+		}
 		/////////////////
 		log.info("all done!");
 		
@@ -364,6 +441,53 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 		
 	}
 
+	/**
+	 * make the collector of the region with the given index
+	 * @param index
+	 * @return
+	 */
+	private PairwiseDiffMatrixFromVcf makeCollector(int index) {
+		return new PairwiseDiffMatrixFromVcf(
+				this.orderedSampleNameList,//<String> orderedSampleNameList, 
+				this.bcfFile,// bcfFile, 
+				this.regionIndexStringMap.get(index),//String regionListString, 
+				Integer.toString(index),// String uniqueRegionIdentifier, 
+				VariantContextFilterFactory.nonIndelSite().and(VariantContextFilterFactory.nonMixedTypeSite()).and(VariantContextFilterFactory.filterVariantSitesByQual(minQUALForVariantSites)).and(VariantContextFilterFactory.allIndividualsAreGenericHomozygous()).and(VariantContextFilterFactory.maxMissingCount(maxMissingGenotype)),//VariantContextFilter variantFilter, 
+				GenotypeRecoderFactory.singleBaseSeqRecoder(),//GenotypeRecoder genotypeRecoder,
+				this.regionDiffMatrixOutDir,
+				this.rootTmpDir,//Path tmpDir, 
+				this.regionQuerier
+				);
+	}
+	
+	/**
+	 * read the {@link #indexedVariantFile} in a single pass and submit the collector of each region to the given executorService once all its records are added
+	 * @param executorService
+	 * @param allFutureJobMap
+	 */
+	private void submitAllJobsBySweep(ExecutorService executorService, Map<Future<Integer>, PairwiseDiffMatrixFromVcf> allFutureJobMap) {
+		Map<String, String> regionIDRegionStringMap=new LinkedHashMap<>();
+		this.regionIndexStringMap.forEach((index, regionString)->{
+			regionIDRegionStringMap.put(Integer.toString(index), regionString);
+		});
+		
+		VariantWindowSweeper<PairwiseDiffMatrixFromVcf> sweeper = new VariantWindowSweeper<>(
+				VariantWindowSweeper.parseRegionListStringWindows(regionIDRegionStringMap),
+				regionID->{
+					PairwiseDiffMatrixFromVcf collector = this.makeCollector(Integer.parseInt(regionID));
+					collector.startSweep();
+					return collector;
+				},
+				collector->{
+					allFutureJobMap.put(executorService.submit(collector), collector);
+				});
+		
+		try(VCFFileReader reader = new VCFFileReader(this.indexedVariantFile, false);
+				CloseableIterator<VariantContext> iterator=reader.iterator()){
+			sweeper.run(iterator.stream());
+		}
+	}
+	
 	/**
 	 * @return the regionDiffMatrixOutDir
 	 */
@@ -392,8 +516,8 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 	 * @param outputTreeFile 
 	 */
 	public static void main(String[] args) {
-		if(args.length!=7) {
-			System.out.println("java this bcfFile regionBedFile regionLen minQUALForVariantSites maxMissingGenotype outputPath threadNum");
+		if(args.length<7 || args.length>9) {
+			System.out.println("java this bcfFile regionBedFile regionLen minQUALForVariantSites maxMissingGenotype outputPath threadNum [indexedVariantFile [query|sweep]]");
 			System.exit(1);
 		}
 		Path bcfFile = Path.of(args[0]);
@@ -403,6 +527,12 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 		int maxMissingGenotype=Integer.parseInt(args[4]);
 		Path outputPath=Path.of(args[5]);
 		int threadNum=Integer.parseInt(args[6]);
+		Path indexedVariantFile=args.length>=8?Path.of(args[7]):null;
+		boolean sweep=args.length==9&&args[8].equals("sweep");
+		if(args.length==9&&!sweep&&!args[8].equals("query")) {
+			log.error("given mode: "+args[8]+" is neither query nor sweep!");
+			System.exit(1);
+		}
 		
 		////////////////////////////
 		
@@ -414,7 +544,9 @@ public class BatchRegionalPairwiseDiffMatrixFromVcfManager{
 					minQUALForVariantSites,
 					maxMissingGenotype,
 					outputPath,
-					threadNum
+					threadNum,
+					indexedVariantFile,
+					sweep
 					);
 			long startTime=System.nanoTime();
 			manager.run();
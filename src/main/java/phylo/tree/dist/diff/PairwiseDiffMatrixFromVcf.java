@@ -14,6 +14,8 @@ import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import phylo.batch.BcfUtils;
+import phylo.batch.IndexedVariantFileRegionQuerier;
+import phylo.batch.VariantWindowSweeper;
 import phylo.tree.dist.DistMatrixUtils;
 import population.vcf.utils.GenotypeRecoder;
 import population.vcf.utils.GenotypeRecoderFactory;
@@ -34,7 +36,7 @@ import population.vcf.utils.VariantContextFilter;
  * @author tanxu
  * 
  */
-public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
+public class PairwiseDiffMatrixFromVcf implements Callable<Integer>, VariantWindowSweeper.Window{
 	public static Log log=Log.getInstance(PairwiseDiffMatrixFromVcf.class);
 	
 	////////////////////////
@@ -84,10 +86,22 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 	 */
 	private final Path tmpOutDir;
 	
+	/**
+	 * if not null, the records in the regions are queried from the indexed variant file of this querier in JVM;
+	 * otherwise, the regional vcf file is queried from the {@link #bcfFile} by bcftools into the {@link #tmpOutDir}
+	 */
+	private final IndexedVariantFileRegionQuerier regionQuerier;
+	
 	
 	//////////////////
 	private Path queriedVcfFile;
 	
+	/**
+	 * whether the records in the regions are added by a {@link VariantWindowSweeper} before this job is submitted, see {@link #startSweep()};
+	 * if true, no query or parsing is needed
+	 */
+	private boolean fedBySweep = false;
+	
 	
 	/////////////////////////////
 	/**
@@ -124,6 +138,27 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 			VariantContextFilter variantFilter, GenotypeRecoder genotypeRecoder,
 			Path regionMatrixOutDir, Path tmpOutDir
 			) {
+		this(orderedSampleNameList, bcfFile, regionListString, uniqueRegionIdentifier, variantFilter, genotypeRecoder, regionMatrixOutDir, tmpOutDir, null);
+	}
+	
+	/**
+	 * 
+	 * @param orderedSampleNameList
+	 * @param bcfFile
+	 * @param regionListString
+	 * @param uniqueRegionIdentifier
+	 * @param variantFilter
+	 * @param genotypeRecoder
+	 * @param regionMatrixOutDir
+	 * @param tmpOutDir
+	 * @param regionQuerier querier shared by all regions in the same batch; if null, query regional vcf file with bcftools
+	 */
+	public PairwiseDiffMatrixFromVcf(
+			List<String> orderedSampleNameList, Path bcfFile, String regionListString, String uniqueRegionIdentifier, 
+			VariantContextFilter variantFilter, GenotypeRecoder genotypeRecoder,
+			Path regionMatrixOutDir, Path tmpOutDir,
+			IndexedVariantFileRegionQuerier regionQuerier
+			) {
 		// TODO Auto-generated constructor stub
 		
 		
@@ -138,20 +173,38 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 		this.genotypeRecoder=genotypeRecoder;
 		this.tmpOutDir=tmpOutDir;
 		this.regionMatrixOutDir=regionMatrixOutDir;
+		this.regionQuerier=regionQuerier;
+	}
+	
+	
+	/**
+	 * start counting the differences of the records added by a {@link VariantWindowSweeper} with {@link #add(VariantContext)} rather than queried from the {@link #bcfFile};
+	 * must be invoked before any record is added
+	 */
+	public void startSweep() {
+		this.fedBySweep=true;
+		this.initializeMatrices();
 	}
 	
+	@Override
+	public void add(VariantContext variant) {
+		if(this.variantFilter.test(variant)) //pass the given filter
+			this.addVariant(variant);
+	}
 	
 	/**
 	 */
 	@Override
 	public Integer call() throws Exception {
 		
-		if(this.queryVCF()!=0) {
-			return 1;
-		}
-		
-		if(this.parseVcfFile()!=0) {
-			return 2;
+		if(!this.fedBySweep) {
+			if(this.queryVCF()!=0) {
+				return 1;
+			}
+			
+			if(this.parseVcfFile()!=0) {
+				return 2;
+			}
 		}
 		
 //		this.update();
@@ -167,6 +220,11 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 	 * return 0 if succeed; return 1 otherwise
 	 */
 	private int queryVCF() {
+		if(this.regionQuerier!=null) {
+			//records are directly queried when parsing
+			return 0;
+		}
+		
 		log.info("start querying regional VCF from bcf file"+" for region id=="+this.uniqueRegionIdentifier);
 		this.queriedVcfFile = Path.of(this.tmpOutDir.toString(), this.uniqueRegionIdentifier.concat(".vcf"));
 		
@@ -188,6 +246,41 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 	private int parseVcfFile() {
 		log.info("start parsing queried vcf file"+" for region id=="+this.uniqueRegionIdentifier);
 		///
+		this.initializeMatrices();
+		
+		try {
+		////
+			VCFFileReader reader = null;
+			Stream<VariantContext> stream;
+			if(this.regionQuerier!=null) {
+				stream=this.regionQuerier.query(this.regionListString);
+			}else {
+				reader = new VCFFileReader(this.queriedVcfFile, false);
+				stream=reader.iterator().stream();
+			}
+			
+			stream=stream.filter(this.variantFilter); //pass the given filter
+			
+			stream.forEach(this::addVariant);
+			
+			
+			stream.close();
+			if(reader!=null)
+				reader.close();
+		}catch(TribbleException e) {
+			log.error("Exception is thrown when parsing queried vcf file for region id=="+this.uniqueRegionIdentifier+" :" +e.getMessage());
+			return 1;
+		}
+		
+		
+		log.info("parsing queried vcf file"+" for region id=="+this.uniqueRegionIdentifier+" is successfully done");
+		return 0;
+	}
+	
+	/**
+	 * 
+	 */
+	private void initializeMatrices() {
 		this.diffMatrix=new int[this.orderedSampleNameList.size()][this.orderedSampleNameList.size()];
 		this.nonMissingSitesNumMatrix=new int[this.orderedSampleNameList.size()][this.orderedSampleNameList.size()];
 		
@@ -197,61 +290,46 @@ public class PairwiseDiffMatrixFromVcf implements Callable<Integer>{
 				this.nonMissingSitesNumMatrix[i][j]=0;
 			}
 		}
+	}
+	
+	/**
+	 * count the differences and non-missing sites of all sample pairs at the site of the given record that passed the {@link #variantFilter}
+	 * @param v
+	 */
+	private void addVariant(VariantContext v) {
+//		if(v.getStart()%100000==0)
+//			log.info("vcf file progress:"+v.getContig()+" "+v.getStart());
 		
-		try {
-		////
-			VCFFileReader reader = new VCFFileReader(this.queriedVcfFile, false);
-			
-			Stream<VariantContext> stream=reader.iterator().stream();
-			
-			stream=stream.filter(this.variantFilter); //pass the given filter
+		
+		//
+		List<String> sampleSeqList = new ArrayList<>();
+		
+		for(String sample:this.orderedSampleNameList) {
+			Genotype g = v.getGenotype(sample);
 			
-			stream.forEach(v->{
-//				if(v.getStart()%100000==0)
-//					log.info("vcf file progress:"+v.getContig()+" "+v.getStart());
-				
-				
+			sampleSeqList.add(this.genotypeRecoder.apply(new Pair<>(v,g)));
+		}
+		
+		for(int i=0;i<this.orderedSampleNameList.size();i++) {
+			for(int j=0;j<this.orderedSampleNameList.size();j++) {
 				//
-				List<String> sampleSeqList = new ArrayList<>();
-				
-				for(String sample:this.orderedSampleNameList) {
-					Genotype g = v.getGenotype(sample);
+				if(sampleSeqList.get(i).equals(GenotypeRecoderFactory.MISSING_BASE) //missing data
+						||sampleSeqList.get(j).equals(GenotypeRecoderFactory.MISSING_BASE)  //missing data
+						) { 
+					//skip sites with one or two samples of the pair with missing data
+				}else {
+					//both samples of the sample pair has non-missing data
+//					this.nonMissingSitesNumMatrix[i][j]=this.nonMissingSitesNumMatrix[i][j]+v.getLengthOnReference();
+					this.nonMissingSitesNumMatrix[i][j]=this.nonMissingSitesNumMatrix[i][j]+1;
 					
-					sampleSeqList.add(this.genotypeRecoder.apply(new Pair<>(v,g)));
-				}
-				
-				for(int i=0;i<this.orderedSampleNameList.size();i++) {
-					for(int j=0;j<this.orderedSampleNameList.size();j++) {
+					if(sampleSeqList.get(i).equals(sampleSeqList.get(j))) {
 						//
-						if(sampleSeqList.get(i).equals(GenotypeRecoderFactory.MISSING_BASE) //missing data
-								||sampleSeqList.get(j).equals(GenotypeRecoderFactory.MISSING_BASE)  //missing data
-								) { 
-							//skip sites with one or two samples of the pair with missing data
-						}else {
-							//both samples of the sample pair has non-missing data
-//							this.nonMissingSitesNumMatrix[i][j]=this.nonMissingSitesNumMatrix[i][j]+v.getLengthOnReference();
-							this.nonMissingSitesNumMatrix[i][j]=this.nonMissingSitesNumMatrix[i][j]+1;
-							
-							if(sampleSeqList.get(i).equals(sampleSeqList.get(j))) {
-								//
-							}else {
-								this.diffMatrix[i][j] = this.diffMatrix[i][j]+1; //TODO this assume there is only one nucleotide 
-							}
-						}
+					}else {
+						this.diffMatrix[i][j] = this.diffMatrix[i][j]+1; //TODO this assume there is only one nucleotide 
 					}
 				}
-			});
-			
-			
-			reader.close();
-		}catch(TribbleException e) {
-			log.error("Exception is thrown when parsing queried vcf file for region id=="+this.uniqueRegionIdentifier+" :" +e.getMessage());
-			return 1;
+			}
 		}
-		
-		
-		log.info("parsing queried vcf file"+" for region id=="+this.uniqueRegionIdentifier+" is successfully done");
-		return 0;
 	}
 	
 	/**
@@ -1,11 +1,222 @@
 package phylo.tree.dist.jc;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import phylo.alignment.MultipleAlignment;
+
+/**
+ * calculate the pairwise p-distance (and Jukes-Cantor distance) between all sequences of a {@link MultipleAlignment} in JVM;
+ *
+ * 1. each character is encoded as one of A, C, G, T (case-insensitive) or missing (any other character such as {@link population.vcf.utils.GenotypeRecoderFactory#MISSING_BASE}, gap or ambiguous base);
+ * 2. identical columns are compressed into site patterns with the number of columns of each pattern, thus each distinct column is only compared once;
+ * 3. pairwise deletion (same as the 'pairwise deletion' option of MegaX): for each pair of sequences, only the columns with both characters not missing are counted,
+ * 		thus the p-distance of a pair is the number of different columns divided by the number of such columns;
+ *
+ * the encoded patterns are stored by sequence (one byte array per sequence), thus the comparison of a pair of sequences reads two contiguous arrays;
+ *
+ * the p-distance matrix can be calculated with the number of columns of each pattern in the alignment or any other weights of the patterns,
+ * for example the number of times the columns of each pattern are drawn in a bootstrap replicate
+ *
+ * @author tanxu
+ *
+ */
 public class PDistanceCalculator {
-	
-	
-	
-	
-	
-	
-	
+	/**
+	 * code of a missing character
+	 */
+	public static final byte MISSING=4;
+	/**
+	 * the maximal p-distance for which Jukes-Cantor distance is defined
+	 */
+	public static final double MAX_JC_P_DIST=0.75;
+
+	////////////////////////////
+	private final MultipleAlignment msa;
+
+	/////////////////////////////
+	/**
+	 * encoded site patterns of each sequence; seqPatternCodes[i][k] is the code of the i-th sequence in the k-th pattern
+	 */
+	private byte[][] seqPatternCodes;
+	/**
+	 * number of columns of each pattern in the alignment
+	 */
+	private int[] patternCounts;
+	/**
+	 * index of the pattern of each column of the alignment
+	 */
+	private int[] sitePatternIndices;
+
+	/**
+	 *
+	 * @param msa
+	 */
+	public PDistanceCalculator(MultipleAlignment msa) {
+		super();
+		if(msa==null)
+			throw new IllegalArgumentException("given msa cannot be null!");
+
+		this.msa = msa;
+
+		this.prepare();
+	}
+
+	/**
+	 * encode and compress all columns of the alignment into site patterns
+	 */
+	void prepare() {
+		int seqNum=this.msa.getSeqNum();
+		int alignmentLen=this.msa.getAlignmentLen();
+
+		this.sitePatternIndices=new int[alignmentLen];
+
+		Map<String, Integer> patternIndexMap=new HashMap<>();
+		byte[][] patternColumns=new byte[alignmentLen][];
+		int[] counts=new int[alignmentLen];
+
+		byte[] column=new byte[seqNum];
+		for(int site=0;site<alignmentLen;site++) {
+			for(int i=0;i<seqNum;i++) {
+				column[i]=encode(this.msa.getChar(i, site));
+			}
+
+			String key=new String(column, MultipleAlignment.CHARSET);
+			Integer index=patternIndexMap.get(key);
+			if(index==null) {
+				index=patternIndexMap.size();
+				patternIndexMap.put(key, index);
+				patternColumns[index]=column.clone();
+			}
+			counts[index]++;
+			this.sitePatternIndices[site]=index;
+		}
+
+		int patternNum=patternIndexMap.size();
+		this.patternCounts=new int[patternNum];
+		System.arraycopy(counts, 0, this.patternCounts, 0, patternNum);
+
+		//transpose into sequence-major order
+		this.seqPatternCodes=new byte[seqNum][patternNum];
+		for(int k=0;k<patternNum;k++) {
+			for(int i=0;i<seqNum;i++) {
+				this.seqPatternCodes[i][k]=patternColumns[k][i];
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param c
+	 * @return the code of the given character; {@link #MISSING} if not one of A, C, G, T
+	 */
+	static byte encode(char c) {
+		switch(c) {
+		case 'A': case 'a': return 0;
+		case 'C': case 'c': return 1;
+		case 'G': case 'g': return 2;
+		case 'T': case 't': return 3;
+		default: return MISSING;
+		}
+	}
+
+	/**
+	 * calculate the p-distance matrix with the number of columns of each pattern in the alignment
+	 * @return the symmetric p-distance matrix in the order of {@link MultipleAlignment#getSeqNames()};
+	 * 		the distance of a pair of sequences without any column with both characters not missing is {@link Double#NaN}
+	 */
+	public double[][] calculatePDistMatrix(){
+		return this.calculatePDistMatrix(this.patternCounts);
+	}
+
+	/**
+	 * calculate the p-distance matrix with the given weight of each pattern
+	 * @param patternWeights weight of each pattern in the same order as {@link #getPatternCounts()}, for example the number of times the columns of each pattern are drawn in a bootstrap replicate
+	 * @return the symmetric p-distance matrix in the order of {@link MultipleAlignment#getSeqNames()};
+	 * 		the distance of a pair of sequences without any column with positive weight and both characters not missing is {@link Double#NaN}
+	 */
+	public double[][] calculatePDistMatrix(int[] patternWeights){
+		if(patternWeights.length!=this.patternCounts.length)
+			throw new IllegalArgumentException("given patternWeights is not of the same length as the pattern number!");
+
+		int seqNum=this.seqPatternCodes.length;
+		int patternNum=this.patternCounts.length;
+		double[][] ret=new double[seqNum][seqNum];
+
+		for(int i=0;i<seqNum;i++) {
+			byte[] codes1=this.seqPatternCodes[i];
+			for(int j=i+1;j<seqNum;j++) {
+				byte[] codes2=this.seqPatternCodes[j];
+				long diffNum=0;
+				long validNum=0;
+				for(int k=0;k<patternNum;k++) {
+					if(codes1[k]!=MISSING && codes2[k]!=MISSING) {
+						validNum+=patternWeights[k];
+						if(codes1[k]!=codes2[k]) {
+							diffNum+=patternWeights[k];
+						}
+					}
+				}
+				ret[i][j]=validNum==0?Double.NaN:(double)diffNum/validNum;
+				ret[j][i]=ret[i][j];
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * calculate the Jukes-Cantor distance from the given p-distance
+	 * @param pDist
+	 * @return the Jukes-Cantor distance; {@link Double#NaN} if the given p-distance is NaN or not less than {@link #MAX_JC_P_DIST}
+	 */
+	public static double toJCDist(double pDist) {
+		if(Double.isNaN(pDist) || pDist>=MAX_JC_P_DIST)
+			return Double.NaN;
+		return -0.75*Math.log(1-(double)4*pDist/3);
+	}
+
+	/**
+	 * calculate the Jukes-Cantor distance matrix from the given p-distance matrix, see {@link #toJCDist(double)}
+	 * @param pDistMatrix
+	 * @return
+	 */
+	public static double[][] toJCDistMatrix(double[][] pDistMatrix){
+		double[][] ret=new double[pDistMatrix.length][pDistMatrix.length];
+		for(int i=0;i<pDistMatrix.length;i++) {
+			for(int j=0;j<pDistMatrix[i].length;j++) {
+				ret[i][j]=i==j?0:toJCDist(pDistMatrix[i][j]);
+			}
+		}
+		return ret;
+	}
+
+	/////////////////////////////////
+	/**
+	 * @return the msa
+	 */
+	public MultipleAlignment getMsa() {
+		return msa;
+	}
+
+	/**
+	 * @return the number of distinct site patterns
+	 */
+	public int getPatternNum() {
+		return this.patternCounts.length;
+	}
+
+	/**
+	 * @return the number of columns of each pattern in the alignment
+	 */
+	public int[] getPatternCounts() {
+		return patternCounts.clone();
+	}
+
+	/**
+	 * @return the index of the pattern of each column of the alignment
+	 */
+	public int[] getSitePatternIndices() {
+		return sitePatternIndices.clone();
+	}
 }
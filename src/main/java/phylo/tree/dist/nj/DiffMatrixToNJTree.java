@@ -16,6 +16,7 @@ import phylo.tree.dist.diff.merge.MergerUtils;
 import phylo.tree.dist.diff.merge.RegionDiffMatrixAndNonMissingSiteNumMatrixFilesMerger;
 import phylo.tree.phylo.PhylipBashRunner;
 import phylo.tree.reader.NewickFileFormatType;
+import phylo.tree.reader.NewickTreeWriter;
 import phylo.tree.reader.Tree;
 
 /**
@@ -164,7 +165,7 @@ public class DiffMatrixToNJTree {
 			log.info("write rerooted tree to newick file for data =="+dn);
 			Path rerootedTreeFile = Path.of(dataOutDir.toString(),dn.concat(".reroot.nj.nwk"));
 			BufferedWriter writer = new BufferedWriter(new FileWriter(rerootedTreeFile.toFile(), false));
-		    writer.write(rerootedTree.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
+		    rerootedTree.writeFullNewickString(writer, NewickFileFormatType.SIMPLE_NEWICK_2);
 		    
 		    writer.close();
 		    
@@ -179,8 +180,10 @@ public class DiffMatrixToNJTree {
 		}
 		
 		BufferedWriter writer = new BufferedWriter(new FileWriter(this.mergedAllTreeFile.toFile(), true));
+		NewickTreeWriter newickTreeWriter = new NewickTreeWriter(NewickFileFormatType.SIMPLE_NEWICK_2);
 		for(String dn:this.dataNameRerootedTreeMap.keySet()) {
-			writer.append(dn.concat("\t").concat(dn).concat("\t").concat(this.dataNameRerootedTreeMap.get(dn).toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2)));
+			writer.append(dn).append("\t").append(dn).append("\t");
+			newickTreeWriter.write(this.dataNameRerootedTreeMap.get(dn), writer);
 			writer.newLine();
 		}
 	    writer.flush();
@@ -0,0 +1,204 @@
+package phylo.tree.dist.nj;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import phylo.tree.reader.Tree;
+
+/**
+ * build a neighbor-joining tree (Saitou and Nei 1987) from a distance matrix in JVM rather than with the neighbor program of PHYLIP (see {@link DiffMatrixToNJTree});
+ *
+ * the distances of the active clusters are kept in a single flat array of n*n doubles with row-major order, together with the sum of each row;
+ * after each join, the new cluster takes the slot of one of the joined clusters and the last active cluster is moved into the slot of the other one,
+ * thus the active clusters are always in the first m rows and columns and each iteration scans a contiguous block of the array;
+ * the memory is O(n^2) and the time is O(n^3);
+ *
+ * same as the neighbor program, the last three clusters are joined to a trifurcating root; negative branch lengths are set to 0;
+ * ties of the Q criterion are resolved by the first pair in the order of the slots, thus the result is deterministic for the same input;
+ *
+ * the interrupted status of the current thread is checked before each join so that a canceled job (for example a timed out {@link java.util.concurrent.Future}) stops early
+ *
+ * @author tanxu
+ *
+ */
+public class NeighborJoining {
+	/**
+	 * names of the leaves in the same order as the distance matrix
+	 */
+	private final List<String> leafNames;
+	/**
+	 * symmetric distance matrix
+	 */
+	private final double[][] distMatrix;
+
+	/////////////////////////////
+	/**
+	 * children nodes of each node; leaf nodes are in [0, n), internal nodes are in [n, 2n-2)
+	 */
+	private int[][] childIndices;
+	private double[] distToParents;
+	private int rootIndex;
+	private Tree tree;
+
+	/**
+	 *
+	 * @param leafNames
+	 * @param distMatrix
+	 * @throws CancellationException if the current thread is interrupted; the interrupted status is kept
+	 */
+	public NeighborJoining(List<String> leafNames, double[][] distMatrix) {
+		super();
+		if(leafNames.size()<2)
+			throw new IllegalArgumentException("given leafNames must contain at least 2 leaves!");
+		if(distMatrix.length!=leafNames.size())
+			throw new IllegalArgumentException("given distMatrix is not of the same size as leafNames!");
+		for(int i=0;i<distMatrix.length;i++) {
+			if(distMatrix[i].length!=distMatrix.length)
+				throw new IllegalArgumentException("given distMatrix is not a square matrix!");
+			for(int j=0;j<distMatrix.length;j++) {
+				if(i!=j && (Double.isNaN(distMatrix[i][j]) || Double.isInfinite(distMatrix[i][j])))
+					throw new IllegalArgumentException("given distMatrix contains undefined distance between "+leafNames.get(i)+" and "+leafNames.get(j));
+			}
+		}
+
+		this.leafNames = leafNames;
+		this.distMatrix = distMatrix;
+
+		this.run();
+	}
+
+	void run() {
+		int n=this.leafNames.size();
+		this.childIndices=new int[Math.max(2*n-2, n+1)][];
+		this.distToParents=new double[this.childIndices.length];
+		for(int i=0;i<n;i++) {
+			this.childIndices[i]=new int[0];
+		}
+
+		//distances and row sums of the active clusters
+		double[] d=new double[n*n];
+		for(int i=0;i<n;i++) {
+			for(int j=0;j<n;j++) {
+				d[i*n+j]=i==j?0:(this.distMatrix[i][j]+this.distMatrix[j][i])/2;
+			}
+		}
+		double[] rowSums=new double[n];
+		for(int i=0;i<n;i++) {
+			double sum=0;
+			for(int j=0;j<n;j++) {
+				sum+=d[i*n+j];
+			}
+			rowSums[i]=sum;
+		}
+		//node index of the cluster in each slot
+		int[] slotNodes=new int[n];
+		for(int i=0;i<n;i++) {
+			slotNodes[i]=i;
+		}
+
+		int nextNode=n;
+		int m=n;
+		while(m>3) {
+			if(Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("neighbor-joining is interrupted with "+m+" active clusters left!");
+			}
+			
+			//find the pair with minimal Q(i,j)=(m-2)*d(i,j)-r(i)-r(j)
+			int minI=-1;
+			int minJ=-1;
+			double minQ=Double.POSITIVE_INFINITY;
+			for(int i=0;i<m;i++) {
+				int row=i*n;
+				double ri=rowSums[i];
+				for(int j=i+1;j<m;j++) {
+					double q=(m-2)*d[row+j]-ri-rowSums[j];
+					if(q<minQ) {
+						minQ=q;
+						minI=i;
+						minJ=j;
+					}
+				}
+			}
+
+			double dij=d[minI*n+minJ];
+			double li=dij/2+(rowSums[minI]-rowSums[minJ])/(2*(m-2));
+			double lj=dij-li;
+
+			int newNode=nextNode++;
+			this.childIndices[newNode]=new int[] {slotNodes[minI], slotNodes[minJ]};
+			this.distToParents[slotNodes[minI]]=Math.max(0, li);
+			this.distToParents[slotNodes[minJ]]=Math.max(0, lj);
+
+			//the new cluster takes slot minI
+			double newRowSum=0;
+			for(int k=0;k<m;k++) {
+				if(k==minI || k==minJ)
+					continue;
+				double dk=(d[minI*n+k]+d[minJ*n+k]-dij)/2;
+				rowSums[k]+=dk-d[k*n+minI]-d[k*n+minJ];
+				d[minI*n+k]=dk;
+				d[k*n+minI]=dk;
+				newRowSum+=dk;
+			}
+			d[minI*n+minI]=0;
+			rowSums[minI]=newRowSum;
+			slotNodes[minI]=newNode;
+
+			//the last active cluster takes slot minJ
+			int last=m-1;
+			if(minJ!=last) {
+				for(int k=0;k<last;k++) {
+					d[minJ*n+k]=d[last*n+k];
+					d[k*n+minJ]=d[k*n+last];
+				}
+				d[minJ*n+minJ]=0;
+				rowSums[minJ]=rowSums[last];
+				slotNodes[minJ]=slotNodes[last];
+			}
+			m--;
+		}
+
+		//join the last clusters to the root
+		this.rootIndex=nextNode;
+		if(m==3) {
+			double d01=d[1], d02=d[2], d12=d[n+2];
+			this.childIndices[this.rootIndex]=new int[] {slotNodes[0], slotNodes[1], slotNodes[2]};
+			this.distToParents[slotNodes[0]]=Math.max(0, (d01+d02-d12)/2);
+			this.distToParents[slotNodes[1]]=Math.max(0, (d01+d12-d02)/2);
+			this.distToParents[slotNodes[2]]=Math.max(0, (d02+d12-d01)/2);
+		}else {
+			this.childIndices[this.rootIndex]=new int[] {slotNodes[0], slotNodes[1]};
+			this.distToParents[slotNodes[0]]=Math.max(0, d[1]/2);
+			this.distToParents[slotNodes[1]]=Math.max(0, d[1]/2);
+		}
+
+		String[] labels=new String[this.childIndices.length];
+		for(int i=0;i<n;i++) {
+			labels[i]=this.leafNames.get(i);
+		}
+		this.tree=Tree.fromNodeArrays(this.rootIndex, this.childIndices, labels, this.distToParents);
+	}
+
+	/**
+	 * @return the children nodes of each node; leaf nodes are in the same order as the distance matrix followed by the internal nodes in the order of joining
+	 */
+	public int[][] getChildIndices() {
+		return Arrays.stream(childIndices).map(int[]::clone).toArray(int[][]::new);
+	}
+
+	/**
+	 * @return the index of the root node in {@link #getChildIndices()}
+	 */
+	public int getRootIndex() {
+		return rootIndex;
+	}
+
+	/**
+	 * @return the built tree with trifurcating root (bifurcating if only 2 leaves)
+	 */
+	public Tree getTree() {
+		return tree;
+	}
+}
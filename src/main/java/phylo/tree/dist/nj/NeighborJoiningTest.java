@@ -0,0 +1,75 @@
+package phylo.tree.dist.nj;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import phylo.tree.reader.NewickFileFormatType;
+import phylo.tree.reader.TreeNode;
+
+public class NeighborJoiningTest {
+
+	public static void main(String[] args) {
+		//5-taxon example of the neighbor-joining method
+		List<String> leafNames=Arrays.asList("a", "b", "c", "d", "e");
+		double[][] distMatrix= {
+				{0, 5, 9, 9, 8},
+				{5, 0, 10, 10, 9},
+				{9, 10, 0, 8, 7},
+				{9, 10, 8, 0, 3},
+				{8, 9, 7, 3, 0}
+		};
+		NeighborJoining nj=new NeighborJoining(leafNames, distMatrix);
+		System.out.println(nj.getTree().toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
+
+		//a and b are joined first, then with c; d, e and the cluster of a, b and c are joined to the root
+		int[][] childIndices=nj.getChildIndices();
+		check("first join", Arrays.toString(childIndices[5]), "[0, 1]");
+		check("second join", Arrays.toString(childIndices[6]), "[5, 2]");
+		check("root", nj.getRootIndex()+""+Arrays.toString(childIndices[nj.getRootIndex()]), "7[6, 4, 3]");
+
+		//expected length of the branch to the parent of each leaf and of the parent of each leaf
+		Map<String, Double> leafDists=new HashMap<>();
+		leafDists.put("a", 2d);
+		leafDists.put("b", 3d);
+		leafDists.put("c", 4d);
+		leafDists.put("d", 2d);
+		leafDists.put("e", 1d);
+		Map<String, Double> parentDists=new HashMap<>();
+		parentDists.put("a", 3d);
+		parentDists.put("b", 3d);
+		parentDists.put("c", 2d);
+		for(TreeNode leaf:nj.getTree().getRootNode().getAllDescendantLeafNodes()) {
+			check("branch length of "+leaf.getLabel(), leaf.getDistToParent(), leafDists.get(leaf.getLabel()));
+			if(parentDists.containsKey(leaf.getLabel()))
+				check("branch length of parent of "+leaf.getLabel(), leaf.getParent().getDistToParent(), parentDists.get(leaf.getLabel()));
+			else if(leaf.getParent()!=nj.getTree().getRootNode())
+				throw new IllegalStateException("parent of "+leaf.getLabel()+" is not the root");
+		}
+
+		//interrupted thread
+		Thread.currentThread().interrupt();
+		try {
+			new NeighborJoining(leafNames, distMatrix);
+			throw new IllegalStateException("interruption is not detected!");
+		}catch(CancellationException e) {
+			if(!Thread.interrupted())
+				throw new IllegalStateException("interrupted status is not kept!");
+			System.out.println("interruption is detected: "+e.getMessage());
+		}
+
+		System.out.println("all checks passed");
+	}
+
+	static void check(String name, String actual, String expected) {
+		if(!actual.equals(expected))
+			throw new IllegalStateException(name+" is "+actual+" but expected "+expected);
+	}
+
+	static void check(String name, double actual, double expected) {
+		if(Math.abs(actual-expected)>1e-9)
+			throw new IllegalStateException(name+" is "+actual+" but expected "+expected);
+	}
+}
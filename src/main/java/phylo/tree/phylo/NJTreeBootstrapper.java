@@ -0,0 +1,246 @@
+package phylo.tree.phylo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import htsjdk.samtools.util.Log;
+import phylo.tree.dist.jc.PDistanceCalculator;
+import phylo.tree.dist.nj.NeighborJoining;
+import phylo.tree.reader.Tree;
+import phylo.tree.reader.TreeNode;
+
+/**
+ * calculate the bootstrap values of the internal nodes of a neighbor-joining tree built by {@link NJTreeBuilder} in JVM rather than with MegaX;
+ *
+ * 1. each replicate draws the columns of the alignment with replacement; rather than copying the alignment, only the number of times the columns of each site pattern
+ * 		are drawn is recorded (see {@link PDistanceCalculator#getSitePatternIndices()}), and the distance matrix of the replicate is calculated from the
+ * 		mismatch of each pattern weighted by the numbers with {@link NJTreeBuilder#calculateDistMatrix(PDistanceCalculator, int[])};
+ * 2. the neighbor-joining tree of each replicate is built and its splits are represented as bitsets of the leaf indices;
+ * 		since the tree is unrooted, each split is represented by the side without the first leaf;
+ * 3. the bootstrap value of each internal node of the reference tree (except the root) is the proportion in [0,1] of replicates containing the split of the node,
+ * 		same as the bootstrap values of the regional trees expected by {@link sv2gr.tree.TreeNode#getBootstrap()};
+ *
+ * replicates with undefined distances (for example no column with both characters not missing for a pair of sequences) support no split;
+ *
+ * the replicates are run in parallel in a {@link ForkJoinPool} with threadNum threads, each of which counts the supported splits in its own array that are merged at the end;
+ * the random number generator of each replicate is seeded by the given seed and the index of the replicate, thus the result is the same for any threadNum;
+ *
+ * the interrupted status is checked before each replicate; if the calling thread is interrupted while waiting for the pool, the pool is shut down with {@link ForkJoinPool#shutdownNow()}
+ * to interrupt the running replicates
+ *
+ * @author tanxu
+ *
+ */
+public class NJTreeBootstrapper {
+	public static final Log log=Log.getInstance(NJTreeBootstrapper.class);
+
+	/**
+	 * calculate the distance matrix of the replicates
+	 */
+	private final NJTreeBuilder builder;
+	private final PDistanceCalculator calculator;
+	/**
+	 * tree built from the original alignment whose bootstrap values are to be set
+	 */
+	private final Tree referenceTree;
+	private final int replicateNum;
+	private final int threadNum;
+	private final long seed;
+
+	////////////////////////////
+	/**
+	 * index of the pattern of each column of the alignment
+	 */
+	private int[] sitePatternIndices;
+	/**
+	 * internal nodes of the reference tree (except the root) in the same order as {@link #splitIndexMap}
+	 */
+	private List<TreeNode> splitNodes;
+	/**
+	 * map from the split of each internal node of the reference tree to its index
+	 */
+	private Map<BitSet, Integer> splitIndexMap;
+	/**
+	 * number of replicates containing each split
+	 */
+	private int[] splitSupportCounts;
+
+	/**
+	 *
+	 * @param builder
+	 * @param calculator
+	 * @param referenceTree
+	 * @param replicateNum
+	 * @param threadNum
+	 * @param seed
+	 * @throws CancellationException if the current thread is interrupted; the interrupted status is kept
+	 */
+	public NJTreeBootstrapper(NJTreeBuilder builder, PDistanceCalculator calculator, Tree referenceTree, int replicateNum, int threadNum, long seed) {
+		super();
+		if(replicateNum<1)
+			throw new IllegalArgumentException("given replicateNum must be positive!");
+		if(threadNum<1)
+			throw new IllegalArgumentException("given threadNum must be positive!");
+
+		this.builder = builder;
+		this.calculator = calculator;
+		this.referenceTree = referenceTree;
+		this.replicateNum = replicateNum;
+		this.threadNum = threadNum;
+		this.seed = seed;
+
+		this.prepare();
+		this.run();
+	}
+
+	/**
+	 * collect the splits of the reference tree
+	 */
+	void prepare() {
+		this.sitePatternIndices=this.calculator.getSitePatternIndices();
+
+		List<String> seqNames=this.calculator.getMsa().getSeqNames();
+		Map<String, Integer> seqNameIndexMap=new HashMap<>();
+		for(int i=0;i<seqNames.size();i++) {
+			seqNameIndexMap.put(seqNames.get(i), i);
+		}
+
+		this.splitNodes=new ArrayList<>();
+		this.splitIndexMap=new HashMap<>();
+		for(TreeNode node:this.referenceTree.getRootNode().getAllDescendantNodes()) {
+			if(node.isLeaf() || node==this.referenceTree.getRootNode())
+				continue;
+
+			BitSet split=new BitSet(seqNames.size());
+			for(TreeNode leaf:node.getAllDescendantLeafNodes()) {
+				split.set(seqNameIndexMap.get(leaf.getLabel()));
+			}
+			this.splitIndexMap.put(normalize(split, seqNames.size()), this.splitNodes.size());
+			this.splitNodes.add(node);
+		}
+	}
+
+	/**
+	 *
+	 * @param split
+	 * @param leafNum
+	 * @return the given split if it does not contain the first leaf; otherwise its complement
+	 */
+	static BitSet normalize(BitSet split, int leafNum) {
+		if(split.get(0))
+			split.flip(0, leafNum);
+		return split;
+	}
+
+	void run() {
+		if(this.splitNodes.isEmpty()) {
+			this.splitSupportCounts=new int[0];
+			return;
+		}
+
+		if(this.threadNum==1) {
+			this.splitSupportCounts=new int[this.splitNodes.size()];
+			for(int r=0;r<this.replicateNum;r++) {
+				this.addReplicate(this.splitSupportCounts, r);
+			}
+		}else {
+			ForkJoinPool pool=new ForkJoinPool(this.threadNum);
+			try {
+				this.splitSupportCounts=pool.submit(()->{
+					return IntStream.range(0, this.replicateNum).parallel().collect(
+							()->new int[this.splitNodes.size()],
+							this::addReplicate,
+							(a, b)->{
+								for(int i=0;i<a.length;i++) {
+									a[i]+=b[i];
+								}
+							});
+				}).get();
+			} catch (InterruptedException | ExecutionException e) {
+				//the interruption of the waiting thread may also be reported by ForkJoinTask.get() as the cause of an ExecutionException
+				if(e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
+					Thread.currentThread().interrupt();
+					throw new CancellationException("parallel bootstrap replicates are interrupted!");
+				}
+				throw new IllegalStateException("parallel bootstrap replicates failed!", e);
+			}finally {
+				pool.shutdownNow();
+			}
+		}
+
+		for(int i=0;i<this.splitNodes.size();i++) {
+			this.splitNodes.get(i).setBootstrap((double)this.splitSupportCounts[i]/this.replicateNum);
+		}
+	}
+
+	/**
+	 * build the tree of the replicate with the given index and add the splits of the reference tree contained by it to the given counts
+	 * @param counts
+	 * @param replicateIndex
+	 */
+	private void addReplicate(int[] counts, int replicateIndex) {
+		if(Thread.interrupted()) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("bootstrap replicate "+replicateIndex+" is interrupted!");
+		}
+		
+		//1
+		int[] patternWeights=new int[this.calculator.getPatternNum()];
+		Random random=new Random(this.seed+replicateIndex);
+		for(int i=0;i<this.sitePatternIndices.length;i++) {
+			patternWeights[this.sitePatternIndices[random.nextInt(this.sitePatternIndices.length)]]++;
+		}
+		double[][] distMatrix=this.builder.calculateDistMatrix(this.calculator, patternWeights);
+		if(NJTreeBuilder.findUndefinedDistance(this.calculator.getMsa(), distMatrix)!=null) {
+			return;
+		}
+
+		//2
+		NeighborJoining nj=new NeighborJoining(this.calculator.getMsa().getSeqNames(), distMatrix);
+		int[][] childIndices=nj.getChildIndices();
+		int leafNum=distMatrix.length;
+		//internal nodes are after all their descendant nodes, thus the splits can be built in increasing order of the index
+		BitSet[] splits=new BitSet[childIndices.length];
+		for(int i=0;i<childIndices.length;i++) {
+			splits[i]=new BitSet(leafNum);
+			if(i<leafNum) {
+				splits[i].set(i);
+			}else {
+				for(int child:childIndices[i]) {
+					splits[i].or(splits[child]);
+				}
+
+				//3
+				if(i!=nj.getRootIndex()) {
+					Integer index=this.splitIndexMap.get(normalize((BitSet)splits[i].clone(), leafNum));
+					if(index!=null) {
+						counts[index]++;
+					}
+				}
+			}
+		}
+	}
+
+	////////////////////////////
+	/**
+	 * @return the reference tree with bootstrap values set
+	 */
+	public Tree getReferenceTree() {
+		return referenceTree;
+	}
+
+	/**
+	 * @return the replicateNum
+	 */
+	public int getReplicateNum() {
+		return replicateNum;
+	}
+}
@@ -0,0 +1,103 @@
+package phylo.tree.phylo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import phylo.alignment.MultipleAlignment;
+import phylo.exception.NewickTreeFileNotCreatedException;
+import phylo.tree.dist.jc.PDistanceCalculator;
+import phylo.tree.phylo.NJTreeBuilder.DistanceModel;
+import phylo.tree.reader.NewickFileFormatType;
+import phylo.tree.reader.Tree;
+import phylo.tree.reader.TreeNode;
+
+public class NJTreeBootstrapperTest {
+	static final char[] BASES= {'A', 'C', 'G', 'T'};
+
+	/**
+	 * sequences evolved along a random binary tree with some missing characters
+	 */
+	static MultipleAlignment makeAlignment(int seqNum, int len, Random random) {
+		char[] root=new char[len];
+		for(int i=0;i<len;i++) {
+			root[i]=BASES[random.nextInt(4)];
+		}
+		Map<String, String> seqMap=new LinkedHashMap<>();
+		evolve(root, 0, seqNum, random, seqMap);
+		return new MultipleAlignment(seqMap);
+	}
+
+	static void evolve(char[] seq, int first, int num, Random random, Map<String, String> seqMap) {
+		char[] child=seq.clone();
+		for(int i=0;i<child.length;i++) {
+			if(random.nextInt(20)==0)
+				child[i]=BASES[random.nextInt(4)];
+		}
+		if(num==1) {
+			for(int i=0;i<child.length;i++) {
+				if(random.nextInt(50)==0)
+					child[i]='-';
+			}
+			seqMap.put("s"+first, new String(child));
+			return;
+		}
+		int k=1+random.nextInt(num-1);
+		evolve(child, first, k, random, seqMap);
+		evolve(child, first+k, num-k, random, seqMap);
+	}
+
+	static String build(MultipleAlignment msa, DistanceModel model, int replicateNum, int threadNum, long seed) throws NewickTreeFileNotCreatedException {
+		NJTreeBuilder builder=new NJTreeBuilder(model, replicateNum, threadNum, seed);
+		builder.build("test", msa, null);
+		
+		//bootstrap values are proportions of replicates as expected by the minimal bootstrap value of SV2GR
+		Tree tree=builder.getTree();
+		for(TreeNode node:tree.getRootNode().getAllDescendantNodes()) {
+			if(node.isLeaf() || node==tree.getRootNode())
+				continue;
+			Double bootstrap=node.getBootstrap();
+			if(bootstrap==null || bootstrap<0 || bootstrap>1)
+				throw new IllegalStateException("bootstrap value of internal node "+node.getId()+" is "+bootstrap+" but expected in [0,1]");
+		}
+		return tree.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2);
+	}
+
+	public static void main(String[] args) throws NewickTreeFileNotCreatedException {
+		Random random=new Random(7);
+		for(int t=0;t<5;t++) {
+			MultipleAlignment msa=makeAlignment(10+random.nextInt(20), 100+random.nextInt(400), random);
+			DistanceModel model=t%2==0?DistanceModel.P_DISTANCE:DistanceModel.JUKES_CANTOR;
+			long seed=random.nextLong();
+
+			//the same bootstrap values for any number of threads
+			String expected=build(msa, model, 100, 1, seed);
+			for(int threadNum:new int[] {2, 3, 8}) {
+				String actual=build(msa, model, 100, threadNum, seed);
+				if(!expected.equals(actual))
+					throw new IllegalStateException("tree with "+threadNum+" threads is "+actual+" but expected "+expected);
+			}
+			System.out.println(expected);
+		}
+
+		//interrupted thread with sequential and parallel replicates
+		MultipleAlignment msa=makeAlignment(20, 300, random);
+		PDistanceCalculator calculator=new PDistanceCalculator(msa);
+		NJTreeBuilder builder=new NJTreeBuilder(DistanceModel.P_DISTANCE);
+		builder.build("test", msa, null);
+		for(int threadNum:new int[] {1, 4}) {
+			Thread.currentThread().interrupt();
+			try {
+				new NJTreeBootstrapper(builder, calculator, builder.getTree(), 100, threadNum, 1);
+				throw new IllegalStateException("interruption is not detected with "+threadNum+" threads!");
+			}catch(CancellationException e) {
+				if(!Thread.interrupted())
+					throw new IllegalStateException("interrupted status is not kept with "+threadNum+" threads!");
+				System.out.println("interruption is detected with "+threadNum+" threads: "+e.getMessage());
+			}
+		}
+
+		System.out.println("all checks passed");
+	}
+}
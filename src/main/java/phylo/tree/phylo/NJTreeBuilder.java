@@ -0,0 +1,183 @@
+package phylo.tree.phylo;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+
+import htsjdk.samtools.util.Log;
+import phylo.alignment.MultipleAlignment;
+import phylo.exception.NewickTreeFileNotCreatedException;
+import phylo.tree.dist.jc.PDistanceCalculator;
+import phylo.tree.dist.nj.NeighborJoining;
+import phylo.tree.reader.NewickFileFormatType;
+import phylo.tree.reader.Tree;
+
+/**
+ * build a neighbor-joining tree in JVM without any external program, thus no file is written to the tmpDir and no {@link #process} is created;
+ * 
+ * 1. calculate the p-distance matrix with pairwise deletion from the MultipleAlignment with {@link PDistanceCalculator}
+ * 2. convert to Jukes-Cantor distance matrix if required
+ * 3. build the tree with {@link NeighborJoining}
+ * 
+ * 4. if bootstrapReplicateNum is positive, set the bootstrap values of the internal nodes with {@link NJTreeBootstrapper}
+ * 
+ * same as the MegaX and PHYLIP based builders, the built tree is unrooted with a trifurcating root and is to be rerooted by the outgroup
+ * 
+ * @author tanxu
+ *
+ */
+public class NJTreeBuilder extends MultipleAlignment2TreeBase{
+	public static final Log log=Log.getInstance(NJTreeBuilder.class);
+	
+	private final DistanceModel distanceModel;
+	/**
+	 * number of bootstrap replicates; 0 if no bootstrap
+	 */
+	private final int bootstrapReplicateNum;
+	/**
+	 * number of threads to run the bootstrap replicates
+	 */
+	private final int bootstrapThreadNum;
+	/**
+	 * seed of the random number generator of the bootstrap replicates
+	 */
+	private final long bootstrapSeed;
+	
+	/**
+	 * constructor
+	 * @param distanceModel
+	 * @param bootstrapReplicateNum
+	 * @param bootstrapThreadNum
+	 * @param bootstrapSeed
+	 */
+	NJTreeBuilder(DistanceModel distanceModel, int bootstrapReplicateNum, int bootstrapThreadNum, long bootstrapSeed) {
+		if(distanceModel==null)
+			throw new IllegalArgumentException("given distanceModel cannot be null!");
+		if(bootstrapReplicateNum<0)
+			throw new IllegalArgumentException("given bootstrapReplicateNum cannot be negative!");
+		if(bootstrapThreadNum<1)
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		
+		this.distanceModel=distanceModel;
+		this.bootstrapReplicateNum=bootstrapReplicateNum;
+		this.bootstrapThreadNum=bootstrapThreadNum;
+		this.bootstrapSeed=bootstrapSeed;
+	}
+	
+	/**
+	 * constructor without bootstrap
+	 * @param distanceModel
+	 */
+	NJTreeBuilder(DistanceModel distanceModel) {
+		this(distanceModel, 0, 1, 0);
+	}
+	
+	/**
+	 * @throws NewickTreeFileNotCreatedException if the distance between any pair of sequences is undefined 
+	 * 		(no column with both characters not missing, or p-distance not less than 0.75 for Jukes-Cantor distance)
+	 * @throws CancellationException if the current thread is interrupted; the interrupted status is kept
+	 */
+	@Override
+	public void build(String dataName, MultipleAlignment msa, Path tmpDir) throws NewickTreeFileNotCreatedException {
+		log.info("start build NJ tree in JVM for tree id=="+dataName);
+		//1
+		PDistanceCalculator calculator=new PDistanceCalculator(msa);
+		double[][] distMatrix = this.calculateDistMatrix(calculator, calculator.getPatternCounts());
+		
+		//2
+		String undefinedPair=findUndefinedDistance(msa, distMatrix);
+		if(undefinedPair!=null) {
+			throw new NewickTreeFileNotCreatedException("distance between "+undefinedPair+" is undefined for tree id=="+dataName);
+		}
+		
+		//3
+		checkInterrupted(dataName);
+		this.tree=new NeighborJoining(msa.getSeqNames(), distMatrix).getTree();
+		
+		//4
+		if(this.bootstrapReplicateNum>0) {
+			checkInterrupted(dataName);
+			new NJTreeBootstrapper(this, calculator, this.tree, this.bootstrapReplicateNum, this.bootstrapThreadNum, this.bootstrapSeed);
+			log.info(this.bootstrapReplicateNum+" bootstrap replicates are done for tree id=="+dataName);
+		}
+		
+		log.info("tree object is successfully created for tree id=="+dataName);
+	}
+	
+	/**
+	 * 
+	 * @param dataName
+	 * @throws CancellationException if the current thread is interrupted
+	 */
+	private static void checkInterrupted(String dataName) {
+		if(Thread.interrupted()) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("NJ tree building is interrupted for tree id=="+dataName);
+		}
+	}
+	
+	/**
+	 * 
+	 * @param calculator
+	 * @param patternWeights
+	 * @return the distance matrix of the {@link #distanceModel} with the given weight of each pattern
+	 */
+	double[][] calculateDistMatrix(PDistanceCalculator calculator, int[] patternWeights){
+		double[][] pDistMatrix=calculator.calculatePDistMatrix(patternWeights);
+		return this.distanceModel==DistanceModel.JUKES_CANTOR?PDistanceCalculator.toJCDistMatrix(pDistMatrix):pDistMatrix;
+	}
+	
+	/**
+	 * 
+	 * @param msa
+	 * @param distMatrix
+	 * @return the names of the first pair of sequences with undefined distance; null if all distances are defined
+	 */
+	static String findUndefinedDistance(MultipleAlignment msa, double[][] distMatrix) {
+		for(int i=0;i<distMatrix.length;i++) {
+			for(int j=i+1;j<distMatrix.length;j++) {
+				if(Double.isNaN(distMatrix[i][j])) {
+					return msa.getSeqNames().get(i)+" and "+msa.getSeqNames().get(j);
+				}
+			}
+		}
+		return null;
+	}
+	
+	@Override
+	NewickFileFormatType getNewickType() {
+		return NewickFileFormatType.SIMPLE_NEWICK_2;
+	}
+	
+	/**
+	 * @return the distanceModel
+	 */
+	public DistanceModel getDistanceModel() {
+		return distanceModel;
+	}
+	
+	/**
+	 * @return the bootstrapReplicateNum
+	 */
+	public int getBootstrapReplicateNum() {
+		return bootstrapReplicateNum;
+	}
+	
+	/////////////////////////////////////
+	public static enum DistanceModel{
+		P_DISTANCE("p-distance"),
+		JUKES_CANTOR("Jukes-Cantor");
+		/**
+		 * 
+		 */
+		private final String value;
+		DistanceModel(String value){
+			this.value=value;
+		}
+		/**
+		 * @return the value
+		 */
+		public String getValue() {
+			return value;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package phylo.tree.phylo;
+
+import phylo.tree.phylo.NJTreeBuilder.DistanceModel;
+
+public class NJTreeBuilderFactory extends MultipleAlignment2TreeFactory<NJTreeBuilder>{
+	private final DistanceModel distanceModel;
+	private final int bootstrapReplicateNum;
+	private final int bootstrapThreadNum;
+	private final long bootstrapSeed;
+	
+	/**
+	 * constructor
+	 * @param distanceModel
+	 * @param bootstrapReplicateNum number of bootstrap replicates of each tree; 0 if no bootstrap
+	 * @param bootstrapThreadNum number of threads to run the bootstrap replicates of each tree
+	 * @param bootstrapSeed
+	 */
+	public NJTreeBuilderFactory(DistanceModel distanceModel, int bootstrapReplicateNum, int bootstrapThreadNum, long bootstrapSeed) {
+		this.distanceModel=distanceModel;
+		this.bootstrapReplicateNum=bootstrapReplicateNum;
+		this.bootstrapThreadNum=bootstrapThreadNum;
+		this.bootstrapSeed=bootstrapSeed;
+	}
+	
+	/**
+	 * constructor without bootstrap
+	 * @param distanceModel
+	 */
+	public NJTreeBuilderFactory(DistanceModel distanceModel) {
+		this(distanceModel, 0, 1, 0);
+	}
+	
+	@Override
+	public NJTreeBuilder make() {
+		return new NJTreeBuilder(this.distanceModel, this.bootstrapReplicateNum, this.bootstrapThreadNum, this.bootstrapSeed);
+	}
+	
+}
@@ -0,0 +1,244 @@
+package phylo.tree.reader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * write the full newick tree string of a {@link Tree} into an {@link Appendable} (for example a {@link java.io.Writer} or a {@link StringBuilder})
+ *
+ * the newick tree string of each tree is first built in a single {@link StringBuilder} reused for all trees written by the same writer
+ * with a non-recursive traversal of the tree, thus no intermediate strings are created as {@link TreeNode#toNewickString(NewickFileFormatType)};
+ *
+ * the numbers of significant digits of branch lengths and bootstraps can be limited to produce smaller files;
+ * with {@link #UNLIMITED_PRECISION}, the output is the same as {@link Tree#toFullNewickString(NewickFileFormatType)},
+ * i.e. all numbers are formatted as {@link Double#toString(double)}, which is locale independent;
+ *
+ * not thread-safe; each thread should use its own writer
+ *
+ * @author tanxu
+ *
+ */
+public final class NewickTreeWriter {
+	/**
+	 * all numbers are written with {@link Double#toString(double)}
+	 */
+	public static final int UNLIMITED_PRECISION=-1;
+	/**
+	 * largest supported number of significant digits; a double has at most 17 significant decimal digits
+	 */
+	public static final int MAX_PRECISION=17;
+
+	private static final double[] POWERS_OF_TEN=new double[23];
+	static {
+		POWERS_OF_TEN[0]=1;
+		for(int i=1;i<POWERS_OF_TEN.length;i++) {
+			POWERS_OF_TEN[i]=POWERS_OF_TEN[i-1]*10;
+		}
+	}
+
+	////////////////////////
+	private final NewickFileFormatType type;
+	/**
+	 * number of significant digits of branch lengths or {@link #UNLIMITED_PRECISION}
+	 */
+	private final int branchLengthPrecision;
+	/**
+	 * number of significant digits of bootstraps or {@link #UNLIMITED_PRECISION}
+	 */
+	private final int bootstrapPrecision;
+
+	/////////////////////////reused for all trees
+	private final StringBuilder sb;
+	private final List<TreeNode> nodeStack;
+	private int[] childIndexStack;
+
+	/**
+	 *
+	 * @param type
+	 * @param branchLengthPrecision number of significant digits (1 to {@link #MAX_PRECISION}) or {@link #UNLIMITED_PRECISION}
+	 * @param bootstrapPrecision number of significant digits (1 to {@link #MAX_PRECISION}) or {@link #UNLIMITED_PRECISION}
+	 */
+	public NewickTreeWriter(NewickFileFormatType type, int branchLengthPrecision, int bootstrapPrecision) {
+		super();
+		checkPrecision(branchLengthPrecision);
+		checkPrecision(bootstrapPrecision);
+
+		this.type = type;
+		this.branchLengthPrecision = branchLengthPrecision;
+		this.bootstrapPrecision = bootstrapPrecision;
+
+		this.sb=new StringBuilder();
+		this.nodeStack=new ArrayList<>();
+		this.childIndexStack=new int[64];
+	}
+
+	/**
+	 * writer with unlimited precision
+	 * @param type
+	 */
+	public NewickTreeWriter(NewickFileFormatType type) {
+		this(type, UNLIMITED_PRECISION, UNLIMITED_PRECISION);
+	}
+
+	private static void checkPrecision(int precision) {
+		if(precision!=UNLIMITED_PRECISION && (precision<1 || precision>MAX_PRECISION)) {
+			throw new IllegalArgumentException("given precision must be between 1 and "+MAX_PRECISION+" or UNLIMITED_PRECISION!");
+		}
+	}
+
+	/**
+	 * append the full newick tree string of the given tree including the ending semicolon to the given {@link Appendable}
+	 * @param tree
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Tree tree, Appendable out) throws IOException {
+		this.build(tree);
+		out.append(this.sb);
+	}
+
+	/**
+	 * @param tree
+	 * @return the full newick tree string of the given tree including the ending semicolon
+	 */
+	public String toFullNewickString(Tree tree) {
+		this.build(tree);
+		return this.sb.toString();
+	}
+
+	/**
+	 * same as {@link #write(Tree, Appendable)} for {@link StringBuilder}, which never throws {@link IOException}
+	 * @param tree
+	 * @param out
+	 */
+	public void write(Tree tree, StringBuilder out) {
+		try {
+			this.write(tree, (Appendable)out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * build the full newick tree string of the given tree in {@link #sb}
+	 * @param tree
+	 */
+	private void build(Tree tree) {
+		this.sb.setLength(0);
+		this.nodeStack.clear();
+
+		this.push(tree.getRootNode());
+		while(!this.nodeStack.isEmpty()) {
+			int top=this.nodeStack.size()-1;
+			TreeNode node=this.nodeStack.get(top);
+
+			if(node.getChildNodeList().isEmpty()) {//leaf raccoon:19.19959 or raccoon, no parenthesis, no bootstrap
+				this.sb.append(node.getLabel());
+				if(node.getDistToParent()!=null) {
+					this.sb.append(':');
+					this.appendNumber(node.getDistToParent(), this.branchLengthPrecision);
+				}
+				this.nodeStack.remove(top);
+				continue;
+			}
+
+			int childIndex=this.childIndexStack[top];
+			if(childIndex==0) {
+				this.sb.append('(');
+			}
+			if(childIndex<node.getChildNodeList().size()) {
+				if(childIndex>0) {
+					this.sb.append(',');
+				}
+				this.childIndexStack[top]=childIndex+1;
+				this.push(node.getChildNodeList().get(childIndex));
+			}else {
+				this.sb.append(')');
+				this.appendInternalNodeBranchLabel(node);
+				this.nodeStack.remove(top);
+			}
+		}
+
+		this.sb.append(';');
+	}
+
+	private void push(TreeNode node) {
+		if(this.nodeStack.size()==this.childIndexStack.length) {
+			this.childIndexStack=Arrays.copyOf(this.childIndexStack, this.childIndexStack.length*2);
+		}
+		this.childIndexStack[this.nodeStack.size()]=0;
+		this.nodeStack.add(node);
+	}
+
+	/**
+	 * see {@link TreeNode#toNewickString(NewickFileFormatType)}
+	 * @param node
+	 */
+	private void appendInternalNodeBranchLabel(TreeNode node) {
+		if(node.getBootstrap()!=null) {
+			if(this.type.equals(NewickFileFormatType.SIMPLE_NEWICK_1)) {//(raccoon:19.19959,bear:6.80041):0.84600[50] or (raccoon:19.19959,bear:6.80041)[50]
+				if(node.getDistToParent()!=null) {
+					this.sb.append(':');
+					this.appendNumber(node.getDistToParent(), this.branchLengthPrecision);
+				}
+				this.sb.append('[');
+				this.appendNumber(node.getBootstrap(), this.bootstrapPrecision);
+				this.sb.append(']');
+			}else {//(raccoon:19.19959,bear:6.80041)50:0.84600 or (raccoon:19.19959,bear:6.80041)50
+				this.appendNumber(node.getBootstrap(), this.bootstrapPrecision);
+				if(node.getDistToParent()!=null) {
+					this.sb.append(':');
+					this.appendNumber(node.getDistToParent(), this.branchLengthPrecision);
+				}
+			}
+		}else if(node.getDistToParent()!=null) {//(raccoon:19.19959,bear:6.80041):0.84600
+			this.sb.append(':');
+			this.appendNumber(node.getDistToParent(), this.branchLengthPrecision);
+		}
+	}
+
+	/**
+	 * {@link StringBuilder#append(double)} gives the same characters as {@link Double#toString(double)} without creating the string
+	 * @param value
+	 * @param precision
+	 */
+	private void appendNumber(double value, int precision) {
+		if(precision==UNLIMITED_PRECISION) {
+			this.sb.append(value);
+		}else {
+			this.sb.append(roundToSignificantDigits(value, precision));
+		}
+	}
+
+	/**
+	 * round the given value to the given number of significant digits;
+	 *
+	 * the rounded value is the double closest to the decimal number with no more than the given significant digits in most cases,
+	 * thus {@link Double#toString(double)} of the rounded value has no more than the given significant digits
+	 *
+	 * @param value
+	 * @param digits
+	 * @return
+	 */
+	static double roundToSignificantDigits(double value, int digits) {
+		if(value==0 || Double.isNaN(value) || Double.isInfinite(value)) {
+			return value;
+		}
+
+		int exponent=(int)Math.floor(Math.log10(Math.abs(value)));
+		int scale=digits-1-exponent;
+
+		if(scale>=0 && scale<POWERS_OF_TEN.length) {
+			return Math.round(value*POWERS_OF_TEN[scale])/POWERS_OF_TEN[scale];
+		}else if(scale<0 && -scale<POWERS_OF_TEN.length) {
+			return Math.round(value/POWERS_OF_TEN[-scale])*POWERS_OF_TEN[-scale];
+		}else {//very small or large values
+			return new BigDecimal(value).round(new MathContext(digits)).doubleValue();
+		}
+	}
+}
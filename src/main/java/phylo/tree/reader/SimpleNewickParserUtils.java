@@ -151,30 +151,7 @@ public class SimpleNewickParserUtils {
      * @return
      */
     public static boolean isEnclosedByAPairOfParenthesis(String newickTreeString) {
-    	String[] splits = newickTreeString.split("");
-    	
-    	int layer=0;
-    	
-    	for(int i=0;i<splits.length;i++) {
-    		if(splits[i].equals("(")) {
-    			layer++;
-    		}else if(splits[i].equals(")")) {
-    			layer--;
-    		}
-    		
-    		if(layer==0) {//layer can only reach 0 again when the last character is reached;
-    			if(i==splits.length-1) {
-    				return true;
-    			}else {
-    				return false;
-    			}
-    		}
-    	}
-    	
-    	if(layer!=0)
-    		throw new IllegalArgumentException("given newick tree string is invalid!");
-    	
-    	return true;
+    	return SimpleNewickTreeParser.isEnclosedByAPairOfParenthesis(newickTreeString, 0, newickTreeString.length());
     }
     
     /**
@@ -340,48 +317,29 @@ public class SimpleNewickParserUtils {
      */
     public static List<String> splitNakedInternalNodeStringIntoChildrenNodeStrings(String internalNodeString){
         List<String> ret = new ArrayList<>();
-        String[] splits = internalNodeString.split(EMPTY); //split newick string into single characters
-        
         int layer=0;
         int previousUnParsedPos = 0; //index of the first unparsed char
         
-        for(int i=0;i<splits.length;i++){
+        for(int i=0;i<internalNodeString.length();i++){
+            char c = internalNodeString.charAt(i);
             
-            if(splits[i].equals(LEFT_PARENTHESIS)){
+            if(c == '('){
                 layer++;
-            }
-            
-            if(splits[i].equals(RIGHT_PARENTHESIS)){
+            }else if(c == ')'){
                 layer--;
+            }else if(c == ',' && layer == 0){ //first layer comma indicate end of a sub-branch
+                ret.add(internalNodeString.substring(previousUnParsedPos, i));
+                
+                previousUnParsedPos = i+1;
             }
-//            System.out.print(layer);
-            
-            
-            if(splits[i].equals(COMMA)){
-                if(layer == 0){ //first layer comma indicate end of a sub-branch
-                    
-                    String branchString = internalNodeString.substring(previousUnParsedPos, i);
-                    ret.add(branchString);
-                    
-                    previousUnParsedPos = i+1;
-                }
-            }   
-            
-            if(i == splits.length-1){//end of string
-                if(layer != 0){
-                    throw new IllegalArgumentException("Given newick string is invalid with unequal number of left and right parenthesis:"+internalNodeString);
-                }
-
-
-                String branchString = internalNodeString.substring(previousUnParsedPos);
-
-                ret.add(branchString);
-
-
-            }   
-            
         }
         
+        //end of string
+        if(layer != 0){
+            throw new IllegalArgumentException("Given newick string is invalid with unequal number of left and right parenthesis:"+internalNodeString);
+        }
+        ret.add(internalNodeString.substring(previousUnParsedPos));
+        
         
         return ret;
     }
@@ -0,0 +1,491 @@
+package phylo.tree.reader;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * single-pass character level parser of {@link NewickFileFormatType#SIMPLE_NEWICK_1} and {@link NewickFileFormatType#SIMPLE_NEWICK_2} tree strings
+ *
+ * different from the recursive parsing with {@link SimpleNewickParserUtils} that takes a substring of every node and matches it with regular expressions,
+ * the tree string is scanned only once from left to right with an explicit stack of the open internal nodes,
+ * thus the time is linear in the length of the tree string and no substring is created except for the node labels;
+ *
+ * the nodes are created in pre-order (the same order as the recursive parsing) by the given {@link NodeBuilder}, thus the node ids assigned by the tree are the same;
+ * the node labels, branch lengths and bootstrap values are also the same as the recursive parsing, including
+ * 		1. a single ending semicolon is ignored;
+ * 		2. if the tree string is not enclosed by a pair of parenthesis, a virtual root node is added (see {@link SimpleNewickParserUtils#preprocessNewickStringFromFile(String)});
+ * 		3. node labels are not trimmed;
+ * 		4. negative branch length is set to 0;
+ *
+ * @author tanxu
+ *
+ * @param <N> node type
+ */
+public final class SimpleNewickTreeParser<N> {
+	/**
+	 * exact powers of 10 as double
+	 */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	/**
+	 * largest integer that all smaller integers can be exactly represented by double
+	 */
+	private static final long MAX_EXACT_MANTISSA=1L<<53;
+
+	/**
+	 * builder of the nodes of the tree
+	 *
+	 * @param <N>
+	 */
+	public static interface NodeBuilder<N>{
+		/**
+		 * create a new node; invoked in pre-order when the first character of the node is reached
+		 * @param parent null for root node
+		 * @return
+		 */
+		N newNode(N parent);
+
+		/**
+		 * invoked when the node and all of its descendant nodes are parsed
+		 * @param node
+		 * @param label empty string if no label
+		 * @param distToParent null if no branch length
+		 * @param bootstrap null if no bootstrap
+		 * @param childNodeList empty list if the node is leaf
+		 */
+		void finishNode(N node, String label, Double distToParent, Double bootstrap, List<N> childNodeList);
+	}
+
+	////////////////////////
+	private final CharSequence newickTreeString;
+	private final NewickFileFormatType type;
+	private final NodeBuilder<N> builder;
+
+	/**
+	 * end of the tree string with the ending semicolon excluded
+	 */
+	private int end;
+	/**
+	 * index of the next character to parse
+	 */
+	private int pos;
+
+	/**
+	 * open internal nodes and their parsed child nodes
+	 */
+	private List<N> nodeStack;
+	private List<List<N>> childNodeListStack;
+	/**
+	 * position of the left parenthesis of each open internal node
+	 */
+	private List<Integer> leftParenthesisPosStack;
+
+	private N rootNode;
+
+	/**
+	 *
+	 * @param newickTreeString
+	 * @param type
+	 * @param builder
+	 */
+	private SimpleNewickTreeParser(CharSequence newickTreeString, NewickFileFormatType type, NodeBuilder<N> builder) {
+		if(!type.equals(NewickFileFormatType.SIMPLE_NEWICK_1)&&!type.equals(NewickFileFormatType.SIMPLE_NEWICK_2)) {
+			throw new UnsupportedOperationException("given VfTreeDataFileFormatType is not supported yet!");
+		}
+		this.newickTreeString = newickTreeString;
+		this.type = type;
+		this.builder = builder;
+
+		this.nodeStack=new ArrayList<>();
+		this.childNodeListStack=new ArrayList<>();
+		this.leftParenthesisPosStack=new ArrayList<>();
+	}
+
+	/**
+	 * parse the given newick tree string and return the root node
+	 *
+	 * @param newickTreeString the full newick tree string from a newick tree file, with or without the ending semicolon
+	 * @param type
+	 * @param builder
+	 * @return
+	 */
+	public static <N> N parse(CharSequence newickTreeString, NewickFileFormatType type, NodeBuilder<N> builder) {
+		SimpleNewickTreeParser<N> parser = new SimpleNewickTreeParser<>(newickTreeString, type, builder);
+		parser.run();
+		return parser.rootNode;
+	}
+
+	/**
+	 * parse the given characters as a newick tree string and return the root node
+	 *
+	 * @param chars
+	 * @param start
+	 * @param end
+	 * @param type
+	 * @param builder
+	 * @return
+	 */
+	public static <N> N parse(char[] chars, int start, int end, NewickFileFormatType type, NodeBuilder<N> builder) {
+		return parse(CharBuffer.wrap(chars, start, end-start), type, builder);
+	}
+
+
+	void run() {
+		this.end=this.newickTreeString.length();
+		if(this.end>0&&this.newickTreeString.charAt(this.end-1)==';') {
+			this.end--;
+		}
+		this.pos=0;
+
+		if(!isEnclosedByAPairOfParenthesis(this.newickTreeString, 0, this.end)) {//virtual root node
+			this.openInternalNode(null, -1);
+		}
+
+		boolean nodeExpected=true;
+		while(true) {
+			if(nodeExpected) {
+				N parent=this.nodeStack.isEmpty()?null:this.nodeStack.get(this.nodeStack.size()-1);
+				if(this.pos<this.end&&this.newickTreeString.charAt(this.pos)=='(') {
+					this.openInternalNode(parent, this.pos);
+					this.pos++;
+				}else {
+					if(this.pos<this.end&&this.newickTreeString.charAt(this.pos)==')'&&this.pos>0&&this.newickTreeString.charAt(this.pos-1)=='(') {
+						throw new IllegalArgumentException("unrecognized internal node string:()");
+					}
+					this.addNode(this.parseLeafNode(parent));
+					nodeExpected=false;
+				}
+			}else if(this.pos==this.end) {
+				if(this.nodeStack.isEmpty()) {
+					break;
+				}
+				if(this.leftParenthesisPosStack.get(this.leftParenthesisPosStack.size()-1)>=0) {
+					throw new IllegalArgumentException("Given newick string is invalid with unequal number of left and right parenthesis!");
+				}
+				//close the virtual root node
+				this.addNode(this.closeInternalNode(this.end, this.end));
+			}else {
+				char c=this.newickTreeString.charAt(this.pos);
+				if(c==',') {
+					if(this.nodeStack.isEmpty()) {
+						throw new IllegalArgumentException("Given newick string is invalid with comma outside of root node!");
+					}
+					this.pos++;
+					nodeExpected=true;
+				}else if(c==')') {
+					if(this.nodeStack.isEmpty()||this.leftParenthesisPosStack.get(this.leftParenthesisPosStack.size()-1)<0) {
+						throw new IllegalArgumentException("Given newick string is invalid with unequal number of left and right parenthesis!");
+					}
+					this.pos++;
+					int labelStart=this.pos;
+					this.skipToDelimiter();
+					this.addNode(this.closeInternalNode(labelStart, this.pos));
+				}else {
+					throw new IllegalArgumentException("unrecognized character '"+c+"' at position "+this.pos);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param parent
+	 * @param leftParenthesisPos -1 for virtual root node
+	 */
+	private void openInternalNode(N parent, int leftParenthesisPos) {
+		this.nodeStack.add(this.builder.newNode(parent));
+		this.childNodeListStack.add(new ArrayList<>());
+		this.leftParenthesisPosStack.add(leftParenthesisPos);
+	}
+
+	/**
+	 * pop the top open internal node and finish it with the node and branch labels in the given range
+	 * @param labelStart
+	 * @param labelEnd
+	 * @return
+	 */
+	private N closeInternalNode(int labelStart, int labelEnd) {
+		int top=this.nodeStack.size()-1;
+		N node=this.nodeStack.remove(top);
+		List<N> childNodeList=this.childNodeListStack.remove(top);
+		this.leftParenthesisPosStack.remove(top);
+
+		this.checkNoReservedCharacter(labelStart, labelEnd);
+
+		String label="";
+		int branchStart=labelStart;
+		if(this.type.equals(NewickFileFormatType.SIMPLE_NEWICK_1)) {//node_label:branch_label or node_label or :branch_label
+			int colon=this.indexOfColon(labelStart, labelEnd);
+			if(colon>=0) {
+				if(this.indexOfColon(colon+1, labelEnd)>=0||colon+1==labelEnd) {
+					throw new IllegalArgumentException("unrecognized internal node string:"+this.newickTreeString.subSequence(labelStart, labelEnd));
+				}
+				label=this.toLabel(labelStart, colon);
+				branchStart=colon+1;
+			}else {
+				label=this.toLabel(labelStart, labelEnd);
+				branchStart=labelEnd;
+			}
+		}
+		//for SIMPLE_NEWICK_2, the full string after the right parenthesis is the branch label
+
+		this.finishNode(node, label, branchStart, labelEnd, childNodeList);
+		return node;
+	}
+
+	/**
+	 *
+	 * @param parent
+	 * @return
+	 */
+	private N parseLeafNode(N parent) {
+		N node=this.builder.newNode(parent);
+
+		int start=this.pos;
+		this.skipToDelimiter();
+		this.checkNoReservedCharacter(start, this.pos);
+
+		//leaf_node_label:leaf_branch_label or leaf_node_label or :leaf_branch_label
+		String label;
+		int branchStart;
+		int colon=this.indexOfColon(start, this.pos);
+		if(colon>=0) {
+			if(this.indexOfColon(colon+1, this.pos)>=0||colon+1==this.pos) {
+				throw new IllegalArgumentException("unrecognized internal leaf string:"+this.newickTreeString.subSequence(start, this.pos));
+			}
+			label=this.toLabel(start, colon);
+			branchStart=colon+1;
+		}else {
+			label=this.toLabel(start, this.pos);
+			branchStart=this.pos;
+		}
+
+		if(this.type.equals(NewickFileFormatType.SIMPLE_NEWICK_2)) {//leaf branch label only contains the length
+			Double length=branchStart==this.pos?null:parseDouble(this.newickTreeString, branchStart, this.pos);
+			this.builder.finishNode(node, label, length==null?null:length<0?0:length, null, new ArrayList<>(0));
+		}else {
+			this.finishNode(node, label, branchStart, this.pos, new ArrayList<>(0));
+		}
+
+		return node;
+	}
+
+	/**
+	 * parse the branch label in the given range and finish the node
+	 */
+	private void finishNode(N node, String label, int branchStart, int branchEnd, List<N> childNodeList) {
+		Double length=null;
+		Double bootstrap=null;
+
+		int start=trimStart(this.newickTreeString, branchStart, branchEnd);
+		int end=trimEnd(this.newickTreeString, start, branchEnd);
+		if(start<end) {
+			if(this.type.equals(NewickFileFormatType.SIMPLE_NEWICK_1)) {//length[bootstrap] or length or [bootstrap]
+				if(this.indexOf('[', branchStart, branchEnd)>=0&&this.indexOf(']', branchStart, branchEnd)>=0) {
+					//bootstrap is between the last '[' followed by at least one character and the ending ']'
+					int leftBracket=this.lastIndexOf('[', branchStart, branchEnd-3);
+					if(this.newickTreeString.charAt(branchEnd-1)!=']'||leftBracket<0) {
+						throw new IllegalArgumentException("input branchLabelString is invalid");
+					}
+					if(trimStart(this.newickTreeString, branchStart, leftBracket)<leftBracket) {
+						length=parseDouble(this.newickTreeString, branchStart, leftBracket);
+					}
+					bootstrap=parseDouble(this.newickTreeString, leftBracket+1, branchEnd-1);
+				}else {
+					length=parseDouble(this.newickTreeString, start, end);
+				}
+			}else {//bootstrap:length or :length or bootstrap
+				int colon=this.indexOfColon(branchStart, branchEnd);
+				if(colon>=0) {
+					int lengthEnd=this.indexOfColon(colon+1, branchEnd);
+					if(lengthEnd<0) {
+						lengthEnd=branchEnd;
+					}
+					if(colon+1==lengthEnd&&lengthEnd==branchEnd) {
+						throw new IllegalArgumentException("input branchLabelString is invalid");
+					}
+					if(colon>branchStart) {
+						bootstrap=parseDouble(this.newickTreeString, branchStart, colon);
+					}
+					length=parseDouble(this.newickTreeString, colon+1, lengthEnd);
+				}else {
+					bootstrap=parseDouble(this.newickTreeString, start, end);
+				}
+			}
+		}
+
+		//if length is not null and negative, set it to 0;
+		length = length==null?null:length<0?0:length;
+
+		this.builder.finishNode(node, label, length, bootstrap, childNodeList);
+	}
+
+	/**
+	 * add the finished node to the child node list of the top open internal node, or set it as the root node if there is no open internal node
+	 * @param node
+	 */
+	private void addNode(N node) {
+		if(this.nodeStack.isEmpty()) {
+			if(this.rootNode!=null) {
+				throw new IllegalArgumentException("Given newick string is invalid with multiple root nodes!");
+			}
+			this.rootNode=node;
+		}else {
+			this.childNodeListStack.get(this.childNodeListStack.size()-1).add(node);
+		}
+	}
+
+	/**
+	 * move {@link #pos} to the next comma or right parenthesis or the end of the tree string
+	 */
+	private void skipToDelimiter() {
+		while(this.pos<this.end) {
+			char c=this.newickTreeString.charAt(this.pos);
+			if(c==','||c==')') {
+				break;
+			}
+			this.pos++;
+		}
+	}
+
+	private void checkNoReservedCharacter(int start, int end) {
+		for(int i=start;i<end;i++) {
+			char c=this.newickTreeString.charAt(i);
+			if(c=='('||c==';') {
+				throw new IllegalArgumentException("unrecognized node string:"+this.newickTreeString.subSequence(start, end));
+			}
+		}
+	}
+
+	private String toLabel(int start, int end) {
+		return start==end?"":this.newickTreeString.subSequence(start, end).toString();
+	}
+
+	private int indexOfColon(int start, int end) {
+		return this.indexOf(':', start, end);
+	}
+
+	private int indexOf(char c, int start, int end) {
+		for(int i=start;i<end;i++) {
+			if(this.newickTreeString.charAt(i)==c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the largest index i in [start, lastIndex] with the given character; -1 if not found
+	 */
+	private int lastIndexOf(char c, int start, int lastIndex) {
+		for(int i=lastIndex;i>=start;i--) {
+			if(this.newickTreeString.charAt(i)==c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	//////////////////////////////////////
+	/**
+	 * same as {@link SimpleNewickParserUtils#isEnclosedByAPairOfParenthesis(String)} for the given range of characters
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	static boolean isEnclosedByAPairOfParenthesis(CharSequence s, int start, int end) {
+		int layer=0;
+		for(int i=start;i<end;i++) {
+			char c=s.charAt(i);
+			if(c=='(') {
+				layer++;
+			}else if(c==')') {
+				layer--;
+			}
+
+			if(layer==0) {//layer can only reach 0 again when the last character is reached;
+				return i==end-1;
+			}
+		}
+
+		if(layer!=0)
+			throw new IllegalArgumentException("given newick tree string is invalid!");
+
+		return true;
+	}
+
+	/**
+	 * @return the index of the first non-whitespace character in the given range as by {@link String#trim()}
+	 */
+	private static int trimStart(CharSequence s, int start, int end) {
+		while(start<end&&s.charAt(start)<=' ') {
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * @return the index after the last non-whitespace character in the given range as by {@link String#trim()}
+	 */
+	private static int trimEnd(CharSequence s, int start, int end) {
+		while(end>start&&s.charAt(end-1)<=' ') {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * parse the given range of characters into a double with the same result as {@link Double#parseDouble(String)}
+	 *
+	 * plain decimal numbers with at most 2^53 as the digits without decimal point and at most 22 digits after the decimal point are directly calculated,
+	 * which is exact since both the integer and the power of 10 can be exactly represented and the division is correctly rounded;
+	 * other numbers (for example with exponent) are parsed with {@link Double#parseDouble(String)}
+	 *
+	 * @param s
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	static double parseDouble(CharSequence s, int start, int end) {
+		int i=trimStart(s, start, end);
+		int e=trimEnd(s, i, end);
+
+		boolean negative=false;
+		if(i<e&&(s.charAt(i)=='-'||s.charAt(i)=='+')) {
+			negative=s.charAt(i)=='-';
+			i++;
+		}
+
+		long mantissa=0;
+		int digitNum=0;
+		int fractionDigitNum=-1;
+		boolean simple=i<e;
+		for(;simple&&i<e;i++) {
+			char c=s.charAt(i);
+			if(c>='0'&&c<='9') {
+				mantissa=mantissa*10+(c-'0');
+				digitNum++;
+				if(fractionDigitNum>=0) {
+					fractionDigitNum++;
+				}
+				if(mantissa>MAX_EXACT_MANTISSA) {
+					simple=false;
+				}
+			}else if(c=='.'&&fractionDigitNum<0) {
+				fractionDigitNum=0;
+			}else {
+				simple=false;
+			}
+		}
+
+		if(simple&&digitNum>0&&fractionDigitNum<POWERS_OF_TEN.length) {
+			double ret=fractionDigitNum<=0?mantissa:mantissa/POWERS_OF_TEN[fractionDigitNum];
+			return negative?-ret:ret;
+		}
+
+		return Double.parseDouble(s.subSequence(start, end).toString());
+	}
+}
@@ -4,21 +4,28 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.Objects;
 
 public class Tree {
-	static int LEAF_INDEX;
 	///////////////////////
 	private TreeNode rootNode;
 	
 	/////////////////////////////
+	/**
+	 * next node id; all numbering state is kept by each tree so that trees can be built and processed in different threads concurrently
+	 */
 	private int counter;
 	
+	/**
+	 * next leaf index assigned by {@link #setAllLeafIndex()}
+	 */
+	private int leafIndexCounter;
+	
 	/**
 	 * 
 	 */
@@ -34,7 +41,10 @@ public class Tree {
 	 */
 	private double unitLength;
 	
-	private Integer totalLeafNum;
+	/**
+	 * array-backed table of all nodes of this tree; lazily built by {@link #getNodeTable()} and discarded by {@link #invalidateNodeTable()}
+	 */
+	private TreeNodeTable nodeTable;
 	
 	
 	Tree(){
@@ -56,11 +66,19 @@ public class Tree {
 		return ret;
 	}
 	
+	/**
+	 * 
+	 * @return
+	 */
+	int nextLeafIndex() {
+		int ret = leafIndexCounter;
+		leafIndexCounter++;
+		return ret;
+	}
+	
 	void setRootNode(TreeNode rootNode) {
 		this.rootNode = rootNode;
-		
-		
-		
+		this.invalidateNodeTable();
 	}
 	
 	/**
@@ -81,6 +99,7 @@ public class Tree {
 	 */
 	public void reorderChildrenNodes(boolean increasingOrder) {
 		this.rootNode.reorderChildrenNodesByCladeSize(increasingOrder);
+		this.invalidateNodeTable();
 	}
 	
 	
@@ -88,7 +107,7 @@ public class Tree {
 	 * 
 	 */
 	void setAllLeafIndex() {
-		LEAF_INDEX=1;
+		this.leafIndexCounter=1;
 		
 		this.rootNode.setAllDescendantLeafIndex();
 	}
@@ -113,24 +132,16 @@ public class Tree {
 	void calculateLargestDistBetweenRootAndLeaf() {
 		this.longestRootLeafPathLength=0;
 		
-		for(int index:this.getNodeIDMap().keySet()) {
-			if(this.getNodeIDMap().get(index).getDistToRoot()>this.longestRootLeafPathLength) {
-				this.longestRootLeafPathLength=this.getNodeIDMap().get(index).getDistToRoot();
+		for(TreeNode node:this.getNodeTable().getPreOrderNodes()) {
+			if(node.getDistToRoot()>this.longestRootLeafPathLength) {
+				this.longestRootLeafPathLength=node.getDistToRoot();
 			}
 		}
 	}
 	
 	
 	public int getTotalLeafNum() {
-		if(this.totalLeafNum==null) {
-			this.totalLeafNum=0;
-			for(int index:this.getNodeIDMap().keySet()) {
-				if(this.getNodeIDMap().get(index).isLeaf()) {
-					this.totalLeafNum++;
-				}
-			}
-		}
-		return this.totalLeafNum;
+		return this.getNodeTable().getLeafNum();
 	}
 
 	
@@ -174,22 +185,70 @@ public class Tree {
 	 * @param type
 	 * @return
 	 */
-	public static Tree fromNewickString(String newickTreeStringFromFile, NewickFileFormatType type) {
+	public static Tree fromNewickString(CharSequence newickTreeStringFromFile, NewickFileFormatType type) {
 		Tree ret = new Tree();
-		TreeNode root = TreeNode.fromNewickTreeString(ret, SimpleNewickParserUtils.preprocessNewickStringFromFile(newickTreeStringFromFile), type, null);
+		TreeNode root = TreeNode.fromNewickTreeString(ret, newickTreeStringFromFile, type);
 		ret.setRootNode(root);
 		return ret;
 	}
 	
+	
+	/**
+	 * build a tree from the given arrays indexed by node, for example built by a tree inference in JVM rather than read from a newick tree file;
+	 * 
+	 * all children nodes of a node are created in the given order before descending into them, thus the node ids follow the order of creation;
+	 * the root node has branch length 0, same as the root node of a tree parsed from a newick string
+	 * 
+	 * @param rootIndex index of the root node
+	 * @param childIndices indices of the children nodes of each node; empty for leaf nodes
+	 * @param labels label of each node, null if no label
+	 * @param distToParents branch length between each node and its parent node; ignored for the root node
+	 * @return
+	 */
+	public static Tree fromNodeArrays(int rootIndex, int[][] childIndices, String[] labels, double[] distToParents) {
+		Tree ret = new Tree();
+		
+		TreeNode root = new TreeNode(ret, null);
+		root.setLabel(labels[rootIndex]);
+		root.setDistToParent(0d);
+		
+		//explicit stacks of the created nodes whose children nodes are to be created and their indices
+		List<TreeNode> nodeStack = new ArrayList<>();
+		List<Integer> indexStack = new ArrayList<>();
+		nodeStack.add(root);
+		indexStack.add(rootIndex);
+		while(!nodeStack.isEmpty()) {
+			TreeNode node = nodeStack.remove(nodeStack.size()-1);
+			int index = indexStack.remove(indexStack.size()-1);
+			
+			List<TreeNode> childNodeList = new ArrayList<>(childIndices[index].length);
+			for(int childIndex:childIndices[index]) {
+				TreeNode childNode = new TreeNode(ret, node);
+				childNode.setLabel(labels[childIndex]);
+				childNode.setDistToParent(distToParents[childIndex]);
+				childNodeList.add(childNode);
+			}
+			node.setChildNodeList(childNodeList);
+			
+			//pushed in reverse order so that the first child node is processed first
+			for(int i=childIndices[index].length-1;i>=0;i--) {
+				nodeStack.add(childNodeList.get(i));
+				indexStack.add(childIndices[index][i]);
+			}
+		}
+		
+		ret.setRootNode(root);
+		return ret;
+	}
 		
 	public static Tree fromNewickFile(Path singleTreeNewickFile, NewickFileFormatType type) {
 		
 		try {
 			BufferedReader lineReader = new BufferedReader(new FileReader(singleTreeNewickFile.toFile()));
 			String lineText = null;
-			String newickTreeString="";
+			StringBuilder newickTreeString=new StringBuilder();
 			while ((lineText = lineReader.readLine()) != null) {
-				newickTreeString=newickTreeString.concat(lineText);
+				newickTreeString.append(lineText);
 			}
 			
 			lineReader.close();
@@ -216,15 +275,20 @@ public class Tree {
 	 * @return
 	 */
 	public String toFullNewickString(NewickFileFormatType type) {
-		String ret = "";
-		
-//		if(asRooted) {
-//			ret = ret.concat("(").concat(this.rootNode.toNewickString(type)).concat(");");
-//		}else {
-			ret = ret.concat(this.rootNode.toNewickString(type)).concat(";");
-//		}
-		
-		return ret;
+		return new NewickTreeWriter(type).toFullNewickString(this);
+	}
+	
+	/**
+	 * append the full newick string with the ending semicolon to the given {@link Appendable} without building the string first;
+	 * 
+	 * to write many trees, reuse a single {@link NewickTreeWriter} instead, which also supports limited precision of branch lengths and bootstraps
+	 * 
+	 * @param out
+	 * @param type
+	 * @throws IOException
+	 */
+	public void writeFullNewickString(Appendable out, NewickFileFormatType type) throws IOException {
+		new NewickTreeWriter(type).write(this, out);
 	}
 	
 	
@@ -234,22 +298,44 @@ public class Tree {
 	 * @return
 	 */
 	public Tree reroot(String outgroupLeafNodeLabel) {
+		TreeNode outgroupLeafNode=this.findNodeByLabel(outgroupLeafNodeLabel);
+		
+		return new TreeRerooter(this).reroot(outgroupLeafNode);
+//		return this.rerootByUnrootedTreeGraph(outgroupLeafNodeLabel);
+	}
+	
+	/**
+	 * the original implementation of {@link #reroot(String)} by building a {@link UnrootedTreeGraph} of the tree;
+	 * 
+	 * kept as the reference for {@link TreeRerootTest}
+	 * @param outgroupLeafNodeLabel
+	 * @return
+	 */
+	Tree rerootByUnrootedTreeGraph(String outgroupLeafNodeLabel) {
 		UnrootedTreeGraph graph = new UnrootedTreeGraph(this);
 		
-		Integer outgroupLeafNodeID=null;
-		for(int id:this.getNodeIDMap().keySet()) {
-			if(Objects.equal(this.getNodeIDMap().get(id).getLabel(),outgroupLeafNodeLabel)) {
-				if(outgroupLeafNodeID!=null)
+		return graph.reroot(this.findNodeByLabel(outgroupLeafNodeLabel).getId());
+	}
+	
+	/**
+	 * @param label
+	 * @return the single node with the given label
+	 * @throws IllegalArgumentException if no or multiple nodes have the given label
+	 */
+	private TreeNode findNodeByLabel(String label) {
+		TreeNode ret=null;
+		for(TreeNode node:this.getNodeTable().getPreOrderNodes()) {
+			if(Objects.equal(node.getLabel(),label)) {
+				if(ret!=null)
 					throw new IllegalArgumentException("multiple nodes have label as the given one!");
-				outgroupLeafNodeID = id;
+				ret = node;
 			}
 		}
 		
-		if(outgroupLeafNodeID==null)
-			throw new IllegalArgumentException("given outgroup node label \""+outgroupLeafNodeLabel+"\" is not found in tree "+this.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
-		
-		return graph.reroot(outgroupLeafNodeID);
+		if(ret==null)
+			throw new IllegalArgumentException("given outgroup node label \""+label+"\" is not found in tree "+this.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
 		
+		return ret;
 	}
 	
 	boolean isBifurcating() {
@@ -265,37 +351,43 @@ public class Tree {
 	}
 	
 	/**
-	 * return the nodes of this tree
+	 * return the {@link TreeNodeTable} of this tree, which is built at the first invocation after the tree is built or restructured
+	 * 
 	 * @return
 	 */
-	public Map<Integer, TreeNode> getNodeIDMap(){
-		Map<Integer, TreeNode> ret = new LinkedHashMap<>();
-		
-		ret.put(this.rootNode.getId(), rootNode);
-		
-		ret.putAll(this.rootNode.getDescendantNodeIDMap());
-		
-		return ret;
+	public synchronized TreeNodeTable getNodeTable() {
+		if(this.nodeTable==null) {
+			this.nodeTable=new TreeNodeTable(this.rootNode);
+		}
+		return this.nodeTable;
+	}
+	
+	/**
+	 * discard the {@link TreeNodeTable} of this tree so that they are rebuilt at the next invocation;
+	 * 
+	 * must be invoked whenever the tree is restructured (root node changed, child nodes added, removed or reordered)
+	 */
+	public synchronized void invalidateNodeTable() {
+		this.nodeTable=null;
 	}
 	
 	/**
+	 * return the nodes of this tree in pre-order (root node first)
 	 * 
+	 * the returned map is an unmodifiable view of the {@link TreeNodeTable}
+	 * @return
+	 */
+	public Map<Integer, TreeNode> getNodeIDMap(){
+		return this.getNodeTable().getNodeIDMap();
+	}
+	
+	/**
+	 * the returned map is an unmodifiable view of the {@link TreeNodeTable}
 	 * @return
+	 * @throws IllegalArgumentException if there are duplicate leaf labels
 	 */
 	public Map<String, TreeNode> getLeafLabelTreeNodeMap(){
-		Map<String, TreeNode> ret = new HashMap<>();
-		
-		Map<Integer, TreeNode> treeNodeIDMap = this.getNodeIDMap();
-		for(int id:treeNodeIDMap.keySet()) {
-			if(treeNodeIDMap.get(id).isLeaf()) {
-				if(ret.containsKey(treeNodeIDMap.get(id).getLabel())) {
-					throw new IllegalArgumentException("duplicate leaf label is found:"+treeNodeIDMap.get(id).getLabel());
-				}
-				ret.put(treeNodeIDMap.get(id).getLabel(), treeNodeIDMap.get(id));
-			}
-		}
-		
-		return ret;
+		return this.getNodeTable().getLeafLabelNodeMap();
 	}
 	
 	/**
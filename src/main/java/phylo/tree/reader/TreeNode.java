@@ -122,8 +122,7 @@ public class TreeNode {
 	 */
 	public void setAllDescendantLeafIndex() {
 		if(this.isLeaf()) {
-			this.leafIndex = Tree.LEAF_INDEX;
-			Tree.LEAF_INDEX++;
+			this.leafIndex = this.tree.nextLeafIndex();
 		}else {
 			for(TreeNode child:this.childNodeList) {
 				child.setAllDescendantLeafIndex();
@@ -308,6 +307,34 @@ public class TreeNode {
 	
 	/////////////////////////////////////////////////////////
 	
+	/**
+	 * build all nodes of the given tree from the given newick tree string with a single pass by {@link SimpleNewickTreeParser};
+	 * 
+	 * the nodes and their ids, labels, branch lengths and bootstraps are the same as {@link #fromNewickTreeString(Tree, String, NewickFileFormatType, TreeNode)} 
+	 * with the newick tree string preprocessed by {@link SimpleNewickParserUtils#preprocessNewickStringFromFile(String)}
+	 * 
+	 * @param tree
+	 * @param newickTreeString the full newick tree string, with or without the ending semicolon
+	 * @param type
+	 * @return the root node
+	 */
+	static TreeNode fromNewickTreeString(Tree tree, CharSequence newickTreeString, NewickFileFormatType type) {
+		return SimpleNewickTreeParser.parse(newickTreeString, type, new SimpleNewickTreeParser.NodeBuilder<TreeNode>() {
+			@Override
+			public TreeNode newNode(TreeNode parent) {
+				return new TreeNode(tree, parent);
+			}
+			
+			@Override
+			public void finishNode(TreeNode node, String label, Double distToParent, Double bootstrap, List<TreeNode> childNodeList) {
+				node.label=label;
+				node.distToParent=distToParent==null?0:distToParent;
+				node.bootstrap=bootstrap;
+				node.childNodeList=childNodeList;
+			}
+		});
+	}
+	
 	/**
 	 * 
 	 * @param newickTreeString
@@ -452,10 +479,12 @@ public class TreeNode {
 	
 
 	/**
+	 * the node table of the tree is invalidated since the tree is restructured
 	 * @param childNodeList the childNodeList to set
 	 */
 	public void setChildNodeList(List<TreeNode> childNodeList) {
 		this.childNodeList = childNodeList;
+		this.tree.invalidateNodeTable();
 	}
 
 
@@ -0,0 +1,198 @@
+package phylo.tree.reader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * immutable array-backed table of all nodes of a {@link Tree} built with a single pre-order traversal, containing
+ *
+ * 1. all nodes indexed by {@link TreeNode#getId()}; since the ids of the nodes of a tree are dense, the array has no or few empty slots;
+ * 2. all nodes in pre-order (root node first), which is the order of the entries of {@link Tree#getNodeIDMap()};
+ * 3. all leaf nodes in pre-order, indexed from 0;
+ * 4. map from label to leaf node;
+ *
+ * the table is built for the current structure of the tree, thus must be discarded by {@link Tree#invalidateNodeTable()} whenever the tree is restructured
+ *
+ * @author tanxu
+ *
+ */
+public final class TreeNodeTable {
+	/**
+	 * all nodes indexed by id; null for ids not on the tree
+	 */
+	private final TreeNode[] nodesByID;
+	/**
+	 * all nodes in pre-order
+	 */
+	private final TreeNode[] preOrderNodes;
+	/**
+	 * all leaf nodes in pre-order
+	 */
+	private final TreeNode[] leafNodes;
+
+	/**
+	 * unmodifiable map from id to node with entries in pre-order
+	 */
+	private final Map<Integer, TreeNode> nodeIDMap;
+	/**
+	 * unmodifiable map from label to leaf node; null if there are duplicate leaf labels
+	 */
+	private final Map<String, TreeNode> leafLabelNodeMap;
+	/**
+	 * the first duplicate leaf label found in pre-order; null if all leaf labels are distinct
+	 */
+	private final String duplicateLeafLabel;
+
+	/**
+	 *
+	 * @param rootNode
+	 */
+	TreeNodeTable(TreeNode rootNode) {
+		List<TreeNode> nodes=new ArrayList<>();
+		List<TreeNode> leaves=new ArrayList<>();
+		this.collect(rootNode, nodes, leaves);
+
+		this.preOrderNodes=nodes.toArray(new TreeNode[nodes.size()]);
+		this.leafNodes=leaves.toArray(new TreeNode[leaves.size()]);
+
+		int maxID=0;
+		for(TreeNode node:this.preOrderNodes) {
+			maxID=Math.max(maxID, node.getId());
+		}
+		this.nodesByID=new TreeNode[maxID+1];
+		Map<Integer, TreeNode> idMap=new LinkedHashMap<>();
+		for(TreeNode node:this.preOrderNodes) {
+			this.nodesByID[node.getId()]=node;
+			idMap.put(node.getId(), node);
+		}
+		this.nodeIDMap=Collections.unmodifiableMap(idMap);
+
+		Map<String, TreeNode> labelMap=new HashMap<>();
+		String duplicate=null;
+		for(TreeNode leaf:this.leafNodes) {
+			if(labelMap.containsKey(leaf.getLabel())) {
+				duplicate=leaf.getLabel();
+				break;
+			}
+			labelMap.put(leaf.getLabel(), leaf);
+		}
+		this.duplicateLeafLabel=duplicate;
+		this.leafLabelNodeMap=duplicate==null?Collections.unmodifiableMap(labelMap):null;
+	}
+
+	/**
+	 * pre-order traversal with an explicit stack so that deep trees do not overflow the call stack
+	 * @param rootNode
+	 * @param nodes
+	 * @param leaves
+	 */
+	private void collect(TreeNode rootNode, List<TreeNode> nodes, List<TreeNode> leaves) {
+		List<TreeNode> stack=new ArrayList<>();
+		stack.add(rootNode);
+		while(!stack.isEmpty()) {
+			TreeNode node=stack.remove(stack.size()-1);
+			nodes.add(node);
+			if(node.isLeaf()) {
+				leaves.add(node);
+			}else {
+				//push in reverse order so that the first child node is visited first
+				for(int i=node.getChildNodeList().size()-1;i>=0;i--) {
+					stack.add(node.getChildNodeList().get(i));
+				}
+			}
+		}
+	}
+
+
+	//////////////////////////////////////
+	/**
+	 * @return the number of nodes on the tree
+	 */
+	public int getNodeNum() {
+		return this.preOrderNodes.length;
+	}
+
+	/**
+	 * @return the largest id of all nodes
+	 */
+	public int getMaxID() {
+		return this.nodesByID.length-1;
+	}
+
+	/**
+	 * @param id
+	 * @return the node with the given id; null if not on the tree
+	 */
+	public TreeNode getNode(int id) {
+		return id>=0&&id<this.nodesByID.length?this.nodesByID[id]:null;
+	}
+
+	/**
+	 * @param i
+	 * @return the i-th node in pre-order
+	 */
+	public TreeNode getPreOrderNode(int i) {
+		return this.preOrderNodes[i];
+	}
+
+	/**
+	 * @return unmodifiable list of all nodes in pre-order
+	 */
+	public List<TreeNode> getPreOrderNodes(){
+		return Collections.unmodifiableList(Arrays.asList(this.preOrderNodes));
+	}
+
+	/**
+	 * @return unmodifiable map from id to node with entries in pre-order
+	 */
+	public Map<Integer, TreeNode> getNodeIDMap(){
+		return this.nodeIDMap;
+	}
+
+	/**
+	 * @return the number of leaf nodes
+	 */
+	public int getLeafNum() {
+		return this.leafNodes.length;
+	}
+
+	/**
+	 * @param index
+	 * @return the leaf node with the given index in pre-order, starting from 0
+	 */
+	public TreeNode getLeafNode(int index) {
+		return this.leafNodes[index];
+	}
+
+	/**
+	 * @return unmodifiable list of all leaf nodes in pre-order
+	 */
+	public List<TreeNode> getLeafNodes(){
+		return Collections.unmodifiableList(Arrays.asList(this.leafNodes));
+	}
+
+	/**
+	 * @param label
+	 * @return the leaf node with the given label; null if not found
+	 * @throws IllegalArgumentException if there are duplicate leaf labels
+	 */
+	public TreeNode getLeafNode(String label) {
+		return this.getLeafLabelNodeMap().get(label);
+	}
+
+	/**
+	 * @return unmodifiable map from label to leaf node
+	 * @throws IllegalArgumentException if there are duplicate leaf labels
+	 */
+	public Map<String, TreeNode> getLeafLabelNodeMap(){
+		if(this.duplicateLeafLabel!=null) {
+			throw new IllegalArgumentException("duplicate leaf label is found:"+this.duplicateLeafLabel);
+		}
+		return this.leafLabelNodeMap;
+	}
+}
@@ -0,0 +1,116 @@
+package phylo.tree.reader;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * differential check of {@link Tree#reroot(String)} against {@link Tree#rerootByUnrootedTreeGraph(String)} on random trees;
+ *
+ * every leaf of every random tree is used as outgroup and the two rerooted trees must have identical node ids, labels, branch lengths, bootstraps and order of children nodes
+ *
+ * @author tanxu
+ *
+ */
+public class TreeRerootTest {
+
+	/**
+	 * build a random newick tree string in {@link NewickFileFormatType#SIMPLE_NEWICK_2} with random number of children nodes (2 to 4) for each internal node
+	 * @param random
+	 * @param leafNum
+	 * @return
+	 */
+	static String randomNewickString(Random random, int leafNum) {
+		StringBuilder sb = new StringBuilder();
+		int[] nextLeaf = new int[] {0};
+
+		//root node with 2 or 3 children nodes so that both the bifurcating and multifurcating root nodes are covered
+		int rootChildNum = leafNum>=3&&random.nextBoolean()?3:2;
+		appendSubTree(sb, random, leafNum, rootChildNum, nextLeaf, true);
+
+		return sb.append(";").toString();
+	}
+
+	private static void appendSubTree(StringBuilder sb, Random random, int leafNum, int childNum, int[] nextLeaf, boolean isRoot) {
+		if(leafNum==1) {
+			sb.append("t").append(nextLeaf[0]++);
+		}else {
+			childNum = Math.min(childNum, leafNum);
+			sb.append("(");
+			int remaining = leafNum;
+			for(int i=0;i<childNum;i++) {
+				int size = i==childNum-1?remaining:1+random.nextInt(remaining-(childNum-i-1));
+				remaining-=size;
+				if(i>0)
+					sb.append(",");
+				appendSubTree(sb, random, size, 2+random.nextInt(3), nextLeaf, false);
+			}
+			sb.append(")");
+			if(!isRoot && random.nextInt(4)>0) {
+				sb.append(random.nextInt(101)/100d);
+			}
+		}
+		if(!isRoot) {
+			sb.append(":").append(random.nextInt(1000)/1000d);
+		}
+	}
+
+	/**
+	 * @return null if the two subtrees are identical; otherwise the description of the first difference
+	 */
+	static String compare(TreeNode node1, TreeNode node2) {
+		if(node1.getId()!=node2.getId())
+			return "id: "+node1.getId()+" vs "+node2.getId();
+		if(!Objects.equals(node1.getLabel(), node2.getLabel()))
+			return "label of node "+node1.getId()+": "+node1.getLabel()+" vs "+node2.getLabel();
+		if(!Objects.equals(node1.getDistToParent(), node2.getDistToParent()))
+			return "distToParent of node "+node1.getId()+": "+node1.getDistToParent()+" vs "+node2.getDistToParent();
+		if(!Objects.equals(node1.getBootstrap(), node2.getBootstrap()))
+			return "bootstrap of node "+node1.getId()+": "+node1.getBootstrap()+" vs "+node2.getBootstrap();
+
+		List<TreeNode> children1 = node1.getChildNodeList();
+		List<TreeNode> children2 = node2.getChildNodeList();
+		if(children1.size()!=children2.size())
+			return "children node number of node "+node1.getId()+": "+children1.size()+" vs "+children2.size();
+		for(int i=0;i<children1.size();i++) {
+			String diff = compare(children1.get(i), children2.get(i));
+			if(diff!=null)
+				return diff;
+		}
+		return null;
+	}
+
+	/**
+	 *
+	 * @param args number of random trees (default 1000), max leaf number (default 50), random seed (default 1)
+	 */
+	public static void main(String[] args) {
+		int treeNum = args.length>0?Integer.parseInt(args[0]):1000;
+		int maxLeafNum = args.length>1?Integer.parseInt(args[1]):50;
+		Random random = new Random(args.length>2?Long.parseLong(args[2]):1);
+
+		int rerootNum=0;
+		int mismatchNum=0;
+		for(int i=0;i<treeNum;i++) {
+			String newick = randomNewickString(random, 2+random.nextInt(maxLeafNum-1));
+			Tree tree = Tree.fromNewickString(newick, NewickFileFormatType.SIMPLE_NEWICK_2);
+
+			for(TreeNode leaf:tree.getNodeTable().getLeafNodes()) {
+				Tree rerooted = tree.reroot(leaf.getLabel());
+				Tree expected = tree.rerootByUnrootedTreeGraph(leaf.getLabel());
+				rerootNum++;
+
+				String diff = compare(expected.getRootNode(), rerooted.getRootNode());
+				if(diff==null && !expected.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2).equals(rerooted.toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2))) {
+					diff = "newick string";
+				}
+				if(diff!=null) {
+					mismatchNum++;
+					System.out.println("mismatch found for tree "+newick+" with outgroup "+leaf.getLabel()+": "+diff);
+				}
+			}
+		}
+
+		System.out.println(treeNum+" random trees; "+rerootNum+" rerooted trees compared; "+mismatchNum+" mismatches");
+	}
+}
@@ -0,0 +1,188 @@
+package phylo.tree.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * reroot a {@link Tree} with a leaf node as outgroup directly on the original tree nodes, without building a {@link UnrootedTreeGraph};
+ *
+ * the unrooted graph is only implied by the parent and children nodes of each node of the original tree, thus the only objects created are the nodes of the rerooted tree;
+ *
+ * the result is identical to {@link UnrootedTreeGraph#reroot(int)}, including
+ * 1. node ids and labels are kept; the new root node takes the smallest id not used by the original tree;
+ * 2. if the original root node has exactly two children nodes, it is removed and its two edges are merged into one with the sum of the lengths and the bootstrap of the first child node;
+ * 3. the new root node is placed in the middle of the edge of the outgroup leaf node with null bootstrap on both edges;
+ * 4. order of children nodes follows the order in which the edges are added to the graph by {@link UnrootedTreeGraph} (edge to parent node first, then edges to children nodes, then the merged edge and finally the edge to the new root node);
+ *
+ * see {@link TreeRerootTest} for the differential check against {@link UnrootedTreeGraph}
+ *
+ * @author tanxu
+ *
+ */
+final class TreeRerooter {
+	private final Tree tree;
+
+	/**
+	 * whether the root node of the original tree has exactly two children nodes and is thus removed from the unrooted tree
+	 */
+	private final boolean rootNodeRemoved;
+
+	/**
+	 *
+	 * @param tree
+	 */
+	TreeRerooter(Tree tree) {
+		this.tree = tree;
+		this.rootNodeRemoved = tree.getRootNode().getChildNodeList().size()==2;
+	}
+
+	/**
+	 * build a new Tree by making the given leaf node the outgroup
+	 * @param outgroupLeafNode
+	 * @return
+	 */
+	Tree reroot(TreeNode outgroupLeafNode) {
+		if(this.rootNodeRemoved && outgroupLeafNode==this.tree.getRootNode()) {
+			throw new IllegalArgumentException("given node is not on the unrooted tree");
+		}
+
+		List<TreeNode> adjacentNodes = new ArrayList<>();
+		this.addAdjacentNodes(outgroupLeafNode, null, adjacentNodes);
+		if(adjacentNodes.size()!=1) {
+			throw new IllegalArgumentException("given node is not a leaf");
+		}
+		TreeNode adjacentNode = adjacentNodes.get(0);
+
+		Double len = this.getEdgeLength(outgroupLeafNode, adjacentNode);
+		Double halfLen = len==null?null:len/2;
+
+		Tree ret = new Tree();
+		TreeNode rootNode = new TreeNode(ret, this.nextAvailableID(), null);
+		ret.setRootNode(rootNode);
+		rootNode.setBootstrap(null);
+		rootNode.setDistToParent(null);
+		rootNode.setLabel(null);
+
+		List<TreeNode> rootChildNodeList = new ArrayList<>();
+		rootChildNodeList.add(this.copyNode(ret, outgroupLeafNode, rootNode, halfLen, null));
+		rootChildNodeList.add(this.copyNode(ret, adjacentNode, rootNode, halfLen, null));
+		rootNode.setChildNodeList(rootChildNodeList);
+
+		//the outgroup leaf node has no children nodes; the children nodes of the adjacent node exclude the outgroup leaf node
+		rootChildNodeList.get(0).setChildNodeList(new ArrayList<>());
+
+		//explicit stacks of the nodes of the new tree whose children nodes are to be built, the corresponding original nodes and the original nodes to exclude (the new parent nodes)
+		List<TreeNode> newNodeStack = new ArrayList<>();
+		List<TreeNode> originalNodeStack = new ArrayList<>();
+		List<TreeNode> excludedNodeStack = new ArrayList<>();
+		newNodeStack.add(rootChildNodeList.get(1));
+		originalNodeStack.add(adjacentNode);
+		excludedNodeStack.add(outgroupLeafNode);
+
+		List<TreeNode> originalChildNodes = new ArrayList<>();
+		while(!newNodeStack.isEmpty()) {
+			int last = newNodeStack.size()-1;
+			TreeNode newNode = newNodeStack.remove(last);
+			TreeNode originalNode = originalNodeStack.remove(last);
+			TreeNode excludedNode = excludedNodeStack.remove(last);
+
+			originalChildNodes.clear();
+			this.addAdjacentNodes(originalNode, excludedNode, originalChildNodes);
+
+			List<TreeNode> childNodeList = new ArrayList<>(originalChildNodes.size());
+			for(TreeNode originalChildNode:originalChildNodes) {
+				TreeNode childNode = this.copyNode(ret, originalChildNode, newNode,
+						this.getEdgeLength(originalNode, originalChildNode), this.getEdgeBootstrap(originalNode, originalChildNode));
+				childNodeList.add(childNode);
+
+				newNodeStack.add(childNode);
+				originalNodeStack.add(originalChildNode);
+				excludedNodeStack.add(originalNode);
+			}
+			newNode.setChildNodeList(childNodeList);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * create a node on the new tree with the same id and label as the given original node
+	 */
+	private TreeNode copyNode(Tree newTree, TreeNode originalNode, TreeNode newParentNode, Double distToParent, Double bootstrap) {
+		TreeNode ret = new TreeNode(newTree, originalNode.getId(), newParentNode);
+		ret.setBootstrap(bootstrap);
+		ret.setDistToParent(distToParent);
+		ret.setLabel(originalNode.getLabel());
+		return ret;
+	}
+
+	/**
+	 * add the nodes adjacent to the given node on the unrooted tree to the given list except for the excluded one
+	 *
+	 * the order is the same as the edges of the node on the {@link UnrootedTreeGraph}
+	 *
+	 * @param node
+	 * @param excludedNode
+	 * @param ret
+	 */
+	private void addAdjacentNodes(TreeNode node, TreeNode excludedNode, List<TreeNode> ret) {
+		TreeNode parentNode = node.getParent();
+		boolean childOfRemovedRootNode = this.rootNodeRemoved && parentNode==this.tree.getRootNode();
+
+		if(parentNode!=null && !childOfRemovedRootNode && parentNode!=excludedNode) {
+			ret.add(parentNode);
+		}
+		for(TreeNode childNode:node.getChildNodeList()) {
+			if(childNode!=excludedNode) {
+				ret.add(childNode);
+			}
+		}
+		if(childOfRemovedRootNode) {
+			TreeNode siblingNode = this.getSiblingOfRootChildNode(node);
+			if(siblingNode!=excludedNode) {
+				ret.add(siblingNode);
+			}
+		}
+	}
+
+	private TreeNode getSiblingOfRootChildNode(TreeNode rootChildNode) {
+		List<TreeNode> rootChildNodeList = this.tree.getRootNode().getChildNodeList();
+		return rootChildNodeList.get(0)==rootChildNode?rootChildNodeList.get(1):rootChildNodeList.get(0);
+	}
+
+	/**
+	 * @return true if the two nodes are the children nodes of the removed root node, thus connected by the merged edge
+	 */
+	private boolean isMergedEdge(TreeNode node1, TreeNode node2) {
+		return this.rootNodeRemoved && node1.getParent()==this.tree.getRootNode() && node2.getParent()==this.tree.getRootNode();
+	}
+
+	private Double getEdgeLength(TreeNode node1, TreeNode node2) {
+		if(this.isMergedEdge(node1, node2)) {
+			TreeNode childNode1=this.tree.getRootNode().getChildNodeList().get(0);
+			TreeNode childNode2=this.tree.getRootNode().getChildNodeList().get(1);
+			return childNode1.getDistToParent()!=null?childNode1.getDistToParent()+childNode2.getDistToParent():null;
+		}
+		return node1.getParent()==node2?node1.getDistToParent():node2.getDistToParent();
+	}
+
+	private Double getEdgeBootstrap(TreeNode node1, TreeNode node2) {
+		if(this.isMergedEdge(node1, node2)) {
+			//same as UnrootedTreeGraph, the bootstrap of the first child node is always used
+			return this.tree.getRootNode().getChildNodeList().get(0).getBootstrap();
+		}
+		return node1.getParent()==node2?node1.getBootstrap():node2.getBootstrap();
+	}
+
+	/**
+	 * @return the smallest id not used by any node of the original tree (including the removed root node)
+	 */
+	private int nextAvailableID() {
+		TreeNodeTable table = this.tree.getNodeTable();
+		int id=0;
+		while(table.getNode(id)!=null) {
+			id++;
+		}
+		return id;
+	}
+}
@@ -1,6 +1,9 @@
 package phylo.vcf;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
@@ -9,6 +12,7 @@ import htsjdk.samtools.util.Log;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
 import phylo.alignment.MultipleAlignment;
+import phylo.alignment.MultipleAlignmentBuilder;
 import phylo.batch.BatchRegionalTreeManager;
 import population.vcf.utils.GenotypeRecoder;
 import population.vcf.utils.VariantContextFilter;
@@ -39,7 +43,22 @@ public class Vcf2AlignmentSeqBuilder {
 	private final VariantContextFilter variantFilter;
 	
 	/////////////
-	private Map<String, String> sampleNameSequenceStringMap;
+	/**
+	 * names of all samples in the order of the vcf header
+	 */
+	private List<String> sampleNames;
+	/**
+	 * map from sample name to its index in {@link #sampleNames}
+	 */
+	private Map<String, Integer> sampleNameIndexMap;
+	/**
+	 * sequences of all samples are appended to byte arrays rather than concatenated strings, which copy the whole sequence for each site
+	 */
+	private MultipleAlignmentBuilder multipleAlignmentBuilder;
+	/**
+	 * built from {@link #multipleAlignmentBuilder} at the first invocation of {@link #getMultipleAlignment()}
+	 */
+	private MultipleAlignment multipleAlignment;
 	
 	private String ref;
 	
@@ -63,52 +82,100 @@ public class Vcf2AlignmentSeqBuilder {
 	 * @param reader
 	 */
 	public void run(VCFFileReader reader) {
-		this.sampleNameSequenceStringMap=new LinkedHashMap<>();
-		reader.getHeader().getGenotypeSamples().forEach(s->{
-			sampleNameSequenceStringMap.put(s, "");
-		});
-		this.ref="";
+		this.run(reader.getHeader().getGenotypeSamples(), reader.iterator().stream());
+	}
+	
+	/**
+	 * transform the given records into sequences with this Vcf2AlignmentSeqBuilder;
+	 * 
+	 * used to build sequences directly from the records queried from an indexed variant file without writing them to a temporary vcf file
+	 * 
+	 * @param genotypeSamples names of all samples in the order of the header of the variant file
+	 * @param variantStream records of the variant file
+	 */
+	public void run(List<String> genotypeSamples, Stream<VariantContext> variantStream) {
+		this.start(genotypeSamples);
 		
 		////////
-		Stream<VariantContext> stream=reader.iterator().stream();
+		Stream<VariantContext> stream=variantStream;
 		if(firstN!=null) {
 			stream=stream.limit(firstN);
 		}
 		
-		stream=stream.filter(this.variantFilter); //pass the given filter
+		stream.forEach(this::add);
+	}
+	
+	/**
+	 * start building new sequences of the given samples, to which the records are then added one by one by {@link #add(VariantContext)};
+	 * 
+	 * used when the records are pushed to this builder, for example by {@link phylo.batch.VariantWindowSweeper}
+	 * 
+	 * @param genotypeSamples names of all samples in the order of the header of the variant file
+	 */
+	public void start(List<String> genotypeSamples) {
+		this.sampleNames=new ArrayList<>(genotypeSamples);
+		this.sampleNameIndexMap=new HashMap<>();
+		for(int i=0;i<this.sampleNames.size();i++) {
+			this.sampleNameIndexMap.put(this.sampleNames.get(i), i);
+		}
+		this.multipleAlignmentBuilder=new MultipleAlignmentBuilder(this.sampleNames);
+		this.multipleAlignment=null;
+		this.ref="";
+	}
+	
+	/**
+	 * append the site of the given record to the sequences if it passes the {@link #variantFilter}
+	 * @param v
+	 */
+	public void add(VariantContext v) {
+		if(!this.variantFilter.test(v)) //pass the given filter
+			return;
 		
-		stream.forEach(v->{
-			if(v.getStart()%100000==0)
-				log.info("vcf file progress:"+v.getContig()+" "+v.getStart());
-			
-			v.getGenotypesOrderedByName().forEach(g->{
-				this.sampleNameSequenceStringMap.put(g.getSampleName(), this.sampleNameSequenceStringMap.get(g.getSampleName()).concat(this.genotypeRecoder.apply(new Pair<>(v,g))));
-			});
-			
+		if(v.getStart()%100000==0)
+			log.info("vcf file progress:"+v.getContig()+" "+v.getStart());
+		
+		v.getGenotypesOrderedByName().forEach(g->{
+			this.multipleAlignmentBuilder.append(this.sampleNameIndexMap.get(g.getSampleName()), this.genotypeRecoder.apply(new Pair<>(v,g)));
 		});
+		this.multipleAlignment=null;
 	}
 	
 	
 	void print() {
-		sampleNameSequenceStringMap.forEach((k,v)->{
+		this.getSampleNameSequenceStringMap().forEach((k,v)->{
 			
 			System.out.println(v+"\t"+k);
 		});
 	}
 	
 	/**
+	 * note that the sequence strings are created from the byte-backed {@link MultipleAlignment} at the first invocation;
+	 * if no site is included, all sequences are empty strings
 	 * @return the sampleNameSequenceStringMap
 	 */
 	public Map<String, String> getSampleNameSequenceStringMap() {
-		return sampleNameSequenceStringMap;
+		if(this.sampleNames.isEmpty() || this.multipleAlignmentBuilder.getSeqLen(0)==0) {
+			Map<String, String> ret=new LinkedHashMap<>();
+			this.sampleNames.forEach(s->{
+				ret.put(s, "");
+			});
+			return ret;
+		}
+		return this.getMultipleAlignment().getSeqNameAlignmentSeqMap();
 	}
 	
 	
 	/**
 	 * 
 	 * @return
+	 * @throws IllegalArgumentException if no site is included or no sample is in the vcf file
 	 */
 	public MultipleAlignment getMultipleAlignment() {
-		return new MultipleAlignment(this.getSampleNameSequenceStringMap());
+		if(this.multipleAlignment==null) {
+			if(this.sampleNames.isEmpty())
+				throw new IllegalArgumentException("no sample is found in the vcf file!");
+			this.multipleAlignment=this.multipleAlignmentBuilder.build();
+		}
+		return this.multipleAlignment;
 	}
 }
@@ -5,7 +5,11 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import phylo.tree.reader.NewickFileFormatType;
 import sv2gr.tree.RegionalTree;
@@ -21,14 +25,38 @@ public class BatchRegionalTreeReader {
 	 */
 	private final int windowSize;
 	
+	/**
+	 * number of threads to parse the regional trees in parallel
+	 * if 1, all regional trees are parsed one by one in the current thread
+	 */
+	private final int threadNum;
+	
 	////////////////////////////////
 	private List<RegionalTree> regionalTrees;
 	
 	
 	public BatchRegionalTreeReader(Path batchRegionalTreeFile, int windowSize) {
+		this(batchRegionalTreeFile, windowSize, 1);
+	}
+	
+	/**
+	 * if threadNum is larger than 1, the regional trees are parsed in parallel in a {@link ForkJoinPool} with threadNum threads;
+	 * 
+	 * the returned regional trees are in the same order as in the file; 
+	 * since the node ids and leaf indices of each tree are numbered by the tree itself, they are the same as the sequential parsing
+	 * 
+	 * @param batchRegionalTreeFile
+	 * @param windowSize
+	 * @param threadNum
+	 */
+	public BatchRegionalTreeReader(Path batchRegionalTreeFile, int windowSize, int threadNum) {
 		super();
+		if(threadNum<1) {
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		}
 		this.batchRegionalTreeFile = batchRegionalTreeFile;
 		this.windowSize=windowSize;
+		this.threadNum=threadNum;
 		
 		
 		this.read();
@@ -36,7 +64,7 @@ public class BatchRegionalTreeReader {
 	
 	
 	void read() {
-		this.regionalTrees = new ArrayList<>();
+		List<String> lines = new ArrayList<>();
 		
 		try {
 			BufferedReader lineReader = new BufferedReader(new FileReader(this.batchRegionalTreeFile.toFile()));
@@ -46,27 +74,7 @@ public class BatchRegionalTreeReader {
 				if(line.isEmpty() || line.startsWith("#")) { //header line starts with #
 					continue;
 				}
-				//tree_id	chrom_regions	newick_string
-				//29	Chr01:28000001-29000000	(3237:0.011546625,(((((((((11657:1.816E-5,(((13153:6.06E-6,Gp0018195:0.0)0.1:0.0,Gp0009948:0.0)0.1:0.0,13158:0.0)0.25:1.0E-8)0.24:4.0E-8,Gp0018209:1.207E-5)0.27:1.2E-7,(11652:3.036E-5,(13128:1.858E-5,Gp0018189:3.593E-5)0.88:1.203E-5)0.85:1.196E-5)0.32:3.5E-7,11647:3.588E-5)0.75:2.73E-6,(13068:0.0,Gp0018212:0.0)1.0:3.327E-5)0.81:1.079E-5,(((13148:0.0,Gp0009978:0.0)0.65:6.06E-6,Gp0018183:6.06E-6)0.35:8.0E-8,Gp0018197:5.443E-5)1.0:8.374E-5)1.0:6.383E-5,(((11757:9.089E-5,Gp0018186:1.812E-5)1.0:0.00176273,Gp0018192:0.00175222)1.0:2.976E-4,((13133:8.495E-5,Gp0018187:7.859E-5)1.0:6.923E-4,13138:6.0496E-4)1.0:8.1208E-4)0.93:9.817E-5)0.57:2.936E-5,13123:0.00275905)0.45:1.505E-5,13143:0.00234498):0.011546625);
-				String[] splits=line.split("\\s+");
-				int ID=Integer.parseInt(splits[0]);
-				String[] chromRegionSplits=splits[1].split(":");
-				String[] startEndSplits=chromRegionSplits[1].split("-");
-				
-				String chrom=chromRegionSplits[0];
-				int start=Integer.parseInt(startEndSplits[0]);
-				int end=Integer.parseInt(startEndSplits[1]);
-				
-				//////////
-				String newickTreeString=splits[2];
-				Tree tree = Tree.fromNewickString(newickTreeString, NewickFileFormatType.SIMPLE_NEWICK_2);
-				
-				
-				RegionalTree regionalTree = new RegionalTree(ID, this.windowSize, chrom, start, end, tree);
-				
-//				System.out.println("read tree for "+chrom+" "+start+" "+end+" == "+newickTreeString);
-				
-				this.regionalTrees.add(regionalTree);
+				lines.add(line);
 			}
 			
 			lineReader.close();
@@ -74,9 +82,59 @@ public class BatchRegionalTreeReader {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		
+		this.regionalTrees = new ArrayList<>(lines.size());
+		
+		if(this.threadNum==1) {
+			for(String line:lines) {
+				this.regionalTrees.add(parseRegionalTree(line, this.windowSize));
+			}
+			return;
+		}
+		
+		RegionalTree[] parsedRegionalTrees=new RegionalTree[lines.size()];
+		ForkJoinPool pool=new ForkJoinPool(this.threadNum);
+		try {
+			pool.submit(()->{
+				IntStream.range(0, lines.size()).parallel().forEach(i->{
+					parsedRegionalTrees[i]=parseRegionalTree(lines.get(i), this.windowSize);
+				});
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("parallel regional tree parsing failed!", e);
+		}finally {
+			pool.shutdown();
+		}
+		
+		this.regionalTrees.addAll(Arrays.asList(parsedRegionalTrees));
 	}
-
-
+	
+	/**
+	 * parse and return the {@link RegionalTree} from a non-header line of the batch regional tree file
+	 * 
+	 * @param line
+	 * @param windowSize
+	 * @return
+	 */
+	public static RegionalTree parseRegionalTree(String line, int windowSize) {
+		//tree_id	chrom_regions	newick_string
+		//29	Chr01:28000001-29000000	(3237:0.011546625,(((((((((11657:1.816E-5,(((13153:6.06E-6,Gp0018195:0.0)0.1:0.0,Gp0009948:0.0)0.1:0.0,13158:0.0)0.25:1.0E-8)0.24:4.0E-8,Gp0018209:1.207E-5)0.27:1.2E-7,(11652:3.036E-5,(13128:1.858E-5,Gp0018189:3.593E-5)0.88:1.203E-5)0.85:1.196E-5)0.32:3.5E-7,11647:3.588E-5)0.75:2.73E-6,(13068:0.0,Gp0018212:0.0)1.0:3.327E-5)0.81:1.079E-5,(((13148:0.0,Gp0009978:0.0)0.65:6.06E-6,Gp0018183:6.06E-6)0.35:8.0E-8,Gp0018197:5.443E-5)1.0:8.374E-5)1.0:6.383E-5,(((11757:9.089E-5,Gp0018186:1.812E-5)1.0:0.00176273,Gp0018192:0.00175222)1.0:2.976E-4,((13133:8.495E-5,Gp0018187:7.859E-5)1.0:6.923E-4,13138:6.0496E-4)1.0:8.1208E-4)0.93:9.817E-5)0.57:2.936E-5,13123:0.00275905)0.45:1.505E-5,13143:0.00234498):0.011546625);
+		String[] splits=line.split("\\s+");
+		int ID=Integer.parseInt(splits[0]);
+		String[] chromRegionSplits=splits[1].split(":");
+		String[] startEndSplits=chromRegionSplits[1].split("-");
+		
+		String chrom=chromRegionSplits[0];
+		int start=Integer.parseInt(startEndSplits[0]);
+		int end=Integer.parseInt(startEndSplits[1]);
+		
+		//////////
+		String newickTreeString=splits[2];
+		Tree tree = Tree.fromNewickString(newickTreeString, NewickFileFormatType.SIMPLE_NEWICK_2);
+		
+		return new RegionalTree(ID, windowSize, chrom, start, end, tree);
+	}
+	
 	/**
 	 * @return the regionalTrees
 	 */
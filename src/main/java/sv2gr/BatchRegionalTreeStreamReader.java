@@ -0,0 +1,257 @@
+package sv2gr;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import sv2gr.tree.RegionalTree;
+
+/**
+ * streaming version of {@link BatchRegionalTreeReader} that parses the {@link RegionalTree}s of a batch regional tree file lazily one line at a time
+ *
+ * thus only the {@link RegionalTree}s that are not released by the consumer are kept in memory rather than all trees of the file
+ *
+ * the {@link RegionalTree}s are returned in the same order as in the file, which must be in chromosome order:
+ * 		1. all trees on the same chrom are in consecutive lines;
+ * 		2. trees on the same chrom are sorted by start position;
+ * otherwise an {@link IllegalStateException} is thrown when the first violating line is reached;
+ *
+ * if a tree filter is given, only the trees whose chrom and start position are accepted by the filter are parsed and returned (for example the trees of a {@link SV2GRShard});
+ * the index of each returned tree among all trees of the file is given by {@link #getLastRegionalTreeIndex()};
+ *
+ * note that this reader must be closed after use, either by {@link #close()} or by closing the {@link Stream} returned by {@link #stream()}
+ *
+ * @author tanxu
+ *
+ */
+public class BatchRegionalTreeStreamReader implements Iterator<RegionalTree>, Closeable{
+	/**
+	 *
+	 */
+	private final Path batchRegionalTreeFile;
+	/**
+	 *
+	 */
+	private final int windowSize;
+	/**
+	 * filter of the chrom and start position of trees to parse; null if all trees are parsed
+	 */
+	private final BiPredicate<String, Integer> treeFilter;
+
+	////////////////////////////////
+	private BufferedReader lineReader;
+
+	/**
+	 * the next tree to return; null if not parsed yet or the end of file is reached
+	 */
+	private RegionalTree nextRegionalTree;
+	/**
+	 * index of {@link #nextRegionalTree} among all trees of the file
+	 */
+	private int nextRegionalTreeIndex;
+	/**
+	 * number of tree lines read so far, including the ones not accepted by the {@link #treeFilter}
+	 */
+	private int readTreeLineNum;
+
+	/**
+	 * the last returned tree
+	 */
+	private RegionalTree lastRegionalTree;
+	/**
+	 * index of {@link #lastRegionalTree} among all trees of the file; -1 if no tree is returned yet
+	 */
+	private int lastRegionalTreeIndex;
+
+	/**
+	 * all chroms before the chrom of {@link #lastRegionalTree}
+	 */
+	private Set<String> finishedChroms;
+
+
+	/**
+	 *
+	 * @param batchRegionalTreeFile
+	 * @param windowSize
+	 * @throws IOException if the file cannot be opened
+	 */
+	public BatchRegionalTreeStreamReader(Path batchRegionalTreeFile, int windowSize) throws IOException {
+		this(batchRegionalTreeFile, windowSize, null);
+	}
+
+	/**
+	 *
+	 * @param batchRegionalTreeFile
+	 * @param windowSize
+	 * @param treeFilter filter of the chrom and start position of trees to parse and return; null if all trees are returned
+	 * @throws IOException if the file cannot be opened
+	 */
+	public BatchRegionalTreeStreamReader(Path batchRegionalTreeFile, int windowSize, BiPredicate<String, Integer> treeFilter) throws IOException {
+		super();
+		this.batchRegionalTreeFile = batchRegionalTreeFile;
+		this.windowSize=windowSize;
+		this.treeFilter=treeFilter;
+		this.lastRegionalTreeIndex=-1;
+
+
+		this.lineReader = new BufferedReader(new FileReader(this.batchRegionalTreeFile.toFile()));
+		this.finishedChroms = new HashSet<>();
+	}
+
+
+	@Override
+	public boolean hasNext() {
+		if(this.nextRegionalTree==null) {
+			this.nextRegionalTree=this.readNext();
+		}
+		return this.nextRegionalTree!=null;
+	}
+
+
+	@Override
+	public RegionalTree next() {
+		if(!this.hasNext()) {
+			throw new NoSuchElementException("no more regional tree in file "+this.batchRegionalTreeFile);
+		}
+
+		RegionalTree ret=this.nextRegionalTree;
+		this.nextRegionalTree=null;
+
+		this.checkOrder(ret);
+		this.lastRegionalTree=ret;
+		this.lastRegionalTreeIndex=this.nextRegionalTreeIndex;
+
+		return ret;
+	}
+
+	/**
+	 * return the next tree to be returned by {@link #next()} without consuming it
+	 * @return null if there is no more tree
+	 */
+	public RegionalTree peek() {
+		return this.hasNext()?this.nextRegionalTree:null;
+	}
+
+	/**
+	 * @return the index among all trees of the file (including the ones not accepted by the tree filter) of the tree to be returned by {@link #next()}; -1 if there is no more tree
+	 */
+	public int peekRegionalTreeIndex() {
+		return this.hasNext()?this.nextRegionalTreeIndex:-1;
+	}
+
+	/**
+	 * @return the index among all trees of the file (including the ones not accepted by the tree filter) of the last tree returned by {@link #next()}; -1 if no tree is returned yet
+	 */
+	public int getLastRegionalTreeIndex() {
+		return lastRegionalTreeIndex;
+	}
+
+	/**
+	 * read the next non-header line and parse the tree
+	 * @return null if the end of file is reached
+	 */
+	private RegionalTree readNext() {
+		if(this.lineReader==null) {//closed
+			return null;
+		}
+
+		try {
+			String line = null;
+			while ((line = this.lineReader.readLine()) != null) {
+				if(line.isEmpty() || line.startsWith("#")) { //header line starts with #
+					continue;
+				}
+
+				int treeIndex=this.readTreeLineNum++;
+				if(this.treeFilter!=null && !this.acceptedByTreeFilter(line)) {
+					continue;
+				}
+
+				this.nextRegionalTreeIndex=treeIndex;
+				return BatchRegionalTreeReader.parseRegionalTree(line, this.windowSize);
+			}
+
+			this.close();
+			return null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * check the chrom and start position of the tree of the given line with the {@link #treeFilter} without parsing the newick tree string
+	 * @param line tree_id	chrom:start-end	newick_string
+	 * @return
+	 */
+	private boolean acceptedByTreeFilter(String line) {
+		//same as BatchRegionalTreeReader#parseRegionalTree(String, int), but the newick tree string is not split
+		String chromRegion=line.split("\\s+", 3)[1];
+		int colon=chromRegion.indexOf(':');
+		int dash=chromRegion.indexOf('-', colon);
+
+		return this.treeFilter.test(chromRegion.substring(0, colon), Integer.parseInt(chromRegion.substring(colon+1, dash)));
+	}
+
+	/**
+	 * check if the given tree to be returned is in chromosome order with the {@link #lastRegionalTree}
+	 * @param tree
+	 */
+	private void checkOrder(RegionalTree tree) {
+		if(this.lastRegionalTree==null) {
+			return;
+		}
+
+		if(tree.getChrom().equals(this.lastRegionalTree.getChrom())) {
+			if(tree.getStart()<this.lastRegionalTree.getStart()) {
+				throw new IllegalStateException("regional trees on chrom "+tree.getChrom()+" are not sorted by start position in file "+this.batchRegionalTreeFile);
+			}
+		}else {
+			this.finishedChroms.add(this.lastRegionalTree.getChrom());
+			if(this.finishedChroms.contains(tree.getChrom())) {
+				throw new IllegalStateException("regional trees on chrom "+tree.getChrom()+" are not in consecutive lines in file "+this.batchRegionalTreeFile);
+			}
+		}
+	}
+
+
+	/**
+	 * return a sequential ordered {@link Stream} of the remaining {@link RegionalTree}s of this reader, which closes this reader when the stream is closed
+	 *
+	 * an {@link UncheckedIOException} is thrown by the stream if the file cannot be read
+	 *
+	 * @return
+	 */
+	public Stream<RegionalTree> stream(){
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED|Spliterator.NONNULL),
+				false).onClose(()->{
+					try {
+						this.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		if(this.lineReader!=null) {
+			this.lineReader.close();
+			this.lineReader=null;
+		}
+	}
+
+}
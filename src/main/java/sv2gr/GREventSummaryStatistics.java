@@ -0,0 +1,349 @@
+package sv2gr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import basic.Pair;
+import population.sv.utils.SimpleSVType;
+import sv2gr.gr.GREvent;
+import sv2gr.gr.GREventUtils;
+import sv2gr.gr.GRType;
+import sv2gr.tree.RegionalTree;
+
+/**
+ * summary counts of the GR events and temporally ordered GR event pairs of a set of regional trees
+ *
+ * a GR event type is a combination of the type of the original SV and whether the GR event is the reversal of the SV,
+ * indexed by {@link #getGREventTypeIndex(SimpleSVType, boolean)} = 2*{@link SimpleSVType#ordinal()} + (1 if reversed else 0);
+ * thus the increasing order of the index is the same as sorting by SV type and then by reversal (non-reversed first), as in {@link SV2GRResultWriter};
+ *
+ * all counts are kept in primitive arrays indexed by the GR event type index, so that the statistics of each block of regional trees
+ * (for example the trees processed by each thread or each block of {@link StreamingSV2GRPipeline}) can be calculated separately and combined by {@link #merge(GREventSummaryStatistics)};
+ *
+ * not thread-safe; each thread should accumulate to its own object
+ *
+ * @author tanxu
+ *
+ */
+public class GREventSummaryStatistics {
+	/**
+	 * number of GR event types
+	 */
+	public static final int GR_EVENT_TYPE_NUM=SimpleSVType.values().length*2;
+
+	//////////////////////////////////
+	/**
+	 * number of SVs assigned to regional trees of each SV type; an SV assigned to multiple regional trees is counted multiple times
+	 */
+	private final int[] svTypeCoveredSVNums;
+	/**
+	 * number of inferred GR events of each GR event type
+	 */
+	private final int[] grEventTypeGREventNums;
+	/**
+	 * number of temporally ordered GR event pairs of each combination of GR event types;
+	 * the number of pairs with GR event type i first and j second is at i*{@link #GR_EVENT_TYPE_NUM}+j
+	 */
+	private final int[] grEventTypePairNums;
+
+	/**
+	 * empty statistics
+	 */
+	public GREventSummaryStatistics() {
+		super();
+		this.svTypeCoveredSVNums=new int[SimpleSVType.values().length];
+		this.grEventTypeGREventNums=new int[GR_EVENT_TYPE_NUM];
+		this.grEventTypePairNums=new int[GR_EVENT_TYPE_NUM*GR_EVENT_TYPE_NUM];
+	}
+
+	/**
+	 * calculate the statistics of all regional trees of the given {@link GREventsInfererAndTemporalOrderResolver} in a single pass
+	 *
+	 * if threadNum is larger than 1, the regional trees are processed in parallel in a {@link ForkJoinPool} with threadNum threads,
+	 * each of which accumulates to its own statistics that are merged at the end; the result is the same as the sequential one
+	 *
+	 * @param resolver
+	 * @param threadNum
+	 * @return
+	 */
+	public static GREventSummaryStatistics calculate(GREventsInfererAndTemporalOrderResolver resolver, int threadNum) {
+		if(threadNum<1) {
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		}
+
+		Map<RegionalTree, List<Pair<GREvent, GREvent>>> treePairsMap=resolver.getTreeTemporallyOrderedGREventPairsMap();
+
+		if(threadNum==1) {
+			GREventSummaryStatistics ret=new GREventSummaryStatistics();
+			for(RegionalTree tree:resolver.getRegionalTrees()) {
+				ret.add(tree, treePairsMap.get(tree));
+			}
+			return ret;
+		}
+
+		ForkJoinPool pool=new ForkJoinPool(threadNum);
+		try {
+			return pool.submit(()->{
+				return resolver.getRegionalTrees().parallelStream().collect(
+						GREventSummaryStatistics::new,
+						(stats, tree)->stats.add(tree, treePairsMap.get(tree)),
+						GREventSummaryStatistics::merge);
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("parallel GR event summary statistics calculation failed!", e);
+		}finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param svType
+	 * @param reversalOfSV
+	 * @return the index of the GR event type
+	 */
+	public static int getGREventTypeIndex(SimpleSVType svType, boolean reversalOfSV) {
+		return svType.ordinal()*2+(reversalOfSV?1:0);
+	}
+
+	/**
+	 * @param index
+	 * @return the SV type and whether reversed or not of the GR event type with the given index
+	 */
+	public static Pair<SimpleSVType, Boolean> getGREventType(int index){
+		return new Pair<>(SimpleSVType.values()[index/2], index%2==1);
+	}
+
+	/**
+	 * @param gr
+	 * @return
+	 */
+	private static int getGREventTypeIndex(GREvent gr) {
+		return getGREventTypeIndex(gr.getOriginalSVLocus().getType(), gr.isReversalOfSV());
+	}
+
+	/////////////////////////////////////
+	/**
+	 * add the assigned SVs and inferred GR events of the given regional tree and the given temporally ordered GR event pairs of it
+	 *
+	 * @param tree
+	 * @param temporallyOrderedGREventPairs null if there is no GR event pair on the tree
+	 */
+	public void add(RegionalTree tree, List<Pair<GREvent, GREvent>> temporallyOrderedGREventPairs) {
+		for(int i=0;i<tree.getCoveredSVLocusList().size();i++) {
+			this.svTypeCoveredSVNums[tree.getCoveredSVLocusList().get(i).getType().ordinal()]++;
+		}
+		for(GREvent gr:tree.getSvLocusGREventMap().values()) {
+			this.grEventTypeGREventNums[getGREventTypeIndex(gr)]++;
+		}
+
+		if(temporallyOrderedGREventPairs!=null) {
+			for(Pair<GREvent, GREvent> pair:temporallyOrderedGREventPairs) {
+				this.grEventTypePairNums[getGREventTypeIndex(pair.getFirst())*GR_EVENT_TYPE_NUM+getGREventTypeIndex(pair.getSecond())]++;
+			}
+		}
+	}
+
+	/**
+	 * add all counts of the given statistics to this one
+	 * @param other
+	 * @return this object
+	 */
+	public GREventSummaryStatistics merge(GREventSummaryStatistics other) {
+		for(int i=0;i<this.svTypeCoveredSVNums.length;i++) {
+			this.svTypeCoveredSVNums[i]+=other.svTypeCoveredSVNums[i];
+		}
+		for(int i=0;i<this.grEventTypeGREventNums.length;i++) {
+			this.grEventTypeGREventNums[i]+=other.grEventTypeGREventNums[i];
+		}
+		for(int i=0;i<this.grEventTypePairNums.length;i++) {
+			this.grEventTypePairNums[i]+=other.grEventTypePairNums[i];
+		}
+		return this;
+	}
+
+	/**
+	 * add the given number of SVs of the given type assigned to regional trees
+	 * @param svType
+	 * @param num
+	 */
+	void addCoveredSVNum(SimpleSVType svType, int num) {
+		this.svTypeCoveredSVNums[svType.ordinal()]+=num;
+	}
+
+	/**
+	 * add the given number of inferred GR events of the given GR event type
+	 * @param svType
+	 * @param reversalOfSV
+	 * @param num
+	 */
+	void addGREventNum(SimpleSVType svType, boolean reversalOfSV, int num) {
+		this.grEventTypeGREventNums[getGREventTypeIndex(svType, reversalOfSV)]+=num;
+	}
+
+	/**
+	 * add the given number of temporally ordered GR event pairs of the given combination of GR event types
+	 * @param first
+	 * @param second
+	 * @param num
+	 */
+	void addGREventPairNum(Pair<SimpleSVType, Boolean> first, Pair<SimpleSVType, Boolean> second, int num) {
+		this.grEventTypePairNums[getGREventTypeIndex(first.getFirst(), first.getSecond())*GR_EVENT_TYPE_NUM+getGREventTypeIndex(second.getFirst(), second.getSecond())]+=num;
+	}
+
+	/////////////////////////////////////
+	/**
+	 * @return the total number of SVs assigned to regional trees
+	 */
+	public int getCoveredSVNum() {
+		int ret=0;
+		for(int num:this.svTypeCoveredSVNums) {
+			ret+=num;
+		}
+		return ret;
+	}
+
+	/**
+	 * @param svType
+	 * @return the number of SVs of the given type assigned to regional trees
+	 */
+	public int getCoveredSVNum(SimpleSVType svType) {
+		return this.svTypeCoveredSVNums[svType.ordinal()];
+	}
+
+	/**
+	 * @return the total number of inferred GR events
+	 */
+	public int getGREventNum() {
+		int ret=0;
+		for(int num:this.grEventTypeGREventNums) {
+			ret+=num;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the total number of inferred GR events that are the reversal of the SV
+	 */
+	public int getReversedGREventNum() {
+		int ret=0;
+		for(int i=1;i<this.grEventTypeGREventNums.length;i+=2) {
+			ret+=this.grEventTypeGREventNums[i];
+		}
+		return ret;
+	}
+
+	/**
+	 * @param svType
+	 * @param reversalOfSV
+	 * @return the number of inferred GR events of the given GR event type
+	 */
+	public int getGREventNum(SimpleSVType svType, boolean reversalOfSV) {
+		return this.grEventTypeGREventNums[getGREventTypeIndex(svType, reversalOfSV)];
+	}
+
+	/**
+	 * @param grType
+	 * @return the number of inferred GR events of the given {@link GRType}, see {@link GREventUtils#inferGRType(SimpleSVType, boolean)}
+	 */
+	public int getGREventNum(GRType grType) {
+		int ret=0;
+		for(int i=0;i<this.grEventTypeGREventNums.length;i++) {
+			if(this.grEventTypeGREventNums[i]>0) {
+				Pair<SimpleSVType, Boolean> type=getGREventType(i);
+				if(GREventUtils.inferGRType(type.getFirst(), type.getSecond())==grType) {
+					ret+=this.grEventTypeGREventNums[i];
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * same as {@link GREventsInfererAndTemporalOrderResolver#getSVTypeNumWithInferedGREventMap()}
+	 *
+	 * @return the map from each SV type with at least one inferred GR event to the number of reversed and non-reversed GR events
+	 */
+	public Map<SimpleSVType, Pair<Integer,Integer>> getSVTypeNumWithInferedGREventMap(){
+		Map<SimpleSVType, Pair<Integer,Integer>> ret =new HashMap<>();
+
+		for(SimpleSVType type:SimpleSVType.values()) {
+			int reversed=this.getGREventNum(type, true);
+			int nonReversed=this.getGREventNum(type, false);
+			if(reversed+nonReversed>0) {
+				ret.put(type, new Pair<>(reversed, nonReversed));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @return the total number of temporally ordered GR event pairs
+	 */
+	public int getGREventPairNum() {
+		int ret=0;
+		for(int num:this.grEventTypePairNums) {
+			ret+=num;
+		}
+		return ret;
+	}
+
+	/**
+	 * @param first
+	 * @param second
+	 * @return the number of temporally ordered GR event pairs with the first GR event of the given first type and the second of the given second type
+	 */
+	public int getGREventPairNum(Pair<SimpleSVType, Boolean> first, Pair<SimpleSVType, Boolean> second) {
+		return this.grEventTypePairNums[getGREventTypeIndex(first.getFirst(), first.getSecond())*GR_EVENT_TYPE_NUM+getGREventTypeIndex(second.getFirst(), second.getSecond())];
+	}
+
+	/**
+	 * @return the indices of all GR event types in at least one temporally ordered GR event pair in increasing order
+	 */
+	private List<Integer> getIdentifiedGREventTypeIndices(){
+		List<Integer> ret=new ArrayList<>();
+		for(int i=0;i<GR_EVENT_TYPE_NUM;i++) {
+			boolean found=false;
+			for(int j=0;j<GR_EVENT_TYPE_NUM&&!found;j++) {
+				found=this.grEventTypePairNums[i*GR_EVENT_TYPE_NUM+j]>0||this.grEventTypePairNums[j*GR_EVENT_TYPE_NUM+i]>0;
+			}
+			if(found) {
+				ret.add(i);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return all GR event types in at least one temporally ordered GR event pair sorted by SV type and then whether reversed or not
+	 */
+	public List<Pair<SimpleSVType, Boolean>> getIdentifiedGREventTypeList(){
+		List<Pair<SimpleSVType, Boolean>> ret=new ArrayList<>();
+		for(int index:this.getIdentifiedGREventTypeIndices()) {
+			ret.add(getGREventType(index));
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the matrix of the numbers of temporally ordered GR event pairs of each combination of the GR event types in {@link #getIdentifiedGREventTypeList()},
+	 * with the first GR event type as row and the second as column
+	 */
+	public List<List<Integer>> getTemporallyOrderedGREventPairMatrix(){
+		List<Integer> indices=this.getIdentifiedGREventTypeIndices();
+
+		List<List<Integer>> matrix=new ArrayList<>();
+		for(int i:indices) {
+			List<Integer> list=new ArrayList<>();
+			for(int j:indices) {
+				list.add(this.grEventTypePairNums[i*GR_EVENT_TYPE_NUM+j]);
+			}
+			matrix.add(list);
+		}
+		return matrix;
+	}
+}
@@ -0,0 +1,352 @@
+package sv2gr;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import population.sv.utils.SimpleSVType;
+import sv2gr.GREventsBinaryFormat.Column;
+import sv2gr.GREventsTsvFileReader.SimpleGREvent;
+import sv2gr.GREventsTsvFileReader.SimpleSV;
+import sv2gr.gr.GRType;
+
+/**
+ * reader of the binary columnar file of GR events written by {@link GREventsBinaryFileWriter}
+ *
+ * only the header is parsed when the reader is created; each column is memory-mapped when it is first accessed,
+ * thus a query only touching some columns (for example SV type, reverse_of_SV and tree ID) never reads or decodes the other columns such as the sample bitsets;
+ *
+ * all accessors take the row index of the GR event, which is in the same order as the GR events in the tsv file written by {@link GREventsWriter};
+ *
+ * note that the sample lists decoded from the bitsets are in the order of the sample dictionary rather than the original order in the tsv file;
+ * this reader must be closed after use
+ *
+ * @author tanxu
+ *
+ */
+public class GREventsBinaryFileReader implements Closeable{
+	private final Path binaryFile;
+
+	////////////////////////
+	private FileChannel channel;
+
+	private int rowNum;
+	private List<String> chroms;
+	private List<SimpleSVType> svTypes;
+	private List<GRType> grTypes;
+	private List<String> sampleNames;
+	/**
+	 * number of words of each sample bitset
+	 */
+	private int wordNum;
+
+	/**
+	 * offset and byte length of each column in the file
+	 */
+	private Map<Column, long[]> columnOffsetAndLengthMap;
+
+	/**
+	 * mapped columns
+	 */
+	private Map<Column, ByteBuffer> columnBufferMap;
+	private Map<Column, IntBuffer> intColumnMap;
+	private Map<Column, DoubleBuffer> doubleColumnMap;
+	private Map<Column, LongBuffer> longColumnMap;
+
+	/**
+	 *
+	 * @param binaryFile
+	 * @throws IOException if the file cannot be opened or is not a valid binary GR events file
+	 */
+	public GREventsBinaryFileReader(Path binaryFile) throws IOException {
+		super();
+		this.binaryFile = binaryFile;
+
+		///////////////////////////////
+		this.channel=FileChannel.open(this.binaryFile, StandardOpenOption.READ);
+		this.columnBufferMap=new EnumMap<>(Column.class);
+		this.intColumnMap=new EnumMap<>(Column.class);
+		this.doubleColumnMap=new EnumMap<>(Column.class);
+		this.longColumnMap=new EnumMap<>(Column.class);
+
+		this.readHeader();
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	void readHeader() throws IOException {
+		//do not close the stream, which would close the channel
+		DataInputStream in=new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel.position(0))));
+
+		if(in.readInt()!=GREventsBinaryFormat.MAGIC) {
+			throw new IOException("given file is not a binary GR events file:"+this.binaryFile);
+		}
+		int version=in.readInt();
+		if(version!=GREventsBinaryFormat.VERSION) {
+			throw new IOException("unsupported version "+version+" of binary GR events file:"+this.binaryFile);
+		}
+		this.rowNum=in.readInt();
+
+		this.chroms=this.readDictionary(in);
+		this.svTypes=new ArrayList<>();
+		for(String svType:this.readDictionary(in)) {
+			this.svTypes.add(SimpleSVType.valueOf(svType));
+		}
+		this.grTypes=new ArrayList<>();
+		for(String grType:this.readDictionary(in)) {
+			this.grTypes.add(GRType.valueOf(grType));
+		}
+		this.sampleNames=this.readDictionary(in);
+		this.wordNum=in.readInt();
+
+		int columnNum=in.readInt();
+		if(columnNum!=Column.values().length) {
+			throw new IOException("unexpected column number "+columnNum+" of binary GR events file:"+this.binaryFile);
+		}
+		this.columnOffsetAndLengthMap=new EnumMap<>(Column.class);
+		for(Column column:Column.values()) {
+			String name=in.readUTF();
+			if(!name.equals(column.getStringValue())) {
+				throw new IOException("unexpected column "+name+" of binary GR events file:"+this.binaryFile);
+			}
+			long offset=in.readLong();
+			long length=in.readLong();
+			this.columnOffsetAndLengthMap.put(column, new long[] {offset, length});
+		}
+	}
+
+	private List<String> readDictionary(DataInputStream in) throws IOException{
+		int size=in.readInt();
+		List<String> ret=new ArrayList<>(size);
+		for(int i=0;i<size;i++) {
+			ret.add(in.readUTF());
+		}
+		return ret;
+	}
+
+	/**
+	 * map the given column if not yet
+	 * @param column
+	 * @return
+	 */
+	private ByteBuffer getColumnBuffer(Column column) {
+		if(!this.columnBufferMap.containsKey(column)) {
+			if(this.channel==null) {
+				throw new IllegalStateException("reader is closed!");
+			}
+			long[] offsetAndLength=this.columnOffsetAndLengthMap.get(column);
+			try {
+				this.columnBufferMap.put(column, this.channel.map(FileChannel.MapMode.READ_ONLY, offsetAndLength[0], offsetAndLength[1]));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return this.columnBufferMap.get(column);
+	}
+
+	private IntBuffer getIntColumn(Column column) {
+		if(!this.intColumnMap.containsKey(column)) {
+			this.intColumnMap.put(column, this.getColumnBuffer(column).asIntBuffer());
+		}
+		return this.intColumnMap.get(column);
+	}
+
+	private DoubleBuffer getDoubleColumn(Column column) {
+		if(!this.doubleColumnMap.containsKey(column)) {
+			this.doubleColumnMap.put(column, this.getColumnBuffer(column).asDoubleBuffer());
+		}
+		return this.doubleColumnMap.get(column);
+	}
+
+	private LongBuffer getLongColumn(Column column) {
+		if(!this.longColumnMap.containsKey(column)) {
+			this.longColumnMap.put(column, this.getColumnBuffer(column).asLongBuffer());
+		}
+		return this.longColumnMap.get(column);
+	}
+
+	//////////////////////////////////////////
+	/**
+	 * @return the number of GR events
+	 */
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	/**
+	 * @return the sample dictionary; the index of a sample name is the index of its bit in the sample bitsets
+	 */
+	public List<String> getSampleNames() {
+		return sampleNames;
+	}
+
+	/**
+	 * @return the number of words of each sample bitset
+	 */
+	public int getWordNum() {
+		return wordNum;
+	}
+
+	public String getChrom(int row) {
+		return this.chroms.get(this.getIntColumn(Column.CHROM).get(row));
+	}
+
+	public SimpleSVType getSVType(int row) {
+		return this.svTypes.get(this.getIntColumn(Column.SV_TYPE).get(row));
+	}
+
+	public int getSVStart(int row) {
+		return this.getIntColumn(Column.SV_START).get(row);
+	}
+
+	public int getSVEnd(int row) {
+		return this.getIntColumn(Column.SV_END).get(row);
+	}
+
+	public int getSVSize(int row) {
+		return this.getIntColumn(Column.SIZE).get(row);
+	}
+
+	public GRType getGRType(int row) {
+		return this.grTypes.get(this.getIntColumn(Column.GR_TYPE).get(row));
+	}
+
+	public boolean isReverseOfSV(int row) {
+		return this.getColumnBuffer(Column.REVERSE_OF_SV).get(row)!=0;
+	}
+
+	public double getAncDist(int row) {
+		return this.getDoubleColumn(Column.ANC_DIST).get(row);
+	}
+
+	public double getDescDist(int row) {
+		return this.getDoubleColumn(Column.DESC_DIST).get(row);
+	}
+
+	public int getBranchNum(int row) {
+		return this.getIntColumn(Column.BRANCH_NUM).get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return {@link Double#NaN} if there is no bootstrap value on the path of the GR event
+	 */
+	public double getMaxBootstrap(int row) {
+		return this.getDoubleColumn(Column.MAX_BOOTSTRAP).get(row);
+	}
+
+	public int getTreeWindowSize(int row) {
+		return this.getIntColumn(Column.WINDOW_SIZE).get(row);
+	}
+
+	public int getTreeID(int row) {
+		return this.getIntColumn(Column.TREE_ID).get(row);
+	}
+
+	public int getTreeStart(int row) {
+		return this.getIntColumn(Column.TREE_START).get(row);
+	}
+
+	public int getTreeEnd(int row) {
+		return this.getIntColumn(Column.TREE_END).get(row);
+	}
+
+	/**
+	 * @param row
+	 * @return the bitset over the indices of {@link #getSampleNames()} of the anc_leaf_samples
+	 */
+	public long[] getAncLeafSampleBitset(int row) {
+		return this.getSampleBitset(Column.ANC_LEAF_SAMPLES, row);
+	}
+
+	/**
+	 * @param row
+	 * @return the bitset over the indices of {@link #getSampleNames()} of the desc_leaf_samples
+	 */
+	public long[] getDescLeafSampleBitset(int row) {
+		return this.getSampleBitset(Column.DESC_LEAF_SAMPLES, row);
+	}
+
+	public List<String> getAncLeafSamples(int row) {
+		return this.decodeSampleBitset(this.getAncLeafSampleBitset(row));
+	}
+
+	public List<String> getDescLeafSamples(int row) {
+		return this.decodeSampleBitset(this.getDescLeafSampleBitset(row));
+	}
+
+	private long[] getSampleBitset(Column column, int row) {
+		long[] ret=new long[this.wordNum];
+		LongBuffer buffer=this.getLongColumn(column);
+		for(int i=0;i<this.wordNum;i++) {
+			ret[i]=buffer.get(row*this.wordNum+i);
+		}
+		return ret;
+	}
+
+	private List<String> decodeSampleBitset(long[] bitset){
+		List<String> ret=new ArrayList<>();
+		for(int i=0;i<bitset.length;i++) {
+			long word=bitset[i];
+			while(word!=0) {
+				ret.add(this.sampleNames.get((i<<6)+Long.numberOfTrailingZeros(word)));
+				word&=word-1;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * decode all columns of the given row
+	 * @param row
+	 * @return
+	 */
+	public SimpleGREvent getGREvent(int row) {
+		SimpleSV sv=new SimpleSV(this.getChrom(row), this.getSVType(row), this.getSVStart(row), this.getSVEnd(row), this.getSVSize(row));
+
+		return new SimpleGREvent(
+				sv, this.getGRType(row), this.isReverseOfSV(row), this.getAncDist(row), this.getDescDist(row),
+				this.getBranchNum(row), this.getMaxBootstrap(row), this.getTreeWindowSize(row), this.getTreeID(row), this.getTreeStart(row), this.getTreeEnd(row),
+				this.getAncLeafSamples(row), this.getDescLeafSamples(row));
+	}
+
+	/**
+	 * decode all GR events; equivalent to {@link GREventsTsvFileReader#getGrEvents()}
+	 * @return
+	 */
+	public List<SimpleGREvent> getGREvents(){
+		List<SimpleGREvent> ret=new ArrayList<>(this.rowNum);
+		for(int row=0;row<this.rowNum;row++) {
+			ret.add(this.getGREvent(row));
+		}
+		return ret;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		if(this.channel!=null) {
+			this.channel.close();
+			this.channel=null;
+		}
+		this.columnBufferMap.clear();
+		this.intColumnMap.clear();
+		this.doubleColumnMap.clear();
+		this.longColumnMap.clear();
+	}
+}
@@ -0,0 +1,273 @@
+package sv2gr;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sv2gr.GREventsBinaryFormat.Column;
+import sv2gr.GREventsTsvFileReader.SimpleGREvent;
+import sv2gr.GREventsTsvFileReader.SimpleSV;
+import sv2gr.gr.GREvent;
+import sv2gr.gr.GREventUtils;
+
+/**
+ * writer of the binary columnar file of GR events in {@link GREventsBinaryFormat}
+ *
+ * the GR events are written in the same order and with the same fields as the tsv file by {@link GREventsWriter};
+ * the entries of each dictionary are in the order of first occurrence
+ *
+ * @author tanxu
+ *
+ */
+public class GREventsBinaryFileWriter {
+	private final Path outFile;
+	private final List<SimpleGREvent> grEvents;
+
+	////////////////////////////////////
+	private Map<String, Integer> chromIndexMap;
+	private Map<String, Integer> svTypeIndexMap;
+	private Map<String, Integer> grTypeIndexMap;
+	private Map<String, Integer> sampleIndexMap;
+	/**
+	 * number of words of each sample bitset
+	 */
+	private int wordNum;
+
+	/**
+	 * write the given GR events to the {@link GREventsBinaryFormat#FILE_NAME} file in the given directory
+	 *
+	 * @param outDir
+	 * @param grEvents
+	 */
+	public GREventsBinaryFileWriter(Path outDir, List<GREvent> grEvents) {
+		this(Path.of(outDir.toString(), GREventsBinaryFormat.FILE_NAME), toSimpleGREvents(grEvents), true);
+	}
+
+	/**
+	 * write the given GR events to the given file in the given order
+	 *
+	 * @param outFile
+	 * @param grEvents
+	 * @param toDeleteExistingFile if false and the outFile exists, throw {@link IllegalArgumentException}
+	 */
+	public GREventsBinaryFileWriter(Path outFile, List<SimpleGREvent> grEvents, boolean toDeleteExistingFile) {
+		super();
+		this.outFile = outFile;
+		this.grEvents = grEvents;
+
+		/////////////////////////////
+		if(this.outFile.toFile().exists()) {
+			if(!toDeleteExistingFile) {
+				throw new IllegalArgumentException("given outFile already exists!");
+			}
+			System.out.println("outfile exists, delete it...");
+			this.outFile.toFile().delete();
+		}
+
+		this.prepare();
+		this.run();
+	}
+
+	/**
+	 * sort the given GR events in the same way as {@link GREventsWriter} and convert them into {@link SimpleGREvent}s
+	 * @param grEvents
+	 * @return
+	 */
+	static List<SimpleGREvent> toSimpleGREvents(List<GREvent> grEvents){
+		List<GREvent> sorted=new ArrayList<>(grEvents);
+		Collections.sort(
+				sorted,
+				(a,b)->{
+					if(!a.getOriginalSVLocus().getChrom().equals(b.getOriginalSVLocus().getChrom())) {
+						return a.getOriginalSVLocus().getChrom().compareTo(b.getOriginalSVLocus().getChrom());
+					}else {
+						return a.getOriginalSVLocus().getStart()-b.getOriginalSVLocus().getStart();
+					}
+				}
+				);
+
+		List<SimpleGREvent> ret=new ArrayList<>();
+		for(GREvent gr:sorted) {
+			SimpleSV sv=new SimpleSV(gr.getOriginalSVLocus().getChrom(), gr.getOriginalSVLocus().getType(),
+					gr.getOriginalSVLocus().getStart(), gr.getOriginalSVLocus().getEnd(), gr.getOriginalSVLocus().getSize());
+			Double maxBootstrap=gr.getAssignedTreePath().getMaxBoostrap();
+
+			ret.add(new SimpleGREvent(
+					sv, GREventUtils.inferGRType(gr.getOriginalSVLocus().getType(), gr.isReversalOfSV()), gr.isReversalOfSV(),
+					gr.getAncestralNodeAverageDistToLeafNodes(), gr.getDescendantNodeAverageDistToLeafNodes(),
+					gr.getBranchNumOnDescendantToAncestralTreePath(), maxBootstrap==null?Double.NaN:maxBootstrap,
+					gr.getRegionalTree().getWindowSize(), gr.getRegionalTree().getID(), gr.getRegionalTree().getStart(), gr.getRegionalTree().getEnd(),
+					gr.getAssignedTreePath().getLeafSampleNameListOfAncestorNode(), gr.getAssignedTreePath().getLeafSampleNameListOfDescendantNode()));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * build the dictionaries
+	 */
+	void prepare() {
+		this.chromIndexMap=new LinkedHashMap<>();
+		this.svTypeIndexMap=new LinkedHashMap<>();
+		this.grTypeIndexMap=new LinkedHashMap<>();
+		this.sampleIndexMap=new LinkedHashMap<>();
+
+		for(SimpleGREvent gr:this.grEvents) {
+			this.chromIndexMap.putIfAbsent(gr.getSv().getChrom(), this.chromIndexMap.size());
+			this.svTypeIndexMap.putIfAbsent(gr.getSv().getSvType().name(), this.svTypeIndexMap.size());
+			this.grTypeIndexMap.putIfAbsent(gr.getGrEventType().name(), this.grTypeIndexMap.size());
+			for(String sample:gr.getAncLeafSamples()) {
+				this.sampleIndexMap.putIfAbsent(sample, this.sampleIndexMap.size());
+			}
+			for(String sample:gr.getDescLeafSamples()) {
+				this.sampleIndexMap.putIfAbsent(sample, this.sampleIndexMap.size());
+			}
+		}
+
+		this.wordNum=(this.sampleIndexMap.size()+63)>>>6;
+	}
+
+
+	void run() {
+		try(DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.outFile.toFile())))){
+			//the length of header does not depend on the column offsets
+			long headerLength=this.buildHeader(0).length;
+
+			out.write(this.buildHeader(headerLength));
+
+			for(Column column:Column.values()) {
+				this.writeColumn(out, column);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 *
+	 * @param dataOffset offset of the first column
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] buildHeader(long dataOffset) throws IOException {
+		ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+		DataOutputStream header=new DataOutputStream(bytes);
+
+		header.writeInt(GREventsBinaryFormat.MAGIC);
+		header.writeInt(GREventsBinaryFormat.VERSION);
+		header.writeInt(this.grEvents.size());
+
+		for(Map<String, Integer> dictionary:this.getDictionaries()) {
+			header.writeInt(dictionary.size());
+			for(String entry:dictionary.keySet()) {
+				header.writeUTF(entry);
+			}
+		}
+		header.writeInt(this.wordNum);
+
+		header.writeInt(Column.values().length);
+		long offset=dataOffset;
+		for(Column column:Column.values()) {
+			long length=(long)this.grEvents.size()*column.getType().getByteWidth(this.wordNum);
+			header.writeUTF(column.getStringValue());
+			header.writeLong(offset);
+			header.writeLong(length);
+			offset+=length;
+		}
+
+		header.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @return the dictionaries of chrom, SV type, GR type and sample in the order in the header
+	 */
+	private List<Map<String, Integer>> getDictionaries(){
+		List<Map<String, Integer>> ret=new ArrayList<>();
+		ret.add(this.chromIndexMap);
+		ret.add(this.svTypeIndexMap);
+		ret.add(this.grTypeIndexMap);
+		ret.add(this.sampleIndexMap);
+		return ret;
+	}
+
+	private void writeColumn(DataOutputStream out, Column column) throws IOException {
+		for(SimpleGREvent gr:this.grEvents) {
+			switch(column) {
+			case CHROM:
+				out.writeInt(this.chromIndexMap.get(gr.getSv().getChrom()));
+				break;
+			case SV_TYPE:
+				out.writeInt(this.svTypeIndexMap.get(gr.getSv().getSvType().name()));
+				break;
+			case SV_START:
+				out.writeInt(gr.getSv().getSvStart());
+				break;
+			case SV_END:
+				out.writeInt(gr.getSv().getSvEnd());
+				break;
+			case SIZE:
+				out.writeInt(gr.getSv().getSvSize());
+				break;
+			case GR_TYPE:
+				out.writeInt(this.grTypeIndexMap.get(gr.getGrEventType().name()));
+				break;
+			case REVERSE_OF_SV:
+				out.writeByte(gr.isReverseOfSV()?1:0);
+				break;
+			case ANC_DIST:
+				out.writeDouble(gr.getAncDist());
+				break;
+			case DESC_DIST:
+				out.writeDouble(gr.getDescDist());
+				break;
+			case BRANCH_NUM:
+				out.writeInt(gr.getBranchNum());
+				break;
+			case MAX_BOOTSTRAP:
+				out.writeDouble(gr.getMaxBootstrap());
+				break;
+			case WINDOW_SIZE:
+				out.writeInt(gr.getTreeWindowSize());
+				break;
+			case TREE_ID:
+				out.writeInt(gr.getTreeID());
+				break;
+			case TREE_START:
+				out.writeInt(gr.getTreeStart());
+				break;
+			case TREE_END:
+				out.writeInt(gr.getTreeEnd());
+				break;
+			case ANC_LEAF_SAMPLES:
+				this.writeSampleBitset(out, gr.getAncLeafSamples());
+				break;
+			case DESC_LEAF_SAMPLES:
+				this.writeSampleBitset(out, gr.getDescLeafSamples());
+				break;
+			default:
+				throw new IllegalArgumentException("unrecognized column:"+column);
+			}
+		}
+	}
+
+	private void writeSampleBitset(DataOutputStream out, List<String> samples) throws IOException {
+		long[] words=new long[this.wordNum];
+		for(String sample:samples) {
+			int index=this.sampleIndexMap.get(sample);
+			words[index>>>6]|=1L<<(index&63);
+		}
+		for(long word:words) {
+			out.writeLong(word);
+		}
+	}
+}
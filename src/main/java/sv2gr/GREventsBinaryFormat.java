@@ -0,0 +1,116 @@
+package sv2gr;
+
+/**
+ * definition of the binary columnar file format of GR events written by {@link GREventsBinaryFileWriter} and read by {@link GREventsBinaryFileReader}
+ *
+ * the file contains the same fields as the tsv file written by {@link GREventsWriter}, but each field is stored as a separate column of fixed-width values,
+ * thus a column can be read without decoding any other columns;
+ *
+ * layout of the file (all numbers are big-endian as written by {@link java.io.DataOutputStream}):
+ * 		1. header
+ * 			magic number {@link #MAGIC} (int), {@link #VERSION} (int), number of GR events (int)
+ * 			dictionaries of chrom, SV type, GR type and sample names, each with the number of entries (int) followed by the entries (modified UTF-8 as by {@link java.io.DataOutputStream#writeUTF(String)})
+ * 			number of words (long) of each sample bitset (int)
+ * 			number of columns (int) followed by the name (modified UTF-8), offset (long) and byte length (long) of each column in the order of {@link Column}
+ * 		2. data of each column
+ * 			string fields (chrom, SV type and GR type) are stored as int indices of the corresponding dictionary;
+ * 			boolean field is stored as a byte of 0 or 1;
+ * 			max bootstrap is stored as {@link Double#NaN} if not available;
+ * 			sample lists are stored as bitsets over the indices of the sample dictionary, each with the same number of longs;
+ *
+ * @author tanxu
+ *
+ */
+public final class GREventsBinaryFormat {
+	/**
+	 * 'GREB'
+	 */
+	public static final int MAGIC=0x47524542;
+	/**
+	 *
+	 */
+	public static final int VERSION=1;
+
+	/**
+	 * default file name of the binary file in the output directory
+	 */
+	public static final String FILE_NAME="GR.events.bin";
+
+	private GREventsBinaryFormat() {}
+
+	/**
+	 * columns of the binary file, in the same order as the columns of the tsv file written by {@link GREventsWriter}
+	 */
+	public static enum Column{
+		CHROM ("chrom", ColumnType.DICTIONARY),
+		SV_TYPE ("SV_type", ColumnType.DICTIONARY),
+		SV_START ("SV_start", ColumnType.INT),
+		SV_END ("SV_end", ColumnType.INT),
+		SIZE ("size", ColumnType.INT),
+		GR_TYPE ("GR_type", ColumnType.DICTIONARY),
+		REVERSE_OF_SV ("reverse_of_SV", ColumnType.BOOLEAN),
+		ANC_DIST ("anc_dist", ColumnType.DOUBLE),
+		DESC_DIST ("desc_dist", ColumnType.DOUBLE),
+		BRANCH_NUM ("branch_num", ColumnType.INT),
+		MAX_BOOTSTRAP ("max_bootstrap", ColumnType.DOUBLE),
+		WINDOW_SIZE ("window_size", ColumnType.INT),
+		TREE_ID ("tree_id", ColumnType.INT),
+		TREE_START ("tree_start", ColumnType.INT),
+		TREE_END ("tree_end", ColumnType.INT),
+		ANC_LEAF_SAMPLES ("anc_leaf_samples", ColumnType.SAMPLE_BITSET),
+		DESC_LEAF_SAMPLES ("desc_leaf_samples", ColumnType.SAMPLE_BITSET);
+
+		private final String stringValue;
+		private final ColumnType type;
+
+		Column(String stringValue, ColumnType type){
+			this.stringValue=stringValue;
+			this.type=type;
+		}
+
+		/**
+		 * @return the column name, same as the header of the tsv file
+		 */
+		public String getStringValue() {
+			return stringValue;
+		}
+
+		/**
+		 * @return the type
+		 */
+		public ColumnType getType() {
+			return type;
+		}
+	}
+
+	/**
+	 * type of the values of a {@link Column}
+	 */
+	public static enum ColumnType{
+		DICTIONARY,
+		INT,
+		BOOLEAN,
+		DOUBLE,
+		SAMPLE_BITSET;
+
+		/**
+		 * @param wordNum number of words of each sample bitset
+		 * @return the number of bytes of each value of this type
+		 */
+		public int getByteWidth(int wordNum) {
+			switch(this) {
+			case DICTIONARY:
+			case INT:
+				return Integer.BYTES;
+			case BOOLEAN:
+				return 1;
+			case DOUBLE:
+				return Double.BYTES;
+			case SAMPLE_BITSET:
+				return wordNum*Long.BYTES;
+			default:
+				throw new IllegalArgumentException("unrecognized column type:"+this);
+			}
+		}
+	}
+}
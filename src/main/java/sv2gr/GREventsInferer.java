@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import basic.Pair;
 import population.popHierarchy.PopulationStructureFileReader;
@@ -42,6 +44,12 @@ public class GREventsInferer {
 	 */
 	private final boolean alwaysConsiderOutgroupSampleGenotype;
 	
+	/**
+	 * number of threads to run the GR event inference pipelines of the regional trees in parallel
+	 * if 1, all regional trees are processed one by one in the current thread
+	 */
+	private final int threadNum;
+	
 //	/**
 //	 * a value between [0,1] indicate the minimal value of branch bootstrap value
 //	 */
@@ -83,13 +91,36 @@ public class GREventsInferer {
 //			boolean onlyExtractContinuousGREventPairs
 //			, String outgroupSampleName
 			) {
+		this(regionalTrees, populationStructureFileReader, toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype, 1);
+	}
+	
+	/**
+	 * 
+	 * @param regionalTrees
+	 * @param populationStructureFileReader
+	 * @param toTreatHeterGenotypeAsPresence
+	 * @param alwaysConsiderOutgroupSampleGenotype
+	 * @param threadNum number of threads to infer GR events of the regional trees in parallel
+	 */
+	public GREventsInferer(
+			List<RegionalTree> regionalTrees, 
+			PopulationStructureFileReader populationStructureFileReader,
+			boolean toTreatHeterGenotypeAsPresence,
+			boolean alwaysConsiderOutgroupSampleGenotype,
+			int threadNum
+			) {
 		super();
+		if(threadNum<1) {
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		}
+		
 		this.regionalTrees = regionalTrees;
 		this.populationStructureFileReader=populationStructureFileReader;
 //		this.minBootstrapValue = minBootstrapValue;
 //		this.allowingPartiallyOverlappingGREventPath = allowingPartiallyOverlappingGREventPath;
 		this.toTreatHeterGenotypeAsPresence=toTreatHeterGenotypeAsPresence;
 		this.alwaysConsiderOutgroupSampleGenotype=alwaysConsiderOutgroupSampleGenotype;
+		this.threadNum=threadNum;
 //		this.onlyExtractContinuousGREventPairs=onlyExtractContinuousGREventPairs;
 //		this.outgroupSampleName = outgroupSampleName;
 		
@@ -98,9 +129,32 @@ public class GREventsInferer {
 //		this.resolveTemporalOrder();
 	}
 	
+	/**
+	 * run the GR event inference pipeline of each regional tree
+	 * 
+	 * if {@link #threadNum} is larger than 1, the regional trees are processed in parallel in a {@link ForkJoinPool} with {@link #threadNum} threads;
+	 * since the inferred GR events are stored in each {@link RegionalTree} and the order of {@link #regionalTrees} is unchanged, 
+	 * the output is the same as the sequential one
+	 */
 	void inferGREvents() {
-		for(RegionalTree tree:this.regionalTrees) {
-			tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+		if(this.threadNum==1) {
+			for(RegionalTree tree:this.regionalTrees) {
+				tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+			}
+			return;
+		}
+		
+		ForkJoinPool pool=new ForkJoinPool(this.threadNum);
+		try {
+			pool.submit(()->{
+				this.regionalTrees.parallelStream().forEach(tree->{
+					tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+				});
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("parallel GR event inference failed!", e);
+		}finally {
+			pool.shutdown();
 		}
 	}
 	
@@ -3,15 +3,19 @@ package sv2gr;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 import basic.Pair;
 import population.popHierarchy.PopulationStructureFileReader;
 import population.sv.utils.SimpleSVLocus;
 import population.sv.utils.SimpleSVType;
 import sv2gr.gr.GREvent;
+import sv2gr.gr.GREventPathIndex;
 import sv2gr.tree.DescendantToAncestralTreePath;
 import sv2gr.tree.DescendantToAncestralTreePathUtils;
 import sv2gr.tree.RegionalTree;
@@ -46,6 +50,12 @@ public class GREventsInfererAndTemporalOrderResolver {
 	 */
 	private final boolean alwaysConsiderOutgroupSampleGenotype;
 	
+	/**
+	 * number of threads to run the GR event inference pipelines of the regional trees in parallel
+	 * if 1, all regional trees are processed one by one in the current thread
+	 */
+	private final int threadNum;
+	
 	/**
 	 * a value between [0,1] indicate the minimal value of branch bootstrap value
 	 */
@@ -75,6 +85,11 @@ public class GREventsInfererAndTemporalOrderResolver {
 	 */
 	private Map<RegionalTree, List<Pair<GREvent, GREvent>>> treeTemporallyOrderedGREventPairsMap;
 	
+	/**
+	 * summary counts of the GR events and GR event pairs; lazily calculated by {@link #getSummaryStatistics()} and shared by all writers
+	 */
+	private GREventSummaryStatistics summaryStatistics;
+	
 	
 	
 	public GREventsInfererAndTemporalOrderResolver(
@@ -87,7 +102,64 @@ public class GREventsInfererAndTemporalOrderResolver {
 			boolean onlyExtractContinuousGREventPairs
 //			, String outgroupSampleName
 			) {
+		this(regionalTrees, populationStructureFileReader, minBootstrapValue, allowingPartiallyOverlappingGREventPath, 
+				toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype, onlyExtractContinuousGREventPairs, 1);
+	}
+	
+	/**
+	 * 
+	 * @param regionalTrees
+	 * @param populationStructureFileReader
+	 * @param minBootstrapValue
+	 * @param allowingPartiallyOverlappingGREventPath
+	 * @param toTreatHeterGenotypeAsPresence
+	 * @param alwaysConsiderOutgroupSampleGenotype
+	 * @param onlyExtractContinuousGREventPairs
+	 * @param threadNum number of threads to infer GR events of the regional trees in parallel
+	 */
+	public GREventsInfererAndTemporalOrderResolver(
+			List<RegionalTree> regionalTrees, 
+			PopulationStructureFileReader populationStructureFileReader,
+			double minBootstrapValue,
+			boolean allowingPartiallyOverlappingGREventPath,
+			boolean toTreatHeterGenotypeAsPresence,
+			boolean alwaysConsiderOutgroupSampleGenotype,
+			boolean onlyExtractContinuousGREventPairs,
+			int threadNum
+			) {
+		this(regionalTrees, populationStructureFileReader, minBootstrapValue, allowingPartiallyOverlappingGREventPath, 
+				toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype, onlyExtractContinuousGREventPairs, threadNum, true);
+	}
+	
+	/**
+	 * 
+	 * @param regionalTrees
+	 * @param populationStructureFileReader
+	 * @param minBootstrapValue
+	 * @param allowingPartiallyOverlappingGREventPath
+	 * @param toTreatHeterGenotypeAsPresence
+	 * @param alwaysConsiderOutgroupSampleGenotype
+	 * @param onlyExtractContinuousGREventPairs
+	 * @param threadNum number of threads to infer GR events of the regional trees in parallel
+	 * @param toInferGREvents if false, the GR events of the given regional trees must be inferred already (for example shared by multiple settings in {@link SV2GRParameterSweep}) and only the temporal order is resolved;
+	 * 			the given regional trees are not modified in this case, thus multiple {@link GREventsInfererAndTemporalOrderResolver}s can be built on the same regional trees in parallel
+	 */
+	public GREventsInfererAndTemporalOrderResolver(
+			List<RegionalTree> regionalTrees, 
+			PopulationStructureFileReader populationStructureFileReader,
+			double minBootstrapValue,
+			boolean allowingPartiallyOverlappingGREventPath,
+			boolean toTreatHeterGenotypeAsPresence,
+			boolean alwaysConsiderOutgroupSampleGenotype,
+			boolean onlyExtractContinuousGREventPairs,
+			int threadNum,
+			boolean toInferGREvents
+			) {
 		super();
+		if(threadNum<1) {
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		}
+		
 		this.regionalTrees = regionalTrees;
 		this.populationStructureFileReader=populationStructureFileReader;
 		this.minBootstrapValue = minBootstrapValue;
@@ -95,17 +167,44 @@ public class GREventsInfererAndTemporalOrderResolver {
 		this.toTreatHeterGenotypeAsPresence=toTreatHeterGenotypeAsPresence;
 		this.alwaysConsiderOutgroupSampleGenotype=alwaysConsiderOutgroupSampleGenotype;
 		this.onlyExtractContinuousGREventPairs=onlyExtractContinuousGREventPairs;
+		this.threadNum=threadNum;
 //		this.outgroupSampleName = outgroupSampleName;
 		
 		
 		//////////////////////////////
-		this.inferGREvents();
-		this.resolveTemporalOrder();
+		if(toInferGREvents) {
+			this.inferGREvents();
+		}
+//		this.resolveTemporalOrder();
+		this.resolveTemporalOrder2();
 	}
 
+	/**
+	 * run the GR event inference pipeline of each regional tree
+	 * 
+	 * if {@link #threadNum} is larger than 1, the regional trees are processed in parallel in a {@link ForkJoinPool} with {@link #threadNum} threads;
+	 * since the inferred GR events are stored in each {@link RegionalTree} and the order of {@link #regionalTrees} is unchanged, 
+	 * the output is the same as the sequential one
+	 */
 	void inferGREvents() {
-		for(RegionalTree tree:this.regionalTrees) {
-			tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+		if(this.threadNum==1) {
+			for(RegionalTree tree:this.regionalTrees) {
+				tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+			}
+			return;
+		}
+		
+		ForkJoinPool pool=new ForkJoinPool(this.threadNum);
+		try {
+			pool.submit(()->{
+				this.regionalTrees.parallelStream().forEach(tree->{
+					tree.runPipelineToInferAllGREvents(this.populationStructureFileReader, this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype);
+				});
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("parallel GR event inference failed!", e);
+		}finally {
+			pool.shutdown();
 		}
 	}
 	
@@ -132,7 +231,7 @@ public class GREventsInfererAndTemporalOrderResolver {
 	 * 
 	 */
 	void resolveTemporalOrder() {
-		this.treeTemporallyOrderedGREventPairsMap=new HashMap<>();
+		this.treeTemporallyOrderedGREventPairsMap=new LinkedHashMap<>();//keep the order of regional trees so that output is deterministic
 		
 		for(RegionalTree tree:this.regionalTrees) {
 			for(SimpleSVLocus sv1:tree.getSvLocusGREventMap().keySet()) {
@@ -243,6 +342,101 @@ public class GREventsInfererAndTemporalOrderResolver {
 		}
 	}
 
+	/**
+	 * same as {@link #resolveTemporalOrder()} with the same output GR event pairs in the same order, 
+	 * but only the GR event pairs on the same leaf-root path are checked with a {@link GREventPathIndex} of each regional tree
+	 * 
+	 * 1. for each GR event g1, the candidate g2 are retrieved from the index in the same order as in {@link #resolveTemporalOrder()}, thus condition 1 is always met;
+	 * 		and since the descendant nodes of g1 and g2 are different, condition 2 is also always met;
+	 * 2. condition 3, the continuity check and the temporal order are calculated with the depths of the boundary nodes of g1 and g2's tree paths;
+	 * 3. condition 4, 5 and 6 only depend on a single GR event, thus are checked once for each GR event;
+	 * 4. duplicate pairs are found with a hash set rather than the list of pairs;
+	 */
+	void resolveTemporalOrder2() {
+		this.treeTemporallyOrderedGREventPairsMap=new LinkedHashMap<>();//keep the order of regional trees so that output is deterministic
+		
+		for(RegionalTree tree:this.regionalTrees) {
+			List<GREvent> grEvents=new ArrayList<>(tree.getSvLocusGREventMap().values());
+			GREventPathIndex index=new GREventPathIndex(tree.getTree(), grEvents);
+			
+			//whether each GR event meets condition 4, 5 and 6; only calculated when needed
+			Boolean[] validGREvents=new Boolean[grEvents.size()];
+			Set<Pair<GREvent, GREvent>> addedPairs=new HashSet<>();
+			
+			for(int i=0;i<grEvents.size();i++) {
+				GREvent gr1=grEvents.get(i);
+				
+				for(int j:index.getIndicesOfGREventsOnSameLeafRootPath(i)) {
+					GREvent gr2=grEvents.get(j);
+					
+					if(!this.allowingPartiallyOverlappingGREventPath && index.getSharedBranchNum(i, j)>0) {
+						//violate condition 3, skip
+						continue;
+					}
+					
+					if(!this.isValidGREvent(tree, grEvents, validGREvents, i) || !this.isValidGREvent(tree, grEvents, validGREvents, j)) {
+						//violate condition 4, 5 or 6, skip
+						continue;
+					}
+					
+					if(this.onlyExtractContinuousGREventPairs && index.hasOtherGREventFullyInsideCoveringTreePath(i, j)) {
+						continue;
+					}
+					
+					/////////////////////////
+					Pair<GREvent, GREvent> pair;
+					if(index.getDepth(gr2.getAssignedTreePath().getAncestralNode())<index.getDepth(gr1.getAssignedTreePath().getAncestralNode())) {
+						//gr1's tree path is at the downstream (descendant) of gr2
+						//gr2 occurred before gr1
+						pair=new Pair<>(gr2, gr1);
+					}else {
+						//gr2's tree path is at the downstream (descendant) of gr1
+						//gr1 occurred before gr2
+						pair=new Pair<>(gr1, gr2);
+					}
+					
+					if(addedPairs.add(pair)) {
+						if(!this.treeTemporallyOrderedGREventPairsMap.containsKey(tree))
+							this.treeTemporallyOrderedGREventPairsMap.put(tree, new ArrayList<>());
+						
+						this.treeTemporallyOrderedGREventPairsMap.get(tree).add(pair);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * check whether the GR event with the given index meets condition 4, 5 and 6 of {@link #resolveTemporalOrder()} and cache the result
+	 * 
+	 * @param tree
+	 * @param grEvents
+	 * @param validGREvents
+	 * @param index
+	 * @return
+	 */
+	private boolean isValidGREvent(RegionalTree tree, List<GREvent> grEvents, Boolean[] validGREvents, int index) {
+		if(validGREvents[index]==null) {
+			DescendantToAncestralTreePath path=grEvents.get(index).getAssignedTreePath();
+			
+			if(DescendantToAncestralTreePathUtils.sameTreePath(path, tree.getTree().getPathFromIngroupRootNodeToRootNode())
+					||DescendantToAncestralTreePathUtils.sameTreePath(path, tree.getTree().getPathFromOutgroupLeafNodeToRootNode())) {
+				//violate condition 4 or 5
+				validGREvents[index]=false;
+			}else {
+				boolean branchWithValidBootstrapFound=false;
+				for(int i=0;i<path.getNodesFromDescendantToAncestor().size()-1;i++) {
+					if(path.getNodesFromDescendantToAncestor().get(i).getBootstrap()>=this.minBootstrapValue) {
+						branchWithValidBootstrapFound=true;
+					}
+				}
+				validGREvents[index]=branchWithValidBootstrapFound;
+			}
+		}
+		
+		return validGREvents[index];
+	}
+
 	/**
 	 * @return the treeTemporallyOrderedGREventPairsMap
 	 */
@@ -258,11 +452,31 @@ public class GREventsInfererAndTemporalOrderResolver {
 	}
 	
 	
+	/**
+	 * return the {@link GREventSummaryStatistics} of all regional trees, which is calculated at the first invocation in a single pass with {@link #threadNum} threads
+	 * 
+	 * @return
+	 */
+	public synchronized GREventSummaryStatistics getSummaryStatistics() {
+		if(this.summaryStatistics==null) {
+			this.summaryStatistics=GREventSummaryStatistics.calculate(this, this.threadNum);
+		}
+		return this.summaryStatistics;
+	}
+	
 	/**
 	 * 
 	 * @return 
 	 */
 	public Map<SimpleSVType, Pair<Integer,Integer>> getSVTypeNumWithInferedGREventMap(){
+		return this.getSummaryStatistics().getSVTypeNumWithInferedGREventMap();
+	}
+	
+	/**
+	 * previous version of {@link #getSVTypeNumWithInferedGREventMap()} with nested map updates over all regional trees
+	 * @return 
+	 */
+	Map<SimpleSVType, Pair<Integer,Integer>> getSVTypeNumWithInferedGREventMapByTreeTraversal(){
 		Map<SimpleSVType, Integer> svTypeReversedGREventNumMap = new HashMap<>();
 		Map<SimpleSVType, Integer> svTypeNonReversedGREventNumMap = new HashMap<>();
 		Set<SimpleSVType> includedTypes=new HashSet<>();
@@ -68,7 +68,7 @@ public class GREventsTsvFileReader {
 //				.append("branch_num").append("\t")//number of branches on the path where the GR event occured
 				int branchNum=Integer.parseInt(splits[9]);
 //				.append("max_bootstrap").append("\t")//max bootstrap value of branch on the path where the GR event occured
-				double maxBootstrap=Double.parseDouble(splits[10]);
+				double maxBootstrap=splits[10].equals("N/A")?Double.NaN:Double.parseDouble(splits[10]); //N/A if no bootstrap value on the path
 //				//regional tree related
 //				.append("window_size").append("\t")//window size of the regional tree on which the GR event was inferred
 				int treeWindowSize=Integer.parseInt(splits[11]);
@@ -0,0 +1,47 @@
+package sv2gr;
+
+import java.nio.file.Path;
+
+/**
+ * convert a GR events tsv file written by {@link GREventsWriter} into a binary columnar file in {@link GREventsBinaryFormat}
+ *
+ * the GR events are written in the same order as in the tsv file
+ *
+ * @author tanxu
+ *
+ */
+public class GREventsTsvToBinaryConverter {
+	private final Path grEventsTsvFile;
+	private final Path outBinaryFile;
+
+	/**
+	 *
+	 * @param grEventsTsvFile
+	 * @param outBinaryFile deleted first if exists
+	 */
+	public GREventsTsvToBinaryConverter(Path grEventsTsvFile, Path outBinaryFile) {
+		super();
+		this.grEventsTsvFile = grEventsTsvFile;
+		this.outBinaryFile = outBinaryFile;
+
+		//////////////////////
+		this.run();
+	}
+
+	void run() {
+		GREventsTsvFileReader reader=new GREventsTsvFileReader(this.grEventsTsvFile);
+
+		new GREventsBinaryFileWriter(this.outBinaryFile, reader.getGrEvents(), true);
+	}
+
+	/**
+	 *
+	 * @param args GR events tsv file, output binary file (by default {@link GREventsBinaryFormat#FILE_NAME} in the same directory as the tsv file)
+	 */
+	public static void main(String[] args) {
+		Path tsvFile=Path.of(args[0]);
+		Path binaryFile=args.length>1?Path.of(args[1]):tsvFile.toAbsolutePath().resolveSibling(GREventsBinaryFormat.FILE_NAME);
+
+		new GREventsTsvToBinaryConverter(tsvFile, binaryFile);
+	}
+}
@@ -0,0 +1,163 @@
+package sv2gr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sv2gr.tree.RegionalTree;
+
+/**
+ * per-chromosome index of {@link RegionalTree}s to query all trees overlapping with a given genomic region
+ *
+ * for each chromosome, the trees are kept in a sorted-start array together with the running maximal end of all trees up to each position;
+ *
+ * 1. the first tree that can overlap with the query region is the first one whose running maximal end is no less than the query start
+ * 2. the last tree that can overlap with the query region is the last one whose start is no larger than the query end
+ *
+ * both boundaries are found by binary search, thus only the trees between them are checked, rather than all trees to the left of the query region;
+ *
+ * note that trees with different sizes and overlapping trees are both supported
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreeIntervalIndex {
+	/**
+	 * map from chrom to the list of {@link RegionalTree}s on the chrom sorted by start position
+	 */
+	private final Map<String, List<RegionalTree>> chromSortedRegionalTreesMap;
+
+	////////////////////////////////
+	/**
+	 * map from chrom to the start positions of the sorted regional trees
+	 */
+	private Map<String, int[]> chromSortedStartsMap;
+
+	/**
+	 * map from chrom to the end positions of the sorted regional trees
+	 */
+	private Map<String, int[]> chromSortedEndsMap;
+
+	/**
+	 * map from chrom to the array whose i-th element is the maximal end position of the first i+1 sorted regional trees
+	 * this array is non-decreasing thus can be binary searched
+	 */
+	private Map<String, int[]> chromRunningMaxEndsMap;
+
+	/**
+	 *
+	 * @param chromSortedRegionalTreesMap map from chrom to the list of {@link RegionalTree}s on the chrom that must be sorted by start position
+	 */
+	public RegionalTreeIntervalIndex(Map<String, List<RegionalTree>> chromSortedRegionalTreesMap) {
+		super();
+		this.chromSortedRegionalTreesMap = chromSortedRegionalTreesMap;
+
+		////////////////////
+		this.build();
+	}
+
+
+	void build() {
+		this.chromSortedStartsMap=new HashMap<>();
+		this.chromSortedEndsMap=new HashMap<>();
+		this.chromRunningMaxEndsMap=new HashMap<>();
+
+		for(String chrom:this.chromSortedRegionalTreesMap.keySet()) {
+			List<RegionalTree> trees=this.chromSortedRegionalTreesMap.get(chrom);
+
+			int[] starts=new int[trees.size()];
+			int[] ends=new int[trees.size()];
+			int[] runningMaxEnds=new int[trees.size()];
+
+			for(int i=0;i<trees.size();i++) {
+				RegionalTree tree=trees.get(i);
+				if(i>0 && tree.getStart()<starts[i-1]) {
+					throw new IllegalArgumentException("regional trees on chrom "+chrom+" are not sorted by start position!");
+				}
+				starts[i]=tree.getStart();
+				ends[i]=tree.getEnd();
+				runningMaxEnds[i]=i==0?tree.getEnd():Math.max(runningMaxEnds[i-1], tree.getEnd());
+			}
+
+			this.chromSortedStartsMap.put(chrom, starts);
+			this.chromSortedEndsMap.put(chrom, ends);
+			this.chromRunningMaxEndsMap.put(chrom, runningMaxEnds);
+		}
+	}
+
+
+	/**
+	 * return the list of all {@link RegionalTree}s on the given chrom overlapping with the given region (both ends inclusive)
+	 *
+	 * the returned trees are in the same order as in the sorted list of the chrom
+	 *
+	 * @param chrom
+	 * @param start
+	 * @param end
+	 * @return an empty list if there is no regional tree on the chrom or none of them overlapping with the region
+	 */
+	public List<RegionalTree> getOverlappingRegionalTrees(String chrom, int start, int end){
+		if(!this.chromSortedRegionalTreesMap.containsKey(chrom)) {
+			return Collections.emptyList();
+		}
+
+		List<RegionalTree> trees=this.chromSortedRegionalTreesMap.get(chrom);
+		int[] ends=this.chromSortedEndsMap.get(chrom);
+
+		int firstIndex=this.getFirstIndexWithRunningMaxEndNoLessThan(this.chromRunningMaxEndsMap.get(chrom), start);
+		int lastIndexExclusive=this.getFirstIndexWithStartLargerThan(this.chromSortedStartsMap.get(chrom), end);
+
+		List<RegionalTree> ret=new ArrayList<>();
+		for(int i=firstIndex;i<lastIndexExclusive;i++) {
+			if(ends[i]>=start) {//start of the tree is already known to be no larger than the end of the region
+				ret.add(trees.get(i));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * binary search the first index of the given non-decreasing array whose value is no less than the given position
+	 *
+	 * @param runningMaxEnds
+	 * @param pos
+	 * @return the length of the array if no such index exists
+	 */
+	private int getFirstIndexWithRunningMaxEndNoLessThan(int[] runningMaxEnds, int pos) {
+		int low=0;
+		int high=runningMaxEnds.length;
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(runningMaxEnds[mid]<pos) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * binary search the first index of the given sorted start array whose value is larger than the given position
+	 *
+	 * @param starts
+	 * @param pos
+	 * @return the length of the array if no such index exists
+	 */
+	private int getFirstIndexWithStartLargerThan(int[] starts, int pos) {
+		int low=0;
+		int high=starts.length;
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(starts[mid]<=pos) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,70 @@
+package sv2gr;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import phylo.tree.reader.NewickFileFormatType;
+import sv2gr.tree.RegionalTree;
+import sv2gr.tree.RegionalTreesBinaryFileReader;
+import sv2gr.tree.RegionalTreesBinaryFormat;
+
+/**
+ * convert a binary file in {@link RegionalTreesBinaryFormat} back to a batch regional tree file that can be read by {@link BatchRegionalTreeReader}
+ *
+ * each line contains the tree ID, the region as chrom:start-end and the full newick tree string in {@link NewickFileFormatType#SIMPLE_NEWICK_2},
+ * in the order of the rows of the binary file (sorted by chrom and start position);
+ *
+ * note that branch lengths and bootstraps are stored as float in the binary file, thus may have less significant digits than the original text file
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreesBinaryToTextConverter {
+	private final Path binaryFile;
+	private final Path outTextFile;
+
+	/**
+	 *
+	 * @param binaryFile
+	 * @param outTextFile deleted first if exists
+	 */
+	public RegionalTreesBinaryToTextConverter(Path binaryFile, Path outTextFile) {
+		super();
+		this.binaryFile = binaryFile;
+		this.outTextFile = outTextFile;
+
+		//////////////////////
+		if(this.outTextFile.toFile().exists()) {
+			System.out.println("outfile exists, delete it...");
+			this.outTextFile.toFile().delete();
+		}
+
+		this.run();
+	}
+
+	void run() {
+		try(RegionalTreesBinaryFileReader reader=new RegionalTreesBinaryFileReader(this.binaryFile);
+				BufferedWriter writer=new BufferedWriter(new FileWriter(this.outTextFile.toFile()))){
+			for(int row=0;row<reader.getTreeNum();row++) {
+				RegionalTree regionalTree=reader.readRegionalTree(row);
+				writer.append(Integer.toString(regionalTree.getID())).append("\t")
+					.append(regionalTree.getChrom()).append(":").append(Integer.toString(regionalTree.getStart())).append("-").append(Integer.toString(regionalTree.getEnd())).append("\t")
+					.append(regionalTree.getTree().toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2));
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 *
+	 * @param args binary regional trees file, output batch regional tree file
+	 */
+	public static void main(String[] args) {
+		new RegionalTreesBinaryToTextConverter(Path.of(args[0]), Path.of(args[1]));
+	}
+}
@@ -0,0 +1,56 @@
+package sv2gr;
+
+import java.nio.file.Path;
+
+import sv2gr.tree.CompactRegionalTreeStore;
+import sv2gr.tree.RegionalTreesBinaryFileWriter;
+import sv2gr.tree.RegionalTreesBinaryFormat;
+
+/**
+ * convert a batch regional tree file (as written by {@link phylo.batch.BatchRegionalTreeManager} and read by {@link BatchRegionalTreeReader})
+ * into a binary file in {@link RegionalTreesBinaryFormat}
+ *
+ * the trees are parsed one at a time and can be in any order in the text file, since they are sorted by chrom and start position by {@link RegionalTreesBinaryFileWriter}
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreesTextToBinaryConverter {
+	private final Path batchRegionalTreeFile;
+	private final int windowSize;
+	private final Path outBinaryFile;
+
+	/**
+	 *
+	 * @param batchRegionalTreeFile
+	 * @param windowSize
+	 * @param outBinaryFile deleted first if exists
+	 */
+	public RegionalTreesTextToBinaryConverter(Path batchRegionalTreeFile, int windowSize, Path outBinaryFile) {
+		super();
+		this.batchRegionalTreeFile = batchRegionalTreeFile;
+		this.windowSize = windowSize;
+		this.outBinaryFile = outBinaryFile;
+
+		//////////////////////
+		this.run();
+	}
+
+	void run() {
+		CompactRegionalTreeStore store=CompactRegionalTreeStore.fromBatchRegionalTreeFile(this.batchRegionalTreeFile, this.windowSize);
+
+		new RegionalTreesBinaryFileWriter(this.outBinaryFile, store, true);
+	}
+
+	/**
+	 *
+	 * @param args batch regional tree file, window size, output binary file (by default {@link RegionalTreesBinaryFormat#FILE_NAME} in the same directory as the tree file)
+	 */
+	public static void main(String[] args) {
+		Path treeFile=Path.of(args[0]);
+		int windowSize=Integer.parseInt(args[1]);
+		Path binaryFile=args.length>2?Path.of(args[2]):treeFile.toAbsolutePath().resolveSibling(RegionalTreesBinaryFormat.FILE_NAME);
+
+		new RegionalTreesTextToBinaryConverter(treeFile, windowSize, binaryFile);
+	}
+}
@@ -0,0 +1,63 @@
+package sv2gr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import phylo.tree.reader.NewickFileFormatType;
+import sv2gr.tree.RegionalTreesBinaryFileReader;
+
+public class RegionalTreesTextToBinaryConverterTest {
+
+	public static void main(String[] args) throws IOException {
+		//trees in the order of job completion rather than by chrom and start, as written by BatchRegionalTreeManager
+		List<String> lines=Arrays.asList(
+				"3	Chr01:2001-3000	((a:0.1,b:0.2)0.9:0.05,c:0.3,d:0.4);",
+				"5	Chr02:1-1000	(a:0.1,(b:0.2,c:0.3)1.0:0.01,d:0.4);",
+				"1	Chr01:1-1000	(a:0.1,b:0.2,(c:0.3,d:0.4)0.5:0.02);",
+				"6	Chr02:1001-2000	((a:0.1,d:0.2)0.7:0.05,c:0.3,b:0.4);",
+				"2	Chr01:1001-2000	(a:0.1,c:0.2,(b:0.3,d:0.4)0.8:0.03);"
+				);
+		//expected IDs in the order of rows in the binary file
+		int[] expectedIDs= {1, 2, 3, 5, 6};
+
+		Path dir=Files.createTempDirectory("text2binary");
+		Path treeFile=dir.resolve("trees.txt");
+		Path binaryFile=dir.resolve("trees.bin");
+		Files.write(treeFile, lines);
+
+		new RegionalTreesTextToBinaryConverter(treeFile, 1000, binaryFile);
+
+		try(RegionalTreesBinaryFileReader reader=new RegionalTreesBinaryFileReader(binaryFile)){
+			if(reader.getTreeNum()!=lines.size())
+				throw new IllegalStateException("tree number is "+reader.getTreeNum()+" but expected "+lines.size());
+
+			int lastStart=0;
+			for(int row=0;row<reader.getTreeNum();row++) {
+				if(reader.getID(row)!=expectedIDs[row])
+					throw new IllegalStateException("ID of row "+row+" is "+reader.getID(row)+" but expected "+expectedIDs[row]);
+				if(row>0 && reader.getChrom(row).equals(reader.getChrom(row-1)) && reader.getStart(row)<lastStart)
+					throw new IllegalStateException("trees are not sorted by start at row "+row);
+				lastStart=reader.getStart(row);
+
+				for(String line:lines) {
+					if(line.startsWith(reader.getID(row)+"\t")) {
+						String expected=BatchRegionalTreeReader.parseRegionalTree(line, 1000).getTree().toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2);
+						String actual=reader.readTree(row).toFullNewickString(NewickFileFormatType.SIMPLE_NEWICK_2);
+						if(!expected.equals(actual))
+							throw new IllegalStateException("tree of ID "+reader.getID(row)+" is "+actual+" but expected "+expected);
+					}
+				}
+				System.out.println(reader.getID(row)+"\t"+reader.getChrom(row)+":"+reader.getStart(row)+"-"+reader.getEnd(row));
+			}
+		}
+
+		Files.delete(treeFile);
+		Files.delete(binaryFile);
+		Files.delete(dir);
+
+		System.out.println("all checks passed");
+	}
+}
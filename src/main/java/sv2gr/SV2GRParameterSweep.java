@@ -0,0 +1,636 @@
+package sv2gr;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import basic.Pair;
+import population.popHierarchy.PopulationStructureFileReader;
+import population.sv.utils.SimpleSVLocus;
+import population.utils.Genotype;
+import sv2gr.gr.GREvent;
+import sv2gr.tree.RegionalTree;
+import sv2gr.tree.TreeNode;
+
+/**
+ * run {@link SvToRegionalTreeAssigner} and {@link GREventsInfererAndTemporalOrderResolver} for a grid of {@link ParameterSetting}s on the same regional trees and SVs
+ *
+ * the regional trees and SVs are parsed and indexed only once:
+ * 		1. the sample indices of the leaf nodes and the {@link sv2gr.tree.TreeAncestorIndex} of each {@link sv2gr.tree.Tree} are built once and shared by all settings;
+ * 		2. since {@link RegionalTree#recodeSampleGenotypes(boolean)} modifies the genotypes of the SVs in place,
+ * 			an immutable snapshot of the original genotypes of each SV is taken, from which an immutable recoded snapshot is built for each value of toTreatHeterGenotypeAsPresence;
+ * 			thus the original SVs are never modified and the SVs of different settings never interfere with each other;
+ * 		3. the SV assignment only depends on the minCoveredPropertion, thus is done once for each distinct value;
+ * 		4. the GR event inference only depends on the minCoveredPropertion, toTreatHeterGenotypeAsPresence and alwaysConsiderOutgroupSampleGenotype,
+ * 			thus is done once for each distinct combination of them on copies of the regional trees (see {@link RegionalTree#copyWithoutCoveredSVs()}) sharing the same {@link sv2gr.tree.Tree};
+ * 		5. the temporal order of GR events is resolved for each setting on the regional trees of step 4;
+ * the tasks of step 3, 4 and 5 are each run in parallel with {@link #threadNum} threads;
+ *
+ * each setting gets its own {@link GREventsInfererAndTemporalOrderResolver}, which can be written by {@link SV2GRResultWriter}, and a {@link ParameterSettingSummary};
+ * the results of each setting are the same as running {@link SvToRegionalTreeAssigner} and {@link GREventsInfererAndTemporalOrderResolver} with the setting on freshly parsed regional trees and SVs
+ *
+ * note that the given regional trees are only used as templates and no SV will be assigned to them
+ *
+ * @author tanxu
+ *
+ */
+public class SV2GRParameterSweep {
+	/**
+	 * regional trees without assigned SVs
+	 */
+	private final List<RegionalTree> regionalTrees;
+	/**
+	 * all SVs; not modified
+	 */
+	private final List<SimpleSVLocus> allSVLocusList;
+	/**
+	 *
+	 */
+	private final PopulationStructureFileReader populationStructureFileReader;
+	/**
+	 * see {@link SvToRegionalTreeAssigner}
+	 */
+	private final List<Integer> ingroupSampleIndices;
+	private final boolean toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype;
+	/**
+	 * see {@link GREventsInfererAndTemporalOrderResolver}
+	 */
+	private final boolean onlyExtractContinuousGREventPairs;
+	/**
+	 *
+	 */
+	private final List<ParameterSetting> parameterSettings;
+	/**
+	 * number of threads to run the tasks of different settings in parallel
+	 */
+	private final int threadNum;
+
+	//////////////////////////////
+	/**
+	 * snapshots of {@link #allSVLocusList} with immutable copies of the original genotypes
+	 */
+	private List<SimpleSVLocus> svSnapshotList;
+	/**
+	 * map from the value of toTreatHeterGenotypeAsPresence to the snapshots of {@link #allSVLocusList} with immutable recoded genotypes
+	 */
+	private Map<Boolean, List<SimpleSVLocus>> heterGenotypeAsPresenceRecodedSVSnapshotListMap;
+	/**
+	 * map from the minCoveredPropertion to the indices of the SVs (in {@link #allSVLocusList}) assigned to each regional tree in the order of {@link #regionalTrees}
+	 */
+	private Map<Double, List<List<Integer>>> minCoveredPropertionAssignedSVIndicesMap;
+	/**
+	 * map from the parameters of GR event inference (minCoveredPropertion, toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype) to the regional trees with inferred GR events
+	 */
+	private Map<List<Object>, List<RegionalTree>> inferenceParametersRegionalTreesMap;
+
+	/**
+	 * results of each setting in the order of {@link #parameterSettings}
+	 */
+	private Map<ParameterSetting, GREventsInfererAndTemporalOrderResolver> settingResolverMap;
+	private Map<ParameterSetting, ParameterSettingSummary> settingSummaryMap;
+
+
+	/**
+	 *
+	 * @param regionalTrees
+	 * @param allSVLocusList
+	 * @param populationStructureFileReader
+	 * @param ingroupSampleIndices
+	 * @param toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype
+	 * @param onlyExtractContinuousGREventPairs
+	 * @param parameterSettings see {@link #buildParameterGrid(List, List, List, List, List)}
+	 * @param threadNum
+	 */
+	public SV2GRParameterSweep(
+			List<RegionalTree> regionalTrees,
+			List<SimpleSVLocus> allSVLocusList,
+			PopulationStructureFileReader populationStructureFileReader,
+			List<Integer> ingroupSampleIndices,
+			boolean toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype,
+			boolean onlyExtractContinuousGREventPairs,
+			List<ParameterSetting> parameterSettings,
+			int threadNum
+			) {
+		super();
+		if(threadNum<1) {
+			throw new IllegalArgumentException("given threadNum must be positive!");
+		}
+		if(parameterSettings.isEmpty()) {
+			throw new IllegalArgumentException("given parameterSettings is empty!");
+		}
+
+		this.regionalTrees = regionalTrees;
+		this.allSVLocusList = allSVLocusList;
+		this.populationStructureFileReader = populationStructureFileReader;
+		this.ingroupSampleIndices = ingroupSampleIndices;
+		this.toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype = toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype;
+		this.onlyExtractContinuousGREventPairs = onlyExtractContinuousGREventPairs;
+		this.parameterSettings = new ArrayList<>(new LinkedHashSet<>(parameterSettings));
+		this.threadNum = threadNum;
+
+		//////////////////////////////
+		this.prepareRegionalTrees();
+		this.takeGenotypeSnapshots();
+		this.assignSVs();
+		this.inferGREvents();
+		this.resolveTemporalOrders();
+	}
+
+	/**
+	 * assign the sample indices to the leaf nodes and build the lazily calculated data of the shared trees that are read by the following steps in parallel
+	 */
+	void prepareRegionalTrees() {
+		for(RegionalTree tree:this.regionalTrees) {
+			tree.assignSampleIndexToLeafNodes(this.populationStructureFileReader.getSampleNameIndexMap());
+			tree.getTree().getAncestorIndex();
+			tree.getTree().getCladeLeafBitsetTable();
+
+			for(TreeNode node:tree.getTree().getNodeTable().getPreOrderNodes()) {
+				node.getAllDescendantLeafNodes();
+				node.getAllAncestralNodes();
+			}
+		}
+	}
+
+	/**
+	 *
+	 */
+	void takeGenotypeSnapshots() {
+		this.svSnapshotList=new ArrayList<>();
+		for(SimpleSVLocus sv:this.allSVLocusList) {
+			this.svSnapshotList.add(this.copySVLocus(sv, new HashMap<>(sv.getSampleIndexGenotypeMap())));
+		}
+
+		this.heterGenotypeAsPresenceRecodedSVSnapshotListMap=new HashMap<>();
+		for(ParameterSetting setting:this.parameterSettings) {
+			boolean toTreatHeterGenotypeAsPresence=setting.isToTreatHeterGenotypeAsPresence();
+			if(this.heterGenotypeAsPresenceRecodedSVSnapshotListMap.containsKey(toTreatHeterGenotypeAsPresence)) {
+				continue;
+			}
+
+			List<SimpleSVLocus> recodedSVSnapshotList=new ArrayList<>();
+			for(SimpleSVLocus sv:this.svSnapshotList) {
+				Map<Integer, Genotype> recodedGenotypeMap=new HashMap<>();
+				for(int sampleIndex:sv.getSampleIndexGenotypeMap().keySet()) {
+					Genotype gt=sv.getSampleIndexGenotypeMap().get(sampleIndex);
+					if(gt.equals(Genotype.HETER)) {//same as RegionalTree#recodeSampleGenotypes(boolean)
+						gt=toTreatHeterGenotypeAsPresence?Genotype.PRESENCE:Genotype.MISSING;
+					}
+					recodedGenotypeMap.put(sampleIndex, gt);
+				}
+				recodedSVSnapshotList.add(this.copySVLocus(sv, recodedGenotypeMap));
+			}
+
+			this.heterGenotypeAsPresenceRecodedSVSnapshotListMap.put(toTreatHeterGenotypeAsPresence, recodedSVSnapshotList);
+		}
+	}
+
+	private SimpleSVLocus copySVLocus(SimpleSVLocus sv, Map<Integer, Genotype> sampleIndexGenotypeMap) {
+		SimpleSVLocus ret=new SimpleSVLocus(sv.getType(), sv.getChrom(), sv.getStart(), sv.getEnd(), Collections.unmodifiableMap(sampleIndexGenotypeMap));
+		ret.setVariantContext(sv.getVariantContext());
+		return ret;
+	}
+
+	/**
+	 * assign the SV snapshots with original genotypes to copies of the regional trees for each distinct minCoveredPropertion
+	 */
+	void assignSVs() {
+		Map<SimpleSVLocus, Integer> svSnapshotIndexMap=new IdentityHashMap<>();
+		for(int i=0;i<this.svSnapshotList.size();i++) {
+			svSnapshotIndexMap.put(this.svSnapshotList.get(i), i);
+		}
+
+		Set<Double> minCoveredPropertions=new LinkedHashSet<>();
+		for(ParameterSetting setting:this.parameterSettings) {
+			minCoveredPropertions.add(setting.getMinCoveredPropertion());
+		}
+
+		Map<Double, List<List<Integer>>> assignedSVIndicesMap=new ConcurrentHashMap<>();
+		this.runInParallel(minCoveredPropertions, minCoveredPropertion->{
+			List<RegionalTree> copies=this.copyRegionalTrees();
+
+			new SvToRegionalTreeAssigner(copies, this.svSnapshotList, this.ingroupSampleIndices, minCoveredPropertion, this.toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype);
+
+			List<List<Integer>> assignedSVIndices=new ArrayList<>();
+			for(RegionalTree copy:copies) {
+				List<Integer> indices=new ArrayList<>();
+				for(SimpleSVLocus sv:copy.getCoveredSVLocusList()) {
+					indices.add(svSnapshotIndexMap.get(sv));
+				}
+				assignedSVIndices.add(indices);
+			}
+			assignedSVIndicesMap.put(minCoveredPropertion, assignedSVIndices);
+		});
+
+		this.minCoveredPropertionAssignedSVIndicesMap=assignedSVIndicesMap;
+	}
+
+	/**
+	 * infer GR events for each distinct combination of the parameters of GR event inference
+	 * on copies of the regional trees with the recoded SV snapshots assigned in the same order as in {@link #assignSVs()}
+	 */
+	void inferGREvents() {
+		Set<List<Object>> inferenceParametersSet=new LinkedHashSet<>();
+		for(ParameterSetting setting:this.parameterSettings) {
+			inferenceParametersSet.add(this.getInferenceParameters(setting));
+		}
+
+		Map<List<Object>, List<RegionalTree>> regionalTreesMap=new ConcurrentHashMap<>();
+		this.runInParallel(inferenceParametersSet, inferenceParameters->{
+			double minCoveredPropertion=(Double)inferenceParameters.get(0);
+			boolean toTreatHeterGenotypeAsPresence=(Boolean)inferenceParameters.get(1);
+			boolean alwaysConsiderOutgroupSampleGenotype=(Boolean)inferenceParameters.get(2);
+
+			List<SimpleSVLocus> recodedSVSnapshotList=this.heterGenotypeAsPresenceRecodedSVSnapshotListMap.get(toTreatHeterGenotypeAsPresence);
+			List<List<Integer>> assignedSVIndices=this.minCoveredPropertionAssignedSVIndicesMap.get(minCoveredPropertion);
+
+			List<RegionalTree> copies=this.copyRegionalTrees();
+			for(int i=0;i<copies.size();i++) {
+				for(int svIndex:assignedSVIndices.get(i)) {
+					copies.get(i).addCoveredSVLocus(recodedSVSnapshotList.get(svIndex));
+				}
+				copies.get(i).runPipelineToInferAllGREventsOnSharedTree(this.populationStructureFileReader, alwaysConsiderOutgroupSampleGenotype);
+			}
+
+			regionalTreesMap.put(inferenceParameters, copies);
+		});
+
+		this.inferenceParametersRegionalTreesMap=regionalTreesMap;
+	}
+
+	/**
+	 * resolve the temporal order of the GR events for each setting and summarize the results
+	 */
+	void resolveTemporalOrders() {
+		Map<ParameterSetting, GREventsInfererAndTemporalOrderResolver> resolverMap=new ConcurrentHashMap<>();
+		this.runInParallel(this.parameterSettings, setting->{
+			List<RegionalTree> trees=this.inferenceParametersRegionalTreesMap.get(this.getInferenceParameters(setting));
+
+			GREventsInfererAndTemporalOrderResolver resolver=new GREventsInfererAndTemporalOrderResolver(
+					trees, this.populationStructureFileReader, setting.getMinBootstrapValue(), setting.isAllowingPartiallyOverlappingGREventPath(),
+					setting.isToTreatHeterGenotypeAsPresence(), setting.isAlwaysConsiderOutgroupSampleGenotype(), this.onlyExtractContinuousGREventPairs, 1, false);
+
+			resolverMap.put(setting, resolver);
+		});
+
+		this.settingResolverMap=new LinkedHashMap<>();
+		this.settingSummaryMap=new LinkedHashMap<>();
+		for(ParameterSetting setting:this.parameterSettings) {
+			GREventsInfererAndTemporalOrderResolver resolver=resolverMap.get(setting);
+			this.settingResolverMap.put(setting, resolver);
+			this.settingSummaryMap.put(setting, new ParameterSettingSummary(resolver));
+		}
+	}
+
+	private List<Object> getInferenceParameters(ParameterSetting setting){
+		return Arrays.asList(setting.getMinCoveredPropertion(), setting.isToTreatHeterGenotypeAsPresence(), setting.isAlwaysConsiderOutgroupSampleGenotype());
+	}
+
+	private List<RegionalTree> copyRegionalTrees(){
+		List<RegionalTree> ret=new ArrayList<>();
+		for(RegionalTree tree:this.regionalTrees) {
+			ret.add(tree.copyWithoutCoveredSVs());
+		}
+		return ret;
+	}
+
+	/**
+	 * run the given task for each of the given items in a {@link ForkJoinPool} with {@link #threadNum} threads, or one by one in the current thread if {@link #threadNum} is 1
+	 */
+	private <T> void runInParallel(Collection<T> items, Consumer<T> task) {
+		if(this.threadNum==1) {
+			for(T item:items) {
+				task.accept(item);
+			}
+			return;
+		}
+
+		ForkJoinPool pool=new ForkJoinPool(this.threadNum);
+		try {
+			pool.submit(()->{
+				items.parallelStream().forEach(task);
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			throw new IllegalStateException("parallel parameter sweep failed!", e);
+		}finally {
+			pool.shutdown();
+		}
+	}
+
+
+	//////////////////////////////////////////
+	/**
+	 * write the results of each setting with {@link SV2GRResultWriter} to a sub-directory of the given directory named by {@link ParameterSetting#getName()}
+	 * and the summary of all settings to the parameter.sweep.summary.tsv file in the given directory
+	 *
+	 * @param outDir
+	 * @throws IOException
+	 */
+	public void writeResults(Path outDir) throws IOException {
+		for(ParameterSetting setting:this.parameterSettings) {
+			Path settingOutDir=Path.of(outDir.toString(), setting.getName());
+			Files.createDirectories(settingOutDir);
+
+			new SV2GRResultWriter(this.settingResolverMap.get(setting), settingOutDir);
+		}
+
+		this.writeSummaryTable(Path.of(outDir.toString(), "parameter.sweep.summary.tsv"));
+	}
+
+	/**
+	 * write the {@link ParameterSettingSummary} of each setting to the given file
+	 * @param outFile
+	 * @throws IOException
+	 */
+	public void writeSummaryTable(Path outFile) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(outFile.toString()));
+
+		StringBuilder header=new StringBuilder();
+		header
+		.append("min_covered_proportion").append("\t")
+		.append("heter_as_presence").append("\t")
+		.append("always_consider_outgroup").append("\t")
+		.append("min_bootstrap").append("\t")
+		.append("allowing_partial_overlap").append("\t")
+		.append("covered_SV_num").append("\t")//number of SV and regional tree assignments
+		.append("GR_event_num").append("\t")
+		.append("reversed_GR_event_num").append("\t")
+		.append("GR_event_pair_num");
+		writer.append(header.toString());
+		writer.newLine();
+
+		for(ParameterSetting setting:this.parameterSettings) {
+			ParameterSettingSummary summary=this.settingSummaryMap.get(setting);
+			StringBuilder sb=new StringBuilder();
+			sb
+			.append(setting.getMinCoveredPropertion()).append("\t")
+			.append(setting.isToTreatHeterGenotypeAsPresence()).append("\t")
+			.append(setting.isAlwaysConsiderOutgroupSampleGenotype()).append("\t")
+			.append(setting.getMinBootstrapValue()).append("\t")
+			.append(setting.isAllowingPartiallyOverlappingGREventPath()).append("\t")
+			.append(summary.getCoveredSVNum()).append("\t")
+			.append(summary.getGREventNum()).append("\t")
+			.append(summary.getReversedGREventNum()).append("\t")
+			.append(summary.getGREventPairNum());
+			writer.append(sb.toString());
+			writer.newLine();
+		}
+
+		writer.flush();
+		writer.close();
+	}
+
+	/**
+	 * @return the parameterSettings without duplicates
+	 */
+	public List<ParameterSetting> getParameterSettings() {
+		return parameterSettings;
+	}
+
+	/**
+	 * @return the map from each setting to its results
+	 */
+	public Map<ParameterSetting, GREventsInfererAndTemporalOrderResolver> getSettingResolverMap() {
+		return settingResolverMap;
+	}
+
+	/**
+	 * @return the map from each setting to the summary of its results
+	 */
+	public Map<ParameterSetting, ParameterSettingSummary> getSettingSummaryMap() {
+		return settingSummaryMap;
+	}
+
+
+	//////////////////////////////////////////
+	/**
+	 * build the settings of all combinations of the given parameter values
+	 *
+	 * @param minCoveredPropertions see {@link SvToRegionalTreeAssigner}
+	 * @param toTreatHeterGenotypeAsPresences see {@link GREventsInfererAndTemporalOrderResolver}
+	 * @param alwaysConsiderOutgroupSampleGenotypes
+	 * @param minBootstrapValues
+	 * @param allowingPartiallyOverlappingGREventPaths
+	 * @return
+	 */
+	public static List<ParameterSetting> buildParameterGrid(
+			List<Double> minCoveredPropertions,
+			List<Boolean> toTreatHeterGenotypeAsPresences,
+			List<Boolean> alwaysConsiderOutgroupSampleGenotypes,
+			List<Double> minBootstrapValues,
+			List<Boolean> allowingPartiallyOverlappingGREventPaths
+			){
+		List<ParameterSetting> ret=new ArrayList<>();
+
+		for(double minCoveredPropertion:minCoveredPropertions) {
+			for(boolean toTreatHeterGenotypeAsPresence:toTreatHeterGenotypeAsPresences) {
+				for(boolean alwaysConsiderOutgroupSampleGenotype:alwaysConsiderOutgroupSampleGenotypes) {
+					for(double minBootstrapValue:minBootstrapValues) {
+						for(boolean allowingPartiallyOverlappingGREventPath:allowingPartiallyOverlappingGREventPaths) {
+							ret.add(new ParameterSetting(minCoveredPropertion, toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype, minBootstrapValue, allowingPartiallyOverlappingGREventPath));
+						}
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+
+	////////////////////////////////////////////
+	/**
+	 * an immutable combination of the parameters of {@link SvToRegionalTreeAssigner} and {@link GREventsInfererAndTemporalOrderResolver}
+	 */
+	public static class ParameterSetting{
+		private final double minCoveredPropertion;
+		private final boolean toTreatHeterGenotypeAsPresence;
+		private final boolean alwaysConsiderOutgroupSampleGenotype;
+		private final double minBootstrapValue;
+		private final boolean allowingPartiallyOverlappingGREventPath;
+
+		public ParameterSetting(double minCoveredPropertion, boolean toTreatHeterGenotypeAsPresence,
+				boolean alwaysConsiderOutgroupSampleGenotype, double minBootstrapValue,
+				boolean allowingPartiallyOverlappingGREventPath) {
+			super();
+			this.minCoveredPropertion = minCoveredPropertion;
+			this.toTreatHeterGenotypeAsPresence = toTreatHeterGenotypeAsPresence;
+			this.alwaysConsiderOutgroupSampleGenotype = alwaysConsiderOutgroupSampleGenotype;
+			this.minBootstrapValue = minBootstrapValue;
+			this.allowingPartiallyOverlappingGREventPath = allowingPartiallyOverlappingGREventPath;
+		}
+
+		/**
+		 * @return a name of this setting that can be used as a file name
+		 */
+		public String getName() {
+			return "cov"+this.minCoveredPropertion
+					+"_heter"+(this.toTreatHeterGenotypeAsPresence?"P":"M")
+					+"_outgroup"+(this.alwaysConsiderOutgroupSampleGenotype?"A":"T")
+					+"_bs"+this.minBootstrapValue
+					+"_partial"+(this.allowingPartiallyOverlappingGREventPath?"Y":"N");
+		}
+
+		/**
+		 * @return the minCoveredPropertion
+		 */
+		public double getMinCoveredPropertion() {
+			return minCoveredPropertion;
+		}
+
+		/**
+		 * @return the toTreatHeterGenotypeAsPresence
+		 */
+		public boolean isToTreatHeterGenotypeAsPresence() {
+			return toTreatHeterGenotypeAsPresence;
+		}
+
+		/**
+		 * @return the alwaysConsiderOutgroupSampleGenotype
+		 */
+		public boolean isAlwaysConsiderOutgroupSampleGenotype() {
+			return alwaysConsiderOutgroupSampleGenotype;
+		}
+
+		/**
+		 * @return the minBootstrapValue
+		 */
+		public double getMinBootstrapValue() {
+			return minBootstrapValue;
+		}
+
+		/**
+		 * @return the allowingPartiallyOverlappingGREventPath
+		 */
+		public boolean isAllowingPartiallyOverlappingGREventPath() {
+			return allowingPartiallyOverlappingGREventPath;
+		}
+
+		@Override
+		public String toString() {
+			return "ParameterSetting [minCoveredPropertion=" + minCoveredPropertion + ", toTreatHeterGenotypeAsPresence="
+					+ toTreatHeterGenotypeAsPresence + ", alwaysConsiderOutgroupSampleGenotype="
+					+ alwaysConsiderOutgroupSampleGenotype + ", minBootstrapValue=" + minBootstrapValue
+					+ ", allowingPartiallyOverlappingGREventPath=" + allowingPartiallyOverlappingGREventPath + "]";
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (allowingPartiallyOverlappingGREventPath ? 1231 : 1237);
+			result = prime * result + (alwaysConsiderOutgroupSampleGenotype ? 1231 : 1237);
+			long temp;
+			temp = Double.doubleToLongBits(minBootstrapValue);
+			result = prime * result + (int) (temp ^ (temp >>> 32));
+			temp = Double.doubleToLongBits(minCoveredPropertion);
+			result = prime * result + (int) (temp ^ (temp >>> 32));
+			result = prime * result + (toTreatHeterGenotypeAsPresence ? 1231 : 1237);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (!(obj instanceof ParameterSetting))
+				return false;
+			ParameterSetting other = (ParameterSetting) obj;
+			if (allowingPartiallyOverlappingGREventPath != other.allowingPartiallyOverlappingGREventPath)
+				return false;
+			if (alwaysConsiderOutgroupSampleGenotype != other.alwaysConsiderOutgroupSampleGenotype)
+				return false;
+			if (Double.doubleToLongBits(minBootstrapValue) != Double.doubleToLongBits(other.minBootstrapValue))
+				return false;
+			if (Double.doubleToLongBits(minCoveredPropertion) != Double.doubleToLongBits(other.minCoveredPropertion))
+				return false;
+			if (toTreatHeterGenotypeAsPresence != other.toTreatHeterGenotypeAsPresence)
+				return false;
+			return true;
+		}
+	}
+
+	/**
+	 * summary counts of the results of a {@link ParameterSetting}
+	 */
+	public static class ParameterSettingSummary{
+		/**
+		 * number of SVs assigned to regional trees; an SV assigned to multiple regional trees is counted multiple times
+		 */
+		private final int coveredSVNum;
+		/**
+		 * number of inferred GR events
+		 */
+		private final int grEventNum;
+		/**
+		 * number of inferred GR events that are the reversal of the SV
+		 */
+		private final int reversedGREventNum;
+		/**
+		 * number of temporally ordered GR event pairs
+		 */
+		private final int grEventPairNum;
+
+		ParameterSettingSummary(GREventsInfererAndTemporalOrderResolver resolver){
+			GREventSummaryStatistics statistics=resolver.getSummaryStatistics();
+
+			this.coveredSVNum=statistics.getCoveredSVNum();
+			this.grEventNum=statistics.getGREventNum();
+			this.reversedGREventNum=statistics.getReversedGREventNum();
+			this.grEventPairNum=statistics.getGREventPairNum();
+		}
+
+		/**
+		 * @return the coveredSVNum
+		 */
+		public int getCoveredSVNum() {
+			return coveredSVNum;
+		}
+
+		/**
+		 * @return the grEventNum
+		 */
+		public int getGREventNum() {
+			return grEventNum;
+		}
+
+		/**
+		 * @return the reversedGREventNum
+		 */
+		public int getReversedGREventNum() {
+			return reversedGREventNum;
+		}
+
+		/**
+		 * @return the grEventPairNum
+		 */
+		public int getGREventPairNum() {
+			return grEventPairNum;
+		}
+
+		@Override
+		public String toString() {
+			return "ParameterSettingSummary [coveredSVNum=" + coveredSVNum + ", grEventNum=" + grEventNum
+					+ ", reversedGREventNum=" + reversedGREventNum + ", grEventPairNum=" + grEventPairNum + "]";
+		}
+	}
+}
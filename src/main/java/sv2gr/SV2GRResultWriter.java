@@ -1,6 +1,7 @@
 package sv2gr;
 
 import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -14,7 +15,14 @@ import population.sv.utils.SimpleSVType;
 import sv2gr.gr.GREvent;
 import sv2gr.tree.RegionalTree;
 
-public class SV2GRResultWriter {
+public class SV2GRResultWriter implements Closeable{
+	/**
+	 * names of the output files in the output directory
+	 */
+	static final String SV_TO_GR_EVENT_TABLE_FILE_NAME="SV2GR.recode.table.txt";
+	static final String TEMPORALLY_ORDERED_GR_EVENT_PAIR_TABLE_FILE_NAME="temporally.ordered.GR.event.pairs.table.txt";
+	static final String TEMPORALLY_ORDERED_GR_EVENT_MATRIX_FILE_NAME="temporally.ordered.GR.event.pairs.matrix.txt";
+	
 	private final GREventsInfererAndTemporalOrderResolver GREventsInfererAndTemporalOrderResolver;
 	
 	private final Path outDir;
@@ -24,6 +32,17 @@ public class SV2GRResultWriter {
 	private Path temporallyOrderedGREventPairTableFile;
 	private Path temporarllyOrderedGREventMatrixFile;
 	
+	/**
+	 * writers of the SV table file and GR event pair table file in incremental mode; see {@link #SV2GRResultWriter(Path)}
+	 */
+	private BufferedWriter svToGREventTableFileWriter;
+	private BufferedWriter temporallyOrderedGREventPairTableFileWriter;
+	
+	/**
+	 * summary counts (including the number of temporally ordered GR event pairs of each combination of GR event types) of all blocks appended so far in incremental mode
+	 */
+	private GREventSummaryStatistics appendedSummaryStatistics;
+	
 	public SV2GRResultWriter(
 			sv2gr.GREventsInfererAndTemporalOrderResolver gREventsInfererAndTemporalOrderResolver,
 			Path outDir) {
@@ -36,17 +55,127 @@ public class SV2GRResultWriter {
 		this.writeToTemporallyOrderedGREventPairTableFile();
 		this.writeToTemporarllyOrderedGREventMatrixFile();
 	}
-
+	
+	/**
+	 * constructor for incremental mode, where the results of the {@link GREventsInfererAndTemporalOrderResolver} of each block of regional trees are appended by {@link #append(sv2gr.GREventsInfererAndTemporalOrderResolver)}
+	 * and the GR event pair matrix file is written by {@link #close()} after all blocks are appended;
+	 * 
+	 * if the blocks are appended in the same order as the regional trees in a single {@link GREventsInfererAndTemporalOrderResolver}, the output files are the same as {@link #SV2GRResultWriter(sv2gr.GREventsInfererAndTemporalOrderResolver, Path)}
+	 * 
+	 * @param outDir
+	 * @throws IOException 
+	 */
+	public SV2GRResultWriter(Path outDir) throws IOException {
+		super();
+		GREventsInfererAndTemporalOrderResolver = null;
+		this.outDir = outDir;
+		
+		this.prepare();
+		
+		this.svToGREventTableFileWriter = new BufferedWriter(new FileWriter(this.svToGREventTableFile.toString()));
+		this.svToGREventTableFileWriter.append(this.getSvToGREventTableFileHeaderLine());
+		this.svToGREventTableFileWriter.newLine();
+		
+		this.temporallyOrderedGREventPairTableFileWriter = new BufferedWriter(new FileWriter(this.temporallyOrderedGREventPairTableFile.toString()));
+		this.temporallyOrderedGREventPairTableFileWriter.append(this.getTemporallyOrderedGREventPairTableFileHeaderLine());
+		this.temporallyOrderedGREventPairTableFileWriter.newLine();
+		
+		this.appendedSummaryStatistics = new GREventSummaryStatistics();
+	}
+	
+	/**
+	 * append the rows of the regional trees of the given {@link GREventsInfererAndTemporalOrderResolver} to the SV table file and GR event pair table file 
+	 * and count the GR event pairs for the matrix file
+	 * 
+	 * the given {@link GREventsInfererAndTemporalOrderResolver} is not referenced after this method returns
+	 * 
+	 * @param resolver
+	 * @throws IOException 
+	 */
+	public void append(GREventsInfererAndTemporalOrderResolver resolver) throws IOException {
+		if(this.svToGREventTableFileWriter==null) {
+			throw new UnsupportedOperationException("the writer is not in incremental mode or is already closed!");
+		}
+		
+		for(RegionalTree tree:resolver.getRegionalTrees()) {
+			for(SimpleSVLocus sv:tree.getCoveredSVLocusList()) {
+				this.svToGREventTableFileWriter.append(this.getSvToGREventTableFileLine(tree, sv));
+				this.svToGREventTableFileWriter.newLine();
+			}
+		}
+		
+		for(RegionalTree tree:resolver.getTreeTemporallyOrderedGREventPairsMap().keySet()) {
+			for(Pair<GREvent,GREvent> pair:resolver.getTreeTemporallyOrderedGREventPairsMap().get(tree)) {
+				this.temporallyOrderedGREventPairTableFileWriter.append(this.getTemporallyOrderedGREventPairTableFileLine(tree, pair));
+				this.temporallyOrderedGREventPairTableFileWriter.newLine();
+			}
+		}
+		
+		this.appendedSummaryStatistics.merge(resolver.getSummaryStatistics());
+	}
+	
+	/**
+	 * append the given lines already formatted by another {@link SV2GRResultWriter} (for example of a {@link SV2GRShard}) and add the given summary counts of them in incremental mode; see {@link SV2GRShardMerger}
+	 * 
+	 * @param svToGREventTableFileLines lines of the SV table file without header
+	 * @param temporallyOrderedGREventPairTableFileLines lines of the GR event pair table file without header
+	 * @param summaryStatistics
+	 * @throws IOException
+	 */
+	void appendFormattedLines(List<String> svToGREventTableFileLines, List<String> temporallyOrderedGREventPairTableFileLines, GREventSummaryStatistics summaryStatistics) throws IOException {
+		if(this.svToGREventTableFileWriter==null) {
+			throw new UnsupportedOperationException("the writer is not in incremental mode or is already closed!");
+		}
+		
+		for(String line:svToGREventTableFileLines) {
+			this.svToGREventTableFileWriter.append(line);
+			this.svToGREventTableFileWriter.newLine();
+		}
+		for(String line:temporallyOrderedGREventPairTableFileLines) {
+			this.temporallyOrderedGREventPairTableFileWriter.append(line);
+			this.temporallyOrderedGREventPairTableFileWriter.newLine();
+		}
+		
+		this.appendedSummaryStatistics.merge(summaryStatistics);
+	}
+	
+	/**
+	 * close the SV table file and GR event pair table file and write the GR event pair matrix file in incremental mode; do nothing if not in incremental mode or already closed
+	 * @throws IOException 
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.svToGREventTableFileWriter==null) {
+			return;
+		}
+		
+		this.svToGREventTableFileWriter.flush();
+		this.svToGREventTableFileWriter.close();
+		this.svToGREventTableFileWriter=null;
+		
+		this.temporallyOrderedGREventPairTableFileWriter.flush();
+		this.temporallyOrderedGREventPairTableFileWriter.close();
+		this.temporallyOrderedGREventPairTableFileWriter=null;
+		
+		this.writeToTemporarllyOrderedGREventMatrixFile(this.appendedSummaryStatistics);
+	}
+	
+	/**
+	 * @return the summary counts of all blocks appended so far in incremental mode; null if not in incremental mode
+	 */
+	public GREventSummaryStatistics getAppendedSummaryStatistics() {
+		return appendedSummaryStatistics;
+	}
 	
 	
 
 	void prepare() {
-		this.svToGREventTableFile=Path.of(this.outDir.toString(), "SV2GR.recode.table.txt");
+		this.svToGREventTableFile=Path.of(this.outDir.toString(), SV_TO_GR_EVENT_TABLE_FILE_NAME);
 		
 		
-		this.temporallyOrderedGREventPairTableFile = Path.of(this.outDir.toString(), "temporally.ordered.GR.event.pairs.table.txt");
+		this.temporallyOrderedGREventPairTableFile = Path.of(this.outDir.toString(), TEMPORALLY_ORDERED_GR_EVENT_PAIR_TABLE_FILE_NAME);
 		
-		this.temporarllyOrderedGREventMatrixFile=Path.of(this.outDir.toString(), "temporally.ordered.GR.event.pairs.matrix.txt");
+		this.temporarllyOrderedGREventMatrixFile=Path.of(this.outDir.toString(), TEMPORALLY_ORDERED_GR_EVENT_MATRIX_FILE_NAME);
 		
 		
 		if(this.svToGREventTableFile.toFile().exists()) {
@@ -77,18 +206,7 @@ public class SV2GRResultWriter {
 			
 			for(RegionalTree tree:this.GREventsInfererAndTemporalOrderResolver.getRegionalTrees()) {
 				for(SimpleSVLocus sv:tree.getCoveredSVLocusList()) {
-					StringBuilder sb = new StringBuilder();
-					
-					sb.append(sv.getType()).append("\t")
-					.append(sv.getChrom()).append("\t")
-					.append(sv.getStart()).append("\t")
-					.append(sv.getEnd()).append("\t")
-					.append(tree.getSvLocusGREventMap().containsKey(sv)).append("\t")
-					.append(tree.getSvLocusGREventMap().containsKey(sv)?
-							tree.getSvLocusGREventMap().get(sv).isReversalOfSV()?"-":"+"
-							:"N/A");
-					
-					writer.append(sb.toString());
+					writer.append(this.getSvToGREventTableFileLine(tree, sv));
 					writer.newLine();
 				}
 			}
@@ -110,21 +228,7 @@ public class SV2GRResultWriter {
 			
 			for(RegionalTree tree:this.GREventsInfererAndTemporalOrderResolver.getTreeTemporallyOrderedGREventPairsMap().keySet()) {
 				for(Pair<GREvent,GREvent> pair:this.GREventsInfererAndTemporalOrderResolver.getTreeTemporallyOrderedGREventPairsMap().get(tree)) {
-					StringBuilder sb = new StringBuilder();
-					
-					sb.append(pair.getFirst().getOriginalSVLocus().getType()).append("\t")
-					.append(pair.getFirst().getOriginalSVLocus().getChrom()).append("\t")
-					.append(pair.getFirst().getOriginalSVLocus().getStart()).append("\t")
-					.append(pair.getFirst().getOriginalSVLocus().getEnd()).append("\t")
-					.append(tree.getSvLocusGREventMap().get(pair.getFirst().getOriginalSVLocus()).isReversalOfSV()?"-":"+").append("\t")
-					
-					.append(pair.getSecond().getOriginalSVLocus().getType()).append("\t")
-					.append(pair.getSecond().getOriginalSVLocus().getChrom()).append("\t")
-					.append(pair.getSecond().getOriginalSVLocus().getStart()).append("\t")
-					.append(pair.getSecond().getOriginalSVLocus().getEnd()).append("\t")
-					.append(tree.getSvLocusGREventMap().get(pair.getSecond().getOriginalSVLocus()).isReversalOfSV()?"-":"+");
-					
-					writer.append(sb.toString());
+					writer.append(this.getTemporallyOrderedGREventPairTableFileLine(tree, pair));
 					writer.newLine();
 				}
 			}
@@ -137,7 +241,24 @@ public class SV2GRResultWriter {
 		}
 	}
 	
+	/**
+	 * write the matrix file with the {@link GREventSummaryStatistics} shared with other writers of the {@link GREventsInfererAndTemporalOrderResolver}
+	 */
 	private void writeToTemporarllyOrderedGREventMatrixFile() {
+		this.writeToTemporarllyOrderedGREventMatrixFile(this.GREventsInfererAndTemporalOrderResolver.getSummaryStatistics());
+	}
+	
+	/**
+	 * @param summaryStatistics
+	 */
+	private void writeToTemporarllyOrderedGREventMatrixFile(GREventSummaryStatistics summaryStatistics) {
+		this.writeToTemporarllyOrderedGREventMatrixFile(summaryStatistics.getIdentifiedGREventTypeList(), summaryStatistics.getTemporallyOrderedGREventPairMatrix());
+	}
+	
+	/**
+	 * previous version of {@link #writeToTemporarllyOrderedGREventMatrixFile()}, which counts the GR event pairs with list lookups over all regional trees
+	 */
+	void writeToTemporarllyOrderedGREventMatrixFileByTreeTraversal() {
 		List<Pair<SimpleSVType, Boolean>> allIdentifiedGREventTypeList = new ArrayList<>();
 		
 		for(RegionalTree tree:this.GREventsInfererAndTemporalOrderResolver.getTreeTemporallyOrderedGREventPairsMap().keySet()) {
@@ -152,14 +273,7 @@ public class SV2GRResultWriter {
 			}
 		}
 		
-		Collections.sort(allIdentifiedGREventTypeList, 
-				(a,b)->{
-					if(a.getFirst().equals(b.getFirst())) {
-						return a.getSecond().compareTo(b.getSecond());
-					}else {
-						return a.getFirst().compareTo(b.getFirst());
-					}
-				});
+		this.sortGREventTypeList(allIdentifiedGREventTypeList);
 		
 		/////////////////////////////
 		List<List<Integer>> matrix=new ArrayList<>();
@@ -187,7 +301,30 @@ public class SV2GRResultWriter {
 			}
 		}
 		
-		////////////////////////////////
+		this.writeToTemporarllyOrderedGREventMatrixFile(allIdentifiedGREventTypeList, matrix);
+	}
+	
+	/**
+	 * sort the GR event types by SV type and then whether reversed or not
+	 * @param allIdentifiedGREventTypeList
+	 */
+	private void sortGREventTypeList(List<Pair<SimpleSVType, Boolean>> allIdentifiedGREventTypeList) {
+		Collections.sort(allIdentifiedGREventTypeList, 
+				(a,b)->{
+					if(a.getFirst().equals(b.getFirst())) {
+						return a.getSecond().compareTo(b.getSecond());
+					}else {
+						return a.getFirst().compareTo(b.getFirst());
+					}
+				});
+	}
+	
+	/**
+	 * write the matrix of the numbers of temporally ordered GR event pairs of each combination of GR event types
+	 * @param allIdentifiedGREventTypeList sorted GR event types
+	 * @param matrix
+	 */
+	private void writeToTemporarllyOrderedGREventMatrixFile(List<Pair<SimpleSVType, Boolean>> allIdentifiedGREventTypeList, List<List<Integer>> matrix) {
 		StringBuilder sb=new StringBuilder();
 		sb.append("GR_type");
 		for(Pair<SimpleSVType, Boolean> pair:allIdentifiedGREventTypeList) {
@@ -224,6 +361,39 @@ public class SV2GRResultWriter {
 	
 	
 	
+	private String getSvToGREventTableFileLine(RegionalTree tree, SimpleSVLocus sv) {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(sv.getType()).append("\t")
+		.append(sv.getChrom()).append("\t")
+		.append(sv.getStart()).append("\t")
+		.append(sv.getEnd()).append("\t")
+		.append(tree.getSvLocusGREventMap().containsKey(sv)).append("\t")
+		.append(tree.getSvLocusGREventMap().containsKey(sv)?
+				tree.getSvLocusGREventMap().get(sv).isReversalOfSV()?"-":"+"
+				:"N/A");
+		
+		return sb.toString();
+	}
+	
+	private String getTemporallyOrderedGREventPairTableFileLine(RegionalTree tree, Pair<GREvent,GREvent> pair) {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append(pair.getFirst().getOriginalSVLocus().getType()).append("\t")
+		.append(pair.getFirst().getOriginalSVLocus().getChrom()).append("\t")
+		.append(pair.getFirst().getOriginalSVLocus().getStart()).append("\t")
+		.append(pair.getFirst().getOriginalSVLocus().getEnd()).append("\t")
+		.append(tree.getSvLocusGREventMap().get(pair.getFirst().getOriginalSVLocus()).isReversalOfSV()?"-":"+").append("\t")
+		
+		.append(pair.getSecond().getOriginalSVLocus().getType()).append("\t")
+		.append(pair.getSecond().getOriginalSVLocus().getChrom()).append("\t")
+		.append(pair.getSecond().getOriginalSVLocus().getStart()).append("\t")
+		.append(pair.getSecond().getOriginalSVLocus().getEnd()).append("\t")
+		.append(tree.getSvLocusGREventMap().get(pair.getSecond().getOriginalSVLocus()).isReversalOfSV()?"-":"+");
+		
+		return sb.toString();
+	}
+	
 	private String getSvToGREventTableFileHeaderLine() {
 		StringBuilder sb = new StringBuilder();
 		
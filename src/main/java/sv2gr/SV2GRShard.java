@@ -0,0 +1,167 @@
+package sv2gr;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import genomics.utils.SimpleGenomicRegion;
+
+/**
+ * a shard of the genome given by a list of chroms or regions, for which {@link StreamingSV2GRPipeline} only processes the regional trees in the shard
+ * and writes the partial results to a shard directory; the partial results of all shards are combined by {@link SV2GRShardMerger}
+ *
+ * a regional tree belongs to the shard if its start position is covered by one of the regions of the shard,
+ * thus if the regions of a set of shards are disjoint and cover all start positions, every regional tree is processed by exactly one shard;
+ *
+ * each region is given as either a chrom name (all positions of the chrom) or chrom:start-end (1-based, both ends inclusive) as in the batch regional tree file
+ *
+ * @author tanxu
+ *
+ */
+public class SV2GRShard {
+	/**
+	 * name of the file in the shard directory with the range of the trees and rows of the output files of each block processed by {@link StreamingSV2GRPipeline}
+	 */
+	public static final String SEGMENT_FILE_NAME="SV2GR.shard.segments.txt";
+	/**
+	 * header line of the {@link #SEGMENT_FILE_NAME} file, after the lines of regions of the shard starting with ##
+	 */
+	static final String SEGMENT_FILE_HEADER_LINE="#first_tree_index\ttree_num\tsv_table_row_num\tgr_event_pair_table_row_num";
+	
+	/**
+	 * all regions of this shard in the given order
+	 */
+	private final List<SimpleGenomicRegion> regions;
+
+	////////////////////////////
+	/**
+	 * map from chrom to the regions on it
+	 */
+	private Map<String, List<SimpleGenomicRegion>> chromRegionsMap;
+
+	/**
+	 *
+	 * @param regions
+	 */
+	public SV2GRShard(List<SimpleGenomicRegion> regions) {
+		super();
+		if(regions.isEmpty()) {
+			throw new IllegalArgumentException("given regions cannot be empty!");
+		}
+		this.regions = regions;
+
+		this.chromRegionsMap=new LinkedHashMap<>();
+		for(SimpleGenomicRegion region:this.regions) {
+			if(region.getStart()>region.getEnd()) {
+				throw new IllegalArgumentException("start of given region is larger than end:"+region);
+			}
+			this.chromRegionsMap.computeIfAbsent(region.getChrom(), c->new ArrayList<>()).add(region);
+		}
+	}
+
+	/**
+	 * @param regionStrings each either chrom or chrom:start-end
+	 * @return
+	 */
+	public static SV2GRShard fromRegionStrings(List<String> regionStrings) {
+		List<SimpleGenomicRegion> regions=new ArrayList<>();
+		for(String s:regionStrings) {
+			regions.add(parseRegion(s.trim()));
+		}
+		return new SV2GRShard(regions);
+	}
+
+	/**
+	 * read the shard from a file with one chrom or chrom:start-end per line; empty lines and lines starting with # are skipped
+	 *
+	 * @param regionListFile
+	 * @return
+	 * @throws IOException
+	 */
+	public static SV2GRShard fromRegionListFile(Path regionListFile) throws IOException {
+		List<String> regionStrings=new ArrayList<>();
+		try(BufferedReader reader=new BufferedReader(new FileReader(regionListFile.toFile()))){
+			String line;
+			while((line=reader.readLine())!=null) {
+				line=line.trim();
+				if(line.isEmpty()||line.startsWith("#")) {
+					continue;
+				}
+				regionStrings.add(line);
+			}
+		}
+		return fromRegionStrings(regionStrings);
+	}
+
+	/**
+	 * @param s chrom or chrom:start-end
+	 * @return
+	 */
+	static SimpleGenomicRegion parseRegion(String s) {
+		int colon=s.lastIndexOf(':');
+		if(colon<0) {
+			return new SimpleGenomicRegion(s, 1, Integer.MAX_VALUE);
+		}
+
+		String[] startEndSplits=s.substring(colon+1).split("-");
+		if(startEndSplits.length!=2) {
+			throw new IllegalArgumentException("given region is not in format of chrom:start-end:"+s);
+		}
+		return new SimpleGenomicRegion(s.substring(0, colon), Integer.parseInt(startEndSplits[0]), Integer.parseInt(startEndSplits[1]));
+	}
+
+	/////////////////////////////////
+	/**
+	 * @param chrom
+	 * @param start
+	 * @return true if a regional tree on the given chrom with the given start position belongs to this shard
+	 */
+	public boolean containsTree(String chrom, int start) {
+		List<SimpleGenomicRegion> chromRegions=this.chromRegionsMap.get(chrom);
+		if(chromRegions==null) {
+			return false;
+		}
+		for(SimpleGenomicRegion region:chromRegions) {
+			if(region.getStart()<=start && start<=region.getEnd()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return all chroms with at least one region of this shard
+	 */
+	public Set<String> getChroms(){
+		return Collections.unmodifiableSet(this.chromRegionsMap.keySet());
+	}
+
+	/**
+	 * @return the regions
+	 */
+	public List<SimpleGenomicRegion> getRegions() {
+		return Collections.unmodifiableList(regions);
+	}
+
+	/**
+	 * @return the regions in the same format as parsed by {@link #fromRegionStrings(List)}, one per element
+	 */
+	public List<String> toRegionStrings(){
+		List<String> ret=new ArrayList<>();
+		for(SimpleGenomicRegion region:this.regions) {
+			if(region.getStart()==1 && region.getEnd()==Integer.MAX_VALUE) {
+				ret.add(region.getChrom());
+			}else {
+				ret.add(region.getChrom()+":"+region.getStart()+"-"+region.getEnd());
+			}
+		}
+		return ret;
+	}
+}
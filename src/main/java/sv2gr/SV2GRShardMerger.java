@@ -0,0 +1,282 @@
+package sv2gr;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import basic.Pair;
+import population.sv.utils.SimpleSVType;
+
+/**
+ * combine the partial results of a set of {@link SV2GRShard}s written by {@link StreamingSV2GRPipeline} into the same output files as {@link SV2GRResultWriter} for all regional trees of the file
+ *
+ * 1. the blocks of all shards are sorted by the index of their first tree in the batch regional tree file, and the rows of the SV table file and GR event pair table file of each block
+ * 		are copied from the partial files of its shard in this order, which is the order of the trees in the file;
+ * 2. the partial GR event pair matrices of all shards are summed up;
+ *
+ * an {@link IllegalArgumentException} is thrown if a tree is processed by multiple shards, or the partial files of a shard are not consistent with its segment file;
+ * note that trees not in any of the given shards are missing from the output files
+ *
+ * @author tanxu
+ *
+ */
+public class SV2GRShardMerger {
+	/**
+	 * output directories of the shards
+	 */
+	private final List<Path> shardDirs;
+	/**
+	 *
+	 */
+	private final Path outDir;
+
+	/////////////////////////////
+	/**
+	 * blocks of all shards sorted by first tree index
+	 */
+	private List<ShardBlock> sortedBlocks;
+	/**
+	 * summary counts of all shards
+	 */
+	private GREventSummaryStatistics summaryStatistics;
+
+	/**
+	 *
+	 * @param shardDirs
+	 * @param outDir
+	 */
+	public SV2GRShardMerger(List<Path> shardDirs, Path outDir) {
+		super();
+		if(shardDirs.isEmpty()) {
+			throw new IllegalArgumentException("given shardDirs cannot be empty!");
+		}
+		this.shardDirs = shardDirs;
+		this.outDir = outDir;
+
+		/////////////////////////
+		this.prepare();
+		this.run();
+	}
+
+	/**
+	 * read and sort the blocks of all shards
+	 */
+	void prepare() {
+		this.sortedBlocks=new ArrayList<>();
+		for(int i=0;i<this.shardDirs.size();i++) {
+			Path segmentFile=Path.of(this.shardDirs.get(i).toString(), SV2GRShard.SEGMENT_FILE_NAME);
+			try(BufferedReader reader=new BufferedReader(new FileReader(segmentFile.toFile()))){
+				String line;
+				while((line=reader.readLine())!=null) {
+					if(line.isEmpty()||line.startsWith("#")) {
+						continue;
+					}
+					String[] splits=line.split("\t");
+					this.sortedBlocks.add(new ShardBlock(i, Integer.parseInt(splits[0]), Integer.parseInt(splits[1]), Integer.parseInt(splits[2]), Integer.parseInt(splits[3])));
+				}
+			} catch (IOException e) {
+				throw new IllegalArgumentException("segment file of shard cannot be read:"+segmentFile, e);
+			}
+		}
+
+		Collections.sort(this.sortedBlocks, (a,b)->Integer.compare(a.firstTreeIndex, b.firstTreeIndex));
+
+		for(int i=1;i<this.sortedBlocks.size();i++) {
+			ShardBlock previous=this.sortedBlocks.get(i-1);
+			if(previous.firstTreeIndex+previous.treeNum>this.sortedBlocks.get(i).firstTreeIndex) {
+				throw new IllegalArgumentException("regional tree "+this.sortedBlocks.get(i).firstTreeIndex+" is processed by multiple shards:"
+						+this.shardDirs.get(previous.shardIndex)+" and "+this.shardDirs.get(this.sortedBlocks.get(i).shardIndex));
+			}
+		}
+	}
+
+	void run() {
+		List<BufferedReader> svTableReaders=new ArrayList<>();
+		List<BufferedReader> pairTableReaders=new ArrayList<>();
+		try(Closeable tableReaders=()->closeAll(svTableReaders, pairTableReaders)){
+			for(Path shardDir:this.shardDirs) {
+				svTableReaders.add(this.openTableWithoutHeader(Path.of(shardDir.toString(), SV2GRResultWriter.SV_TO_GR_EVENT_TABLE_FILE_NAME)));
+				pairTableReaders.add(this.openTableWithoutHeader(Path.of(shardDir.toString(), SV2GRResultWriter.TEMPORALLY_ORDERED_GR_EVENT_PAIR_TABLE_FILE_NAME)));
+			}
+
+			try(SV2GRResultWriter writer=new SV2GRResultWriter(this.outDir)){
+				this.summaryStatistics=new GREventSummaryStatistics();
+
+				int[] shardPairRowNums=new int[this.shardDirs.size()];
+				for(ShardBlock block:this.sortedBlocks) {
+					List<String> svTableLines=this.readLines(svTableReaders.get(block.shardIndex), block.svTableRowNum, block);
+					List<String> pairTableLines=this.readLines(pairTableReaders.get(block.shardIndex), block.pairTableRowNum, block);
+					shardPairRowNums[block.shardIndex]+=block.pairTableRowNum;
+
+					//the GR event pairs are counted from the partial matrices below
+					GREventSummaryStatistics blockStatistics=new GREventSummaryStatistics();
+					for(String line:svTableLines) {
+						addSvToGREventTableFileLine(line, blockStatistics);
+					}
+
+					writer.appendFormattedLines(svTableLines, pairTableLines, blockStatistics);
+					this.summaryStatistics.merge(blockStatistics);
+				}
+
+				for(int i=0;i<this.shardDirs.size();i++) {
+					if(svTableReaders.get(i).readLine()!=null || pairTableReaders.get(i).readLine()!=null) {
+						throw new IllegalArgumentException("partial table files of shard have more rows than its segment file:"+this.shardDirs.get(i));
+					}
+
+					GREventSummaryStatistics matrixStatistics=readTemporallyOrderedGREventMatrixFile(Path.of(this.shardDirs.get(i).toString(), SV2GRResultWriter.TEMPORALLY_ORDERED_GR_EVENT_MATRIX_FILE_NAME));
+					if(matrixStatistics.getGREventPairNum()!=shardPairRowNums[i]) {
+						throw new IllegalArgumentException("partial GR event pair matrix file of shard is not consistent with its segment file:"+this.shardDirs.get(i));
+					}
+					writer.appendFormattedLines(Collections.emptyList(), Collections.emptyList(), matrixStatistics);
+					this.summaryStatistics.merge(matrixStatistics);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private BufferedReader openTableWithoutHeader(Path tableFile) throws IOException {
+		BufferedReader reader=new BufferedReader(new FileReader(tableFile.toFile()));
+		reader.readLine();//header
+		return reader;
+	}
+
+	private List<String> readLines(BufferedReader reader, int lineNum, ShardBlock block) throws IOException {
+		List<String> ret=new ArrayList<>(lineNum);
+		for(int i=0;i<lineNum;i++) {
+			String line=reader.readLine();
+			if(line==null) {
+				throw new IllegalArgumentException("partial table files of shard have less rows than its segment file:"+this.shardDirs.get(block.shardIndex));
+			}
+			ret.add(line);
+		}
+		return ret;
+	}
+
+	/**
+	 * close all given readers; the first exception is thrown after all readers are closed with the later ones suppressed
+	 * @param readerLists
+	 * @throws IOException
+	 */
+	@SafeVarargs
+	private static void closeAll(List<BufferedReader>... readerLists) throws IOException {
+		IOException exception=null;
+		for(List<BufferedReader> readers:readerLists) {
+			for(BufferedReader reader:readers) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					if(exception==null) {
+						exception=e;
+					}else {
+						exception.addSuppressed(e);
+					}
+				}
+			}
+		}
+		if(exception!=null) {
+			throw exception;
+		}
+	}
+
+	/**
+	 * add the SV and the GR event (if inferred) of the given row of the SV table file to the given statistics
+	 * @param line sv_type	chrom	start	end	gr_event_inferred	gr_event_reversed
+	 * @param statistics
+	 */
+	static void addSvToGREventTableFileLine(String line, GREventSummaryStatistics statistics) {
+		String[] splits=line.split("\t");
+		SimpleSVType type=SimpleSVType.valueOf(splits[0]);
+		statistics.addCoveredSVNum(type, 1);
+		if(Boolean.parseBoolean(splits[4])) {
+			statistics.addGREventNum(type, splits[5].equals("-"), 1);
+		}
+	}
+
+	/**
+	 * read the GR event pair numbers of the GR event pair matrix file written by {@link SV2GRResultWriter}
+	 * @param matrixFile
+	 * @return
+	 * @throws IOException
+	 */
+	static GREventSummaryStatistics readTemporallyOrderedGREventMatrixFile(Path matrixFile) throws IOException {
+		GREventSummaryStatistics ret=new GREventSummaryStatistics();
+
+		List<String> lines=Files.readAllLines(matrixFile);
+		String[] headerSplits=lines.get(0).split("\t");
+		List<Pair<SimpleSVType, Boolean>> types=new ArrayList<>();
+		for(int i=1;i<headerSplits.length;i++) {
+			types.add(parseGREventType(headerSplits[i]));
+		}
+
+		for(int i=1;i<lines.size();i++) {
+			if(lines.get(i).isEmpty()) {
+				continue;
+			}
+			String[] splits=lines.get(i).split("\t");
+			Pair<SimpleSVType, Boolean> first=parseGREventType(splits[0]);
+			for(int j=1;j<splits.length;j++) {
+				ret.addGREventPairNum(first, types.get(j-1), Integer.parseInt(splits[j]));
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @param s SV type followed by - if reversed or + otherwise, for example DEL-
+	 * @return
+	 */
+	private static Pair<SimpleSVType, Boolean> parseGREventType(String s){
+		return new Pair<>(SimpleSVType.valueOf(s.substring(0, s.length()-1)), s.endsWith("-"));
+	}
+
+	/**
+	 * @return the summary counts of all shards
+	 */
+	public GREventSummaryStatistics getSummaryStatistics() {
+		return summaryStatistics;
+	}
+
+	/**
+	 * a block of trees processed by a shard
+	 */
+	private static class ShardBlock{
+		private final int shardIndex;
+		private final int firstTreeIndex;
+		private final int treeNum;
+		private final int svTableRowNum;
+		private final int pairTableRowNum;
+
+		ShardBlock(int shardIndex, int firstTreeIndex, int treeNum, int svTableRowNum, int pairTableRowNum) {
+			super();
+			this.shardIndex = shardIndex;
+			this.firstTreeIndex = firstTreeIndex;
+			this.treeNum = treeNum;
+			this.svTableRowNum = svTableRowNum;
+			this.pairTableRowNum = pairTableRowNum;
+		}
+	}
+
+	/**
+	 * merge the partial results of the given shard directories into the given output directory
+	 * @param args output directory followed by all shard directories
+	 */
+	public static void main(String[] args) {
+		Path outDir=Path.of(args[0]);
+		List<Path> shardDirs=new ArrayList<>();
+		for(int i=1;i<args.length;i++) {
+			shardDirs.add(Path.of(args[i]));
+		}
+
+		new SV2GRShardMerger(shardDirs, outDir);
+	}
+}
@@ -0,0 +1,152 @@
+package sv2gr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import population.popHierarchy.PopulationStructureFileReader;
+import population.sv.utils.SimpleSVLocus;
+import population.sv.utils.SimpleSVType;
+import population.utils.Genotype;
+import sv2gr.tree.RegionalTree;
+import sv2gr.tree.TreeNode;
+
+/**
+ * run the streaming pipeline on shards of a random batch regional tree file and check that the merged output files are the same as the ones of the whole file
+ */
+public class SV2GRShardMergerTest {
+	static Random random=new Random(3);
+
+	static String randomNewick(List<String> leaves){
+		if(leaves.size()==1)
+			return leaves.get(0)+":"+String.format("%.5f", random.nextDouble()/100);
+		int k=1+random.nextInt(leaves.size()-1);
+		String a=randomNewick(leaves.subList(0,k)), b=randomNewick(leaves.subList(k,leaves.size()));
+		return "("+a+","+b+")"+String.format("%.2f", random.nextDouble())+":"+String.format("%.5f", random.nextDouble()/100);
+	}
+
+	static List<SimpleSVLocus> copy(List<SimpleSVLocus> svs){
+		List<SimpleSVLocus> ret=new ArrayList<>();
+		for(SimpleSVLocus sv:svs)
+			ret.add(new SimpleSVLocus(sv.getType(), sv.getChrom(), sv.getStart(), sv.getEnd(), new HashMap<>(sv.getSampleIndexGenotypeMap())));
+		return ret;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int treeNumPerChrom=20;
+		int leafNum=15;
+		int svNum=400;
+
+		Path dir=Files.createTempDirectory("shardMerger");
+
+		//population structure file with one outgroup sample
+		Path popFile=dir.resolve("pop.txt");
+		List<String> names=new ArrayList<>();
+		try(PrintWriter pw=new PrintWriter(popFile.toFile())){
+			pw.println("1 1 OUT out");
+			for(int i=0;i<leafNum;i++){
+				pw.println((i+2)+" 0 S"+i+" in");
+				names.add("S"+i);
+			}
+		}
+		PopulationStructureFileReader reader=new PopulationStructureFileReader(popFile, false);
+
+		//overlapping windows on 3 chroms
+		Path treeFile=dir.resolve("trees.txt");
+		try(PrintWriter pw=new PrintWriter(treeFile.toFile())){
+			pw.println("#tree_id\tchrom_regions\tnewick_string");
+			int t=0;
+			for(int c=1;c<=3;c++) {
+				for(int w=0;w<treeNumPerChrom;w++){
+					List<String> shuffled=new ArrayList<>(names);
+					Collections.shuffle(shuffled, random);
+					String newick="(OUT:0.01,"+randomNewick(shuffled)+");";
+					newick=newick.replaceFirst("\\)[0-9.]+:([0-9.]+)\\);$", "):$1);");
+					int start=w*7000+1;
+					pw.println((t++)+"\tChr"+c+":"+start+"-"+(start+9999)+"\t"+newick);
+				}
+			}
+		}
+
+		//SVs mostly consistent with a clade of a random tree
+		List<RegionalTree> trees=new BatchRegionalTreeReader(treeFile, 10000).getRegionalTrees();
+		List<SimpleSVLocus> svs=new ArrayList<>();
+		SimpleSVType[] types={SimpleSVType.DEL,SimpleSVType.INS,SimpleSVType.INV,SimpleSVType.DUP};
+		for(int i=0;i<svNum;i++){
+			RegionalTree tree=trees.get(random.nextInt(trees.size()));
+			List<TreeNode> nodes=new ArrayList<>(tree.getTree().getNodeIDMap().values());
+			TreeNode node=nodes.get(random.nextInt(nodes.size()));
+			Set<String> presence=new HashSet<>();
+			for(TreeNode leaf:node.getAllDescendantLeafNodes())
+				presence.add(leaf.getLabel());
+			boolean flip=random.nextBoolean();
+
+			Map<Integer,Genotype> genotypes=new HashMap<>();
+			genotypes.put(1, random.nextInt(3)==0?Genotype.PRESENCE:Genotype.ABSENCE);
+			for(int s=0;s<leafNum;s++){
+				int x=random.nextInt(400);
+				Genotype g=(presence.contains("S"+s)^flip)?Genotype.PRESENCE:Genotype.ABSENCE;
+				if(x==0)
+					g=Genotype.MISSING;
+				else if(x==1)
+					g=Genotype.HETER;
+				else if(x==2)
+					g=g==Genotype.PRESENCE?Genotype.ABSENCE:Genotype.PRESENCE;
+				genotypes.put(s+2,g);
+			}
+			int start=tree.getStart()+random.nextInt(9000);
+			String chrom=random.nextInt(50)==0?"Chr9":tree.getChrom();
+			svs.add(new SimpleSVLocus(types[random.nextInt(4)], chrom, start, start+50+random.nextInt(random.nextInt(10)==0?30000:900), genotypes));
+		}
+
+		//whole file
+		Path wholeOutDir=Files.createDirectory(dir.resolve("whole"));
+		List<RegionalTree> wholeTrees=new BatchRegionalTreeReader(treeFile, 10000).getRegionalTrees();
+		new SvToRegionalTreeAssigner(wholeTrees, copy(svs), reader.getAllIngroupSampleIndices(), 0.5, false);
+		new SV2GRResultWriter(new GREventsInfererAndTemporalOrderResolver(wholeTrees, reader, 0.3, true, false, false, true), wholeOutDir);
+
+		//shards split within a chrom and across chroms
+		String[][] shardRegions={{"Chr1:1-70000","Chr3"},{"Chr1:70001-100000000","Chr9"},{"Chr2:1-35000"},{"Chr2:35001-999999999"}};
+		List<Path> shardDirs=new ArrayList<>();
+		for(int i=0;i<shardRegions.length;i++){
+			Path shardDir=Files.createDirectory(dir.resolve("shard"+i));
+			shardDirs.add(shardDir);
+			new StreamingSV2GRPipeline(treeFile, 10000, copy(svs), reader, reader.getAllIngroupSampleIndices(), 0.5, false, 0.3, true, false, false, true, 1, 5,
+					shardDir, SV2GRShard.fromRegionStrings(Arrays.asList(shardRegions[i])));
+		}
+		//the order of the shards does not matter
+		Collections.reverse(shardDirs);
+
+		Path mergedOutDir=Files.createDirectory(dir.resolve("merged"));
+		new SV2GRShardMerger(shardDirs, mergedOutDir);
+
+		for(File f:wholeOutDir.toFile().listFiles()){
+			byte[] expected=Files.readAllBytes(f.toPath());
+			byte[] actual=Files.readAllBytes(mergedOutDir.resolve(f.getName()));
+			System.out.println(f.getName()+"\t"+expected.length+" bytes");
+			if(!Arrays.equals(expected, actual))
+				throw new IllegalStateException("merged file is not the same as the one of the whole file:"+f.getName());
+		}
+
+		//overlapping shards are rejected
+		try{
+			new SV2GRShardMerger(Arrays.asList(shardDirs.get(0), shardDirs.get(0)), Files.createDirectory(dir.resolve("overlapping")));
+			throw new IllegalStateException("overlapping shards are not rejected!");
+		}catch(IllegalArgumentException e){
+			System.out.println("overlapping shards are rejected: "+e.getMessage());
+		}
+
+		System.out.println("all checks passed; outputs in "+dir);
+	}
+}
@@ -0,0 +1,345 @@
+package sv2gr;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import genomics.utils.GenomicRegionUtils;
+import population.popHierarchy.PopulationStructureFileReader;
+import population.sv.utils.SimpleSVLocus;
+import sv2gr.tree.RegionalTree;
+
+/**
+ * pipeline to run {@link SvToRegionalTreeAssigner}, {@link GREventsInfererAndTemporalOrderResolver} and {@link SV2GRResultWriter} block by block
+ * rather than for all regional trees of the genome at once
+ *
+ * the regional trees are read from the batch regional tree file with a {@link BatchRegionalTreeStreamReader} and grouped into blocks of consecutive trees on the same chrom,
+ * each with at most {@link #maxRegionalTreeNumPerBlock} trees; for each block,
+ * 		1. the SVs overlapping with the region of the block are retrieved by a merge-join of the trees with the SVs of the chrom sorted by start position;
+ * 			SVs overlapping with multiple blocks are kept until the block start passes their end;
+ * 		2. the SVs are assigned to the trees of the block, then the GR events are inferred and temporally ordered;
+ * 		3. the results are appended to the output files by {@link SV2GRResultWriter#append(GREventsInfererAndTemporalOrderResolver)} and the block is released;
+ *
+ * since the SV assignment, GR event inference and temporal order resolution of a regional tree only depends on the SVs overlapping with it,
+ * the output files are the same as the ones of running the three steps for all regional trees of the file at once;
+ * only the trees, GR events and GR event pairs of a single block are kept in memory
+ *
+ * if a {@link SV2GRShard} is given, only the trees in the shard and the SVs on the chroms of the shard are processed,
+ * and the output directory contains the partial results of the shard, which are the rows of the output files of the trees in the shard in the same order
+ * and the GR event pair matrix of the trees in the shard; in addition, the range of the trees and rows of each block is written to the {@link SV2GRShard#SEGMENT_FILE_NAME} file,
+ * with which the partial results of all shards are combined by {@link SV2GRShardMerger} into the same output files as processing all trees at once;
+ * each block then contains consecutive trees in the file only;
+ *
+ * @author tanxu
+ *
+ */
+public class StreamingSV2GRPipeline {
+	/**
+	 * batch regional tree file with trees in chromosome order; see {@link BatchRegionalTreeStreamReader}
+	 */
+	private final Path batchRegionalTreeFile;
+	/**
+	 *
+	 */
+	private final int windowSize;
+	/**
+	 * all SVs
+	 */
+	private final List<SimpleSVLocus> allSVLocusList;
+	/**
+	 *
+	 */
+	private final PopulationStructureFileReader populationStructureFileReader;
+	/**
+	 * see {@link SvToRegionalTreeAssigner}
+	 */
+	private final List<Integer> ingroupSampleIndices;
+	private final double minCoveredPropertion;
+	private final boolean toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype;
+	/**
+	 * see {@link GREventsInfererAndTemporalOrderResolver}
+	 */
+	private final double minBootstrapValue;
+	private final boolean allowingPartiallyOverlappingGREventPath;
+	private final boolean toTreatHeterGenotypeAsPresence;
+	private final boolean alwaysConsiderOutgroupSampleGenotype;
+	private final boolean onlyExtractContinuousGREventPairs;
+	private final int threadNum;
+
+	/**
+	 * max number of regional trees of each block; if non-positive, each block contains all trees of a chrom
+	 */
+	private final int maxRegionalTreeNumPerBlock;
+	/**
+	 *
+	 */
+	private final Path outDir;
+	/**
+	 * the shard of trees to process; null if all trees of the file are processed
+	 */
+	private final SV2GRShard shard;
+
+	//////////////////////////////
+	/**
+	 * map from chrom to the SVs on the chrom sorted by start position
+	 */
+	private Map<String, List<SimpleSVLocus>> chromSortedSVLocusListMap;
+
+	/**
+	 * the chrom of the current block
+	 */
+	private String currentChrom;
+	/**
+	 * index of the first SV of the {@link #currentChrom} not retrieved by any block yet
+	 */
+	private int nextSVIndex;
+	/**
+	 * SVs retrieved by the previous block that may overlap with the next block
+	 */
+	private List<SimpleSVLocus> carriedSVLocusList;
+
+	/**
+	 * number of processed blocks and regional trees
+	 */
+	private int blockNum;
+	private int regionalTreeNum;
+
+	/**
+	 * index of the first tree among all trees of the file, number of trees, number of rows of the SV table file and number of rows of the GR event pair table file of each processed block
+	 */
+	private List<int[]> blockSegments;
+
+
+	public StreamingSV2GRPipeline(
+			Path batchRegionalTreeFile, int windowSize,
+			List<SimpleSVLocus> allSVLocusList,
+			PopulationStructureFileReader populationStructureFileReader,
+			List<Integer> ingroupSampleIndices,
+			double minCoveredPropertion,
+			boolean toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype,
+			double minBootstrapValue,
+			boolean allowingPartiallyOverlappingGREventPath,
+			boolean toTreatHeterGenotypeAsPresence,
+			boolean alwaysConsiderOutgroupSampleGenotype,
+			boolean onlyExtractContinuousGREventPairs,
+			int threadNum,
+			int maxRegionalTreeNumPerBlock,
+			Path outDir
+			) {
+		this(batchRegionalTreeFile, windowSize, allSVLocusList, populationStructureFileReader, ingroupSampleIndices, minCoveredPropertion, 
+				toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype, minBootstrapValue, allowingPartiallyOverlappingGREventPath, 
+				toTreatHeterGenotypeAsPresence, alwaysConsiderOutgroupSampleGenotype, onlyExtractContinuousGREventPairs, threadNum, 
+				maxRegionalTreeNumPerBlock, outDir, null);
+	}
+
+	/**
+	 * 
+	 * @param shard the shard of trees to process; if null, all trees of the file are processed
+	 */
+	public StreamingSV2GRPipeline(
+			Path batchRegionalTreeFile, int windowSize,
+			List<SimpleSVLocus> allSVLocusList,
+			PopulationStructureFileReader populationStructureFileReader,
+			List<Integer> ingroupSampleIndices,
+			double minCoveredPropertion,
+			boolean toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype,
+			double minBootstrapValue,
+			boolean allowingPartiallyOverlappingGREventPath,
+			boolean toTreatHeterGenotypeAsPresence,
+			boolean alwaysConsiderOutgroupSampleGenotype,
+			boolean onlyExtractContinuousGREventPairs,
+			int threadNum,
+			int maxRegionalTreeNumPerBlock,
+			Path outDir,
+			SV2GRShard shard
+			) {
+		super();
+		this.batchRegionalTreeFile = batchRegionalTreeFile;
+		this.windowSize = windowSize;
+		this.allSVLocusList = allSVLocusList;
+		this.populationStructureFileReader = populationStructureFileReader;
+		this.ingroupSampleIndices = ingroupSampleIndices;
+		this.minCoveredPropertion = minCoveredPropertion;
+		this.toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype = toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype;
+		this.minBootstrapValue = minBootstrapValue;
+		this.allowingPartiallyOverlappingGREventPath = allowingPartiallyOverlappingGREventPath;
+		this.toTreatHeterGenotypeAsPresence = toTreatHeterGenotypeAsPresence;
+		this.alwaysConsiderOutgroupSampleGenotype = alwaysConsiderOutgroupSampleGenotype;
+		this.onlyExtractContinuousGREventPairs = onlyExtractContinuousGREventPairs;
+		this.threadNum = threadNum;
+		this.maxRegionalTreeNumPerBlock = maxRegionalTreeNumPerBlock;
+		this.outDir = outDir;
+		this.shard = shard;
+
+		//////////////////////////////
+		this.sortSVs();
+		this.run();
+	}
+
+
+	void sortSVs() {
+		this.chromSortedSVLocusListMap=new LinkedHashMap<>();
+
+		for(SimpleSVLocus sv:this.allSVLocusList) {
+			if(this.shard!=null && !this.shard.getChroms().contains(sv.getChrom())) {//SVs on other chroms never overlap with the trees of the shard
+				continue;
+			}
+			if(!this.chromSortedSVLocusListMap.containsKey(sv.getChrom())) {
+				this.chromSortedSVLocusListMap.put(sv.getChrom(), new ArrayList<>());
+			}
+			this.chromSortedSVLocusListMap.get(sv.getChrom()).add(sv);
+		}
+
+		for(String chrom:this.chromSortedSVLocusListMap.keySet()) {
+			Collections.sort(this.chromSortedSVLocusListMap.get(chrom), GenomicRegionUtils.sorterByChromAndStartPos());
+		}
+	}
+
+
+	void run() {
+		this.blockSegments=new ArrayList<>();
+		
+		try(BatchRegionalTreeStreamReader treeReader=new BatchRegionalTreeStreamReader(this.batchRegionalTreeFile, this.windowSize, this.shard==null?null:this.shard::containsTree);
+				SV2GRResultWriter writer=new SV2GRResultWriter(this.outDir)){
+			while(treeReader.hasNext()) {
+				List<RegionalTree> block=new ArrayList<>();
+				String chrom=treeReader.peek().getChrom();
+				int firstTreeIndex=treeReader.peekRegionalTreeIndex();
+
+				//trees not in the shard are skipped by the reader, thus a block stops at the first skipped tree
+				while(treeReader.hasNext() && treeReader.peek().getChrom().equals(chrom)
+						&& treeReader.peekRegionalTreeIndex()==firstTreeIndex+block.size()
+						&& (this.maxRegionalTreeNumPerBlock<=0 || block.size()<this.maxRegionalTreeNumPerBlock)) {
+					block.add(treeReader.next());
+				}
+
+				this.processBlock(block, firstTreeIndex, writer);
+			}
+
+			writer.close();
+			
+			if(this.shard!=null) {
+				this.writeSegmentFile();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * run the pipeline for the given block of regional trees on the same chrom sorted by start position and append the results to the writer
+	 * @param block
+	 * @param firstTreeIndex index of the first tree of the block among all trees of the file
+	 * @param writer
+	 * @throws IOException
+	 */
+	private void processBlock(List<RegionalTree> block, int firstTreeIndex, SV2GRResultWriter writer) throws IOException {
+		List<SimpleSVLocus> blockSVLocusList=this.retrieveOverlappingSVs(block);
+
+		new SvToRegionalTreeAssigner(block, blockSVLocusList, this.ingroupSampleIndices, this.minCoveredPropertion, this.toIgnoreSVWithOneOrMoreIngroupSampleWithHeterGenotype);
+
+		GREventsInfererAndTemporalOrderResolver resolver = new GREventsInfererAndTemporalOrderResolver(
+				block, this.populationStructureFileReader, this.minBootstrapValue, this.allowingPartiallyOverlappingGREventPath,
+				this.toTreatHeterGenotypeAsPresence, this.alwaysConsiderOutgroupSampleGenotype, this.onlyExtractContinuousGREventPairs, this.threadNum);
+
+		writer.append(resolver);
+		
+		GREventSummaryStatistics statistics=resolver.getSummaryStatistics();
+		this.blockSegments.add(new int[] {firstTreeIndex, block.size(), statistics.getCoveredSVNum(), statistics.getGREventPairNum()});
+
+		this.blockNum++;
+		this.regionalTreeNum+=block.size();
+	}
+
+	/**
+	 * write the regions of the {@link #shard} and the {@link #blockSegments} to the {@link SV2GRShard#SEGMENT_FILE_NAME} file in the output directory
+	 * @throws IOException
+	 */
+	private void writeSegmentFile() throws IOException {
+		try(BufferedWriter writer=new BufferedWriter(new FileWriter(Path.of(this.outDir.toString(), SV2GRShard.SEGMENT_FILE_NAME).toFile()))){
+			for(String region:this.shard.toRegionStrings()) {
+				writer.append("##region=").append(region);
+				writer.newLine();
+			}
+			writer.append(SV2GRShard.SEGMENT_FILE_HEADER_LINE);
+			writer.newLine();
+			
+			for(int[] segment:this.blockSegments) {
+				writer.append(Integer.toString(segment[0])).append("\t")
+				.append(Integer.toString(segment[1])).append("\t")
+				.append(Integer.toString(segment[2])).append("\t")
+				.append(Integer.toString(segment[3]));
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * retrieve all SVs overlapping with the region from the smallest start to the largest end of the given block of regional trees on the same chrom sorted by start position
+	 *
+	 * the returned SVs are sorted by start position
+	 *
+	 * @param block
+	 * @return
+	 */
+	private List<SimpleSVLocus> retrieveOverlappingSVs(List<RegionalTree> block){
+		String chrom=block.get(0).getChrom();
+		int blockStart=block.get(0).getStart();
+		int blockEnd=block.get(0).getEnd();
+		for(RegionalTree tree:block) {
+			blockEnd=Math.max(blockEnd, tree.getEnd());
+		}
+
+		if(!chrom.equals(this.currentChrom)) {
+			this.currentChrom=chrom;
+			this.nextSVIndex=0;
+			this.carriedSVLocusList=new ArrayList<>();
+		}
+
+		List<SimpleSVLocus> ret=new ArrayList<>();
+
+		//SVs retrieved by previous blocks, which are before all not retrieved SVs in sorted order
+		for(SimpleSVLocus sv:this.carriedSVLocusList) {
+			if(sv.getEnd()>=blockStart) {
+				ret.add(sv);
+			}
+		}
+
+		//
+		List<SimpleSVLocus> sortedSVs=this.chromSortedSVLocusListMap.containsKey(chrom)?this.chromSortedSVLocusListMap.get(chrom):Collections.emptyList();
+		while(this.nextSVIndex<sortedSVs.size() && sortedSVs.get(this.nextSVIndex).getStart()<=blockEnd) {
+			SimpleSVLocus sv=sortedSVs.get(this.nextSVIndex);
+			if(sv.getEnd()>=blockStart) {
+				ret.add(sv);
+			}
+			this.nextSVIndex++;
+		}
+
+		//the start of next block on the same chrom is no less than the current one, thus SVs ending before the current block will never be retrieved again
+		this.carriedSVLocusList=ret;
+
+		return ret;
+	}
+
+
+	/**
+	 * @return the number of processed blocks
+	 */
+	public int getBlockNum() {
+		return blockNum;
+	}
+
+	/**
+	 * @return the number of processed regional trees
+	 */
+	public int getRegionalTreeNum() {
+		return regionalTreeNum;
+	}
+}
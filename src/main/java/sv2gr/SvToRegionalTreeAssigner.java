@@ -63,6 +63,11 @@ public class SvToRegionalTreeAssigner {
 	
 	private Map<String, List<RegionalTree>> chromRegionalTreesMap;
 	
+	/**
+	 * index of the sorted {@link #chromRegionalTreesMap} to query the regional trees overlapping with each SV
+	 */
+	private RegionalTreeIntervalIndex regionalTreeIntervalIndex;
+	
 	public SvToRegionalTreeAssigner(
 			List<RegionalTree> regionalTrees, 
 			List<SimpleSVLocus> allSVLocusList,
@@ -86,7 +91,8 @@ public class SvToRegionalTreeAssigner {
 		this.sortRegionalTreesAndQualifedSVs();
 		
 //		this.assignSVLocusToRegionalTree();
-		this.assignSVLocusToRegionalTree2();
+//		this.assignSVLocusToRegionalTree2();
+		this.assignSVLocusToRegionalTree3();
 	}
 
 	/**
@@ -229,6 +235,33 @@ public class SvToRegionalTreeAssigner {
 	}
 	
 	
+	/**
+	 * assign each {@link SimpleSVLocus} to all {@link RegionalTree}s that covering proportion of the {@link SimpleSVLocus} more than {@link #minCoveredPropertion}
+	 * 
+	 * same as {@link #assignSVLocusToRegionalTree2()} except that only the regional trees overlapping with the SV are queried from the {@link RegionalTreeIntervalIndex}
+	 * rather than scanning all regional trees to the left of the SV on the same chrom;
+	 * 
+	 * the assigned regional trees and the order of SVs added to each regional tree are the same as {@link #assignSVLocusToRegionalTree2()}
+	 */
+	void assignSVLocusToRegionalTree3() {
+		this.regionalTreeIntervalIndex=new RegionalTreeIntervalIndex(this.chromRegionalTreesMap);
+		
+		for(String chrom:this.chromQualifiedSvLocusListMap.keySet()) {
+			if(this.chromRegionalTreesMap.containsKey(chrom)) {
+				for(SimpleSVLocus sv:this.chromQualifiedSvLocusListMap.get(chrom)) {
+					for(RegionalTree tree:this.regionalTreeIntervalIndex.getOverlappingRegionalTrees(chrom, sv.getStart(), sv.getEnd())) {
+						int coveredLen=this.getCoveredRegionLength(tree.getStart(), tree.getEnd(), sv.getStart(), sv.getEnd());
+						double coveredProportion=(double)coveredLen/sv.getSize();
+						if(coveredProportion>=this.minCoveredPropertion) {
+							tree.addCoveredSVLocus(sv);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	
 	/**
 	 * return the length of the region 2 covered by region 1
 	 * @param start1
@@ -0,0 +1,102 @@
+package sv2gr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import population.sv.utils.SimpleSVLocus;
+import population.sv.utils.SimpleSVType;
+import population.utils.Genotype;
+import sv2gr.tree.RegionalTree;
+
+/**
+ * benchmark of {@link SvToRegionalTreeAssigner#assignSVLocusToRegionalTree2()} and {@link SvToRegionalTreeAssigner#assignSVLocusToRegionalTree3()} on synthetic genomes
+ *
+ * both methods append the assigned SVs to the same regional trees, thus the SVs added by each method are compared by the sub-list of each tree's covered SVs
+ *
+ * @author tanxu
+ *
+ */
+public class SvToRegionalTreeAssignerTest {
+
+	/**
+	 *
+	 * @param args chrom number, window number per chrom, window size, SV number, min covered proportion
+	 */
+	public static void main(String[] args) {
+		int chromNum=args.length>0?Integer.parseInt(args[0]):10;
+		int windowNumPerChrom=args.length>1?Integer.parseInt(args[1]):4000;
+		int windowSize=args.length>2?Integer.parseInt(args[2]):10000;
+		int svNum=args.length>3?Integer.parseInt(args[3]):500000;
+		double minCoveredPropertion=args.length>4?Double.parseDouble(args[4]):0.5;
+
+		Random random=new Random(1);
+
+		/////////////////////synthetic regional trees tiling each chrom
+		List<RegionalTree> regionalTrees=new ArrayList<>();
+		int id=0;
+		for(int c=1;c<=chromNum;c++) {
+			String chrom="Chr"+c;
+			for(int w=0;w<windowNumPerChrom;w++) {
+				int start=w*windowSize+1;
+				regionalTrees.add(new RegionalTree(id++, windowSize, chrom, start, start+windowSize-1, null));
+			}
+		}
+
+		/////////////////////synthetic SVs with sizes from 50bp to 5 windows
+		SimpleSVType[] types=new SimpleSVType[] {SimpleSVType.DEL, SimpleSVType.INS, SimpleSVType.INV};
+		List<SimpleSVLocus> svs=new ArrayList<>();
+		for(int i=0;i<svNum;i++) {
+			String chrom="Chr"+(random.nextInt(chromNum)+1);
+			int size=50+random.nextInt(windowSize*5);
+			int start=random.nextInt(windowNumPerChrom*windowSize)+1;
+			Map<Integer, Genotype> sampleIndexGenotypeMap=new HashMap<>();
+			svs.add(new SimpleSVLocus(types[random.nextInt(types.length)], chrom, start, start+size-1, sampleIndexGenotypeMap));
+		}
+
+		System.out.println("tree num: "+regionalTrees.size()+"; SV num: "+svs.size());
+
+		/////////////////////
+		long startTime=System.nanoTime();
+		SvToRegionalTreeAssigner assigner=new SvToRegionalTreeAssigner(regionalTrees, svs, new ArrayList<>(), minCoveredPropertion, false);
+		System.out.println("constructor with indexed assignment: "+(System.nanoTime()-startTime)/1000000+" ms");
+
+		int[] sizesAfterIndexed=getCoveredSVNums(regionalTrees);
+
+		startTime=System.nanoTime();
+		assigner.assignSVLocusToRegionalTree2();
+		System.out.println("assignSVLocusToRegionalTree2 (linear scan): "+(System.nanoTime()-startTime)/1000000+" ms");
+
+		int[] sizesAfterLinear=getCoveredSVNums(regionalTrees);
+
+		startTime=System.nanoTime();
+		assigner.assignSVLocusToRegionalTree3();
+		System.out.println("assignSVLocusToRegionalTree3 (indexed): "+(System.nanoTime()-startTime)/1000000+" ms");
+
+		/////////////////////compare the SVs added by each method
+		long assignmentNum=0;
+		for(int i=0;i<regionalTrees.size();i++) {
+			List<SimpleSVLocus> covered=regionalTrees.get(i).getCoveredSVLocusList();
+			List<SimpleSVLocus> indexed=covered.subList(0, sizesAfterIndexed[i]);
+			List<SimpleSVLocus> linear=covered.subList(sizesAfterIndexed[i], sizesAfterLinear[i]);
+			List<SimpleSVLocus> indexed2=covered.subList(sizesAfterLinear[i], covered.size());
+
+			if(!indexed.equals(linear) || !indexed2.equals(linear)) {
+				throw new IllegalStateException("assigned SVs are different for regional tree "+regionalTrees.get(i).getID());
+			}
+			assignmentNum+=linear.size();
+		}
+
+		System.out.println("identical assignments: "+assignmentNum);
+	}
+
+	private static int[] getCoveredSVNums(List<RegionalTree> regionalTrees) {
+		int[] ret=new int[regionalTrees.size()];
+		for(int i=0;i<regionalTrees.size();i++) {
+			ret[i]=regionalTrees.get(i).getCoveredSVLocusList().size();
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,243 @@
+package sv2gr.gr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sv2gr.tree.DescendantToAncestralTreePath;
+import sv2gr.tree.DescendantToAncestralTreePathUtils;
+import sv2gr.tree.Tree;
+import sv2gr.tree.TreeAncestorIndex;
+import sv2gr.tree.TreeNode;
+
+/**
+ * index of all {@link GREvent}s inferred on the same {@link Tree} by the descendant and ancestral nodes of their assigned tree paths
+ *
+ * the descendant nodes (itself inclusive) of a node n are exactly the nodes with pre-order number in [pre(n), last(n)] of the {@link TreeAncestorIndex} of the tree,
+ * where last(n) is the largest pre-order number in the clade of n; and whether a node is an ancestor of another node is checked in O(1) time;
+ *
+ * since the tree path of every {@link GREvent} is a chain of nodes from its descendant node to one of its ancestral node,
+ * 		1. two {@link GREvent}s are on the same leaf-root path (see {@link DescendantToAncestralTreePathUtils#onSameLeafRootPath(DescendantToAncestralTreePath, DescendantToAncestralTreePath)})
+ * 			if and only if the descendant node of one is a strict ancestor of the descendant node of the other one;
+ * 			so the candidate {@link GREvent}s of a given one are found by walking up from its descendant node and by a binary search on the {@link GREvent}s sorted by pre-order number of the descendant node;
+ * 		2. the nodes of two such tree paths are all on the path from the deeper descendant node to the root,
+ * 			thus the shared and covering tree paths are fully determined by the depths of the four boundary nodes;
+ *
+ * the index of a {@link GREvent} is its position in the list given to the constructor
+ *
+ * @author tanxu
+ *
+ */
+public class GREventPathIndex {
+	/**
+	 *
+	 */
+	private final Tree tree;
+	/**
+	 * all {@link GREvent}s inferred on the {@link #tree}
+	 */
+	private final List<GREvent> grEvents;
+
+	//////////////////////////////////
+	/**
+	 * the ancestor index of the {@link #tree}
+	 */
+	private TreeAncestorIndex ancestorIndex;
+
+	/**
+	 * map from the descendant node to the indices of {@link GREvent}s with that descendant node,
+	 * sorted by decreasing depth of the ancestral node (then by index)
+	 */
+	private Map<TreeNode, List<Integer>> descendantNodeGREventIndicesMap;
+
+	/**
+	 * indices of all {@link GREvent}s sorted by pre-order number of the descendant node (then by index) and the corresponding pre-order numbers
+	 */
+	private int[] grEventIndicesSortedByDescendantNode;
+	private int[] sortedDescendantNodePreOrderNums;
+
+
+	/**
+	 *
+	 * @param tree
+	 * @param grEvents all {@link GREvent}s whose assigned tree paths are on the given tree
+	 */
+	public GREventPathIndex(Tree tree, List<GREvent> grEvents) {
+		super();
+		this.tree = tree;
+		this.grEvents = grEvents;
+
+		///////////////////
+		this.ancestorIndex=this.tree.getAncestorIndex();
+		this.indexGREvents();
+	}
+
+
+	void indexGREvents() {
+		this.descendantNodeGREventIndicesMap=new HashMap<>();
+		List<Integer> sortedIndices=new ArrayList<>();
+
+		for(int i=0;i<this.grEvents.size();i++) {
+			TreeNode descendantNode=this.getDescendantNode(i);
+			if(!this.descendantNodeGREventIndicesMap.containsKey(descendantNode)) {
+				this.descendantNodeGREventIndicesMap.put(descendantNode, new ArrayList<>());
+			}
+			this.descendantNodeGREventIndicesMap.get(descendantNode).add(i);
+			sortedIndices.add(i);
+		}
+
+		for(List<Integer> indices:this.descendantNodeGREventIndicesMap.values()) {
+			//stable sort, thus indices with the same depth of ancestral node are still in increasing order
+			indices.sort((i,j)->Integer.compare(this.getDepth(this.getAncestralNode(j)), this.getDepth(this.getAncestralNode(i))));
+		}
+
+		sortedIndices.sort((i,j)->Integer.compare(this.getPreOrderNum(this.getDescendantNode(i)), this.getPreOrderNum(this.getDescendantNode(j))));
+
+		this.grEventIndicesSortedByDescendantNode=new int[sortedIndices.size()];
+		this.sortedDescendantNodePreOrderNums=new int[sortedIndices.size()];
+		for(int k=0;k<sortedIndices.size();k++) {
+			this.grEventIndicesSortedByDescendantNode[k]=sortedIndices.get(k);
+			this.sortedDescendantNodePreOrderNums[k]=this.getPreOrderNum(this.getDescendantNode(sortedIndices.get(k)));
+		}
+	}
+
+
+	//////////////////////////////////
+	/**
+	 * @param node
+	 * @return the number of edges from the root node to the given node
+	 */
+	public int getDepth(TreeNode node) {
+		return this.ancestorIndex.getDepth(node);
+	}
+
+	private int getPreOrderNum(TreeNode node) {
+		return this.ancestorIndex.getPreOrderNum(node);
+	}
+
+	/**
+	 * @param index
+	 * @return the descendant node of the tree path of the {@link GREvent} with the given index
+	 */
+	public TreeNode getDescendantNode(int index) {
+		return this.grEvents.get(index).getAssignedTreePath().getDescendantNode();
+	}
+
+	/**
+	 * @param index
+	 * @return the ancestral node of the tree path of the {@link GREvent} with the given index
+	 */
+	public TreeNode getAncestralNode(int index) {
+		return this.grEvents.get(index).getAssignedTreePath().getAncestralNode();
+	}
+
+
+	/**
+	 * return the indices of all {@link GREvent}s on the same leaf-root path with the {@link GREvent} of the given index in increasing order
+	 *
+	 * equivalent to check {@link DescendantToAncestralTreePathUtils#onSameLeafRootPath(DescendantToAncestralTreePath, DescendantToAncestralTreePath)} with all other {@link GREvent}s;
+	 *
+	 * @param index
+	 * @return
+	 */
+	public List<Integer> getIndicesOfGREventsOnSameLeafRootPath(int index){
+		List<Integer> ret=new ArrayList<>();
+
+		TreeNode descendantNode=this.getDescendantNode(index);
+
+		//GR events with descendant node being strict ancestor of the given one's
+		TreeNode currentNode=descendantNode.getParent();
+		while(currentNode!=null) {
+			if(this.descendantNodeGREventIndicesMap.containsKey(currentNode)) {
+				ret.addAll(this.descendantNodeGREventIndicesMap.get(currentNode));
+			}
+			currentNode=currentNode.getParent();
+		}
+
+		//GR events with descendant node being strict descendant of the given one's, whose pre-order numbers are in (pre, last]
+		int last=this.ancestorIndex.getLastPreOrderNumInClade(descendantNode);
+		for(int k=this.getFirstSortedPositionLargerThan(this.getPreOrderNum(descendantNode));k<this.sortedDescendantNodePreOrderNums.length && this.sortedDescendantNodePreOrderNums[k]<=last;k++) {
+			ret.add(this.grEventIndicesSortedByDescendantNode[k]);
+		}
+
+		Collections.sort(ret);
+
+		return ret;
+	}
+
+	/**
+	 * binary search the first position in {@link #sortedDescendantNodePreOrderNums} with value larger than the given pre-order number
+	 * @param preOrderNum
+	 * @return
+	 */
+	private int getFirstSortedPositionLargerThan(int preOrderNum) {
+		int low=0;
+		int high=this.sortedDescendantNodePreOrderNums.length;
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(this.sortedDescendantNodePreOrderNums[mid]<=preOrderNum) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * return the number of branches shared by the tree paths of the two {@link GREvent}s with given indices, which must be on the same leaf-root path
+	 *
+	 * equivalent to the {@link DescendantToAncestralTreePath#getBranchNumOnPath()} of {@link DescendantToAncestralTreePathUtils#getSharedTreePath(DescendantToAncestralTreePath, DescendantToAncestralTreePath)}
+	 * thus -1 if the two tree paths do not share any node
+	 *
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public int getSharedBranchNum(int i, int j) {
+		int lowestAncestralNodeDepth=Math.max(this.getDepth(this.getAncestralNode(i)), this.getDepth(this.getAncestralNode(j)));
+		int highestDescendantNodeDepth=Math.min(this.getDepth(this.getDescendantNode(i)), this.getDepth(this.getDescendantNode(j)));
+
+		return Math.max(highestDescendantNodeDepth-lowestAncestralNodeDepth, -1);
+	}
+
+
+	/**
+	 * return whether there is any other {@link GREvent} whose tree path is fully inside the shortest tree path covering the tree paths of the two {@link GREvent}s with given indices,
+	 * which must be on the same leaf-root path
+	 *
+	 * equivalent to check {@link DescendantToAncestralTreePathUtils#p1IsFullyInsideOFP2(DescendantToAncestralTreePath, DescendantToAncestralTreePath)}
+	 * of every other {@link GREvent} against {@link DescendantToAncestralTreePathUtils#getShortestCoveringTreePath(DescendantToAncestralTreePath, DescendantToAncestralTreePath)};
+	 *
+	 * such a {@link GREvent} must have a descendant node that is a strict ancestor of the descendant node of the covering path and an ancestral node that is a strict descendant of the ancestral node of the covering path;
+	 * thus only the nodes between the two boundary nodes of the covering path need to be checked, each with the {@link GREvent} with the deepest ancestral node other than the given two ones
+	 *
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public boolean hasOtherGREventFullyInsideCoveringTreePath(int i, int j) {
+		TreeNode coveringDescendantNode=this.ancestorIndex.isStrictAncestor(this.getDescendantNode(i), this.getDescendantNode(j))?this.getDescendantNode(j):this.getDescendantNode(i);
+		int coveringAncestralNodeDepth=Math.min(this.getDepth(this.getAncestralNode(i)), this.getDepth(this.getAncestralNode(j)));
+
+		TreeNode currentNode=coveringDescendantNode.getParent();
+		while(currentNode!=null && this.getDepth(currentNode)>coveringAncestralNodeDepth) {
+			if(this.descendantNodeGREventIndicesMap.containsKey(currentNode)) {
+				for(int k:this.descendantNodeGREventIndicesMap.get(currentNode)) {
+					if(k!=i && k!=j) {
+						if(this.getDepth(this.getAncestralNode(k))>coveringAncestralNodeDepth) {
+							return true;
+						}
+						break;//the ancestral nodes of the remaining ones are not deeper
+					}
+				}
+			}
+			currentNode=currentNode.getParent();
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,214 @@
+package sv2gr.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * compact table of the leaf samples of the clade of every {@link TreeNode} of a {@link Tree}
+ *
+ * the clade of each tree node is stored as a bitset over the sample index (see {@link TreeNode#getSampleIndex()}) packed into long words,
+ * thus the bitsets of the same sample set are the same on all regional trees with the same samples;
+ *
+ * all bitsets are built with a single post-order pass, the bitset of an internal node being the OR of the bitsets of its child nodes;
+ * this gives O(1) membership check and word-parallel set algebra (subset, intersection) of clades, rather than the {@link java.util.Set} built by {@link TreeNode#getAllDescendantLeafNodes()};
+ *
+ * the table is built for the current structure and sample indices of the tree, see {@link Tree#getCladeLeafBitsetTable()}
+ *
+ * @author tanxu
+ *
+ */
+public class CladeLeafBitsetTable {
+	/**
+	 *
+	 */
+	private final Tree tree;
+	/**
+	 * number of samples; all sample indices of leaf nodes must be smaller than this
+	 */
+	private final int sampleNum;
+
+	////////////////////////////////
+	/**
+	 * number of long words of the bitset of a tree node
+	 */
+	private int wordNum;
+	/**
+	 * bitsets of all tree nodes; the bitset of tree node with id i starts from i*{@link #wordNum}
+	 */
+	private long[] bitsets;
+
+	/**
+	 * the sample index must be assigned to all leaf nodes already
+	 * @param tree
+	 * @param sampleNum
+	 */
+	public CladeLeafBitsetTable(Tree tree, int sampleNum) {
+		super();
+		this.tree = tree;
+		this.sampleNum = sampleNum;
+
+		////////////////////
+		this.build();
+	}
+
+	void build() {
+		this.wordNum=(this.sampleNum+63)>>>6;
+
+		TreeNodeTable table=this.tree.getNodeTable();
+		this.bitsets=new long[(table.getMaxID()+1)*this.wordNum];
+
+		//reverse pre-order visits each node after all its descendant nodes
+		for(int i=table.getNodeNum()-1;i>=0;i--) {
+			TreeNode node=table.getPreOrderNode(i);
+			int offset=node.getId()*this.wordNum;
+
+			if(node.isLeaf()) {
+				Integer sampleIndex=node.getSampleIndex();
+				if(sampleIndex==null) {
+					throw new IllegalStateException("sample index is not assigned to leaf node "+node.getLabel());
+				}
+				if(sampleIndex<0||sampleIndex>=this.sampleNum) {
+					throw new IllegalArgumentException("sample index "+sampleIndex+" of leaf node "+node.getLabel()+" is out of range!");
+				}
+				this.bitsets[offset+(sampleIndex>>>6)]|=1L<<(sampleIndex&63);
+			}else {
+				for(TreeNode child:node.getChildNodeList()) {
+					int childOffset=child.getId()*this.wordNum;
+					for(int w=0;w<this.wordNum;w++) {
+						this.bitsets[offset+w]|=this.bitsets[childOffset+w];
+					}
+				}
+			}
+		}
+	}
+
+	//////////////////////////////////////
+	/**
+	 * @return the number of long words of each bitset
+	 */
+	public int getWordNum() {
+		return this.wordNum;
+	}
+
+	/**
+	 * @return the number of samples
+	 */
+	public int getSampleNum() {
+		return this.sampleNum;
+	}
+
+	/**
+	 * @param node
+	 * @param sampleIndex
+	 * @return true if the clade of the given node contains the leaf node of the given sample
+	 */
+	public boolean contains(TreeNode node, int sampleIndex) {
+		if(sampleIndex<0||sampleIndex>=this.sampleNum) {
+			return false;
+		}
+		return (this.bitsets[node.getId()*this.wordNum+(sampleIndex>>>6)]&(1L<<(sampleIndex&63)))!=0;
+	}
+
+	/**
+	 * @param node
+	 * @return the number of leaf nodes in the clade of the given node
+	 */
+	public int getLeafNum(TreeNode node) {
+		int offset=node.getId()*this.wordNum;
+		int ret=0;
+		for(int w=0;w<this.wordNum;w++) {
+			ret+=Long.bitCount(this.bitsets[offset+w]);
+		}
+		return ret;
+	}
+
+	/**
+	 * @param node
+	 * @return a copy of the bitset of the clade of the given node
+	 */
+	public long[] getBitset(TreeNode node) {
+		int offset=node.getId()*this.wordNum;
+		return Arrays.copyOfRange(this.bitsets, offset, offset+this.wordNum);
+	}
+
+	/**
+	 * @param node
+	 * @return the sample indices of all leaf nodes in the clade of the given node in increasing order
+	 */
+	public List<Integer> getSampleIndices(TreeNode node){
+		List<Integer> ret=new ArrayList<>();
+		int offset=node.getId()*this.wordNum;
+		for(int w=0;w<this.wordNum;w++) {
+			long word=this.bitsets[offset+w];
+			while(word!=0) {
+				ret.add((w<<6)+Long.numberOfTrailingZeros(word));
+				word&=word-1;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @param node
+	 * @param bitset bitset over the sample indices with at least {@link #getWordNum()} words
+	 * @return true if all leaf samples of the clade of the given node are in the given bitset
+	 */
+	public boolean isSubsetOf(TreeNode node, long[] bitset) {
+		int offset=node.getId()*this.wordNum;
+		for(int w=0;w<this.wordNum;w++) {
+			if((this.bitsets[offset+w]&~bitset[w])!=0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param node1
+	 * @param node2
+	 * @return true if the clade of node1 is contained in the clade of node2
+	 */
+	public boolean isSubsetOf(TreeNode node1, TreeNode node2) {
+		int offset1=node1.getId()*this.wordNum;
+		int offset2=node2.getId()*this.wordNum;
+		for(int w=0;w<this.wordNum;w++) {
+			if((this.bitsets[offset1+w]&~this.bitsets[offset2+w])!=0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param node1
+	 * @param node2
+	 * @return true if the clades of the two nodes share at least one leaf sample
+	 */
+	public boolean intersects(TreeNode node1, TreeNode node2) {
+		int offset1=node1.getId()*this.wordNum;
+		int offset2=node2.getId()*this.wordNum;
+		for(int w=0;w<this.wordNum;w++) {
+			if((this.bitsets[offset1+w]&this.bitsets[offset2+w])!=0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * build a bitset over the sample indices with the same number of words as the bitsets of this table
+	 * @param sampleIndices
+	 * @return
+	 */
+	public long[] toBitset(Iterable<Integer> sampleIndices) {
+		long[] ret=new long[this.wordNum];
+		for(int sampleIndex:sampleIndices) {
+			if(sampleIndex<0||sampleIndex>=this.sampleNum) {
+				throw new IllegalArgumentException("sample index "+sampleIndex+" is out of range!");
+			}
+			ret[sampleIndex>>>6]|=1L<<(sampleIndex&63);
+		}
+		return ret;
+	}
+}
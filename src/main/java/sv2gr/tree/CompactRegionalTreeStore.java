@@ -0,0 +1,450 @@
+package sv2gr.tree;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import sv2gr.BatchRegionalTreeReader;
+
+/**
+ * compact in-memory store of a large number of {@link RegionalTree}s so that all regional trees of a genome (10^5 to 10^6 trees) can be kept in memory at the same time
+ *
+ * rather than one object per node, all trees are stored in a few primitive arrays shared by all trees:
+ * 		1. the nodes of each tree are stored in pre-order in a consecutive range of the node arrays;
+ * 		2. topology is encoded by the index of the parent node (relative to the root node of the tree, -1 for root node) and the number of nodes in the subtree of each node,
+ * 			thus the children nodes of node i are i+1, i+1+subtreeNodeNum[i+1], ...
+ * 		3. branch lengths and bootstraps are stored as float with NaN for null;
+ * 		4. labels are stored as the index in the {@link SampleLabelDictionary} shared by all trees, -1 for null;
+ *
+ * each stored tree is accessed by a light-weight {@link RegionalTreeView}, which can be materialized into a full {@link RegionalTree} by {@link RegionalTreeView#toRegionalTree()}
+ * so that existing algorithms can be run on it unchanged; the materialized tree is independent of the store and can be released after use;
+ *
+ * note that
+ * 1. branch lengths and bootstraps are rounded to float; when materialized, the float is converted back to the shortest decimal representation,
+ * 		thus values with no more than 7 significant digits (as the outputs of most tree building tools) are restored exactly;
+ * 2. node ids of the materialized tree are the pre-order index of the nodes, which is the same as the trees parsed by {@link Tree#fromNewickString(CharSequence, phylo.tree.reader.NewickFileFormatType)};
+ *
+ * trees can be added by a single thread only, but the views of the added trees can be read and materialized by multiple threads concurrently
+ *
+ * @author tanxu
+ *
+ */
+public final class CompactRegionalTreeStore {
+	private static final int INITIAL_TREE_CAPACITY=1024;
+	private static final int INITIAL_NODE_CAPACITY=1024*64;
+
+	/**
+	 * window size of all {@link RegionalTree}s
+	 */
+	private final int windowSize;
+	/**
+	 * labels of all nodes of all trees
+	 */
+	private final SampleLabelDictionary labelDictionary;
+
+	////////////////////////////////per tree
+	private int treeNum;
+	private int[] treeIDs;
+	private int[] chromIndices;
+	private int[] starts;
+	private int[] ends;
+	/**
+	 * index of the root node of each tree in the node arrays; the entry after the last tree is the total number of nodes
+	 */
+	private int[] nodeOffsets;
+
+	private final List<String> chroms;
+	private final Map<String, Integer> chromIndexMap;
+
+	////////////////////////////////per node
+	private int nodeNum;
+	private int[] parentIndices;
+	private int[] subtreeNodeNums;
+	private int[] labelIndices;
+	private float[] distsToParent;
+	private float[] bootstraps;
+
+
+	/**
+	 *
+	 * @param windowSize
+	 * @param labelDictionary shared dictionary of the sample names
+	 */
+	public CompactRegionalTreeStore(int windowSize, SampleLabelDictionary labelDictionary) {
+		super();
+		this.windowSize = windowSize;
+		this.labelDictionary = labelDictionary;
+
+		this.treeIDs=new int[INITIAL_TREE_CAPACITY];
+		this.chromIndices=new int[INITIAL_TREE_CAPACITY];
+		this.starts=new int[INITIAL_TREE_CAPACITY];
+		this.ends=new int[INITIAL_TREE_CAPACITY];
+		this.nodeOffsets=new int[INITIAL_TREE_CAPACITY+1];
+		this.chroms=new ArrayList<>();
+		this.chromIndexMap=new HashMap<>();
+
+		this.parentIndices=new int[INITIAL_NODE_CAPACITY];
+		this.subtreeNodeNums=new int[INITIAL_NODE_CAPACITY];
+		this.labelIndices=new int[INITIAL_NODE_CAPACITY];
+		this.distsToParent=new float[INITIAL_NODE_CAPACITY];
+		this.bootstraps=new float[INITIAL_NODE_CAPACITY];
+	}
+
+	public CompactRegionalTreeStore(int windowSize) {
+		this(windowSize, new SampleLabelDictionary());
+	}
+
+	/**
+	 * read all regional trees of the given batch regional tree file into a new store;
+	 *
+	 * the trees are parsed one line at a time with {@link BatchRegionalTreeReader#parseRegionalTree(String, int)}, thus the full object graph of only one tree is kept in memory at any time;
+	 * the trees can be in any order (for example in the order of job completion as written by {@link phylo.batch.BatchRegionalTreeManager}) and are added to the store in the order of the file
+	 *
+	 * @param batchRegionalTreeFile
+	 * @param windowSize
+	 * @return
+	 */
+	public static CompactRegionalTreeStore fromBatchRegionalTreeFile(Path batchRegionalTreeFile, int windowSize) {
+		CompactRegionalTreeStore ret=new CompactRegionalTreeStore(windowSize);
+
+		try(BufferedReader lineReader=new BufferedReader(new FileReader(batchRegionalTreeFile.toFile()))){
+			String line = null;
+			while ((line = lineReader.readLine()) != null) {
+				if(line.isEmpty() || line.startsWith("#")) { //header line starts with #
+					continue;
+				}
+				ret.add(BatchRegionalTreeReader.parseRegionalTree(line, windowSize));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * add the given regional tree to the end of this store; only the ID, region and the {@link Tree} are stored
+	 * @param regionalTree
+	 * @return the index of the added tree in this store
+	 */
+	public int add(RegionalTree regionalTree) {
+		return this.add(regionalTree.getID(), regionalTree.getChrom(), regionalTree.getStart(), regionalTree.getEnd(), regionalTree.getTree());
+	}
+
+	/**
+	 * add a tree with the given ID and region to the end of this store
+	 * @param ID
+	 * @param chrom
+	 * @param start
+	 * @param end
+	 * @param tree
+	 * @return the index of the added tree in this store
+	 */
+	public int add(int ID, String chrom, int start, int end, Tree tree) {
+		TreeNodeTable table=tree.getNodeTable();
+		int treeNodeNum=table.getNodeNum();
+
+		this.ensureTreeCapacity(this.treeNum+1);
+		this.ensureNodeCapacity(this.nodeNum+treeNodeNum);
+
+		int offset=this.nodeNum;
+		//pre-order index of each node by id
+		int[] preOrderIndices=new int[table.getMaxID()+1];
+		for(int i=0;i<treeNodeNum;i++) {
+			TreeNode node=table.getPreOrderNode(i);
+			preOrderIndices[node.getId()]=i;
+
+			int index=offset+i;
+			this.parentIndices[index]=node.getParent()==null?-1:preOrderIndices[node.getParent().getId()];
+			this.subtreeNodeNums[index]=1;
+			this.labelIndices[index]=node.getLabel()==null?-1:this.labelDictionary.getOrAddIndex(node.getLabel());
+			this.distsToParent[index]=node.getDistToParent()==null?Float.NaN:node.getDistToParent().floatValue();
+			this.bootstraps[index]=node.getBootstrap()==null?Float.NaN:node.getBootstrap().floatValue();
+		}
+		//in reverse pre-order, each node is visited after all its descendant nodes
+		for(int i=treeNodeNum-1;i>0;i--) {
+			this.subtreeNodeNums[offset+this.parentIndices[offset+i]]+=this.subtreeNodeNums[offset+i];
+		}
+
+		Integer chromIndex=this.chromIndexMap.get(chrom);
+		if(chromIndex==null) {
+			chromIndex=this.chroms.size();
+			this.chroms.add(chrom);
+			this.chromIndexMap.put(chrom, chromIndex);
+		}
+
+		this.treeIDs[this.treeNum]=ID;
+		this.chromIndices[this.treeNum]=chromIndex;
+		this.starts[this.treeNum]=start;
+		this.ends[this.treeNum]=end;
+		this.nodeOffsets[this.treeNum]=offset;
+		this.nodeOffsets[this.treeNum+1]=offset+treeNodeNum;
+
+		this.nodeNum+=treeNodeNum;
+		return this.treeNum++;
+	}
+
+	private void ensureTreeCapacity(int capacity) {
+		if(capacity>this.treeIDs.length) {
+			int newCapacity=Math.max(capacity, this.treeIDs.length*2);
+			this.treeIDs=Arrays.copyOf(this.treeIDs, newCapacity);
+			this.chromIndices=Arrays.copyOf(this.chromIndices, newCapacity);
+			this.starts=Arrays.copyOf(this.starts, newCapacity);
+			this.ends=Arrays.copyOf(this.ends, newCapacity);
+			this.nodeOffsets=Arrays.copyOf(this.nodeOffsets, newCapacity+1);
+		}
+	}
+
+	private void ensureNodeCapacity(int capacity) {
+		if(capacity>this.parentIndices.length) {
+			int newCapacity=Math.max(capacity, this.parentIndices.length*2);
+			this.parentIndices=Arrays.copyOf(this.parentIndices, newCapacity);
+			this.subtreeNodeNums=Arrays.copyOf(this.subtreeNodeNums, newCapacity);
+			this.labelIndices=Arrays.copyOf(this.labelIndices, newCapacity);
+			this.distsToParent=Arrays.copyOf(this.distsToParent, newCapacity);
+			this.bootstraps=Arrays.copyOf(this.bootstraps, newCapacity);
+		}
+	}
+
+	/**
+	 * release the unused capacity of the arrays after all trees are added
+	 */
+	public void trimToSize() {
+		this.treeIDs=Arrays.copyOf(this.treeIDs, this.treeNum);
+		this.chromIndices=Arrays.copyOf(this.chromIndices, this.treeNum);
+		this.starts=Arrays.copyOf(this.starts, this.treeNum);
+		this.ends=Arrays.copyOf(this.ends, this.treeNum);
+		this.nodeOffsets=Arrays.copyOf(this.nodeOffsets, this.treeNum+1);
+
+		this.parentIndices=Arrays.copyOf(this.parentIndices, this.nodeNum);
+		this.subtreeNodeNums=Arrays.copyOf(this.subtreeNodeNums, this.nodeNum);
+		this.labelIndices=Arrays.copyOf(this.labelIndices, this.nodeNum);
+		this.distsToParent=Arrays.copyOf(this.distsToParent, this.nodeNum);
+		this.bootstraps=Arrays.copyOf(this.bootstraps, this.nodeNum);
+	}
+
+	/**
+	 * @param value float value stored in the node arrays
+	 * @return null if NaN; otherwise the double with the shortest decimal representation of the float value
+	 */
+	private static Double toDouble(float value) {
+		return Float.isNaN(value)?null:Double.parseDouble(Float.toString(value));
+	}
+
+	/**
+	 * build a full {@link Tree} from the nodes in pre-order stored in the given arrays from the given offset, with node id equal to the pre-order index of each node
+	 * 
+	 * @param parentIndices pre-order index of the parent node relative to the offset, -1 for root node
+	 * @param labelIndices index of the label, -1 for null
+	 * @param distsToParent NaN for null
+	 * @param bootstraps NaN for null
+	 * @param offset index of the root node in the arrays
+	 * @param nodeNum number of nodes of the tree
+	 * @param labels label of each label index
+	 * @return
+	 */
+	static Tree buildTree(int[] parentIndices, int[] labelIndices, float[] distsToParent, float[] bootstraps, int offset, int nodeNum, IntFunction<String> labels) {
+		Tree ret=new Tree();
+		TreeNode[] nodes=new TreeNode[nodeNum];
+		List<List<TreeNode>> childNodeLists=new ArrayList<>(nodeNum);
+
+		for(int i=0;i<nodeNum;i++) {
+			int parent=parentIndices[offset+i];
+			int labelIndex=labelIndices[offset+i];
+			TreeNode node=new TreeNode(ret, i, parent<0?null:nodes[parent]);
+			node.setLabel(labelIndex<0?null:labels.apply(labelIndex));
+			node.setDistToParent(toDouble(distsToParent[offset+i]));
+			node.setBootstrap(toDouble(bootstraps[offset+i]));
+			nodes[i]=node;
+			childNodeLists.add(new ArrayList<>());
+			if(parent>=0) {
+				childNodeLists.get(parent).add(node);
+			}
+		}
+		for(int i=0;i<nodeNum;i++) {
+			nodes[i].setChildNodeList(childNodeLists.get(i));
+		}
+		ret.setRootNode(nodes[0]);
+
+		return ret;
+	}
+
+	//////////////////////////////////////
+	/**
+	 * @return the number of stored trees
+	 */
+	public int getTreeNum() {
+		return this.treeNum;
+	}
+
+	/**
+	 * @return the total number of nodes of all stored trees
+	 */
+	public int getNodeNum() {
+		return this.nodeNum;
+	}
+
+	/**
+	 * @return the windowSize
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * @return the labelDictionary
+	 */
+	public SampleLabelDictionary getLabelDictionary() {
+		return labelDictionary;
+	}
+
+	/**
+	 * @param treeIndex index of the tree in this store in the order of addition
+	 * @return a new view of the tree
+	 */
+	public RegionalTreeView getTreeView(int treeIndex) {
+		if(treeIndex<0||treeIndex>=this.treeNum) {
+			throw new IllegalArgumentException("given tree index is out of range:"+treeIndex);
+		}
+		return new RegionalTreeView(treeIndex);
+	}
+
+	/**
+	 * light-weight read-only view of a tree stored in the {@link CompactRegionalTreeStore}, holding nothing but the index of the tree;
+	 *
+	 * nodes of the tree are referred to by their pre-order index from 0 (root node) to {@link #getNodeNum()}-1
+	 *
+	 * @author tanxu
+	 *
+	 */
+	public final class RegionalTreeView{
+		private final int treeIndex;
+		private final int offset;
+
+		RegionalTreeView(int treeIndex){
+			this.treeIndex=treeIndex;
+			this.offset=nodeOffsets[treeIndex];
+		}
+
+		public int getTreeIndex() {
+			return this.treeIndex;
+		}
+
+		public int getID() {
+			return treeIDs[this.treeIndex];
+		}
+
+		public String getChrom() {
+			return chroms.get(chromIndices[this.treeIndex]);
+		}
+
+		public int getStart() {
+			return starts[this.treeIndex];
+		}
+
+		public int getEnd() {
+			return ends[this.treeIndex];
+		}
+
+		/**
+		 * @return the number of nodes of the tree
+		 */
+		public int getNodeNum() {
+			return nodeOffsets[this.treeIndex+1]-this.offset;
+		}
+
+		/**
+		 * @param node pre-order index of the node
+		 * @return pre-order index of the parent node; -1 for root node
+		 */
+		public int getParent(int node) {
+			return parentIndices[this.offset+node];
+		}
+
+		/**
+		 * @param node
+		 * @return the number of nodes in the subtree rooted at the given node (inclusive)
+		 */
+		public int getSubtreeNodeNum(int node) {
+			return subtreeNodeNums[this.offset+node];
+		}
+
+		public boolean isLeaf(int node) {
+			return subtreeNodeNums[this.offset+node]==1;
+		}
+
+		/**
+		 * @param node
+		 * @return the first child node of the given node; -1 if the given node is a leaf
+		 */
+		public int getFirstChild(int node) {
+			return this.isLeaf(node)?-1:node+1;
+		}
+
+		/**
+		 * @param node
+		 * @return the next sibling node of the given node; -1 if the given node is the last child node of its parent or root node
+		 */
+		public int getNextSibling(int node) {
+			int parent=this.getParent(node);
+			if(parent<0) {
+				return -1;
+			}
+			int next=node+this.getSubtreeNodeNum(node);
+			return next<parent+this.getSubtreeNodeNum(parent)?next:-1;
+		}
+
+		/**
+		 * @param node
+		 * @return index of the label of the given node in the {@link SampleLabelDictionary}; -1 for null label
+		 */
+		public int getLabelIndex(int node) {
+			return labelIndices[this.offset+node];
+		}
+
+		public String getLabel(int node) {
+			int labelIndex=this.getLabelIndex(node);
+			return labelIndex<0?null:labelDictionary.getLabel(labelIndex);
+		}
+
+		/**
+		 * @param node
+		 * @return the branch length to parent node as float; NaN for null
+		 */
+		public float getDistToParent(int node) {
+			return distsToParent[this.offset+node];
+		}
+
+		/**
+		 * @param node
+		 * @return the bootstrap of the branch to parent node as float; NaN for null
+		 */
+		public float getBootstrap(int node) {
+			return bootstraps[this.offset+node];
+		}
+
+		/**
+		 * build a full {@link Tree} of this view, with node id equal to the pre-order index of each node
+		 * @return
+		 */
+		public Tree toTree() {
+			return buildTree(parentIndices, labelIndices, distsToParent, bootstraps, this.offset, this.getNodeNum(), labelDictionary::getLabel);
+		}
+
+		/**
+		 * build a full {@link RegionalTree} of this view with the window size of the store
+		 * @return
+		 */
+		public RegionalTree toRegionalTree() {
+			return new RegionalTree(this.getID(), windowSize, this.getChrom(), this.getStart(), this.getEnd(), this.toTree());
+		}
+	}
+}
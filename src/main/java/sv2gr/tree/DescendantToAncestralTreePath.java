@@ -173,4 +173,24 @@ public class DescendantToAncestralTreePath {
 		
 		return ret;
 	}
+	
+	/**
+	 * return the bitset over the sample indices of all leaf nodes of the clade with the node next to the ancestral node as root, see {@link CladeLeafBitsetTable}
+	 * 
+	 * !!!!NOT with the ancestral node as root!!!
+	 * 
+	 * @return
+	 */
+	public long[] getLeafSampleBitsetOfAncestorNode() {
+		return this.nodesFromDescendantToAncestor.get(this.nodesFromDescendantToAncestor.size()-2).getCladeLeafSampleBitset();
+	}
+	
+	/**
+	 * return the bitset over the sample indices of all leaf nodes of the clade with the descendant node as root, see {@link CladeLeafBitsetTable}
+	 * 
+	 * @return
+	 */
+	public long[] getLeafSampleBitsetOfDescendantNode() {
+		return this.nodesFromDescendantToAncestor.get(0).getCladeLeafSampleBitset();
+	}
 }
@@ -10,13 +10,23 @@ public class DescendantToAncestralTreePathUtils {
 	/**
 	 * check and return if the given two {@link DescendantToAncestralTreePath}s are on the same leaf-root path on the tree
 	 * 
+	 * this is true if all nodes of one path are ancestral nodes of the descendant node of the other one (exclusive), 
+	 * which is checked with the {@link TreeAncestorIndex} of the tree in O(1) time;
+	 * 
+	 * note that two paths with the same descendant node are not considered to be on the same leaf-root path
+	 * 
 	 * @param p1
 	 * @param p2
 	 * @return
 	 */
 	public static boolean onSameLeafRootPath(DescendantToAncestralTreePath p1, DescendantToAncestralTreePath p2) {
-		if(p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())
-				||p2.getDescendantNode().getAllAncestralNodes().containsAll(p1.getNodesFromDescendantToAncestor())) {
+		TreeAncestorIndex index=p1.getDescendantNode().getTree().getAncestorIndex();
+		if(p2.isEmpty()) {//all of the nodes (none) of p2 are ancestral nodes of p1
+			return true;
+		}
+		
+		if(index.isStrictAncestor(p2.getDescendantNode(), p1.getDescendantNode())
+				||index.isStrictAncestor(p1.getDescendantNode(), p2.getDescendantNode())) {
 			return true;
 		}else {
 			return false;
@@ -41,8 +51,9 @@ public class DescendantToAncestralTreePathUtils {
 			return false;
 		}
 		
-		if(p2.getDescendantNode().getAllAncestralNodes().contains(p1.getDescendantNode()) 
-				&& p1.getAncestralNode().getAllAncestralNodes().contains(p2.getAncestralNode())
+		TreeAncestorIndex index=p1.getDescendantNode().getTree().getAncestorIndex();
+		if(index.isStrictAncestor(p1.getDescendantNode(), p2.getDescendantNode()) 
+				&& index.isStrictAncestor(p2.getAncestralNode(), p1.getAncestralNode())
 				) {
 			return true;
 		}
@@ -56,6 +67,9 @@ public class DescendantToAncestralTreePathUtils {
 	 * if the given two paths are not on the same leaf-root path, return null;
 	 * if the given two paths are on same leaf-root path but does not share any branch, return empty {@link DescendantToAncestralTreePath}
 	 * 
+	 * since all nodes of the two paths are on the path from the deeper descendant node to the root, 
+	 * the shared nodes are the ones of the path with the shallower descendant node until the deeper ancestral node of the two paths
+	 * 
 	 * @param p1
 	 * @param p2
 	 * @return
@@ -69,23 +83,14 @@ public class DescendantToAncestralTreePathUtils {
 			return null;
 		}
 		
+		TreeAncestorIndex index=p1.getDescendantNode().getTree().getAncestorIndex();
+		DescendantToAncestralTreePath shallowerPath=index.getDepth(p1.getDescendantNode())<index.getDepth(p2.getDescendantNode())?p1:p2;
+		int deeperAncestralNodeDepth=Math.max(index.getDepth(p1.getAncestralNode()), index.getDepth(p2.getAncestralNode()));
+		int sharedNodeNum=index.getDepth(shallowerPath.getDescendantNode())-deeperAncestralNodeDepth+1;
+		
 		List<TreeNode> treeNodeOnSharedPath = new ArrayList<>();
-		if(p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())) {
-			TreeNode currentNode=p1.getDescendantNode();
-			while(currentNode!=null) {
-				if(p1.getNodesFromDescendantToAncestor().contains(currentNode) && p2.getNodesFromDescendantToAncestor().contains(currentNode)) {
-					treeNodeOnSharedPath.add(currentNode);
-				}
-				currentNode = currentNode.getParent();
-			}
-		}else if(p2.getDescendantNode().getAllAncestralNodes().containsAll(p1.getNodesFromDescendantToAncestor())) {
-			TreeNode currentNode=p2.getDescendantNode();
-			while(currentNode!=null) {
-				if(p1.getNodesFromDescendantToAncestor().contains(currentNode) && p2.getNodesFromDescendantToAncestor().contains(currentNode)) {
-					treeNodeOnSharedPath.add(currentNode);
-				}
-				currentNode = currentNode.getParent();
-			}
+		if(sharedNodeNum>0) {
+			treeNodeOnSharedPath.addAll(shallowerPath.getNodesFromDescendantToAncestor().subList(0, sharedNodeNum));
 		}
 		
 		return new DescendantToAncestralTreePath(treeNodeOnSharedPath);
@@ -94,6 +99,8 @@ public class DescendantToAncestralTreePathUtils {
 	/**
 	 * return the shortest {@link DescendantToAncestralTreePath} covering the given two {@link DescendantToAncestralTreePath}s
 	 * 
+	 * which is the path from the deeper descendant node to the shallower ancestral node of the two paths;
+	 * 
 	 * return null if there is no such {@link DescendantToAncestralTreePath}
 	 * 
 	 * @param p1
@@ -105,32 +112,16 @@ public class DescendantToAncestralTreePathUtils {
 			return null;
 		}
 		
-		List<TreeNode> treeNodeOnPath = new ArrayList<>();
-		boolean p1AncestralNodeReached=false;
-		boolean p2AncestralNodeReached=false;
+		TreeAncestorIndex index=p1.getDescendantNode().getTree().getAncestorIndex();
+		TreeNode deeperDescendantNode=index.getDepth(p1.getDescendantNode())>index.getDepth(p2.getDescendantNode())?p1.getDescendantNode():p2.getDescendantNode();
+		int shallowerAncestralNodeDepth=Math.min(index.getDepth(p1.getAncestralNode()), index.getDepth(p2.getAncestralNode()));
 		
-		if(p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())) {
-			TreeNode currentNode=p1.getDescendantNode();
-			treeNodeOnPath.add(currentNode);
-			while(!(p1AncestralNodeReached&&p2AncestralNodeReached)) { //no need to check if currentNode is null or not, it will never be null before ancestral node of both paths are reached!
-				currentNode = currentNode.getParent();
-				treeNodeOnPath.add(currentNode);
-				if(currentNode.equals(p1.getAncestralNode()))
-					p1AncestralNodeReached=true;
-				if(currentNode.equals(p2.getAncestralNode()))
-					p2AncestralNodeReached=true;
-			}
-		}else if(p2.getDescendantNode().getAllAncestralNodes().containsAll(p1.getNodesFromDescendantToAncestor())) {
-			TreeNode currentNode=p2.getDescendantNode();
+		List<TreeNode> treeNodeOnPath = new ArrayList<>();
+		TreeNode currentNode=deeperDescendantNode;
+		treeNodeOnPath.add(currentNode);
+		for(int i=index.getDepth(deeperDescendantNode);i>shallowerAncestralNodeDepth;i--) {
+			currentNode = currentNode.getParent();
 			treeNodeOnPath.add(currentNode);
-			while(!(p1AncestralNodeReached&&p2AncestralNodeReached)) {
-				currentNode = currentNode.getParent();
-				treeNodeOnPath.add(currentNode);
-				if(currentNode.equals(p1.getAncestralNode()))
-					p1AncestralNodeReached=true;
-				if(currentNode.equals(p2.getAncestralNode()))
-					p2AncestralNodeReached=true;
-			}
 		}
 		
 		return new DescendantToAncestralTreePath(treeNodeOnPath);
@@ -0,0 +1,231 @@
+package sv2gr.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import phylo.tree.reader.NewickFileFormatType;
+
+/**
+ * differential check and benchmark of the methods of {@link DescendantToAncestralTreePathUtils} built on {@link TreeAncestorIndex}
+ * against the previous implementations based on {@link TreeNode#getAllAncestralNodes()}, which are kept in this class as reference
+ *
+ * random tree paths are sampled from synthetic random trees, and the results of every pair of paths are compared;
+ * the {@link TreeAncestorIndex#getLowestCommonAncestor(TreeNode, TreeNode)} is also checked against a brute-force search
+ *
+ * @author tanxu
+ *
+ */
+public class DescendantToAncestralTreePathUtilsTest {
+
+	/**
+	 *
+	 * @param args tree number, leaf number, path number per tree, random seed
+	 */
+	public static void main(String[] args) {
+		int treeNum=args.length>0?Integer.parseInt(args[0]):5;
+		int leafNum=args.length>1?Integer.parseInt(args[1]):500;
+		int pathNum=args.length>2?Integer.parseInt(args[2]):1000;
+		long seed=args.length>3?Long.parseLong(args[3]):1;
+
+		Random random=new Random(seed);
+
+		long oldTime=0;
+		long newTime=0;
+		long pairNum=0;
+		long onSameLeafRootPathNum=0;
+
+		for(int t=0;t<treeNum;t++) {
+			List<String> labels=new ArrayList<>();
+			for(int i=0;i<leafNum;i++) {
+				labels.add("leaf"+i);
+			}
+			Tree tree=Tree.fromNewickString("("+buildRandomCladeString(labels, random)+");", NewickFileFormatType.SIMPLE_NEWICK_2);
+			List<TreeNode> nodes=new ArrayList<>(tree.getNodeIDMap().values());
+
+			List<DescendantToAncestralTreePath> paths=new ArrayList<>();
+			while(paths.size()<pathNum) {
+				TreeNode descendantNode=nodes.get(random.nextInt(nodes.size()));
+				if(descendantNode.getParent()==null) {
+					continue;
+				}
+				List<TreeNode> pathNodes=new ArrayList<>();
+				pathNodes.add(descendantNode);
+				TreeNode currentNode=descendantNode.getParent();
+				pathNodes.add(currentNode);
+				while(currentNode.getParent()!=null && random.nextInt(3)>0) {
+					currentNode=currentNode.getParent();
+					pathNodes.add(currentNode);
+				}
+				paths.add(new DescendantToAncestralTreePath(pathNodes));
+			}
+
+			/////////////////////
+			checkLowestCommonAncestor(tree, nodes, random);
+
+			/////////////////////
+			long startTime=System.nanoTime();
+			List<Object> oldResults=new ArrayList<>();
+			for(DescendantToAncestralTreePath p1:paths) {
+				for(DescendantToAncestralTreePath p2:paths) {
+					oldResults.add(onSameLeafRootPath(p1, p2));
+					oldResults.add(p1IsFullyInsideOFP2(p1, p2));
+					oldResults.add(toNodeIDString(getSharedTreePath(p1, p2)));
+					oldResults.add(toNodeIDString(getShortestCoveringTreePath(p1, p2)));
+				}
+			}
+			oldTime+=System.nanoTime()-startTime;
+
+			startTime=System.nanoTime();
+			List<Object> newResults=new ArrayList<>();
+			for(DescendantToAncestralTreePath p1:paths) {
+				for(DescendantToAncestralTreePath p2:paths) {
+					boolean onSameLeafRootPath=DescendantToAncestralTreePathUtils.onSameLeafRootPath(p1, p2);
+					newResults.add(onSameLeafRootPath);
+					newResults.add(DescendantToAncestralTreePathUtils.p1IsFullyInsideOFP2(p1, p2));
+					newResults.add(toNodeIDString(DescendantToAncestralTreePathUtils.getSharedTreePath(p1, p2)));
+					newResults.add(toNodeIDString(DescendantToAncestralTreePathUtils.getShortestCoveringTreePath(p1, p2)));
+
+					if(onSameLeafRootPath) {
+						onSameLeafRootPathNum++;
+					}
+				}
+			}
+			newTime+=System.nanoTime()-startTime;
+
+			if(!oldResults.equals(newResults)) {
+				throw new IllegalStateException("different results for tree "+t);
+			}
+			pairNum+=(long)paths.size()*paths.size();
+		}
+
+		System.out.println("tree num: "+treeNum+"; leaf num: "+leafNum+"; path num per tree: "+pathNum);
+		System.out.println("ancestral node list based: "+oldTime/1000000+" ms");
+		System.out.println("ancestor index based: "+newTime/1000000+" ms");
+		System.out.println("identical results for "+pairNum+" path pairs ("+onSameLeafRootPathNum+" on same leaf-root path)");
+	}
+
+	/**
+	 * check the lowest common ancestors of random node pairs with the ancestral node lists
+	 */
+	private static void checkLowestCommonAncestor(Tree tree, List<TreeNode> nodes, Random random) {
+		TreeAncestorIndex index=tree.getAncestorIndex();
+
+		for(int i=0;i<nodes.size();i++) {
+			TreeNode a=nodes.get(random.nextInt(nodes.size()));
+			TreeNode b=nodes.get(random.nextInt(nodes.size()));
+
+			List<TreeNode> ancestorsOfA=new ArrayList<>();
+			ancestorsOfA.add(a);
+			ancestorsOfA.addAll(a.getAllAncestralNodes());
+
+			TreeNode expected=b;
+			while(!ancestorsOfA.contains(expected)) {
+				expected=expected.getParent();
+			}
+
+			if(!index.getLowestCommonAncestor(a, b).equals(expected)) {
+				throw new IllegalStateException("wrong lowest common ancestor for nodes "+a.getId()+" and "+b.getId());
+			}
+		}
+	}
+
+	/**
+	 * build a random bifurcating newick string for the given leaf labels (without branch length of the clade root)
+	 */
+	private static String buildRandomCladeString(List<String> labels, Random random) {
+		if(labels.size()==1) {
+			return labels.get(0);
+		}
+
+		int split=1+random.nextInt(labels.size()-1);
+		String left=buildRandomCladeString(labels.subList(0, split), random);
+		String right=buildRandomCladeString(labels.subList(split, labels.size()), random);
+
+		return "("+left+":"+random.nextDouble()/100+","+right+":"+random.nextDouble()/100+")"+random.nextInt(101)/100d;
+	}
+
+	private static String toNodeIDString(DescendantToAncestralTreePath path) {
+		if(path==null) {
+			return "null";
+		}
+		StringBuilder sb=new StringBuilder();
+		for(TreeNode node:path.getNodesFromDescendantToAncestor()) {
+			sb.append(node.getId()).append(",");
+		}
+		return sb.toString();
+	}
+
+
+	////////////////////////////////////previous implementations based on TreeNode#getAllAncestralNodes()
+	private static boolean onSameLeafRootPath(DescendantToAncestralTreePath p1, DescendantToAncestralTreePath p2) {
+		if(p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())
+				||p2.getDescendantNode().getAllAncestralNodes().containsAll(p1.getNodesFromDescendantToAncestor())) {
+			return true;
+		}else {
+			return false;
+		}
+	}
+
+	private static boolean p1IsFullyInsideOFP2(DescendantToAncestralTreePath p1, DescendantToAncestralTreePath p2) {
+		if(!onSameLeafRootPath(p1,p2)) {
+			return false;
+		}
+
+		if(p1.getDescendantNode().equals(p2.getDescendantNode())||p1.getAncestralNode().equals(p2.getAncestralNode())) {
+			return false;
+		}
+
+		if(p2.getDescendantNode().getAllAncestralNodes().contains(p1.getDescendantNode())
+				&& p1.getAncestralNode().getAllAncestralNodes().contains(p2.getAncestralNode())
+				) {
+			return true;
+		}
+
+		return false;
+	}
+
+	private static DescendantToAncestralTreePath getSharedTreePath(DescendantToAncestralTreePath p1, DescendantToAncestralTreePath p2) {
+		if(p1.isEmpty()||p2.isEmpty()) {
+			return new DescendantToAncestralTreePath(new ArrayList<>());
+		}
+		//
+		if(!onSameLeafRootPath(p1, p2)) {
+			return null;
+		}
+
+		List<TreeNode> treeNodeOnSharedPath = new ArrayList<>();
+		TreeNode currentNode=p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())?p1.getDescendantNode():p2.getDescendantNode();
+		while(currentNode!=null) {
+			if(p1.getNodesFromDescendantToAncestor().contains(currentNode) && p2.getNodesFromDescendantToAncestor().contains(currentNode)) {
+				treeNodeOnSharedPath.add(currentNode);
+			}
+			currentNode = currentNode.getParent();
+		}
+
+		return new DescendantToAncestralTreePath(treeNodeOnSharedPath);
+	}
+
+	private static DescendantToAncestralTreePath getShortestCoveringTreePath(DescendantToAncestralTreePath p1, DescendantToAncestralTreePath p2) {
+		if(!onSameLeafRootPath(p1, p2)) {
+			return null;
+		}
+
+		List<TreeNode> treeNodeOnPath = new ArrayList<>();
+		boolean p1AncestralNodeReached=false;
+		boolean p2AncestralNodeReached=false;
+
+		TreeNode currentNode=p1.getDescendantNode().getAllAncestralNodes().containsAll(p2.getNodesFromDescendantToAncestor())?p1.getDescendantNode():p2.getDescendantNode();
+		treeNodeOnPath.add(currentNode);
+		while(!(p1AncestralNodeReached&&p2AncestralNodeReached)) {
+			currentNode = currentNode.getParent();
+			treeNodeOnPath.add(currentNode);
+			if(currentNode.equals(p1.getAncestralNode()))
+				p1AncestralNodeReached=true;
+			if(currentNode.equals(p2.getAncestralNode()))
+				p2AncestralNodeReached=true;
+		}
+
+		return new DescendantToAncestralTreePath(treeNodeOnPath);
+	}
+}
@@ -2,9 +2,11 @@ package sv2gr.tree;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import com.google.common.base.Objects;
 
@@ -68,6 +70,11 @@ public class RegionalTree {
 	 */
 	private Map<SimpleSVLocus, GREvent> svLocusGREventMap;
 	
+	/**
+	 * compact table of the genotypes and in-subtree status of all {@link #coveredSVLocusList} on all tree nodes
+	 */
+	private SVGenotypeBitsetTable svGenotypeBitsetTable;
+	
 	/**
 	 * 
 	 * @param ID
@@ -118,27 +125,70 @@ public class RegionalTree {
 		
 		this.setSVLocusForAllNodes();
 		
-		this.assignSVGenotypesToAllNodes();
-		
-		this.identifyTreeNodesInSubtreeForEachSV();
+//		this.assignSVGenotypesToAllNodes();
+//		
+//		this.identifyTreeNodesInSubtreeForEachSV();
+		this.inferSVGenotypesAndSubtreesWithBitsetTable();
 		
 //		this.inferGREventForEachSV(reader, alwaysConsiderOutgroupSampleGenotype);
-		this.inferGREventForEachSV2(reader, alwaysConsiderOutgroupSampleGenotype);
+//		this.inferGREventForEachSV2(reader, alwaysConsiderOutgroupSampleGenotype);
+		this.inferGREventForEachSV3(reader, alwaysConsiderOutgroupSampleGenotype);
+	}
+	
+	
+	/**
+	 * return a new {@link RegionalTree} with the same ID, window size, region and {@link Tree} as this one, but without any covered {@link SimpleSVLocus} or inferred {@link GREvent}
+	 * 
+	 * note that the {@link Tree} is shared rather than copied, 
+	 * thus the GR events of the copies should be inferred with {@link #runPipelineToInferAllGREventsOnSharedTree(PopulationStructureFileReader, boolean)}
+	 * @return
+	 */
+	public RegionalTree copyWithoutCoveredSVs() {
+		return new RegionalTree(this.ID, this.windowSize, this.chrom, this.start, this.end, this.tree);
 	}
 	
+	/**
+	 * same as {@link #runPipelineToInferAllGREvents(PopulationStructureFileReader, boolean, boolean)} except that 
+	 * the {@link Tree} of this {@link RegionalTree} is not modified, so that it can be shared by multiple {@link RegionalTree}s processed in parallel (see {@link #copyWithoutCoveredSVs()});
+	 * 
+	 * 1. the HETER genotypes of the covered {@link SimpleSVLocus}s must be recoded already, since the genotypes are not recoded by this method;
+	 * 2. the sample index must be assigned to the leaf nodes already by {@link #assignSampleIndexToLeafNodes(Map)};
+	 * 3. the {@link SVGenotypeBitsetTable} is not set to the tree nodes, thus the {@link TreeNode#getSvLocusGenotypeMap()} and {@link TreeNode#getSvLocusNodeInSubTreeMap()} are not available;
+	 * 
+	 * @param reader
+	 * @param alwaysConsiderOutgroupSampleGenotype
+	 */
+	public void runPipelineToInferAllGREventsOnSharedTree(PopulationStructureFileReader reader, boolean alwaysConsiderOutgroupSampleGenotype) {
+		this.svGenotypeBitsetTable=new SVGenotypeBitsetTable(this.tree, this.coveredSVLocusList);
+		this.svGenotypeBitsetTable.inferSVGenotypes();
+		this.svGenotypeBitsetTable.inferInSubTree();
+		
+		this.inferGREventForEachSV3(reader, alwaysConsiderOutgroupSampleGenotype);
+	}
 	
 	/////////////////////////////////preprocessing step : recode ingroup sample genotype as required
-	//
+	/**
+	 * recode the HETER genotype of all samples of each covered {@link SimpleSVLocus}
+	 * 
+	 * note that a {@link SimpleSVLocus} may be covered by multiple {@link RegionalTree}s whose pipelines are run in parallel, 
+	 * thus the recoding of each {@link SimpleSVLocus} is synchronized on it;
+	 * since the recoding is idempotent, only the first {@link RegionalTree} acquiring the lock modifies the genotypes, 
+	 * and all the others (including the following reading of the genotypes) see the recoded genotypes
+	 * 
+	 * @param toTreatHeterGenotypeAsPresence
+	 */
 	void recodeSampleGenotypes(boolean toTreatHeterGenotypeAsPresence) {
 		for(SimpleSVLocus sv:this.coveredSVLocusList) {
-			for(int sampleIndex:sv.getSampleIndexGenotypeMap().keySet()) {
-				Genotype gt=sv.getSampleIndexGenotypeMap().get(sampleIndex);
-				
-				if(gt.equals(Genotype.HETER)) {
-					if(toTreatHeterGenotypeAsPresence) {
-						sv.recodeSampleGenotype(sampleIndex, Genotype.PRESENCE);
-					}else {
-						sv.recodeSampleGenotype(sampleIndex, Genotype.MISSING);
+			synchronized(sv) {
+				for(int sampleIndex:sv.getSampleIndexGenotypeMap().keySet()) {
+					Genotype gt=sv.getSampleIndexGenotypeMap().get(sampleIndex);
+					
+					if(gt.equals(Genotype.HETER)) {
+						if(toTreatHeterGenotypeAsPresence) {
+							sv.recodeSampleGenotype(sampleIndex, Genotype.PRESENCE);
+						}else {
+							sv.recodeSampleGenotype(sampleIndex, Genotype.MISSING);
+						}
 					}
 				}
 			}
@@ -153,12 +203,13 @@ public class RegionalTree {
 	 * the sample index should be consistent with the {@link SimpleSVLocus#getSampleIndexGenotypeMap()}
 	 * @param sampleNameIndexMap the map contains a super set of all samples on tree
 	 */
-	void assignSampleIndexToLeafNodes(Map<String, Integer> sampleNameIndexMap) {
-		for(String label: this.tree.getLeafLabelTreeNodeMap().keySet()) {
+	public void assignSampleIndexToLeafNodes(Map<String, Integer> sampleNameIndexMap) {
+		for(Entry<String, TreeNode> entry: this.tree.getLeafLabelTreeNodeMap().entrySet()) {
+			String label=entry.getKey();
 			if(!sampleNameIndexMap.containsKey(label)) {
 				throw new IllegalArgumentException("leaf node sample is not found in given map!");
 			}
-			TreeNode leaf=this.tree.getLeafLabelTreeNodeMap().get(label);
+			TreeNode leaf=entry.getValue();
 			int index=sampleNameIndexMap.get(label);
 			leaf.setSampleIndex(index);
 		}
@@ -168,7 +219,7 @@ public class RegionalTree {
 	 */
 	void setSVLocusForAllNodes() {
 		//initialize the sv - genotype map for every tree node (including leaf and internal ones)
-		for(TreeNode treeNode:this.tree.getNodeIDMap().values()) {
+		for(TreeNode treeNode:this.tree.getNodeTable().getPreOrderNodes()) {
 			treeNode.setCoveredSVLocusList(coveredSVLocusList);
 		}
 	}
@@ -188,6 +239,25 @@ public class RegionalTree {
 	}
 	
 	
+	/**
+	 * same as {@link #assignSVGenotypesToAllNodes()} and {@link #identifyTreeNodesInSubtreeForEachSV()} 
+	 * except that the genotypes and in-subtree status of all SVs on all tree nodes are stored in a compact {@link SVGenotypeBitsetTable}
+	 * rather than maps of each tree node;
+	 * 
+	 * the maps of each tree node are then views of the {@link SVGenotypeBitsetTable}
+	 */
+	void inferSVGenotypesAndSubtreesWithBitsetTable() {
+		this.svGenotypeBitsetTable=new SVGenotypeBitsetTable(this.tree, this.coveredSVLocusList);
+		
+		for(TreeNode treeNode:this.tree.getNodeTable().getPreOrderNodes()) {
+			treeNode.setSVGenotypeBitsetTable(this.svGenotypeBitsetTable);
+		}
+		
+		this.svGenotypeBitsetTable.inferSVGenotypes();
+		this.svGenotypeBitsetTable.inferInSubTree();
+	}
+	
+	
 	/**
 	 * for each SV covered by this Tree, infer the GR event if possible
 	 * //TODO testing
@@ -201,8 +271,7 @@ public class RegionalTree {
 			//notes that only Presence and absence genotypes can be found for leaf nodes in subtree
 			Map<Genotype, List<TreeNode>> genotypeLeafNodesOnSubTreeMap = new HashMap<>();
 			
-			for(int id:this.tree.getNodeIDMap().keySet()) {
-				TreeNode node = this.tree.getNodeIDMap().get(id);
+			for(TreeNode node:this.tree.getNodeTable().getPreOrderNodes()) {
 				
 				if(node.getSvLocusNodeInSubTreeMap().get(sv)) {//included in subtree
 					if(node.isLeaf()) {//leaf node on original tree, always be included, trivial
@@ -472,8 +541,7 @@ public class RegionalTree {
 			//notes that only Presence and absence genotypes can be found for leaf nodes in subtree
 			Map<Genotype, List<TreeNode>> genotypeLeafNodesOnSubTreeMap = new HashMap<>();
 			
-			for(int id:this.tree.getNodeIDMap().keySet()) {
-				TreeNode node = this.tree.getNodeIDMap().get(id);
+			for(TreeNode node:this.tree.getNodeTable().getPreOrderNodes()) {
 				
 				if(node.getSvLocusNodeInSubTreeMap().get(sv)) {//included in subtree
 					if(node.isLeaf()) {//leaf node on original tree, always be included, trivial
@@ -682,6 +750,93 @@ public class RegionalTree {
 		}
 	}
 	
+	/**
+	 * for each SV covered by this Tree, infer the GR event if possible
+	 * 
+	 * same as {@link #inferGREventForEachSV2(PopulationStructureFileReader, boolean)} except that 
+	 * the leaf nodes on the subtree of all SVs and the numbers needed to infer the GR events are collected in a single traversal of the tree by {@link SubTreeLeafNodeSummary},
+	 * rather than checking every tree node and its child nodes for each SV;
+	 * 
+	 * must be invoked after {@link #inferSVGenotypesAndSubtreesWithBitsetTable()}
+	 * 
+	 * @param alwaysConsiderOutgroupSampleGenotype if true, the outgroup sample genotype is always included in the inference of GR event; if false, it is only used as tie-breaker if there is only one single ingroup sample in sub-tree for both Presence and Absence genotype
+	 */
+	void inferGREventForEachSV3(PopulationStructureFileReader reader, boolean alwaysConsiderOutgroupSampleGenotype) {
+		this.svLocusGREventMap=new LinkedHashMap<>();
+		
+		SubTreeLeafNodeSummary summary=new SubTreeLeafNodeSummary(this.tree, this.svGenotypeBitsetTable, new HashSet<>(reader.getAllOutgroupSampleIndices()));
+		DescendantToAncestralTreePath pathFromIngroupRootNodeToRootNode=this.tree.getPathFromIngroupRootNodeToRootNode();
+		DescendantToAncestralTreePath pathFromOutgroupLeafNodeToRootNode=this.tree.getPathFromOutgroupLeafNodeToRootNode();
+		
+		for(SimpleSVLocus sv:this.coveredSVLocusList) {
+			int svIndex=this.svGenotypeBitsetTable.getSVLocusIndex(sv);
+			
+			Boolean reverse=null;
+			if(alwaysConsiderOutgroupSampleGenotype) {
+				int absenceGenotypeNum=summary.getLeafNodeNum(svIndex, Genotype.ABSENCE);
+				int presenceGenotypeNum=summary.getLeafNodeNum(svIndex, Genotype.PRESENCE);
+				
+				if(absenceGenotypeNum==1 && presenceGenotypeNum>=2) {//GR event of the reverse of the SV occurred on the tree path starting from the node with absence genotype (0/0)
+					reverse=true;
+				}else if(absenceGenotypeNum>=2 && presenceGenotypeNum==1) {//GR event consistent with the SV occurred on the tree path starting from the node with presence genotype (1/1)
+					reverse=false;
+				}
+			}else {//only consider outgroup sample when necessary
+				Genotype outgroupSampleGenotype=summary.getOutgroupSampleGenotype(svIndex);
+				int ingroupSampleNumWithAbsenceGenotypeNum=summary.getIngroupLeafNodeNum(svIndex, Genotype.ABSENCE);
+				int ingroupSampleNumWithPresenceGenotypeNum=summary.getIngroupLeafNodeNum(svIndex, Genotype.PRESENCE);
+				
+				if(ingroupSampleNumWithAbsenceGenotypeNum==1 && ingroupSampleNumWithPresenceGenotypeNum>=2 
+						|| (ingroupSampleNumWithAbsenceGenotypeNum==1 && ingroupSampleNumWithPresenceGenotypeNum==1)&&(outgroupSampleGenotype!=null && outgroupSampleGenotype.equals(Genotype.PRESENCE))
+						) {
+					reverse=true;
+				}else if(ingroupSampleNumWithAbsenceGenotypeNum>=2 && ingroupSampleNumWithPresenceGenotypeNum==1
+						|| (ingroupSampleNumWithAbsenceGenotypeNum==1 && ingroupSampleNumWithPresenceGenotypeNum==1)&&(outgroupSampleGenotype!=null && outgroupSampleGenotype.equals(Genotype.ABSENCE))
+						) {
+					reverse=false;
+				}
+			}
+			
+			if(reverse==null) {//no GR event inferred
+				continue;
+			}
+			
+			//the path starts from the single leaf node on subtree with absence genotype if reversed, presence genotype otherwise
+			//and traces back until the first ancestral node with a descendant node on subtree with the other genotype is encountered or the root node is reached
+			Genotype startGenotype=reverse?Genotype.ABSENCE:Genotype.PRESENCE;
+			Genotype endGenotype=reverse?Genotype.PRESENCE:Genotype.ABSENCE;
+			
+			TreeNode start = summary.getFirstLeafNode(svIndex, startGenotype);
+			List<TreeNode> treeNodesOnPath = new ArrayList<>();
+			treeNodesOnPath.add(start);
+			
+			TreeNode ancestralNode=start.getParent();
+			if(ancestralNode!=null) {
+				treeNodesOnPath.add(ancestralNode);
+			}
+			while(ancestralNode!=null && !summary.haveDescendantNodeInSubTreeWithGivenGenotype(ancestralNode, svIndex, endGenotype)) {
+				ancestralNode=ancestralNode.getParent();
+				if(ancestralNode!=null) {
+					treeNodesOnPath.add(ancestralNode);
+				}
+			}
+			
+			//////////////////////////////////
+			DescendantToAncestralTreePath treePath=new DescendantToAncestralTreePath(treeNodesOnPath);
+			
+			if(treePath.getBranchNumOnPath()>0) {//only add the GREvent if at least one branch is included
+				GREvent grEvent=new GREvent(sv, this, reverse, treePath);
+				
+				if(DescendantToAncestralTreePathUtils.sameTreePath(grEvent.getAssignedTreePath(), pathFromIngroupRootNodeToRootNode)
+						||DescendantToAncestralTreePathUtils.sameTreePath(grEvent.getAssignedTreePath(), pathFromOutgroupLeafNodeToRootNode)) {
+					//skip if inferred GR event is only located on branches outside of the ingroup clade
+				}else {
+					this.svLocusGREventMap.put(sv, grEvent);
+				}
+			}
+		}
+	}
+	
 	//////////////////////////////////////////////
 	
 	
@@ -737,6 +892,13 @@ public class RegionalTree {
 		return svLocusGREventMap;
 	}
 
+	/**
+	 * @return the svGenotypeBitsetTable
+	 */
+	public SVGenotypeBitsetTable getSVGenotypeBitsetTable() {
+		return svGenotypeBitsetTable;
+	}
+	
 	/**
 	 * @return the coveredSVLocusList
 	 */
@@ -0,0 +1,166 @@
+package sv2gr.tree;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import phylo.tree.reader.NewickFileFormatType;
+import population.popHierarchy.PopulationStructureFileReader;
+import population.sv.utils.SimpleSVLocus;
+import population.sv.utils.SimpleSVType;
+import population.utils.Genotype;
+import sv2gr.gr.GREvent;
+
+/**
+ * benchmark of {@link RegionalTree#inferGREventForEachSV2(PopulationStructureFileReader, boolean)} and {@link RegionalTree#inferGREventForEachSV3(PopulationStructureFileReader, boolean)}
+ * on synthetic regional trees and SVs
+ *
+ * for each synthetic tree, the SV genotypes follow a random clade of the tree with a small proportion of samples with flipped, missing or heterozygous genotypes;
+ * the svLocusGREventMap inferred by the two methods are checked to be identical
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreeGREventInferenceTest {
+
+	/**
+	 *
+	 * @param args tree number, ingroup sample number, SV number per tree, random seed
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int treeNum=args.length>0?Integer.parseInt(args[0]):2;
+		int ingroupSampleNum=args.length>1?Integer.parseInt(args[1]):200;
+		int svNumPerTree=args.length>2?Integer.parseInt(args[2]):300;
+		long seed=args.length>3?Long.parseLong(args[3]):1;
+
+		Random random=new Random(seed);
+
+		/////////////////////sample 1 is the outgroup
+		List<String> ingroupSampleNames=new ArrayList<>();
+		Path populationFile=Files.createTempFile("population", ".txt");
+		populationFile.toFile().deleteOnExit();
+		try(PrintWriter writer=new PrintWriter(populationFile.toFile())){
+			writer.println("1\t1\toutgroup\toutgroup");
+			for(int i=0;i<ingroupSampleNum;i++) {
+				ingroupSampleNames.add("sample"+i);
+				writer.println((i+2)+"\t0\tsample"+i+"\tingroup");
+			}
+		}
+		PopulationStructureFileReader reader=new PopulationStructureFileReader(populationFile, false);
+
+		long oldTime=0;
+		long newTime=0;
+		int grEventNum=0;
+
+		for(int t=0;t<treeNum;t++) {
+			List<String> shuffled=new ArrayList<>(ingroupSampleNames);
+			Collections.shuffle(shuffled, random);
+			String newick="(outgroup:0.01,"+buildRandomCladeString(shuffled, random)+":0.01);";
+
+			RegionalTree regionalTree=new RegionalTree(t, 10000, "Chr1", t*10000+1, (t+1)*10000, Tree.fromNewickString(newick, NewickFileFormatType.SIMPLE_NEWICK_2));
+			List<TreeNode> nodes=new ArrayList<>(regionalTree.getTree().getNodeIDMap().values());
+
+			for(int i=0;i<svNumPerTree;i++) {
+				regionalTree.addCoveredSVLocus(buildRandomSV(nodes.get(random.nextInt(nodes.size())), ingroupSampleNum, t*10000+1+i, random));
+			}
+
+			////////////////////
+			regionalTree.recodeSampleGenotypes(false);
+			regionalTree.assignSampleIndexToLeafNodes(reader.getSampleNameIndexMap());
+			regionalTree.setSVLocusForAllNodes();
+			regionalTree.inferSVGenotypesAndSubtreesWithBitsetTable();
+
+			long startTime=System.nanoTime();
+			regionalTree.inferGREventForEachSV2(reader, false);
+			oldTime+=System.nanoTime()-startTime;
+			Map<SimpleSVLocus, GREvent> oldMap=regionalTree.getSvLocusGREventMap();
+
+			startTime=System.nanoTime();
+			regionalTree.inferGREventForEachSV3(reader, false);
+			newTime+=System.nanoTime()-startTime;
+			Map<SimpleSVLocus, GREvent> newMap=regionalTree.getSvLocusGREventMap();
+
+			checkIdentical(oldMap, newMap);
+			grEventNum+=newMap.size();
+		}
+
+		System.out.println("tree num: "+treeNum+"; ingroup sample num: "+ingroupSampleNum+"; SV num per tree: "+svNumPerTree);
+		System.out.println("inferGREventForEachSV2: "+oldTime/1000000+" ms");
+		System.out.println("inferGREventForEachSV3: "+newTime/1000000+" ms");
+		System.out.println("identical svLocusGREventMap with "+grEventNum+" GR events");
+	}
+
+	/**
+	 * build a random bifurcating newick string with bootstrap values in SIMPLE_NEWICK_2 format for the given leaf labels (without branch length of the clade root)
+	 */
+	private static String buildRandomCladeString(List<String> labels, Random random) {
+		if(labels.size()==1) {
+			return labels.get(0);
+		}
+
+		int split=1+random.nextInt(labels.size()-1);
+		String left=buildRandomCladeString(labels.subList(0, split), random);
+		String right=buildRandomCladeString(labels.subList(split, labels.size()), random);
+
+		return "("+left+":"+random.nextDouble()/100+","+right+":"+random.nextDouble()/100+")"+random.nextInt(101)/100d;
+	}
+
+	/**
+	 * build a SV whose PRESENCE (or ABSENCE) genotype samples are the leaves of the given clade
+	 */
+	private static SimpleSVLocus buildRandomSV(TreeNode clade, int ingroupSampleNum, int start, Random random) {
+		Set<String> cladeLeafLabels=new HashSet<>();
+		for(TreeNode leaf:clade.getAllDescendantLeafNodes()) {
+			cladeLeafLabels.add(leaf.getLabel());
+		}
+		boolean cladeWithPresence=random.nextBoolean();
+
+		Map<Integer, Genotype> sampleIndexGenotypeMap=new HashMap<>();
+		sampleIndexGenotypeMap.put(1, random.nextInt(3)==0?Genotype.PRESENCE:Genotype.ABSENCE);
+		for(int i=0;i<ingroupSampleNum;i++) {
+			boolean inClade=cladeLeafLabels.contains("sample"+i);
+			Genotype gt=inClade==cladeWithPresence?Genotype.PRESENCE:Genotype.ABSENCE;
+
+			int noise=random.nextInt(1000);
+			if(noise==0) {
+				gt=Genotype.MISSING;
+			}else if(noise==1) {
+				gt=Genotype.HETER;
+			}else if(noise==2) {
+				gt=gt==Genotype.PRESENCE?Genotype.ABSENCE:Genotype.PRESENCE;
+			}
+			sampleIndexGenotypeMap.put(i+2, gt);
+		}
+
+		SimpleSVType[] types=new SimpleSVType[] {SimpleSVType.DEL, SimpleSVType.INS, SimpleSVType.INV};
+		return new SimpleSVLocus(types[random.nextInt(types.length)], "Chr1", start, start+100, sampleIndexGenotypeMap);
+	}
+
+	/**
+	 * check that the two maps have the same SVs in the same order and the GR event of each SV has the same direction and tree path
+	 */
+	private static void checkIdentical(Map<SimpleSVLocus, GREvent> oldMap, Map<SimpleSVLocus, GREvent> newMap) {
+		if(!new ArrayList<>(oldMap.keySet()).equals(new ArrayList<>(newMap.keySet()))) {
+			throw new IllegalStateException("different SVs with inferred GR events!");
+		}
+
+		for(SimpleSVLocus sv:oldMap.keySet()) {
+			GREvent oldEvent=oldMap.get(sv);
+			GREvent newEvent=newMap.get(sv);
+			if(oldEvent.isReversalOfSV()!=newEvent.isReversalOfSV()
+					|| !DescendantToAncestralTreePathUtils.sameTreePath(oldEvent.getAssignedTreePath(), newEvent.getAssignedTreePath())) {
+				throw new IllegalStateException("different GR events inferred for SV:"+sv);
+			}
+		}
+	}
+}
@@ -0,0 +1,349 @@
+package sv2gr.tree;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sv2gr.tree.RegionalTreesBinaryFormat.Section;
+
+/**
+ * reader of the binary file of regional trees written by {@link RegionalTreesBinaryFileWriter}
+ *
+ * only the header is parsed when the reader is created; all sections are memory-mapped, thus only the pages of the queried trees are read from the file;
+ *
+ * trees are referred to by their row in the file (sorted by chrom and start position) and can be looked up
+ * 		1. by tree ID with a binary search on the ID index;
+ * 		2. by overlapping region with a binary search on the start positions of the chrom block, same as {@link sv2gr.RegionalTreeIntervalIndex};
+ *
+ * the returned {@link Tree}s are the same as {@link CompactRegionalTreeStore.RegionalTreeView#toTree()};
+ * after the reader is created, all methods can be invoked by multiple threads concurrently;
+ * this reader must be closed after use
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreesBinaryFileReader implements Closeable{
+	private final Path binaryFile;
+
+	////////////////////////
+	private FileChannel channel;
+
+	private int windowSize;
+	private int treeNum;
+	private int nodeNum;
+	private List<String> sampleNames;
+	private List<String> chroms;
+	/**
+	 * map from chrom to the row of the first tree and the number of trees
+	 */
+	private Map<String, int[]> chromBlockMap;
+
+	private Map<Section, IntBuffer> intSectionMap;
+	private Map<Section, FloatBuffer> floatSectionMap;
+
+	/**
+	 * running maximal end of the trees of the same chrom up to each row; non-decreasing in each chrom block
+	 */
+	private int[] runningMaxEnds;
+
+	/**
+	 *
+	 * @param binaryFile
+	 * @throws IOException if the file cannot be opened or is not a valid binary regional trees file
+	 */
+	public RegionalTreesBinaryFileReader(Path binaryFile) throws IOException {
+		super();
+		this.binaryFile = binaryFile;
+
+		///////////////////////////////
+		this.channel=FileChannel.open(this.binaryFile, StandardOpenOption.READ);
+		this.intSectionMap=new EnumMap<>(Section.class);
+		this.floatSectionMap=new EnumMap<>(Section.class);
+
+		this.readHeader();
+		this.buildRunningMaxEnds();
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	void readHeader() throws IOException {
+		//do not close the stream, which would close the channel
+		DataInputStream in=new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel.position(0))));
+
+		if(in.readInt()!=RegionalTreesBinaryFormat.MAGIC) {
+			throw new IOException("given file is not a binary regional trees file:"+this.binaryFile);
+		}
+		int version=in.readInt();
+		if(version!=RegionalTreesBinaryFormat.VERSION) {
+			throw new IOException("unsupported version "+version+" of binary regional trees file:"+this.binaryFile);
+		}
+		this.windowSize=in.readInt();
+		this.treeNum=in.readInt();
+		this.nodeNum=in.readInt();
+
+		int sampleNum=in.readInt();
+		this.sampleNames=new ArrayList<>(sampleNum);
+		for(int i=0;i<sampleNum;i++) {
+			this.sampleNames.add(in.readUTF());
+		}
+
+		int chromNum=in.readInt();
+		this.chroms=new ArrayList<>(chromNum);
+		this.chromBlockMap=new HashMap<>();
+		for(int i=0;i<chromNum;i++) {
+			String chrom=in.readUTF();
+			this.chroms.add(chrom);
+			this.chromBlockMap.put(chrom, new int[] {in.readInt(), in.readInt()});
+		}
+
+		int sectionNum=in.readInt();
+		if(sectionNum!=Section.values().length) {
+			throw new IOException("unexpected section number "+sectionNum+" of binary regional trees file:"+this.binaryFile);
+		}
+		for(Section section:Section.values()) {
+			String name=in.readUTF();
+			if(!name.equals(section.getStringValue())) {
+				throw new IOException("unexpected section "+name+" of binary regional trees file:"+this.binaryFile);
+			}
+			long offset=in.readLong();
+			long length=in.readLong();
+
+			if(section==Section.DIST_TO_PARENT||section==Section.BOOTSTRAP) {
+				this.floatSectionMap.put(section, this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length).asFloatBuffer());
+			}else {
+				this.intSectionMap.put(section, this.channel.map(FileChannel.MapMode.READ_ONLY, offset, length).asIntBuffer());
+			}
+		}
+	}
+
+	private void buildRunningMaxEnds() {
+		this.runningMaxEnds=new int[this.treeNum];
+		for(int[] block:this.chromBlockMap.values()) {
+			for(int row=block[0];row<block[0]+block[1];row++) {
+				this.runningMaxEnds[row]=row==block[0]?this.getEnd(row):Math.max(this.runningMaxEnds[row-1], this.getEnd(row));
+			}
+		}
+	}
+
+	private int getTreeTableField(int row, int field) {
+		return this.intSectionMap.get(Section.TREE_TABLE).get(row*RegionalTreesBinaryFormat.TREE_TABLE_FIELD_NUM+field);
+	}
+
+	//////////////////////////////////////////
+	/**
+	 * @return the number of trees
+	 */
+	public int getTreeNum() {
+		return treeNum;
+	}
+
+	/**
+	 * @return the total number of nodes of all trees
+	 */
+	public int getNodeNum() {
+		return nodeNum;
+	}
+
+	/**
+	 * @return the window size of all trees
+	 */
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * @return the sample dictionary; labels of all nodes are stored as index of this list
+	 */
+	public List<String> getSampleNames() {
+		return Collections.unmodifiableList(sampleNames);
+	}
+
+	/**
+	 * @return all chroms in the order of the rows
+	 */
+	public List<String> getChroms() {
+		return Collections.unmodifiableList(chroms);
+	}
+
+	public int getID(int row) {
+		return this.getTreeTableField(row, RegionalTreesBinaryFormat.TREE_ID_FIELD);
+	}
+
+	public String getChrom(int row) {
+		return this.chroms.get(this.getTreeTableField(row, RegionalTreesBinaryFormat.CHROM_INDEX_FIELD));
+	}
+
+	public int getStart(int row) {
+		return this.getTreeTableField(row, RegionalTreesBinaryFormat.START_FIELD);
+	}
+
+	public int getEnd(int row) {
+		return this.getTreeTableField(row, RegionalTreesBinaryFormat.END_FIELD);
+	}
+
+	/**
+	 * @param row
+	 * @return the number of nodes of the tree
+	 */
+	public int getTreeNodeNum(int row) {
+		return this.getTreeTableField(row, RegionalTreesBinaryFormat.NODE_NUM_FIELD);
+	}
+
+	/**
+	 * binary search the ID index
+	 * @param ID
+	 * @return the row of the tree with the given ID (the smallest row if multiple trees have the ID); -1 if not found
+	 */
+	public int getRowOfID(int ID) {
+		IntBuffer idIndex=this.intSectionMap.get(Section.ID_INDEX);
+		int low=0;
+		int high=this.treeNum;
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(idIndex.get(mid*2)<ID) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		return low<this.treeNum&&idIndex.get(low*2)==ID?idIndex.get(low*2+1):-1;
+	}
+
+	/**
+	 * return the rows of all trees on the given chrom overlapping with the given region (both ends inclusive) in increasing order
+	 *
+	 * @param chrom
+	 * @param start
+	 * @param end
+	 * @return an empty list if there is no tree on the chrom or none of them overlapping with the region
+	 */
+	public List<Integer> getRowsOverlapping(String chrom, int start, int end){
+		int[] block=this.chromBlockMap.get(chrom);
+		if(block==null) {
+			return Collections.emptyList();
+		}
+
+		//first row whose running max end is no less than start
+		int low=block[0];
+		int high=block[0]+block[1];
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(this.runningMaxEnds[mid]<start) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		int firstRow=low;
+
+		//first row whose start is larger than end
+		low=firstRow;
+		high=block[0]+block[1];
+		while(low<high) {
+			int mid=(low+high)>>>1;
+			if(this.getStart(mid)<=end) {
+				low=mid+1;
+			}else {
+				high=mid;
+			}
+		}
+		int lastRowExclusive=low;
+
+		List<Integer> ret=new ArrayList<>();
+		for(int row=firstRow;row<lastRowExclusive;row++) {
+			if(this.getEnd(row)>=start) {//start of the tree is already known to be no larger than the end of the region
+				ret.add(row);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * build the {@link Tree} of the given row
+	 * @param row
+	 * @return
+	 */
+	public Tree readTree(int row) {
+		int firstNode=this.getTreeTableField(row, RegionalTreesBinaryFormat.FIRST_NODE_FIELD);
+		int num=this.getTreeNodeNum(row);
+
+		int[] parentIndices=new int[num];
+		int[] labelIndices=new int[num];
+		float[] distsToParent=new float[num];
+		float[] bootstraps=new float[num];
+		//absolute bulk get is not available before java 13, thus duplicate the buffers so that the positions of the shared buffers are not modified
+		((IntBuffer)this.intSectionMap.get(Section.PARENT_INDEX).duplicate().position(firstNode)).get(parentIndices);
+		((IntBuffer)this.intSectionMap.get(Section.LABEL_INDEX).duplicate().position(firstNode)).get(labelIndices);
+		((FloatBuffer)this.floatSectionMap.get(Section.DIST_TO_PARENT).duplicate().position(firstNode)).get(distsToParent);
+		((FloatBuffer)this.floatSectionMap.get(Section.BOOTSTRAP).duplicate().position(firstNode)).get(bootstraps);
+
+		return CompactRegionalTreeStore.buildTree(parentIndices, labelIndices, distsToParent, bootstraps, 0, num, this.sampleNames::get);
+	}
+
+	/**
+	 * build the {@link RegionalTree} of the given row
+	 * @param row
+	 * @return
+	 */
+	public RegionalTree readRegionalTree(int row) {
+		return new RegionalTree(this.getID(row), this.windowSize, this.getChrom(row), this.getStart(row), this.getEnd(row), this.readTree(row));
+	}
+
+	/**
+	 * @param ID
+	 * @return the {@link RegionalTree} with the given ID; null if not found
+	 */
+	public RegionalTree readRegionalTreeByID(int ID) {
+		int row=this.getRowOfID(ID);
+		return row<0?null:this.readRegionalTree(row);
+	}
+
+	/**
+	 * @param chrom
+	 * @param start
+	 * @param end
+	 * @return all {@link RegionalTree}s overlapping with the given region (both ends inclusive) sorted by start position
+	 */
+	public List<RegionalTree> readRegionalTreesOverlapping(String chrom, int start, int end){
+		List<RegionalTree> ret=new ArrayList<>();
+		for(int row:this.getRowsOverlapping(chrom, start, end)) {
+			ret.add(this.readRegionalTree(row));
+		}
+		return ret;
+	}
+
+	/**
+	 * read all trees into a new {@link CompactRegionalTreeStore} in the order of rows, with the same sample dictionary
+	 * @return
+	 */
+	public CompactRegionalTreeStore toCompactRegionalTreeStore() {
+		CompactRegionalTreeStore ret=new CompactRegionalTreeStore(this.windowSize, new SampleLabelDictionary(this.sampleNames));
+		for(int row=0;row<this.treeNum;row++) {
+			ret.add(this.getID(row), this.getChrom(row), this.getStart(row), this.getEnd(row), this.readTree(row));
+		}
+		ret.trimToSize();
+		return ret;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(this.channel!=null) {
+			this.channel.close();
+			this.channel=null;
+		}
+	}
+}
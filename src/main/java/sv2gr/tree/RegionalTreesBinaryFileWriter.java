@@ -0,0 +1,208 @@
+package sv2gr.tree;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import sv2gr.tree.CompactRegionalTreeStore.RegionalTreeView;
+import sv2gr.tree.RegionalTreesBinaryFormat.Section;
+
+/**
+ * writer of the binary file of regional trees in {@link RegionalTreesBinaryFormat}
+ *
+ * all trees of a {@link CompactRegionalTreeStore} are written, sorted by chrom (in the order of first occurrence in the store) and then by start position;
+ * the sample dictionary is the same as {@link CompactRegionalTreeStore#getLabelDictionary()}
+ *
+ * @author tanxu
+ *
+ */
+public class RegionalTreesBinaryFileWriter {
+	private final Path outFile;
+	private final CompactRegionalTreeStore store;
+
+	////////////////////////////////////
+	/**
+	 * views of all trees in the order of rows in the file
+	 */
+	private List<RegionalTreeView> sortedTreeViews;
+	/**
+	 * map from chrom to the row of the first tree and the number of trees
+	 */
+	private Map<String, int[]> chromBlockMap;
+
+	/**
+	 *
+	 * @param outFile
+	 * @param store
+	 * @param toDeleteExistingFile if false and the outFile exists, throw {@link IllegalArgumentException}
+	 */
+	public RegionalTreesBinaryFileWriter(Path outFile, CompactRegionalTreeStore store, boolean toDeleteExistingFile) {
+		super();
+		this.outFile = outFile;
+		this.store = store;
+
+		/////////////////////////////
+		if(this.outFile.toFile().exists()) {
+			if(!toDeleteExistingFile) {
+				throw new IllegalArgumentException("given outFile already exists!");
+			}
+			System.out.println("outfile exists, delete it...");
+			this.outFile.toFile().delete();
+		}
+
+		this.prepare();
+		this.run();
+	}
+
+	/**
+	 * sort the trees and build the chrom block index
+	 */
+	void prepare() {
+		Map<String, List<RegionalTreeView>> chromTreeViewsMap=new LinkedHashMap<>();
+		for(int i=0;i<this.store.getTreeNum();i++) {
+			RegionalTreeView view=this.store.getTreeView(i);
+			chromTreeViewsMap.computeIfAbsent(view.getChrom(), c->new ArrayList<>()).add(view);
+		}
+
+		this.sortedTreeViews=new ArrayList<>(this.store.getTreeNum());
+		this.chromBlockMap=new LinkedHashMap<>();
+		for(String chrom:chromTreeViewsMap.keySet()) {
+			List<RegionalTreeView> views=chromTreeViewsMap.get(chrom);
+			//stable, thus trees with the same start are in the order of the store
+			Collections.sort(views, (a,b)->Integer.compare(a.getStart(), b.getStart()));
+
+			this.chromBlockMap.put(chrom, new int[] {this.sortedTreeViews.size(), views.size()});
+			this.sortedTreeViews.addAll(views);
+		}
+	}
+
+	void run() {
+		try(DataOutputStream out=new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.outFile.toFile())))){
+			//the length of header does not depend on the section offsets
+			long headerLength=this.buildHeader(0).length;
+
+			out.write(this.buildHeader(headerLength));
+
+			for(Section section:Section.values()) {
+				this.writeSection(out, section);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 *
+	 * @param dataOffset offset of the first section
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] buildHeader(long dataOffset) throws IOException {
+		ByteArrayOutputStream bytes=new ByteArrayOutputStream();
+		DataOutputStream header=new DataOutputStream(bytes);
+
+		header.writeInt(RegionalTreesBinaryFormat.MAGIC);
+		header.writeInt(RegionalTreesBinaryFormat.VERSION);
+		header.writeInt(this.store.getWindowSize());
+		header.writeInt(this.store.getTreeNum());
+		header.writeInt(this.store.getNodeNum());
+
+		List<String> labels=this.store.getLabelDictionary().getLabels();
+		header.writeInt(labels.size());
+		for(String label:labels) {
+			header.writeUTF(label);
+		}
+
+		header.writeInt(this.chromBlockMap.size());
+		for(String chrom:this.chromBlockMap.keySet()) {
+			header.writeUTF(chrom);
+			header.writeInt(this.chromBlockMap.get(chrom)[0]);
+			header.writeInt(this.chromBlockMap.get(chrom)[1]);
+		}
+
+		header.writeInt(Section.values().length);
+		long offset=dataOffset;
+		for(Section section:Section.values()) {
+			long length=section.getByteLength(this.store.getTreeNum(), this.store.getNodeNum());
+			header.writeUTF(section.getStringValue());
+			header.writeLong(offset);
+			header.writeLong(length);
+			offset+=length;
+		}
+
+		header.flush();
+		return bytes.toByteArray();
+	}
+
+	private void writeSection(DataOutputStream out, Section section) throws IOException {
+		switch(section) {
+		case TREE_TABLE:
+			int chromIndex=0;
+			int firstNode=0;
+			for(String chrom:this.chromBlockMap.keySet()) {
+				int[] block=this.chromBlockMap.get(chrom);
+				for(int row=block[0];row<block[0]+block[1];row++) {
+					RegionalTreeView view=this.sortedTreeViews.get(row);
+					out.writeInt(view.getID());
+					out.writeInt(chromIndex);
+					out.writeInt(view.getStart());
+					out.writeInt(view.getEnd());
+					out.writeInt(firstNode);
+					out.writeInt(view.getNodeNum());
+					firstNode+=view.getNodeNum();
+				}
+				chromIndex++;
+			}
+			break;
+		case ID_INDEX:
+			long[] idRows=new long[this.sortedTreeViews.size()];
+			for(int row=0;row<idRows.length;row++) {
+				idRows[row]=((long)this.sortedTreeViews.get(row).getID()<<32)|row;
+			}
+			Arrays.sort(idRows);
+			for(long idRow:idRows) {
+				out.writeInt((int)(idRow>>32));
+				out.writeInt((int)idRow);
+			}
+			break;
+		default:
+			for(RegionalTreeView view:this.sortedTreeViews) {
+				for(int node=0;node<view.getNodeNum();node++) {
+					this.writeNodeField(out, section, view, node);
+				}
+			}
+		}
+	}
+
+	private void writeNodeField(DataOutputStream out, Section section, RegionalTreeView view, int node) throws IOException {
+		switch(section) {
+		case PARENT_INDEX:
+			out.writeInt(view.getParent(node));
+			break;
+		case SUBTREE_NODE_NUM:
+			out.writeInt(view.getSubtreeNodeNum(node));
+			break;
+		case LABEL_INDEX:
+			out.writeInt(view.getLabelIndex(node));
+			break;
+		case DIST_TO_PARENT:
+			out.writeFloat(view.getDistToParent(node));
+			break;
+		case BOOTSTRAP:
+			out.writeFloat(view.getBootstrap(node));
+			break;
+		default:
+			throw new IllegalArgumentException("unrecognized node section:"+section);
+		}
+	}
+}
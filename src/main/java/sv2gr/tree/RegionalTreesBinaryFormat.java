@@ -0,0 +1,90 @@
+package sv2gr.tree;
+
+/**
+ * definition of the binary file format of regional trees written by {@link RegionalTreesBinaryFileWriter} and read by {@link RegionalTreesBinaryFileReader}
+ *
+ * the file contains the same information as the batch regional tree file read by {@link sv2gr.BatchRegionalTreeReader} (tree ID, region and tree),
+ * with the trees stored in the compact form of {@link CompactRegionalTreeStore}, so that a single tree can be located and built without parsing any other trees;
+ *
+ * layout of the file (all numbers are big-endian as written by {@link java.io.DataOutputStream}):
+ * 		1. header
+ * 			magic number {@link #MAGIC} (int), {@link #VERSION} (int), window size (int), number of trees (int), total number of nodes (int)
+ * 			sample dictionary (labels of nodes): number of entries (int) followed by the entries (modified UTF-8 as by {@link java.io.DataOutputStream#writeUTF(String)})
+ * 			chrom block index: number of chroms (int) followed by the name (modified UTF-8), the row of the first tree (int) and the number of trees (int) of each chrom
+ * 			number of sections (int) followed by the name (modified UTF-8), offset (long) and byte length (long) of each section in the order of {@link Section}
+ * 		2. data of each section
+ * 			trees are stored in rows sorted by chrom (in the order of the chrom block index) and then by start position, thus the trees of each chrom are in a consecutive block of rows;
+ * 			the tree table has one row per tree with the fields in {@link #TREE_TABLE_FIELD_NUM} ints;
+ * 			the ID index has one (ID, row) pair of ints per tree sorted by ID;
+ * 			the nodes of each tree are stored in pre-order in a consecutive range of each node section; see {@link CompactRegionalTreeStore} for the encoding of each node section;
+ *
+ * @author tanxu
+ *
+ */
+public final class RegionalTreesBinaryFormat {
+	/**
+	 * 'RTRB'
+	 */
+	public static final int MAGIC=0x52545242;
+	/**
+	 *
+	 */
+	public static final int VERSION=1;
+
+	/**
+	 * default file name of the binary file in the output directory
+	 */
+	public static final String FILE_NAME="regional.trees.bin";
+
+	/**
+	 * fields of each row of the tree table: ID, chrom index, start, end, index of the first node, number of nodes
+	 */
+	public static final int TREE_TABLE_FIELD_NUM=6;
+	static final int TREE_ID_FIELD=0;
+	static final int CHROM_INDEX_FIELD=1;
+	static final int START_FIELD=2;
+	static final int END_FIELD=3;
+	static final int FIRST_NODE_FIELD=4;
+	static final int NODE_NUM_FIELD=5;
+
+	private RegionalTreesBinaryFormat() {}
+
+	/**
+	 * sections of the binary file
+	 */
+	public static enum Section{
+		TREE_TABLE ("tree_table", Integer.BYTES*TREE_TABLE_FIELD_NUM, false),
+		ID_INDEX ("id_index", Integer.BYTES*2, false),
+		PARENT_INDEX ("parent_index", Integer.BYTES, true),
+		SUBTREE_NODE_NUM ("subtree_node_num", Integer.BYTES, true),
+		LABEL_INDEX ("label_index", Integer.BYTES, true),
+		DIST_TO_PARENT ("dist_to_parent", Float.BYTES, true),
+		BOOTSTRAP ("bootstrap", Float.BYTES, true);
+
+		private final String stringValue;
+		private final int byteWidth;
+		private final boolean perNode;
+
+		Section(String stringValue, int byteWidth, boolean perNode){
+			this.stringValue=stringValue;
+			this.byteWidth=byteWidth;
+			this.perNode=perNode;
+		}
+
+		/**
+		 * @return the section name
+		 */
+		public String getStringValue() {
+			return stringValue;
+		}
+
+		/**
+		 * @param treeNum
+		 * @param nodeNum
+		 * @return the byte length of this section
+		 */
+		public long getByteLength(int treeNum, int nodeNum) {
+			return (long)(this.perNode?nodeNum:treeNum)*this.byteWidth;
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package sv2gr.tree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import population.sv.utils.SimpleSVLocus;
+import population.utils.Genotype;
+
+/**
+ * compact table of the genotype and the in-subtree status of all covered {@link SimpleSVLocus}s of a {@link RegionalTree} on every {@link TreeNode} of its {@link Tree}
+ *
+ * the covered SVs are indexed by 0, 1, ..., n-1 following the order of the covered SV list;
+ * for each tree node, the state of all SVs are stored in bit planes of n bits packed into long words:
+ * 		1. two planes for the 2 bit code of the {@link Genotype} (the ordinal of the {@link Genotype})
+ * 		2. one plane for the null genotype (the child nodes have null or different genotypes, see {@link TreeNode#inferSVGenotypes()})
+ * 		3. one plane for whether the node is in the subtree for GR event inference of the SV (see {@link TreeNode#inferInSubTree()})
+ *
+ * thus the genotypes of all SVs of an internal node are inferred with word-parallel AND/OR of its child nodes' bit planes,
+ * rather than one map entry per SV per node;
+ *
+ * the map returned by {@link #getGenotypeMapView(TreeNode)} and {@link #getInSubTreeMapView(TreeNode)} are read-only views of this table,
+ * which are equivalent to the maps built by {@link TreeNode#inferSVGenotypes()} and {@link TreeNode#inferInSubTree()}
+ *
+ * @author tanxu
+ *
+ */
+public class SVGenotypeBitsetTable {
+	private static final Genotype[] GENOTYPES=Genotype.values();
+
+	/**
+	 *
+	 */
+	private final Tree tree;
+	/**
+	 * covered SVs of the regional tree; the index of each SV in this list is its index in the bit planes
+	 */
+	private final List<SimpleSVLocus> coveredSVLocusList;
+
+	////////////////////////////////
+	/**
+	 * map from the covered SV to its index
+	 */
+	private Map<SimpleSVLocus, Integer> svLocusIndexMap;
+	/**
+	 * number of long words of each bit plane of a tree node
+	 */
+	private int wordNum;
+	/**
+	 * mask of the valid bits of the last word of each bit plane
+	 */
+	private long lastWordMask;
+
+	/**
+	 * bit planes of all tree nodes; the bit plane of tree node with id i starts from i*{@link #wordNum}
+	 */
+	private long[] genotypeCodeBit0;
+	private long[] genotypeCodeBit1;
+	private long[] nullGenotype;
+	private long[] inSubTree;
+
+	/**
+	 *
+	 * @param tree
+	 * @param coveredSVLocusList
+	 */
+	public SVGenotypeBitsetTable(Tree tree, List<SimpleSVLocus> coveredSVLocusList) {
+		super();
+		this.tree = tree;
+		this.coveredSVLocusList = coveredSVLocusList;
+
+		////////////////////
+		this.prepare();
+	}
+
+	void prepare() {
+		this.svLocusIndexMap=new HashMap<>();
+		for(int i=0;i<this.coveredSVLocusList.size();i++) {
+			this.svLocusIndexMap.put(this.coveredSVLocusList.get(i), i);
+		}
+
+		this.wordNum=(this.coveredSVLocusList.size()+63)>>>6;
+		int remainder=this.coveredSVLocusList.size()&63;
+		this.lastWordMask=remainder==0?-1L:(1L<<remainder)-1;
+
+		int maxID=this.tree.getNodeTable().getMaxID();
+
+		int len=(maxID+1)*this.wordNum;
+		this.genotypeCodeBit0=new long[len];
+		this.genotypeCodeBit1=new long[len];
+		this.nullGenotype=new long[len];
+		this.inSubTree=new long[len];
+	}
+
+	/**
+	 * infer the genotype of every covered SV on every tree node with the same rules of {@link TreeNode#inferSVGenotypes()}
+	 *
+	 * for internal node, the genotype of a SV is null if any child node has null genotype or the child nodes have different genotype codes (the AND and OR of the code bits differ)
+	 * otherwise, it is the shared genotype code of all child nodes
+	 *
+	 * the sample index must be assigned to all leaf nodes before this method is invoked
+	 */
+	public void inferSVGenotypes() {
+		this.inferSVGenotypes(this.tree.getRootNode());
+	}
+
+	private void inferSVGenotypes(TreeNode node) {
+		int offset=node.getId()*this.wordNum;
+
+		if(node.isLeaf()) {
+			for(int i=0;i<this.coveredSVLocusList.size();i++) {
+				Genotype gt=this.coveredSVLocusList.get(i).getSampleIndexGenotypeMap().get(node.getSampleIndex());
+				int word=offset+(i>>>6);
+				long bit=1L<<(i&63);
+				if(gt==null) {
+					this.nullGenotype[word]|=bit;
+				}else {
+					int code=gt.ordinal();
+					if((code&1)!=0) {
+						this.genotypeCodeBit0[word]|=bit;
+					}
+					if((code&2)!=0) {
+						this.genotypeCodeBit1[word]|=bit;
+					}
+				}
+			}
+		}else {
+			for(TreeNode child:node.getChildNodeList()) {
+				this.inferSVGenotypes(child);
+			}
+
+			for(int w=0;w<this.wordNum;w++) {
+				long and0=-1L, or0=0, and1=-1L, or1=0, childNull=0;
+				for(TreeNode child:node.getChildNodeList()) {
+					int childWord=child.getId()*this.wordNum+w;
+					and0&=this.genotypeCodeBit0[childWord];
+					or0|=this.genotypeCodeBit0[childWord];
+					and1&=this.genotypeCodeBit1[childWord];
+					or1|=this.genotypeCodeBit1[childWord];
+					childNull|=this.nullGenotype[childWord];
+				}
+
+				long mask=w==this.wordNum-1?this.lastWordMask:-1L;
+				long isNull=(childNull|(and0^or0)|(and1^or1))&mask;
+
+				this.nullGenotype[offset+w]=isNull;
+				this.genotypeCodeBit0[offset+w]=and0&~isNull&mask;
+				this.genotypeCodeBit1[offset+w]=and1&~isNull&mask;
+			}
+		}
+	}
+
+	/**
+	 * infer whether every tree node is in the subtree of every covered SV with the same rules of {@link TreeNode#inferInSubTree()}
+	 *
+	 * 1. node with null genotype is included
+	 * 2. node with {@link Genotype#MISSING} genotype is not included
+	 * 3. otherwise, node is included only if its parent node's genotype is null or different from it
+	 *
+	 * must be invoked after {@link #inferSVGenotypes()}
+	 */
+	public void inferInSubTree() {
+		this.inferInSubTree(this.tree.getRootNode());
+	}
+
+	private void inferInSubTree(TreeNode node) {
+		int offset=node.getId()*this.wordNum;
+		int missingCode=Genotype.MISSING.ordinal();
+		long missingBit0=(missingCode&1)!=0?-1L:0;
+		long missingBit1=(missingCode&2)!=0?-1L:0;
+
+		for(int w=0;w<this.wordNum;w++) {
+			long mask=w==this.wordNum-1?this.lastWordMask:-1L;
+			long isNull=this.nullGenotype[offset+w];
+			long bit0=this.genotypeCodeBit0[offset+w];
+			long bit1=this.genotypeCodeBit1[offset+w];
+
+			long isMissing=~isNull & ~(bit0^missingBit0) & ~(bit1^missingBit1);
+
+			long sameAsParent;
+			if(node.getParent()==null) {
+				sameAsParent=0;
+			}else {
+				int parentWord=node.getParent().getId()*this.wordNum+w;
+				sameAsParent=~this.nullGenotype[parentWord]
+						& ~(bit0^this.genotypeCodeBit0[parentWord])
+						& ~(bit1^this.genotypeCodeBit1[parentWord]);
+			}
+
+			this.inSubTree[offset+w]=(isNull | (~isMissing & ~sameAsParent))&mask;
+		}
+
+		if(!node.isLeaf()) {
+			for(TreeNode child:node.getChildNodeList()) {
+				this.inferInSubTree(child);
+			}
+		}
+	}
+
+	////////////////////////////////
+	/**
+	 * @return the number of long words of the bit plane of each tree node
+	 */
+	public int getWordNum() {
+		return wordNum;
+	}
+	
+	/**
+	 * return the given word of the in-subtree bit plane of the given node
+	 * @param node
+	 * @param wordIndex
+	 * @return
+	 */
+	public long getInSubTreeWord(TreeNode node, int wordIndex) {
+		return this.inSubTree[node.getId()*this.wordNum+wordIndex];
+	}
+	
+	/**
+	 * return the given word of the bit plane of the given node whose bit is set if the genotype of the SV is the given non-null {@link Genotype}
+	 * @param node
+	 * @param wordIndex
+	 * @param gt
+	 * @return
+	 */
+	public long getGenotypeWord(TreeNode node, int wordIndex, Genotype gt) {
+		int word=node.getId()*this.wordNum+wordIndex;
+		int code=gt.ordinal();
+		long bit0=this.genotypeCodeBit0[word];
+		long bit1=this.genotypeCodeBit1[word];
+		
+		return ~this.nullGenotype[word] & ((code&1)!=0?bit0:~bit0) & ((code&2)!=0?bit1:~bit1) 
+				& (wordIndex==this.wordNum-1?this.lastWordMask:-1L);
+	}
+	
+	/**
+	 * @param sv
+	 * @return the index of the given SV; null if it is not covered
+	 */
+	public Integer getSVLocusIndex(SimpleSVLocus sv) {
+		return this.svLocusIndexMap.get(sv);
+	}
+
+	/**
+	 * @return the coveredSVLocusList
+	 */
+	public List<SimpleSVLocus> getCoveredSVLocusList() {
+		return coveredSVLocusList;
+	}
+
+	/**
+	 * return the genotype of the SV with the given index on the given node; null if the node's genotype is null
+	 * @param node
+	 * @param svIndex
+	 * @return
+	 */
+	public Genotype getGenotype(TreeNode node, int svIndex) {
+		int word=node.getId()*this.wordNum+(svIndex>>>6);
+		long bit=1L<<(svIndex&63);
+
+		if((this.nullGenotype[word]&bit)!=0) {
+			return null;
+		}
+
+		int code=((this.genotypeCodeBit0[word]&bit)!=0?1:0)|((this.genotypeCodeBit1[word]&bit)!=0?2:0);
+		return GENOTYPES[code];
+	}
+
+	/**
+	 * return whether the given node is in the subtree of the SV with the given index
+	 * @param node
+	 * @param svIndex
+	 * @return
+	 */
+	public boolean isInSubTree(TreeNode node, int svIndex) {
+		int word=node.getId()*this.wordNum+(svIndex>>>6);
+		return (this.inSubTree[word]&(1L<<(svIndex&63)))!=0;
+	}
+
+	/**
+	 * return a read-only map view from each covered SV to its genotype on the given node
+	 * @param node
+	 * @return
+	 */
+	public Map<SimpleSVLocus, Genotype> getGenotypeMapView(TreeNode node){
+		return new SVLocusMapView<Genotype>() {
+			@Override
+			Genotype valueOf(int svIndex) {
+				return getGenotype(node, svIndex);
+			}
+		};
+	}
+
+	/**
+	 * return a read-only map view from each covered SV to whether the given node is in its subtree
+	 * @param node
+	 * @return
+	 */
+	public Map<SimpleSVLocus, Boolean> getInSubTreeMapView(TreeNode node){
+		return new SVLocusMapView<Boolean>() {
+			@Override
+			Boolean valueOf(int svIndex) {
+				return isInSubTree(node, svIndex);
+			}
+		};
+	}
+
+	/**
+	 * read-only map with all covered SVs as keys in the order of {@link #coveredSVLocusList}
+	 */
+	private abstract class SVLocusMapView<V> extends AbstractMap<SimpleSVLocus, V>{
+
+		abstract V valueOf(int svIndex);
+
+		@Override
+		public V get(Object key) {
+			Integer index=svLocusIndexMap.get(key);
+			return index==null?null:this.valueOf(index);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return svLocusIndexMap.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return coveredSVLocusList.size();
+		}
+
+		@Override
+		public Set<Entry<SimpleSVLocus, V>> entrySet() {
+			return new AbstractSet<Entry<SimpleSVLocus, V>>() {
+				@Override
+				public Iterator<Entry<SimpleSVLocus, V>> iterator() {
+					return new Iterator<Entry<SimpleSVLocus, V>>() {
+						private int next=0;
+
+						@Override
+						public boolean hasNext() {
+							return this.next<coveredSVLocusList.size();
+						}
+
+						@Override
+						public Entry<SimpleSVLocus, V> next() {
+							int index=this.next++;
+							return new SimpleImmutableEntry<>(coveredSVLocusList.get(index), valueOf(index));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return coveredSVLocusList.size();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package sv2gr.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * dictionary of node labels (mostly sample names of leaf nodes) shared by all trees of a {@link CompactRegionalTreeStore}
+ *
+ * since all regional trees have the same set of samples, each label is stored only once and referred to by its index in the dictionary
+ *
+ * @author tanxu
+ *
+ */
+public final class SampleLabelDictionary {
+	/**
+	 * labels indexed from 0 in the order they are added
+	 */
+	private final List<String> labels;
+	/**
+	 *
+	 */
+	private final Map<String, Integer> labelIndexMap;
+
+
+	public SampleLabelDictionary() {
+		this.labels=new ArrayList<>();
+		this.labelIndexMap=new HashMap<>();
+	}
+
+	/**
+	 * build a dictionary with the given labels indexed in the given order, for example the sample names in the order of {@link population.popHierarchy.PopulationStructureFileReader#getSampleNameIndexMap()}
+	 * @param labels
+	 */
+	public SampleLabelDictionary(List<String> labels) {
+		this();
+		for(String label:labels) {
+			if(this.labelIndexMap.containsKey(label)) {
+				throw new IllegalArgumentException("duplicate label is found:"+label);
+			}
+			this.getOrAddIndex(label);
+		}
+	}
+
+	/**
+	 * @param label non-null
+	 * @return the index of the given label; the label is added if not in the dictionary yet
+	 */
+	public synchronized int getOrAddIndex(String label) {
+		Integer index=this.labelIndexMap.get(label);
+		if(index==null) {
+			index=this.labels.size();
+			this.labels.add(label);
+			this.labelIndexMap.put(label, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @param label
+	 * @return the index of the given label; -1 if not in the dictionary
+	 */
+	public synchronized int getIndex(String label) {
+		Integer index=this.labelIndexMap.get(label);
+		return index==null?-1:index;
+	}
+
+	/**
+	 * @param index
+	 * @return the label with the given index
+	 */
+	public synchronized String getLabel(int index) {
+		return this.labels.get(index);
+	}
+
+	/**
+	 * @return the number of labels
+	 */
+	public synchronized int size() {
+		return this.labels.size();
+	}
+
+	/**
+	 * @return unmodifiable copy of all labels in the order of their indices
+	 */
+	public synchronized List<String> getLabels(){
+		return Collections.unmodifiableList(new ArrayList<>(this.labels));
+	}
+}
@@ -0,0 +1,228 @@
+package sv2gr.tree;
+
+import java.util.Set;
+
+import population.sv.utils.SimpleSVLocus;
+import population.utils.Genotype;
+
+/**
+ * summary of the leaf nodes on the subtree of every covered {@link SimpleSVLocus} of a {@link RegionalTree} for GR event inference
+ *
+ * a tree node is a leaf node on the subtree of a SV if it is in the subtree and none of its child nodes is in the subtree;
+ * note that leaf nodes on the subtree may be internal nodes on the original tree
+ *
+ * all the summaries are built with a single depth-first traversal of the tree on the {@link SVGenotypeBitsetTable} for all SVs at once:
+ * 		1. when a node is entered (pre-order), the leaf nodes on the subtree of all SVs are found with its and its child nodes' in-subtree bit planes,
+ * 			then the number of leaf nodes of each genotype and the first leaf node of each genotype (in the same pre-order as {@link Tree#getNodeIDMap()}) are updated for each SV with a set bit;
+ * 		2. when a node is exited (post-order), whether it has a descendant node (itself inclusive) in the subtree with the {@link Genotype#ABSENCE} and {@link Genotype#PRESENCE} genotype
+ * 			is calculated for all SVs with its child nodes' bit planes, which is equivalent to {@link TreeNode#haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(SimpleSVLocus, Genotype)}
+ *
+ * thus the GR event inference of each SV only needs to touch the tree nodes on the inferred tree path
+ *
+ * @author tanxu
+ *
+ */
+public class SubTreeLeafNodeSummary {
+	/**
+	 *
+	 */
+	private final Tree tree;
+	/**
+	 *
+	 */
+	private final SVGenotypeBitsetTable svGenotypeBitsetTable;
+	/**
+	 * indices of all outgroup samples
+	 */
+	private final Set<Integer> outgroupSampleIndices;
+
+	//////////////////////////////////
+	private int wordNum;
+
+	/**
+	 * number of leaf nodes on the subtree with {@link Genotype#ABSENCE} and {@link Genotype#PRESENCE} genotype of each SV
+	 */
+	private int[] absenceLeafNodeNums;
+	private int[] presenceLeafNodeNums;
+
+	/**
+	 * number of leaf nodes on the subtree with {@link Genotype#ABSENCE} and {@link Genotype#PRESENCE} genotype of each SV that are counted as ingroup samples
+	 * see {@link RegionalTree#inferGREventForEachSV2(population.popHierarchy.PopulationStructureFileReader, boolean)}
+	 */
+	private int[] ingroupAbsenceLeafNodeNums;
+	private int[] ingroupPresenceLeafNodeNums;
+
+	/**
+	 * genotype of outgroup sample leaf node on the subtree of each SV; null if there is no such leaf node
+	 * if there are outgroup sample leaf nodes with both genotypes, it is {@link Genotype#PRESENCE}
+	 */
+	private Genotype[] outgroupSampleGenotypes;
+
+	/**
+	 * the first leaf node on the subtree with {@link Genotype#ABSENCE} and {@link Genotype#PRESENCE} genotype of each SV in pre-order
+	 */
+	private TreeNode[] firstAbsenceLeafNodes;
+	private TreeNode[] firstPresenceLeafNodes;
+
+	/**
+	 * bit planes of each tree node whether the node has a descendant node (itself inclusive) in subtree with the {@link Genotype#ABSENCE} and {@link Genotype#PRESENCE} genotype
+	 */
+	private long[] haveDescendantInSubTreeWithAbsence;
+	private long[] haveDescendantInSubTreeWithPresence;
+
+	/**
+	 *
+	 * @param tree
+	 * @param svGenotypeBitsetTable the table with the genotypes and in-subtree status of all SVs inferred
+	 * @param outgroupSampleIndices
+	 */
+	public SubTreeLeafNodeSummary(Tree tree, SVGenotypeBitsetTable svGenotypeBitsetTable, Set<Integer> outgroupSampleIndices) {
+		super();
+		this.tree = tree;
+		this.svGenotypeBitsetTable = svGenotypeBitsetTable;
+		this.outgroupSampleIndices = outgroupSampleIndices;
+
+		///////////////////
+		this.prepare();
+		this.summarize(this.tree.getRootNode());
+	}
+
+	void prepare() {
+		int svNum=this.svGenotypeBitsetTable.getCoveredSVLocusList().size();
+		this.wordNum=this.svGenotypeBitsetTable.getWordNum();
+
+		this.absenceLeafNodeNums=new int[svNum];
+		this.presenceLeafNodeNums=new int[svNum];
+		this.ingroupAbsenceLeafNodeNums=new int[svNum];
+		this.ingroupPresenceLeafNodeNums=new int[svNum];
+		this.outgroupSampleGenotypes=new Genotype[svNum];
+		this.firstAbsenceLeafNodes=new TreeNode[svNum];
+		this.firstPresenceLeafNodes=new TreeNode[svNum];
+
+		int maxID=this.tree.getNodeTable().getMaxID();
+		this.haveDescendantInSubTreeWithAbsence=new long[(maxID+1)*this.wordNum];
+		this.haveDescendantInSubTreeWithPresence=new long[(maxID+1)*this.wordNum];
+	}
+
+	private void summarize(TreeNode node) {
+		boolean outgroupSampleNode=node.getSampleIndex()!=null && this.outgroupSampleIndices.contains(node.getSampleIndex());
+
+		//pre-order: leaf nodes on subtree
+		for(int w=0;w<this.wordNum;w++) {
+			long childInSubTree=0;
+			for(TreeNode child:node.getChildNodeList()) {
+				childInSubTree|=this.svGenotypeBitsetTable.getInSubTreeWord(child, w);
+			}
+			long subTreeLeaf=this.svGenotypeBitsetTable.getInSubTreeWord(node, w)&~childInSubTree;
+
+			if(subTreeLeaf==0) {
+				continue;
+			}
+
+			long absence=subTreeLeaf&this.svGenotypeBitsetTable.getGenotypeWord(node, w, Genotype.ABSENCE);
+			while(absence!=0) {
+				int svIndex=(w<<6)+Long.numberOfTrailingZeros(absence);
+				absence&=absence-1;
+
+				this.absenceLeafNodeNums[svIndex]++;
+				if(this.firstAbsenceLeafNodes[svIndex]==null) {
+					this.firstAbsenceLeafNodes[svIndex]=node;
+				}
+				if(node.getParent()!=null) {//not root node
+					if(outgroupSampleNode) {
+						if(this.outgroupSampleGenotypes[svIndex]==null) {//outgroup sample leaf node with PRESENCE genotype takes priority
+							this.outgroupSampleGenotypes[svIndex]=Genotype.ABSENCE;
+						}
+					}else {
+						this.ingroupAbsenceLeafNodeNums[svIndex]++;
+					}
+				}
+			}
+
+			long presence=subTreeLeaf&this.svGenotypeBitsetTable.getGenotypeWord(node, w, Genotype.PRESENCE);
+			while(presence!=0) {
+				int svIndex=(w<<6)+Long.numberOfTrailingZeros(presence);
+				presence&=presence-1;
+
+				this.presenceLeafNodeNums[svIndex]++;
+				if(this.firstPresenceLeafNodes[svIndex]==null) {
+					this.firstPresenceLeafNodes[svIndex]=node;
+				}
+				if(outgroupSampleNode) {
+					this.outgroupSampleGenotypes[svIndex]=Genotype.PRESENCE;
+				}else {
+					this.ingroupPresenceLeafNodeNums[svIndex]++;
+				}
+			}
+		}
+
+		//
+		for(TreeNode child:node.getChildNodeList()) {
+			this.summarize(child);
+		}
+
+		//post-order: descendant nodes in subtree with given genotypes
+		int offset=node.getId()*this.wordNum;
+		for(int w=0;w<this.wordNum;w++) {
+			long childAbsence=0;
+			long childPresence=0;
+			for(TreeNode child:node.getChildNodeList()) {
+				childAbsence|=this.haveDescendantInSubTreeWithAbsence[child.getId()*this.wordNum+w];
+				childPresence|=this.haveDescendantInSubTreeWithPresence[child.getId()*this.wordNum+w];
+			}
+
+			long inSubTree=this.svGenotypeBitsetTable.getInSubTreeWord(node, w);
+			this.haveDescendantInSubTreeWithAbsence[offset+w]=inSubTree&(this.svGenotypeBitsetTable.getGenotypeWord(node, w, Genotype.ABSENCE)|childAbsence);
+			this.haveDescendantInSubTreeWithPresence[offset+w]=inSubTree&(this.svGenotypeBitsetTable.getGenotypeWord(node, w, Genotype.PRESENCE)|childPresence);
+		}
+	}
+
+	//////////////////////////////////
+	/**
+	 * @param svIndex
+	 * @param gt either {@link Genotype#ABSENCE} or {@link Genotype#PRESENCE}
+	 * @return the number of leaf nodes on the subtree of the SV with the given genotype
+	 */
+	public int getLeafNodeNum(int svIndex, Genotype gt) {
+		return gt==Genotype.ABSENCE?this.absenceLeafNodeNums[svIndex]:this.presenceLeafNodeNums[svIndex];
+	}
+
+	/**
+	 * note that for {@link Genotype#ABSENCE} genotype, the root node is not counted even if it is a leaf node on the subtree
+	 * @param svIndex
+	 * @param gt either {@link Genotype#ABSENCE} or {@link Genotype#PRESENCE}
+	 * @return the number of leaf nodes on the subtree of the SV with the given genotype that are not outgroup sample leaf node
+	 */
+	public int getIngroupLeafNodeNum(int svIndex, Genotype gt) {
+		return gt==Genotype.ABSENCE?this.ingroupAbsenceLeafNodeNums[svIndex]:this.ingroupPresenceLeafNodeNums[svIndex];
+	}
+
+	/**
+	 * @param svIndex
+	 * @return the genotype of the outgroup sample leaf node on the subtree of the SV; null if there is no such leaf node
+	 */
+	public Genotype getOutgroupSampleGenotype(int svIndex) {
+		return this.outgroupSampleGenotypes[svIndex];
+	}
+
+	/**
+	 * @param svIndex
+	 * @param gt either {@link Genotype#ABSENCE} or {@link Genotype#PRESENCE}
+	 * @return the first leaf node on the subtree of the SV with the given genotype in pre-order; null if there is no such node
+	 */
+	public TreeNode getFirstLeafNode(int svIndex, Genotype gt) {
+		return gt==Genotype.ABSENCE?this.firstAbsenceLeafNodes[svIndex]:this.firstPresenceLeafNodes[svIndex];
+	}
+
+	/**
+	 * equivalent to {@link TreeNode#haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(SimpleSVLocus, Genotype)}
+	 * @param node
+	 * @param svIndex
+	 * @param gt either {@link Genotype#ABSENCE} or {@link Genotype#PRESENCE}
+	 * @return
+	 */
+	public boolean haveDescendantNodeInSubTreeWithGivenGenotype(TreeNode node, int svIndex, Genotype gt) {
+		long[] planes=gt==Genotype.ABSENCE?this.haveDescendantInSubTreeWithAbsence:this.haveDescendantInSubTreeWithPresence;
+		return (planes[node.getId()*this.wordNum+(svIndex>>>6)]&(1L<<(svIndex&63)))!=0;
+	}
+}
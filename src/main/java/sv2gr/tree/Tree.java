@@ -5,14 +5,11 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import phylo.tree.reader.NewickFileFormatType;
-import phylo.tree.reader.SimpleNewickParserUtils;
 
 
 /**
@@ -22,13 +19,20 @@ import phylo.tree.reader.SimpleNewickParserUtils;
  *
  */
 public class Tree {
-	static int LEAF_INDEX;
 	///////////////////////
 	private TreeNode rootNode;
 	
 	/////////////////////////////
+	/**
+	 * next node id; all numbering state is kept by each tree so that trees can be built and processed in different threads concurrently
+	 */
 	private int counter;
 	
+	/**
+	 * next leaf index assigned by {@link #setAllLeafIndex()}
+	 */
+	private int leafIndexCounter;
+	
 	/**
 	 * 
 	 */
@@ -44,7 +48,20 @@ public class Tree {
 	 */
 	private double unitLength;
 	
-	private Integer totalLeafNum;
+	
+	/**
+	 * index for ancestor and LCA queries of the nodes of this tree; lazily built by {@link #getAncestorIndex()}
+	 */
+	private TreeAncestorIndex ancestorIndex;
+	
+	/**
+	 * array-backed table of all nodes of this tree; lazily built by {@link #getNodeTable()} and discarded by {@link #invalidateNodeTable()}
+	 */
+	private TreeNodeTable nodeTable;
+	/**
+	 * bitsets of the leaf samples of the clades of all nodes of this tree; lazily built by {@link #getCladeLeafBitsetTable()} and discarded by {@link #invalidateNodeTable()} or {@link #invalidateCladeLeafBitsetTable()}
+	 */
+	private CladeLeafBitsetTable cladeLeafBitsetTable;
 	
 	
 	Tree(){
@@ -123,8 +140,19 @@ public class Tree {
 		return ret;
 	}
 	
+	/**
+	 * 
+	 * @return
+	 */
+	int nextLeafIndex() {
+		int ret = leafIndexCounter;
+		leafIndexCounter++;
+		return ret;
+	}
+	
 	void setRootNode(TreeNode rootNode) {
 		this.rootNode = rootNode;
+		this.invalidateNodeTable();
 	}
 	
 	/**
@@ -145,6 +173,7 @@ public class Tree {
 	 */
 	public void reorderChildrenNodes(boolean increasingOrder) {
 		this.rootNode.reorderChildrenNodesByCladeSize(increasingOrder);
+		this.invalidateNodeTable();
 	}
 	
 	
@@ -152,7 +181,7 @@ public class Tree {
 	 * 
 	 */
 	void setAllLeafIndex() {
-		LEAF_INDEX=1;
+		this.leafIndexCounter=1;
 		
 		this.rootNode.setAllDescendantLeafIndex();
 	}
@@ -177,24 +206,16 @@ public class Tree {
 	void calculateLargestDistBetweenRootAndLeaf() {
 		this.longestRootLeafPathLength=0;
 		
-		for(int index:this.getNodeIDMap().keySet()) {
-			if(this.getNodeIDMap().get(index).getDistToRoot()>this.longestRootLeafPathLength) {
-				this.longestRootLeafPathLength=this.getNodeIDMap().get(index).getDistToRoot();
+		for(TreeNode node:this.getNodeTable().getPreOrderNodes()) {
+			if(node.getDistToRoot()>this.longestRootLeafPathLength) {
+				this.longestRootLeafPathLength=node.getDistToRoot();
 			}
 		}
 	}
 	
 	
 	public int getTotalLeafNum() {
-		if(this.totalLeafNum==null) {
-			this.totalLeafNum=0;
-			for(int index:this.getNodeIDMap().keySet()) {
-				if(this.getNodeIDMap().get(index).isLeaf()) {
-					this.totalLeafNum++;
-				}
-			}
-		}
-		return this.totalLeafNum;
+		return this.getNodeTable().getLeafNum();
 	}
 
 	
@@ -238,22 +259,45 @@ public class Tree {
 	 * @param type
 	 * @return
 	 */
-	public static Tree fromNewickString(String newickTreeStringFromFile, NewickFileFormatType type) {
+	public static Tree fromNewickString(CharSequence newickTreeStringFromFile, NewickFileFormatType type) {
 		Tree ret = new Tree();
-		TreeNode root = TreeNode.fromNewickTreeString(ret, SimpleNewickParserUtils.preprocessNewickStringFromFile(newickTreeStringFromFile), type, null);
+		TreeNode root = TreeNode.fromNewickTreeString(ret, newickTreeStringFromFile, type);
 		ret.setRootNode(root);
 		return ret;
 	}
 	
 	
+	/**
+	 * build the full newick tree string of this tree with the ending semicolon, which can be parsed by {@link #fromNewickString(CharSequence, NewickFileFormatType)} into the same tree;
+	 * 
+	 * the branch length and bootstrap of the root node are not written, since the root node of a parsed tree is always the virtual root node with branch length set to 0
+	 * 
+	 * @param type
+	 * @return
+	 */
+	public String toFullNewickString(NewickFileFormatType type) {
+		if(this.rootNode.getChildNodeList().isEmpty()) {
+			return this.rootNode.toNewickString(type).concat(";");
+		}
+		
+		StringBuilder sb=new StringBuilder("(");
+		for(int i=0;i<this.rootNode.getChildNodeList().size();i++) {
+			if(i>0) {
+				sb.append(",");
+			}
+			sb.append(this.rootNode.getChildNodeList().get(i).toNewickString(type));
+		}
+		return sb.append(");").toString();
+	}
+	
 	public static Tree fromNewickFile(Path singleTreeNewickFile, NewickFileFormatType type) {
 		
 		try {
 			BufferedReader lineReader = new BufferedReader(new FileReader(singleTreeNewickFile.toFile()));
 			String lineText = null;
-			String newickTreeString="";
+			StringBuilder newickTreeString=new StringBuilder();
 			while ((lineText = lineReader.readLine()) != null) {
-				newickTreeString=newickTreeString.concat(lineText);
+				newickTreeString.append(lineText);
 			}
 			
 			lineReader.close();
@@ -278,37 +322,88 @@ public class Tree {
 	}
 	
 	/**
-	 * return the nodes of this tree
+	 * return the {@link TreeAncestorIndex} of this tree, which is built at the first invocation
+	 * 
+	 * the index is discarded by {@link #invalidateNodeTable()} whenever the tree is restructured
 	 * @return
 	 */
-	public Map<Integer, TreeNode> getNodeIDMap(){
-		Map<Integer, TreeNode> ret = new LinkedHashMap<>();
-		
-		ret.put(this.rootNode.getId(), rootNode);
-		
-		ret.putAll(this.rootNode.getDescendantNodeIDMap());
-		
-		return ret;
+	public synchronized TreeAncestorIndex getAncestorIndex() {
+		if(this.ancestorIndex==null) {
+			this.ancestorIndex=new TreeAncestorIndex(this);
+		}
+		return this.ancestorIndex;
 	}
 	
 	/**
+	 * return the {@link TreeNodeTable} of this tree, which is built at the first invocation after the tree is built or restructured
 	 * 
 	 * @return
 	 */
-	public Map<String, TreeNode> getLeafLabelTreeNodeMap(){
-		Map<String, TreeNode> ret = new HashMap<>();
-		
-		Map<Integer, TreeNode> treeNodeIDMap = this.getNodeIDMap();
-		for(int id:treeNodeIDMap.keySet()) {
-			if(treeNodeIDMap.get(id).isLeaf()) {
-				if(ret.containsKey(treeNodeIDMap.get(id).getLabel())) {
-					throw new IllegalArgumentException("duplicate leaf label is found:"+treeNodeIDMap.get(id).getLabel());
+	public synchronized TreeNodeTable getNodeTable() {
+		if(this.nodeTable==null) {
+			this.nodeTable=new TreeNodeTable(this.rootNode);
+		}
+		return this.nodeTable;
+	}
+	
+	/**
+	 * discard the {@link TreeNodeTable} and {@link TreeAncestorIndex} of this tree so that they are rebuilt at the next invocation;
+	 * 
+	 * must be invoked whenever the tree is restructured (root node changed, child nodes added, removed or reordered)
+	 */
+	public synchronized void invalidateNodeTable() {
+		this.nodeTable=null;
+		this.ancestorIndex=null;
+		this.cladeLeafBitsetTable=null;
+	}
+	
+	/**
+	 * return the {@link CladeLeafBitsetTable} of this tree, which is built at the first invocation after the tree is built, restructured or the sample indices of leaf nodes are changed;
+	 * 
+	 * the bitsets are over the sample indices of leaf nodes, which must be assigned already (see {@link RegionalTree#assignSampleIndexToLeafNodes(java.util.Map)});
+	 * the number of samples of the table is the largest sample index of all leaf nodes plus one
+	 * @return
+	 */
+	public synchronized CladeLeafBitsetTable getCladeLeafBitsetTable() {
+		if(this.cladeLeafBitsetTable==null) {
+			int sampleNum=0;
+			for(TreeNode leaf:this.getNodeTable().getLeafNodes()) {
+				if(leaf.getSampleIndex()==null) {
+					throw new IllegalStateException("sample index is not assigned to leaf node "+leaf.getLabel());
 				}
-				ret.put(treeNodeIDMap.get(id).getLabel(), treeNodeIDMap.get(id));
+				sampleNum=Math.max(sampleNum, leaf.getSampleIndex()+1);
 			}
+			this.cladeLeafBitsetTable=new CladeLeafBitsetTable(this, sampleNum);
 		}
-		
-		return ret;
+		return this.cladeLeafBitsetTable;
+	}
+	
+	/**
+	 * discard the {@link CladeLeafBitsetTable} of this tree so that it is rebuilt at the next invocation;
+	 * 
+	 * invoked whenever the sample index of a leaf node is changed
+	 */
+	public synchronized void invalidateCladeLeafBitsetTable() {
+		this.cladeLeafBitsetTable=null;
+	}
+	
+	/**
+	 * return the nodes of this tree in pre-order (root node first)
+	 * 
+	 * the returned map is an unmodifiable view of the {@link TreeNodeTable}
+	 * @return
+	 */
+	public Map<Integer, TreeNode> getNodeIDMap(){
+		return this.getNodeTable().getNodeIDMap();
+	}
+	
+	/**
+	 * the returned map is an unmodifiable view of the {@link TreeNodeTable}
+	 * @return
+	 * @throws IllegalArgumentException if there are duplicate leaf labels
+	 */
+	public Map<String, TreeNode> getLeafLabelTreeNodeMap(){
+		return this.getNodeTable().getLeafLabelNodeMap();
 	}
 	
 	/**
@@ -0,0 +1,256 @@
+package sv2gr.tree;
+
+/**
+ * index of a {@link Tree} built with a single depth-first traversal to answer ancestor and lowest common ancestor (LCA) queries in O(1) time
+ *
+ * 1. every node is assigned a pre-order and a post-order number, thus node a is an ancestor of node b (itself inclusive)
+ * 		if and only if pre(a)<=pre(b) and post(b)<=post(a);
+ * 2. the Euler tour of the tree (each node is recorded when it is entered and after each of its child nodes is exited) is stored together with the first position of each node in the tour;
+ * 		the LCA of node a and b is the node with the smallest depth in the tour between the first positions of a and b,
+ * 		which is found with a sparse table of the node with smallest depth in every range of the tour of length 2^k;
+ *
+ * all arrays are indexed by {@link TreeNode#getId()}
+ *
+ * the index is built for the current structure of the tree, thus should be rebuilt if the tree is changed
+ *
+ * @author tanxu
+ *
+ */
+public class TreeAncestorIndex {
+	/**
+	 *
+	 */
+	private final Tree tree;
+
+	//////////////////////////////////
+	/**
+	 * all nodes of the tree indexed by id
+	 */
+	private TreeNode[] nodes;
+
+	/**
+	 *
+	 */
+	private int[] preOrderNums;
+	private int[] postOrderNums;
+	/**
+	 * number of edges from the root node to each node
+	 */
+	private int[] depths;
+	/**
+	 * number of nodes in the clade of each node, itself inclusive
+	 */
+	private int[] cladeNodeNums;
+
+	/**
+	 * node ids of the Euler tour
+	 */
+	private int[] eulerTour;
+	/**
+	 * first position of each node in {@link #eulerTour}
+	 */
+	private int[] firstEulerTourPositions;
+	/**
+	 * the k-th row contains the node id with the smallest depth in {@link #eulerTour} in each range [i, i+2^k)
+	 */
+	private int[][] sparseTable;
+
+	//////////
+	private int nextPreOrderNum;
+	private int nextPostOrderNum;
+	private int nextEulerTourPosition;
+
+
+	/**
+	 *
+	 * @param tree
+	 */
+	public TreeAncestorIndex(Tree tree) {
+		super();
+		this.tree = tree;
+
+		///////////////////
+		this.prepare();
+		this.traverse(this.tree.getRootNode(), 0);
+		this.buildSparseTable();
+	}
+
+
+	void prepare() {
+		TreeNodeTable nodeTable=this.tree.getNodeTable();
+		int maxID=nodeTable.getMaxID();
+
+		this.nodes=new TreeNode[maxID+1];
+		this.preOrderNums=new int[maxID+1];
+		this.postOrderNums=new int[maxID+1];
+		this.depths=new int[maxID+1];
+		this.cladeNodeNums=new int[maxID+1];
+		this.firstEulerTourPositions=new int[maxID+1];
+		this.eulerTour=new int[2*nodeTable.getNodeNum()-1];
+
+		this.nextPreOrderNum=0;
+		this.nextPostOrderNum=0;
+		this.nextEulerTourPosition=0;
+	}
+
+	/**
+	 *
+	 * @param node
+	 * @param depth
+	 */
+	private void traverse(TreeNode node, int depth) {
+		int id=node.getId();
+		this.nodes[id]=node;
+		this.depths[id]=depth;
+		this.preOrderNums[id]=this.nextPreOrderNum++;
+
+		this.firstEulerTourPositions[id]=this.nextEulerTourPosition;
+		this.eulerTour[this.nextEulerTourPosition++]=id;
+
+		for(TreeNode child:node.getChildNodeList()) {
+			this.traverse(child, depth+1);
+			this.eulerTour[this.nextEulerTourPosition++]=id;
+		}
+
+		this.postOrderNums[id]=this.nextPostOrderNum++;
+		this.cladeNodeNums[id]=this.nextPreOrderNum-this.preOrderNums[id];
+	}
+
+
+	void buildSparseTable() {
+		int levelNum=1;
+		while((1<<levelNum)<=this.eulerTour.length) {
+			levelNum++;
+		}
+
+		this.sparseTable=new int[levelNum][];
+		this.sparseTable[0]=this.eulerTour;
+		for(int k=1;k<levelNum;k++) {
+			int[] previous=this.sparseTable[k-1];
+			int half=1<<(k-1);
+			int[] current=new int[this.eulerTour.length-(1<<k)+1];
+			for(int i=0;i<current.length;i++) {
+				current[i]=this.shallower(previous[i], previous[i+half]);
+			}
+			this.sparseTable[k]=current;
+		}
+	}
+
+	/**
+	 * @return the one of the two given node ids with smaller depth
+	 */
+	private int shallower(int id1, int id2) {
+		return this.depths[id1]<=this.depths[id2]?id1:id2;
+	}
+
+
+	//////////////////////////////////
+	/**
+	 * return whether node a is an ancestor of node b or a is b
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public boolean isAncestor(TreeNode a, TreeNode b) {
+		return this.preOrderNums[a.getId()]<=this.preOrderNums[b.getId()] && this.postOrderNums[b.getId()]<=this.postOrderNums[a.getId()];
+	}
+
+	/**
+	 * return whether node a is an ancestor of node b and a is not b
+	 *
+	 * equivalent to b.getAllAncestralNodes().contains(a)
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public boolean isStrictAncestor(TreeNode a, TreeNode b) {
+		return this.preOrderNums[a.getId()]<this.preOrderNums[b.getId()] && this.postOrderNums[b.getId()]<this.postOrderNums[a.getId()];
+	}
+
+	/**
+	 * return the lowest common ancestor of the two given nodes, which is the node itself if one node is the ancestor of the other one
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public TreeNode getLowestCommonAncestor(TreeNode a, TreeNode b) {
+		int from=this.firstEulerTourPositions[a.getId()];
+		int to=this.firstEulerTourPositions[b.getId()];
+		if(from>to) {
+			int tmp=from;
+			from=to;
+			to=tmp;
+		}
+
+		int k=31-Integer.numberOfLeadingZeros(to-from+1);
+
+		return this.nodes[this.shallower(this.sparseTable[k][from], this.sparseTable[k][to-(1<<k)+1])];
+	}
+
+	/**
+	 * return the ancestor of the given node (itself inclusive) with the given depth
+	 *
+	 * @param node
+	 * @param depth must be in [0, depth of node]
+	 * @return
+	 */
+	public TreeNode getAncestorWithDepth(TreeNode node, int depth) {
+		if(depth<0 || depth>this.getDepth(node)) {
+			throw new IllegalArgumentException("given depth is out of the range of the ancestors of the node!");
+		}
+
+		TreeNode ret=node;
+		for(int i=this.getDepth(node);i>depth;i--) {
+			ret=ret.getParent();
+		}
+		return ret;
+	}
+
+	/**
+	 * @param node
+	 * @return the number of edges from the root node to the given node
+	 */
+	public int getDepth(TreeNode node) {
+		return this.depths[node.getId()];
+	}
+
+	/**
+	 * @param node
+	 * @return the pre-order number of the given node in [0, node num)
+	 */
+	public int getPreOrderNum(TreeNode node) {
+		return this.preOrderNums[node.getId()];
+	}
+
+	/**
+	 * @param node
+	 * @return the post-order number of the given node in [0, node num)
+	 */
+	public int getPostOrderNum(TreeNode node) {
+		return this.postOrderNums[node.getId()];
+	}
+
+	/**
+	 * the descendant nodes of the given node (itself inclusive) are exactly the nodes with pre-order number in [{@link #getPreOrderNum(TreeNode)}, {@link #getLastPreOrderNumInClade(TreeNode)}]
+	 * @param node
+	 * @return the largest pre-order number of the clade of the given node
+	 */
+	public int getLastPreOrderNumInClade(TreeNode node) {
+		return this.preOrderNums[node.getId()]+this.cladeNodeNums[node.getId()]-1;
+	}
+
+	/**
+	 * @param id
+	 * @return the node with the given id; null if no such node
+	 */
+	public TreeNode getNode(int id) {
+		return id>=0 && id<this.nodes.length?this.nodes[id]:null;
+	}
+
+	/**
+	 * @return the largest node id of the tree
+	 */
+	public int getMaxID() {
+		return this.nodes.length-1;
+	}
+}
@@ -15,6 +15,7 @@ import basic.Pair;
 import basic.Triple;
 import phylo.tree.reader.NewickFileFormatType;
 import phylo.tree.reader.SimpleNewickParserUtils;
+import phylo.tree.reader.SimpleNewickTreeParser;
 import population.sv.utils.SimpleSVLocus;
 import population.utils.Genotype;
 
@@ -71,6 +72,13 @@ public class TreeNode {
 	 */
 	private Map<SimpleSVLocus, Boolean> svLocusNodeInSubTreeMap;
 	
+	/**
+	 * the compact table of the genotype and in-subtree status of all covered SVs of the regional tree of this node
+	 * if not null and {@link #svLocusGenotypeMap} and {@link #svLocusNodeInSubTreeMap} are not built, 
+	 * {@link #getSvLocusGenotypeMap()} and {@link #getSvLocusNodeInSubTreeMap()} return views of this table
+	 */
+	private SVGenotypeBitsetTable svGenotypeBitsetTable;
+	
 	
 	////////////////
 	TreeNode(Tree tree, TreeNode parent){
@@ -95,6 +103,14 @@ public class TreeNode {
 		this.coveredSVLocusList = coveredSVLocusList;
 	}
 	
+	/**
+	 * set the compact genotype table of the covered SVs of the regional tree of this node
+	 * @param svGenotypeBitsetTable the svGenotypeBitsetTable to set
+	 */
+	public void setSVGenotypeBitsetTable(SVGenotypeBitsetTable svGenotypeBitsetTable) {
+		this.svGenotypeBitsetTable = svGenotypeBitsetTable;
+	}
+	
 	/**
 	 * set the sample index of this leaf node;
 	 * 
@@ -106,6 +122,7 @@ public class TreeNode {
 			throw new UnsupportedOperationException("tree node is not leaf!!!");
 		}
 		this.sampleIndex=index;
+		this.tree.invalidateCladeLeafBitsetTable();
 	}
 	
 	
@@ -137,6 +154,9 @@ public class TreeNode {
 	 * @return the svLocusGenotypeMap
 	 */
 	public Map<SimpleSVLocus, Genotype> getSvLocusGenotypeMap() {
+		if(this.svLocusGenotypeMap==null && this.svGenotypeBitsetTable!=null) {
+			return this.svGenotypeBitsetTable.getGenotypeMapView(this);
+		}
 		return svLocusGenotypeMap;
 	}
 	
@@ -239,6 +259,9 @@ public class TreeNode {
 	 * @return the svLocusNodeInSubTreeMap
 	 */
 	public Map<SimpleSVLocus, Boolean> getSvLocusNodeInSubTreeMap() {
+		if(this.svLocusNodeInSubTreeMap==null && this.svGenotypeBitsetTable!=null) {
+			return this.svGenotypeBitsetTable.getInSubTreeMapView(this);
+		}
 		return svLocusNodeInSubTreeMap;
 	}
 
@@ -315,8 +338,7 @@ public class TreeNode {
 	 */
 	public void setAllDescendantLeafIndex() {
 		if(this.isLeaf()) {
-			this.leafIndex = Tree.LEAF_INDEX;
-			Tree.LEAF_INDEX++;
+			this.leafIndex = this.tree.nextLeafIndex();
 		}else {
 			for(TreeNode child:this.childNodeList) {
 				child.setAllDescendantLeafIndex();
@@ -417,6 +439,25 @@ public class TreeNode {
 		return this.allDescandentLeafNodes;
 	}
 	
+	/**
+	 * return the bitset over the sample indices of all descendant leaf nodes of this node from the {@link CladeLeafBitsetTable} of the tree
+	 * 
+	 * @return
+	 */
+	public long[] getCladeLeafSampleBitset() {
+		return this.tree.getCladeLeafBitsetTable().getBitset(this);
+	}
+	
+	/**
+	 * check if the leaf node of the given sample is a descendant leaf node of this node with the {@link CladeLeafBitsetTable} of the tree
+	 * 
+	 * @param sampleIndex
+	 * @return
+	 */
+	public boolean containsSampleInClade(int sampleIndex) {
+		return this.tree.getCladeLeafBitsetTable().contains(this, sampleIndex);
+	}
+	
 	/**
 	 * all ancestral nodes of this one on the path from this node to the root node
 	 */
@@ -473,6 +514,17 @@ public class TreeNode {
 	public Set<TreeNode> getDescendantNodesWithAverageDistToAllLeafNodesLessThan(double dist){
 		Set<TreeNode> ret = new HashSet<>();
 		
+		this.addDescendantNodesWithAverageDistToAllLeafNodesLessThan(dist, ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * add to the given set rather than merging the sets of all child nodes
+	 * @param dist
+	 * @param ret
+	 */
+	private void addDescendantNodesWithAverageDistToAllLeafNodesLessThan(double dist, Set<TreeNode> ret) {
 		if(this.isLeaf()) {
 			ret.add(this);
 		}else {
@@ -480,12 +532,10 @@ public class TreeNode {
 				if(child.getAverageDistToAllDescendantLeafNodes()<dist) {
 					ret.add(child);
 				}else {
-					ret.addAll(child.getDescendantNodesWithAverageDistToAllLeafNodesLessThan(dist));
+					child.addDescendantNodesWithAverageDistToAllLeafNodesLessThan(dist, ret);
 				}
 			}
 		}
-		
-		return ret;
 	}
 	
 	/**
@@ -495,16 +545,24 @@ public class TreeNode {
 	public Set<TreeNode> getAllDescendantNodes(){
 		Set<TreeNode> ret = new HashSet<>();
 		
+		this.addAllDescendantNodes(ret);
+		
+		return ret;
+	}
+	
+	/**
+	 * add to the given set rather than merging the sets of all child nodes
+	 * @param ret
+	 */
+	private void addAllDescendantNodes(Set<TreeNode> ret) {
 		if(this.isLeaf()) {
 			ret.add(this);
 		}else {
 			for(TreeNode child:this.childNodeList) {
 				ret.add(child);
-				ret.addAll(child.getAllDescendantNodes());
+				child.addAllDescendantNodes(ret);
 			}
 		}
-		
-		return ret;
 	}
 	
 	/**
@@ -515,6 +573,10 @@ public class TreeNode {
 	 * @return
 	 */
 	public boolean haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(SimpleSVLocus sv, Genotype gt) {
+		if(this.svLocusNodeInSubTreeMap==null && this.svGenotypeBitsetTable!=null) {
+			return this.haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(this.svGenotypeBitsetTable.getSVLocusIndex(sv), gt);
+		}
+		
 		if(this.svLocusNodeInSubTreeMap.get(sv)) {//this node is in subtree for the given sv
 			if(Objects.equal(this.svLocusGenotypeMap.get(sv), gt)) {//this node has the same genotype as the given one
 				return true;
@@ -532,8 +594,68 @@ public class TreeNode {
 		}
 	}
 	
+	/**
+	 * same as {@link #haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(SimpleSVLocus, Genotype)} with the SV given by its index in the {@link #svGenotypeBitsetTable}
+	 * 
+	 * @param svIndex
+	 * @param gt
+	 * @return
+	 */
+	public boolean haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(int svIndex, Genotype gt) {
+		if(this.svGenotypeBitsetTable.isInSubTree(this, svIndex)) {//this node is in subtree for the given sv
+			if(Objects.equal(this.svGenotypeBitsetTable.getGenotype(this, svIndex), gt)) {//this node has the same genotype as the given one
+				return true;
+			}else {//check child node recursively
+				for(TreeNode child:this.childNodeList) {
+					if(child.haveDescendantNodeInSubTreeWithGivenGenotypeForGivenSV(svIndex, gt)) {
+						return true;
+					}
+				}
+				
+				return false;
+			}
+		}else {//this node is not in subtree for the given sv
+			return false;
+		}
+	}
+	
 	/////////////////////////////////////////////////////////
 	
+	/**
+	 * build all nodes of the given tree from the given newick tree string with a single pass by {@link SimpleNewickTreeParser};
+	 * 
+	 * the nodes and their ids, labels, branch lengths and bootstraps are the same as {@link #fromNewickTreeString(Tree, String, NewickFileFormatType, TreeNode)} 
+	 * with the newick tree string preprocessed by {@link SimpleNewickParserUtils#preprocessNewickStringFromFile(String)}
+	 * 
+	 * @param tree
+	 * @param newickTreeString the full newick tree string, with or without the ending semicolon
+	 * @param type
+	 * @return the root node
+	 */
+	static TreeNode fromNewickTreeString(Tree tree, CharSequence newickTreeString, NewickFileFormatType type) {
+		return SimpleNewickTreeParser.parse(newickTreeString, type, new SimpleNewickTreeParser.NodeBuilder<TreeNode>() {
+			@Override
+			public TreeNode newNode(TreeNode parent) {
+				return new TreeNode(tree, parent);
+			}
+			
+			@Override
+			public void finishNode(TreeNode node, String label, Double distToParent, Double bootstrap, List<TreeNode> childNodeList) {
+				node.label=label;
+				node.distToParent=distToParent==null?0:distToParent;
+				node.bootstrap=bootstrap;
+				if(childNodeList.isEmpty()) {
+					node.bootstrap=1d; //leaf node's branch to parent node is always 100% bootstrapped!!!!
+				}
+				///the branch from child node of root node to root node should always have bootstrap = 1!!!!!!!!!!
+				if(node.getParent()!=null && node.getParent().getParent()==null) {
+					node.bootstrap=1d;
+				}
+				node.childNodeList=childNodeList;
+			}
+		});
+	}
+	
 	/**
 	 * 
 	 * @param newickTreeString
@@ -686,10 +808,12 @@ public class TreeNode {
 	
 
 	/**
+	 * the node table of the tree is invalidated since the tree is restructured
 	 * @param childNodeList the childNodeList to set
 	 */
 	public void setChildNodeList(List<TreeNode> childNodeList) {
 		this.childNodeList = childNodeList;
+		this.tree.invalidateNodeTable();
 	}
 
 